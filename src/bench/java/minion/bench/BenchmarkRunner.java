@@ -0,0 +1,179 @@
+package minion.bench;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.ref.Reference;
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+
+/**
+ * Runs micro-benchmarks with a warm-up phase followed by a timed measurement phase.
+ * Each operation is timed on its own so that untimed setup can run between operations,
+ * and the bytes allocated by the benchmarking thread are tracked per operation.
+ * It can also measure the heap a result keeps alive, such as a loaded task list.
+ */
+public class BenchmarkRunner {
+
+    /** The thread bean used to read per-thread allocation counters, or null if unsupported. */
+    private static final com.sun.management.ThreadMXBean THREADS = getThreadBean();
+
+    /** How long each benchmark is run before measuring starts, in nanoseconds. */
+    private final long warmupNanos;
+    /** How long each benchmark is measured for, in nanoseconds. */
+    private final long measureNanos;
+    /** Where results are reported. */
+    private final PrintStream out;
+
+    /**
+     * Initializes a runner.
+     *
+     * @param warmupMillis  How long to warm up each benchmark, in milliseconds.
+     * @param measureMillis How long to measure each benchmark, in milliseconds.
+     * @param out           Where results are reported.
+     */
+    public BenchmarkRunner(long warmupMillis, long measureMillis, PrintStream out) {
+        this.warmupNanos = warmupMillis * 1_000_000;
+        this.measureNanos = measureMillis * 1_000_000;
+        this.out = out;
+    }
+
+    /**
+     * Prints the header of the results table.
+     */
+    public void printHeader() {
+        out.printf("%-28s %10s %10s %14s %14s %14s%n",
+                "benchmark", "tasks", "ops", "avg ns/op", "p99 ns/op", "alloc B/op");
+    }
+
+    /**
+     * Warms up and measures a benchmark, then prints one row of results.
+     * At least one operation is always measured, however long it takes.
+     *
+     * @param name      The name of the benchmark.
+     * @param taskCount The number of tasks the benchmark works on.
+     * @param setup     Untimed work run before every operation.
+     * @param operation The timed operation.
+     * @throws Exception If the setup or the operation fails.
+     */
+    public void run(String name, int taskCount, Operation setup, Operation operation) throws Exception {
+        long warmupEnd = System.nanoTime() + warmupNanos;
+        while (System.nanoTime() < warmupEnd) {
+            setup.run();
+            operation.run();
+        }
+
+        long[] samples = new long[1024];
+        int count = 0;
+        long allocated = 0;
+        long measureEnd = System.nanoTime() + measureNanos;
+        do {
+            setup.run();
+            long allocatedBefore = getAllocatedBytes();
+            long start = System.nanoTime();
+            operation.run();
+            long elapsed = System.nanoTime() - start;
+            allocated += getAllocatedBytes() - allocatedBefore;
+
+            if (count == samples.length) {
+                samples = Arrays.copyOf(samples, count * 2);
+            }
+            samples[count++] = elapsed;
+        } while (System.nanoTime() < measureEnd);
+
+        Arrays.sort(samples, 0, count);
+        long total = 0;
+        for (int i = 0; i < count; i++) {
+            total += samples[i];
+        }
+        long p99 = samples[Math.min(count - 1, (int) Math.ceil(count * 0.99) - 1)];
+        String allocation = (THREADS == null) ? "n/a" : String.valueOf(allocated / count);
+        out.printf("%-28s %10d %10d %14d %14d %14s%n", name, taskCount, count, total / count, p99, allocation);
+    }
+
+    /**
+     * Measures how much heap the result of an operation keeps alive, then prints one row of results
+     * with the retained bytes per task in the last column.
+     * The heap is collected before and after the operation, so only what the result still refers to is counted.
+     *
+     * @param name      The name of the measurement.
+     * @param taskCount The number of tasks the result holds.
+     * @param operation The operation whose result is measured.
+     * @throws Exception If the operation fails.
+     */
+    public void measureRetained(String name, int taskCount, Callable<?> operation) throws Exception {
+        long before = getUsedHeap();
+        Object result = operation.call();
+        long retained = getUsedHeap() - before;
+        Reference.reachabilityFence(result);
+        out.printf("%-28s %10d %10d %14s %14s %14d%n", name, taskCount, 1, "-", "-", retained / Math.max(taskCount, 1));
+    }
+
+    /**
+     * Returns the heap in use after collecting everything unreachable.
+     *
+     * @return The used heap in bytes.
+     */
+    private static long getUsedHeap() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        long used = Long.MAX_VALUE;
+        // Collect until the figure stops shrinking, as one collection may not free everything
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            long now = memory.getHeapMemoryUsage().getUsed();
+            if (now >= used) {
+                break;
+            }
+            used = now;
+        }
+        return used;
+    }
+
+    /**
+     * Returns the number of bytes allocated so far by the current thread.
+     *
+     * @return The allocated bytes, or 0 if the JVM cannot report them.
+     */
+    private static long getAllocatedBytes() {
+        return (THREADS == null) ? 0 : THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * Returns the JVM's thread bean if it can report per-thread allocation.
+     *
+     * @return The thread bean, or null if allocation tracking is unavailable.
+     */
+    private static com.sun.management.ThreadMXBean getThreadBean() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+            if (threads.isThreadAllocatedMemorySupported()) {
+                threads.setThreadAllocatedMemoryEnabled(true);
+                return threads;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Represents a piece of benchmarked or setup work.
+     */
+    @FunctionalInterface
+    public interface Operation {
+        /**
+         * Performs the work.
+         *
+         * @throws Exception If the work fails.
+         */
+        void run() throws Exception;
+
+        /**
+         * Returns an operation that does nothing, for benchmarks without setup.
+         *
+         * @return An empty operation.
+         */
+        static Operation none() {
+            return () -> { };
+        }
+    }
+}
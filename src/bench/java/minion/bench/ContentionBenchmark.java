@@ -0,0 +1,327 @@
+package minion.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+import minion.task.ConcurrentTaskList;
+import minion.task.Task;
+import minion.task.TaskList;
+import minion.task.TaskView;
+
+/**
+ * Measures how task list throughput scales as more threads share one list.
+ * Every thread runs the same mix of operations as a busy session: mostly reading single tasks,
+ * some marking and unmarking, keyword searches and pages of a sorted view, some listing, and a few
+ * adds and deletes. The concurrent list is compared with a plain TaskList guarded by one lock,
+ * which is what sharing it would otherwise need.
+ *
+ * <p>Compile as described in {@link MinionBenchmark}, then run, for example:
+ * <pre>
+ * java -cp bin minion.bench.ContentionBenchmark 1 2 4 8
+ * </pre>
+ * Arguments are the thread counts to run with (1, 2, 4 and 8 by default).
+ */
+public class ContentionBenchmark {
+
+    /** The thread counts run when none are given. */
+    private static final int[] DEFAULT_THREADS = {1, 2, 4, 8};
+    /** The number of tasks in the shared list. */
+    private static final int TASK_COUNT = 10_000;
+    /** How long each configuration is warmed up, in milliseconds. */
+    private static final long WARMUP_MILLIS = 1_000;
+    /** How long each configuration is measured, in milliseconds. */
+    private static final long MEASURE_MILLIS = 2_000;
+    /** The keywords searched for, each found in a few percent of the generated tasks. */
+    private static final String[] KEYWORDS = {"st2334", "dentist", "resume", "lab sheet"};
+    /** The number of tasks on each page of a view. */
+    private static final int PAGE_SIZE = 20;
+
+    /**
+     * Runs the benchmark for both lists at every thread count.
+     *
+     * @param args The thread counts to run with.
+     * @throws InterruptedException If interrupted while waiting for the workers.
+     */
+    public static void main(String[] args) throws InterruptedException {
+        List<Integer> threadCounts = new ArrayList<>();
+        for (String arg : args) {
+            threadCounts.add(Integer.parseInt(arg));
+        }
+        if (threadCounts.isEmpty()) {
+            for (int threads : DEFAULT_THREADS) {
+                threadCounts.add(threads);
+            }
+        }
+
+        System.out.printf("%-12s %8s %16s %10s%n", "list", "threads", "ops/s", "scaling");
+        for (String kind : new String[] {"locked", "concurrent"}) {
+            double baseline = 0;
+            for (int threads : threadCounts) {
+                double throughput = measure(kind, threads);
+                if (baseline == 0) {
+                    baseline = throughput;
+                }
+                System.out.printf("%-12s %8d %16.0f %9.2fx%n", kind, threads, throughput, throughput / baseline);
+            }
+        }
+    }
+
+    /**
+     * Warms up and measures one list with the given number of threads.
+     *
+     * @param kind    Either "locked" or "concurrent".
+     * @param threads The number of threads sharing the list.
+     * @return The total operations per second across all threads.
+     * @throws InterruptedException If interrupted while waiting for the workers.
+     */
+    private static double measure(String kind, int threads) throws InterruptedException {
+        SharedList list = kind.equals("locked") ? new LockedList() : new ConcurrentList();
+        TaskGenerator generator = new TaskGenerator(threads);
+        for (Task task : generator.generateTasks(TASK_COUNT)) {
+            list.add(task);
+        }
+        run(list, threads, WARMUP_MILLIS, generator);
+        return run(list, threads, MEASURE_MILLIS, generator) * 1000.0 / MEASURE_MILLIS;
+    }
+
+    /**
+     * Runs the operation mix on several threads for a fixed time.
+     *
+     * @param list      The shared list.
+     * @param threads   The number of threads.
+     * @param millis    How long to run, in milliseconds.
+     * @param generator The source of tasks to add; only used while holding its lock.
+     * @return The total number of operations completed.
+     * @throws InterruptedException If interrupted while waiting for the workers.
+     */
+    private static long run(SharedList list, int threads, long millis, TaskGenerator generator)
+            throws InterruptedException {
+        LongAdder operations = new LongAdder();
+        AtomicBoolean isRunning = new AtomicBoolean(true);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                long count = 0;
+                while (isRunning.get()) {
+                    runOperation(list, random, generator);
+                    count++;
+                }
+                operations.add(count);
+            });
+            workers.add(worker);
+            worker.start();
+        }
+
+        start.countDown();
+        Thread.sleep(millis);
+        isRunning.set(false);
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        return operations.sum();
+    }
+
+    /**
+     * Runs one randomly chosen operation: 75% single reads, 10% mark or unmark, 5% keyword searches,
+     * 5% pages of a sorted view, 1% full listings, and 2% each adds and deletes, which keeps the size stable.
+     *
+     * @param list      The shared list.
+     * @param random    The calling thread's source of randomness.
+     * @param generator The source of tasks to add.
+     */
+    private static void runOperation(SharedList list, ThreadLocalRandom random, TaskGenerator generator) {
+        int roll = random.nextInt(100);
+        if (roll < 75) {
+            list.read(random.nextInt(TASK_COUNT / 2));
+        } else if (roll < 85) {
+            list.toggle(random.nextInt(TASK_COUNT / 2));
+        } else if (roll < 90) {
+            list.search(KEYWORDS[random.nextInt(KEYWORDS.length)]);
+        } else if (roll < 95) {
+            list.page(random.nextInt(TASK_COUNT / 2));
+        } else if (roll < 96) {
+            list.countDone();
+        } else if (roll < 98) {
+            Task task;
+            synchronized (generator) {
+                task = generator.generateTask();
+            }
+            list.add(task);
+        } else {
+            list.deleteNear(TASK_COUNT, random.nextInt(TASK_COUNT / 2, TASK_COUNT));
+        }
+    }
+
+    /**
+     * Represents the operations the benchmark performs on a shared list.
+     */
+    private interface SharedList {
+        /**
+         * Reads the task at a position.
+         *
+         * @param index The zero-based position, always inside the list.
+         */
+        void read(int index);
+
+        /**
+         * Flips the completion status of the task at a position.
+         *
+         * @param index The zero-based position, always inside the list.
+         */
+        void toggle(int index);
+
+        /**
+         * Walks the whole list as a listing would.
+         */
+        void countDone();
+
+        /**
+         * Searches the descriptions for a keyword.
+         *
+         * @param keyword The keyword.
+         */
+        void search(String keyword);
+
+        /**
+         * Reads a page of the tasks sorted by due date.
+         *
+         * @param from The zero-based position in the view of the page's first task.
+         */
+        void page(int from);
+
+        /**
+         * Appends a task.
+         *
+         * @param task The task to append.
+         */
+        void add(Task task);
+
+        /**
+         * Deletes the task at a position if the list has grown past the given size.
+         *
+         * @param minimumSize The size the list is kept at.
+         * @param index       The zero-based position to delete.
+         */
+        void deleteNear(int minimumSize, int index);
+    }
+
+    /**
+     * Represents a plain TaskList shared behind a single lock.
+     */
+    private static class LockedList implements SharedList {
+        /** The shared list, also used as the lock. */
+        private final TaskList tasks = new TaskList();
+
+        @Override
+        public synchronized void read(int index) {
+            tasks.getTask(index).getStatusIcon();
+        }
+
+        @Override
+        public synchronized void toggle(int index) {
+            Task task = tasks.getTask(index);
+            if (!tasks.markTask(task, true)) {
+                tasks.markTask(task, false);
+            }
+        }
+
+        @Override
+        public synchronized void countDone() {
+            int done = 0;
+            for (Task task : tasks.getAllTasks()) {
+                done += task.getStatusIcon().equals("X") ? 1 : 0;
+            }
+        }
+
+        @Override
+        public synchronized void search(String keyword) {
+            tasks.findTasks(keyword);
+        }
+
+        @Override
+        public synchronized void page(int from) {
+            tasks.getViewTasks(TaskView.BY_DUE, from, PAGE_SIZE);
+        }
+
+        @Override
+        public synchronized void add(Task task) {
+            tasks.addTask(task);
+        }
+
+        @Override
+        public synchronized void deleteNear(int minimumSize, int index) {
+            if (tasks.getSize() > minimumSize) {
+                tasks.deleteTask(Math.min(index, tasks.getSize() - 1));
+            }
+        }
+    }
+
+    /**
+     * Represents a ConcurrentTaskList shared without any extra locking.
+     */
+    private static class ConcurrentList implements SharedList {
+        /** The shared list. */
+        private final ConcurrentTaskList tasks = new ConcurrentTaskList();
+
+        @Override
+        public void read(int index) {
+            tasks.getTask(index).getStatusIcon();
+        }
+
+        @Override
+        public void toggle(int index) {
+            // By ID, so a task another thread has just deleted is left alone
+            long[] id = {tasks.getTask(index).getId()};
+            List<Task> changed = tasks.markTasksById(id, true);
+            if (changed != null && changed.isEmpty()) {
+                tasks.markTasksById(id, false);
+            }
+        }
+
+        @Override
+        public void countDone() {
+            int done = 0;
+            for (Task task : tasks.getAllTasks()) {
+                done += task.getStatusIcon().equals("X") ? 1 : 0;
+            }
+        }
+
+        @Override
+        public void search(String keyword) {
+            tasks.findTasks(keyword);
+        }
+
+        @Override
+        public void page(int from) {
+            tasks.getViewTasks(TaskView.BY_DUE, from, PAGE_SIZE);
+        }
+
+        @Override
+        public void add(Task task) {
+            tasks.addTask(task);
+        }
+
+        @Override
+        public void deleteNear(int minimumSize, int index) {
+            List<Task> snapshot = tasks.getAllTasks();
+            if (snapshot.size() > minimumSize) {
+                try {
+                    tasks.deleteTask(Math.min(index, snapshot.size() - 1));
+                } catch (IndexOutOfBoundsException e) {
+                    // Another thread deleted first; the list is back at its size anyway
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package minion.bench;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import minion.responses.MinionResponses;
+
+/**
+ * Drives a running Minion server with many clients and reports commands per second and latency.
+ * Active clients each send a realistic mix of commands back to back and time every reply;
+ * idle clients connect, read the greeting and then stay silent, to show what idle sessions cost.
+ *
+ * <p>Start a server with {@code java -cp bin minion.Minion --server 2103}, then run, for example:
+ * <pre>
+ * java -cp bin minion.bench.LoadGenerator --port 2103 --clients 16 --idle 2000 --seconds 10
+ * </pre>
+ */
+public class LoadGenerator {
+
+    /** The number of active clients when none is given. */
+    private static final int DEFAULT_CLIENTS = 8;
+    /** How long the clients send commands when no duration is given, in seconds. */
+    private static final int DEFAULT_SECONDS = 10;
+
+    /**
+     * Connects the clients, runs the load and prints the results.
+     *
+     * @param args {@code --host}, {@code --port}, {@code --clients}, {@code --idle} and {@code --seconds}.
+     * @throws Exception If a client cannot connect or is interrupted.
+     */
+    public static void main(String[] args) throws Exception {
+        String host = "127.0.0.1";
+        int port = 2103;
+        int clients = DEFAULT_CLIENTS;
+        int idle = 0;
+        int seconds = DEFAULT_SECONDS;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+            case "--host":
+                host = args[i + 1];
+                break;
+            case "--port":
+                port = Integer.parseInt(args[i + 1]);
+                break;
+            case "--clients":
+                clients = Integer.parseInt(args[i + 1]);
+                break;
+            case "--idle":
+                idle = Integer.parseInt(args[i + 1]);
+                break;
+            case "--seconds":
+                seconds = Integer.parseInt(args[i + 1]);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+
+        List<Socket> idleSockets = new ArrayList<>();
+        for (int i = 0; i < idle; i++) {
+            Socket socket = new Socket(host, port);
+            readReply(new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8)));
+            idleSockets.add(socket);
+        }
+
+        long end = System.nanoTime() + seconds * 1_000_000_000L;
+        List<Client> active = new ArrayList<>();
+        for (int i = 0; i < clients; i++) {
+            Client client = new Client(new Socket(host, port), i, end);
+            active.add(client);
+            client.start();
+        }
+
+        long[] latencies = new long[0];
+        for (Client client : active) {
+            client.join();
+            if (client.failure != null) {
+                throw client.failure;
+            }
+            int previous = latencies.length;
+            latencies = Arrays.copyOf(latencies, previous + client.count);
+            System.arraycopy(client.latencies, 0, latencies, previous, client.count);
+        }
+        for (Socket socket : idleSockets) {
+            socket.close();
+        }
+
+        Arrays.sort(latencies);
+        System.out.printf("clients %d active, %d idle, %d s%n", clients, idle, seconds);
+        System.out.printf("commands     %d%n", latencies.length);
+        System.out.printf("commands/s   %.0f%n", latencies.length / (double) seconds);
+        System.out.printf("p50 latency  %.3f ms%n", percentile(latencies, 0.50) / 1e6);
+        System.out.printf("p99 latency  %.3f ms%n", percentile(latencies, 0.99) / 1e6);
+        System.out.printf("max latency  %.3f ms%n", latencies.length == 0 ? 0 : latencies[latencies.length - 1] / 1e6);
+    }
+
+    /**
+     * Reads one reply, which ends with the second line break of its framing.
+     *
+     * @param in The connection to read from.
+     * @throws IOException If the connection fails or closes mid-reply.
+     */
+    private static void readReply(BufferedReader in) throws IOException {
+        int lineBreaks = 0;
+        while (lineBreaks < 2) {
+            String line = in.readLine();
+            if (line == null) {
+                throw new IOException("Server closed the connection");
+            }
+            if (line.equals(MinionResponses.LINE_BREAK)) {
+                lineBreaks++;
+            }
+        }
+    }
+
+    /**
+     * Returns the value below which the given fraction of sorted samples fall.
+     *
+     * @param sorted   The samples in ascending order.
+     * @param fraction The fraction, between 0 and 1.
+     * @return The percentile, or 0 if there are no samples.
+     */
+    private static long percentile(long[] sorted, double fraction) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(sorted.length * fraction) - 1)];
+    }
+
+    /**
+     * Represents one active client sending commands until the end time.
+     */
+    private static class Client extends Thread {
+        /** The connection to the server. */
+        private final Socket socket;
+        /** The source of commands. */
+        private final TaskGenerator generator;
+        /** The source of command choices and task numbers. */
+        private final Random random;
+        /** When to stop sending, as a System.nanoTime value. */
+        private final long end;
+        /** The latency of each command, in nanoseconds. */
+        private long[] latencies = new long[1024];
+        /** The number of commands sent. */
+        private int count;
+        /** The error that stopped the client, or null. */
+        private IOException failure;
+
+        /**
+         * Initializes a client.
+         *
+         * @param socket The connection to the server.
+         * @param seed   The seed for the client's commands.
+         * @param end    When to stop sending, as a System.nanoTime value.
+         */
+        private Client(Socket socket, long seed, long end) {
+            super("load-client-" + seed);
+            this.socket = socket;
+            this.generator = new TaskGenerator(seed);
+            this.random = new Random(seed);
+            this.end = end;
+        }
+
+        /**
+         * Sends commands and times their replies until the end time, then says bye.
+         */
+        @Override
+        public void run() {
+            try (Socket connection = socket) {
+                BufferedReader in = new BufferedReader(
+                        new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8));
+                Writer out = new PrintWriter(connection.getOutputStream(), false, StandardCharsets.UTF_8);
+                readReply(in);
+                while (System.nanoTime() < end) {
+                    String command = nextCommand();
+                    long start = System.nanoTime();
+                    out.write(command + "\n");
+                    out.flush();
+                    readReply(in);
+                    record(System.nanoTime() - start);
+                }
+                out.write("bye\n");
+                out.flush();
+                readReply(in);
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+
+        /**
+         * Picks the next command: 30% todo, 10% deadline, 30% find, 20% mark or unmark, 10% delete.
+         * Task numbers are drawn from the first hundred, so some commands are rejected as they would be
+         * for real users racing each other.
+         *
+         * @return The command line.
+         */
+        private String nextCommand() {
+            int roll = random.nextInt(10);
+            int index = 1 + random.nextInt(100);
+            if (roll < 3) {
+                return generator.generateTodoCommand();
+            } else if (roll < 4) {
+                return generator.generateDeadlineCommand();
+            } else if (roll < 7) {
+                return "find " + generator.generateDescription().split(" ")[1];
+            } else if (roll < 9) {
+                return (random.nextBoolean() ? "mark " : "unmark ") + index;
+            } else {
+                return "delete " + index;
+            }
+        }
+
+        /**
+         * Records the latency of one command.
+         *
+         * @param nanos The latency in nanoseconds.
+         */
+        private void record(long nanos) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = nanos;
+        }
+    }
+}
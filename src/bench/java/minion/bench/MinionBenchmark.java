@@ -0,0 +1,352 @@
+package minion.bench;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import minion.bench.BenchmarkRunner.Operation;
+import minion.parser.Parser;
+import minion.storage.Storage;
+import minion.task.Task;
+import minion.task.TaskList;
+import minion.task.TaskView;
+import minion.task.Todo;
+import minion.ui.Ui;
+
+/**
+ * Benchmarks the hot paths of the chatbot at several task counts:
+ * every command through {@code Parser.parse}, {@code TaskList.findTasks}, {@code Ui.showTaskList},
+ * {@code Storage.load} and {@code Storage.save}, and the heap a loaded task list takes per task.
+ *
+ * <p>Compile and run from the project root with, for example:
+ * <pre>
+ * javac -d bin $(find src/main/java src/bench/java -name "*.java")
+ * java -Xmx4g -cp bin minion.bench.MinionBenchmark 10 1000 100000 1000000
+ * </pre>
+ * Arguments are the task counts to run at (10, 1,000, 100,000 and 1,000,000 by default).
+ * An argument of the form {@code --filter=NAME} only runs benchmarks whose name contains NAME.
+ */
+public class MinionBenchmark {
+
+    /** The task counts benchmarked when none are given. */
+    private static final int[] DEFAULT_SIZES = {10, 1_000, 100_000, 1_000_000};
+    /** How long each benchmark is warmed up, in milliseconds. */
+    private static final long WARMUP_MILLIS = 1_000;
+    /** How long each benchmark is measured, in milliseconds. */
+    private static final long MEASURE_MILLIS = 2_000;
+    /** The seed used for every generated task list. */
+    private static final long SEED = 2103;
+
+    /** Runs each benchmark and reports its results. */
+    private final BenchmarkRunner runner;
+    /** Only benchmarks whose name contains this text are run. */
+    private final String filter;
+    /** The folder holding the data files written by storage benchmarks. */
+    private final Path workDir;
+    /** The console, kept so results can still be printed while Ui output is discarded. */
+    private final PrintStream console;
+
+    /**
+     * Initializes the benchmark suite.
+     *
+     * @param filter  Only benchmarks whose name contains this text are run.
+     * @param workDir The folder for temporary data files.
+     * @param console Where results are reported.
+     */
+    private MinionBenchmark(String filter, Path workDir, PrintStream console) {
+        this.runner = new BenchmarkRunner(WARMUP_MILLIS, MEASURE_MILLIS, console);
+        this.filter = filter;
+        this.workDir = workDir;
+        this.console = console;
+    }
+
+    /**
+     * Runs the benchmark suite.
+     *
+     * @param args The task counts to benchmark at, and optionally {@code --filter=NAME}.
+     * @throws Exception If a benchmark fails.
+     */
+    public static void main(String[] args) throws Exception {
+        String filter = "";
+        List<Integer> sizes = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.startsWith("--filter=")) {
+                filter = arg.substring("--filter=".length());
+            } else {
+                sizes.add(Integer.parseInt(arg));
+            }
+        }
+        if (sizes.isEmpty()) {
+            for (int size : DEFAULT_SIZES) {
+                sizes.add(size);
+            }
+        }
+
+        PrintStream console = System.out;
+        Path workDir = Files.createTempDirectory("minion-bench");
+        // Every command prints through Ui; discard that output so it is not part of the measurement
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            MinionBenchmark benchmark = new MinionBenchmark(filter, workDir, console);
+            benchmark.runner.printHeader();
+            for (int size : sizes) {
+                benchmark.runAll(size);
+            }
+        } finally {
+            System.setOut(console);
+            deleteRecursively(workDir);
+        }
+    }
+
+    /**
+     * Runs every benchmark at one task count.
+     *
+     * @param size The number of tasks in the list.
+     * @throws Exception If a benchmark fails.
+     */
+    private void runAll(int size) throws Exception {
+        TaskGenerator generator = new TaskGenerator(SEED);
+        ArrayList<Task> generated = generator.generateTasks(size);
+        TaskList tasks = new TaskList(new ArrayList<>(generated));
+        Ui ui = new Ui();
+        Path dataFile = workDir.resolve("minion-" + size + ".txt");
+        Storage storage = new Storage(dataFile.toString());
+        storage.save(tasks.getAllTasks());
+
+        benchmarkParser(size, tasks, ui, storage, generator);
+        benchmarkDispatch(size, tasks, ui);
+        benchmarkBulk(size, generator, ui);
+        benchmarkQueries(size, tasks, ui);
+        benchmarkStorage(size, tasks, dataFile);
+        console.flush();
+    }
+
+    /**
+     * Benchmarks every command through Parser.parse, including the save each mutation triggers.
+     * Added tasks are removed again in untimed setup so the list keeps its size.
+     *
+     * @param size      The number of tasks in the list.
+     * @param tasks     The list the commands run against.
+     * @param ui        The Ui the commands print through.
+     * @param storage   The Storage the commands save through.
+     * @param generator The source of command arguments.
+     * @throws Exception If a benchmark fails.
+     */
+    private void benchmarkParser(int size, TaskList tasks, Ui ui, Storage storage, TaskGenerator generator)
+            throws Exception {
+        Operation restoreSize = () -> {
+            while (tasks.getSize() > size) {
+                tasks.deleteTask(tasks.getSize() - 1);
+            }
+        };
+
+        String[] todo = new String[1];
+        run("parse.todo", size, () -> {
+            restoreSize.run();
+            todo[0] = generator.generateTodoCommand();
+        }, () -> Parser.parse(todo[0], tasks, ui, storage));
+
+        String[] deadline = new String[1];
+        run("parse.deadline", size, () -> {
+            restoreSize.run();
+            deadline[0] = generator.generateDeadlineCommand();
+        }, () -> Parser.parse(deadline[0], tasks, ui, storage));
+
+        String[] event = new String[1];
+        run("parse.event", size, () -> {
+            restoreSize.run();
+            event[0] = generator.generateEventCommand();
+        }, () -> Parser.parse(event[0], tasks, ui, storage));
+        restoreSize.run();
+
+        String middle = String.valueOf(size / 2 + 1);
+        Task middleTask = tasks.getTask(size / 2);
+        run("parse.mark", size, () -> middleTask.setDone(false),
+                () -> Parser.parse("mark " + middle, tasks, ui, storage));
+        run("parse.unmark", size, () -> middleTask.setDone(true),
+                () -> Parser.parse("unmark " + middle, tasks, ui, storage));
+        run("parse.delete", size, () -> {
+            if (tasks.getSize() < size) {
+                tasks.addTask(generator.generateTask());
+            }
+        }, () -> Parser.parse("delete " + tasks.getSize(), tasks, ui, storage));
+        while (tasks.getSize() < size) {
+            tasks.addTask(generator.generateTask());
+        }
+
+        run("parse.find", size, Operation.none(), () -> Parser.parse("find report", tasks, ui, storage));
+        run("parse.query", size, Operation.none(),
+                () -> Parser.parse("query type:D done:false due<2026-12-01 text:report", tasks, ui, storage));
+        run("parse.list", size, Operation.none(), () -> Parser.parse("list", tasks, ui, storage));
+    }
+
+    /**
+     * Benchmarks the cost of reading and dispatching commands, with saving deferred so
+     * that no time is spent on the disk.
+     *
+     * @param size  The number of tasks in the list.
+     * @param tasks The list the commands run against.
+     * @param ui    The Ui the commands print through.
+     * @throws Exception If a benchmark fails.
+     */
+    private void benchmarkDispatch(int size, TaskList tasks, Ui ui) throws Exception {
+        Storage storage = new Storage(workDir.resolve("dispatch-" + size + ".txt").toString());
+        storage.setDeferred(true);
+        Task first = tasks.getTask(0);
+        run("dispatch.mark", size, () -> first.setDone(false), () -> Parser.parse("mark 1", tasks, ui, storage));
+        run("dispatch.unmark", size, () -> first.setDone(true), () -> Parser.parse("Unmark 1", tasks, ui, storage));
+        run("dispatch.list.page", size, Operation.none(),
+                () -> Parser.parse("list --page 1 --size 1", tasks, ui, storage));
+        Operation refill = () -> {
+            while (tasks.getSize() < size) {
+                tasks.addTask(new Todo("read report"));
+            }
+        };
+        String middle = "delete " + (size / 2 + 1);
+        run("dispatch.delete", size, refill, () -> Parser.parse(middle, tasks, ui, storage));
+        refill.run();
+
+        Operation restoreSize = () -> {
+            while (tasks.getSize() > size) {
+                tasks.deleteTask(tasks.getSize() - 1);
+            }
+        };
+        run("dispatch.deadline", size, restoreSize,
+                () -> Parser.parse("deadline submit report /by 2026-04-01 23:59", tasks, ui, storage));
+        run("dispatch.deadline.text", size, restoreSize,
+                () -> Parser.parse("deadline submit report /by end of week", tasks, ui, storage));
+        run("dispatch.event", size, restoreSize,
+                () -> Parser.parse("event exam /from 2026-04-01 09:00 /to 2026-04-01 11:00", tasks, ui, storage));
+        restoreSize.run();
+    }
+
+    /**
+     * Benchmarks clearing half of a list with one bulk delete, against deleting the same tasks one
+     * command at a time, each saving the whole file as the default storage mode does.
+     *
+     * @param size      The number of tasks in the list.
+     * @param generator The source of tasks to refill the list with.
+     * @param ui        The Ui the commands print through.
+     * @throws Exception If a benchmark fails.
+     */
+    private void benchmarkBulk(int size, TaskGenerator generator, Ui ui) throws Exception {
+        TaskList tasks = new TaskList(generator.generateTasks(size));
+        Storage storage = new Storage(workDir.resolve("bulk-" + size + ".txt").toString());
+        Operation refill = () -> {
+            while (tasks.getSize() < size) {
+                tasks.addTask(generator.generateTask());
+            }
+        };
+        String range = "delete 1-" + (size / 2);
+        run("bulk.delete.range", size, refill, () -> Parser.parse(range, tasks, ui, storage));
+        run("bulk.delete.oneByOne", size, refill, () -> {
+            for (int i = 0; i < size / 2; i++) {
+                Parser.parse("delete 1", tasks, ui, storage);
+            }
+        });
+        run("bulk.mark.range", size, () -> {
+            refill.run();
+            for (Task task : tasks.getAllTasks()) {
+                task.setDone(false);
+            }
+        }, () -> Parser.parse("mark 1-" + size, tasks, ui, storage));
+    }
+
+    /**
+     * Benchmarks the read-only paths below the parser.
+     *
+     * @param size  The number of tasks in the list.
+     * @param tasks The list to query.
+     * @param ui    The Ui to render through.
+     * @throws Exception If a benchmark fails.
+     */
+    private void benchmarkQueries(int size, TaskList tasks, Ui ui) throws Exception {
+        run("tasklist.find.common", size, Operation.none(), () -> tasks.findTasks("report"));
+        run("tasklist.find.rare", size, Operation.none(), () -> tasks.findTasks("banana bread recipe cs2040"));
+        run("tasklist.find.missing", size, Operation.none(), () -> tasks.findTasks("quarterly"));
+        run("tasklist.find.fuzzy", size, Operation.none(), () -> tasks.findFuzzy("reprot", 10));
+        run("tasklist.find.fuzzy.words", size, Operation.none(), () -> tasks.findFuzzy("reveiw reprot", 10));
+        run("tasklist.view.page", size, Operation.none(), () -> tasks.getViewTasks(TaskView.BY_DUE, size / 4, 20));
+        Operation restoreSize = () -> {
+            while (tasks.getSize() < size) {
+                tasks.addTask(new Todo("restored task"));
+            }
+        };
+        run("tasklist.delete.first", size, restoreSize, () -> tasks.deleteTask(0));
+        run("tasklist.delete.middle", size, restoreSize, () -> tasks.deleteTask(size / 2));
+        run("ui.showTaskList", size, Operation.none(), () -> ui.showTaskList(tasks));
+        // Setting each task's status to what it already is drops its cached rendering
+        run("ui.showTaskList.uncached", size, () -> {
+            for (Task task : tasks.getAllTasks()) {
+                task.setDone(task.getStatusIcon().equals("X"));
+            }
+        }, () -> ui.showTaskList(tasks));
+    }
+
+    /**
+     * Benchmarks loading and saving the whole list, and journaling a single mark with and without
+     * syncing it to the disk.
+     *
+     * @param size     The number of tasks in the list.
+     * @param tasks    The list to save.
+     * @param dataFile The data file to load from and save to.
+     * @throws Exception If a benchmark fails.
+     */
+    private void benchmarkStorage(int size, TaskList tasks, Path dataFile) throws Exception {
+        Storage storage = new Storage(dataFile.toString());
+        run("storage.save", size, Operation.none(), () -> storage.save(tasks.getAllTasks()));
+        run("storage.load", size, Operation.none(), storage::load);
+        if ("heap.retained".contains(filter)) {
+            runner.measureRetained("heap.retained", size, () -> new Storage(dataFile.toString()).load());
+        }
+
+        for (boolean isDurable : new boolean[] {false, true}) {
+            String name = isDurable ? "storage.journal.mark.durable" : "storage.journal.mark";
+            if (!name.contains(filter)) {
+                continue;
+            }
+            Storage journaled = new Storage(workDir.resolve(name + "-" + size + ".txt").toString());
+            journaled.setJournaled(true);
+            journaled.setDurable(isDurable);
+            journaled.save(tasks.getAllTasks());
+            run(name, size, Operation.none(), () -> journaled.saveMarked(tasks.getAllTasks(), tasks.getTask(0), true));
+            journaled.close();
+        }
+    }
+
+    /**
+     * Runs a benchmark unless it is excluded by the filter.
+     *
+     * @param name      The name of the benchmark.
+     * @param size      The number of tasks it works on.
+     * @param setup     Untimed work run before every operation.
+     * @param operation The timed operation.
+     * @throws Exception If the benchmark fails.
+     */
+    private void run(String name, int size, Operation setup, Operation operation) throws Exception {
+        if (name.contains(filter)) {
+            runner.run(name, size, setup, operation);
+        }
+    }
+
+    /**
+     * Deletes a folder and everything in it.
+     *
+     * @param dir The folder to delete.
+     * @throws IOException If a file cannot be deleted.
+     */
+    private static void deleteRecursively(Path dir) throws IOException {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(path);
+            }
+        }
+    }
+
+}
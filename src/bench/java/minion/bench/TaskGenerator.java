@@ -0,0 +1,167 @@
+package minion.bench;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Random;
+
+import minion.task.Deadline;
+import minion.task.Event;
+import minion.task.Task;
+import minion.task.Todo;
+
+/**
+ * Generates synthetic, realistic-looking tasks and commands for benchmarks.
+ * The mix is half todos, three tenths deadlines and one fifth events, with a fifth of all
+ * tasks marked as done. The same seed always produces the same tasks.
+ */
+public class TaskGenerator {
+
+    /** Verbs that start each description. */
+    private static final String[] VERBS = {
+        "read", "write", "submit", "review", "finish", "call", "buy", "plan", "email", "fix",
+        "prepare", "update", "clean", "book", "return", "practise", "study", "draft", "pay", "check"
+    };
+    /** Nouns that follow the verb in each description. */
+    private static final String[] NOUNS = {
+        "report", "book", "assignment", "slides", "tutorial", "lecture notes", "project proposal",
+        "phone bill", "groceries", "dentist", "lab sheet", "quiz", "essay", "pull request", "budget",
+        "meeting minutes", "presentation", "timetable", "resume", "banana bread recipe"
+    };
+    /** Module codes that are sometimes appended to a description. */
+    private static final String[] MODULES = {"CS2103", "CS2101", "MA1521", "GEA1000", "ST2334", "CS2040"};
+    /** The first day generated dates may fall on. */
+    private static final LocalDate START = LocalDate.of(2026, 1, 1);
+
+    /** The source of randomness for every generated value. */
+    private final Random random;
+
+    /**
+     * Initializes a generator with a fixed seed.
+     *
+     * @param seed The seed that decides every generated value.
+     */
+    public TaskGenerator(long seed) {
+        this.random = new Random(seed);
+    }
+
+    /**
+     * Generates a list of tasks in the standard mix.
+     *
+     * @param count The number of tasks to generate.
+     * @return A new list of tasks.
+     */
+    public ArrayList<Task> generateTasks(int count) {
+        ArrayList<Task> tasks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            tasks.add(generateTask());
+        }
+        return tasks;
+    }
+
+    /**
+     * Generates a single task in the standard mix.
+     *
+     * @return A new Todo, Deadline or Event.
+     */
+    public Task generateTask() {
+        int kind = random.nextInt(10);
+        Task task;
+        if (kind < 5) {
+            task = new Todo(generateDescription());
+        } else if (kind < 8) {
+            task = generateDeadline();
+        } else {
+            task = generateEvent();
+        }
+        if (random.nextInt(5) == 0) {
+            task.setDone(true);
+        }
+        return task;
+    }
+
+    /**
+     * Generates a description such as "submit project proposal CS2103".
+     *
+     * @return A new description.
+     */
+    public String generateDescription() {
+        String description = VERBS[random.nextInt(VERBS.length)] + " " + NOUNS[random.nextInt(NOUNS.length)];
+        if (random.nextBoolean()) {
+            description += " " + MODULES[random.nextInt(MODULES.length)];
+        }
+        return description;
+    }
+
+    /**
+     * Generates the user input that would add a todo.
+     *
+     * @return A todo command.
+     */
+    public String generateTodoCommand() {
+        return "todo " + generateDescription();
+    }
+
+    /**
+     * Generates the user input that would add a deadline with a date and time.
+     *
+     * @return A deadline command.
+     */
+    public String generateDeadlineCommand() {
+        LocalDateTime by = generateDateTime();
+        return "deadline " + generateDescription() + " /by " + by.toLocalDate() + " " + by.toLocalTime();
+    }
+
+    /**
+     * Generates the user input that would add an event with dates and times.
+     *
+     * @return An event command.
+     */
+    public String generateEventCommand() {
+        LocalDateTime from = generateDateTime();
+        LocalDateTime to = from.plusHours(1 + random.nextInt(4));
+        return "event " + generateDescription() + " /from " + from.toLocalDate() + " " + from.toLocalTime()
+                + " /to " + to.toLocalDate() + " " + to.toLocalTime();
+    }
+
+    /**
+     * Generates a deadline given as a date, a date and time, or only a time.
+     *
+     * @return A new deadline.
+     */
+    private Deadline generateDeadline() {
+        LocalDateTime by = generateDateTime();
+        switch (random.nextInt(3)) {
+        case 0:
+            return new Deadline(generateDescription(), by.toLocalDate().toString(), by.toLocalDate(), null, null);
+        case 1:
+            return new Deadline(generateDescription(), by.toLocalDate() + " " + by.toLocalTime(), null, null, by);
+        default:
+            return new Deadline(generateDescription(), by.toLocalTime().toString(), null, by.toLocalTime(), null);
+        }
+    }
+
+    /**
+     * Generates an event that lasts between one and four hours.
+     *
+     * @return A new event.
+     */
+    private Event generateEvent() {
+        LocalDateTime from = generateDateTime();
+        LocalDateTime to = from.plusHours(1 + random.nextInt(4));
+        return new Event(generateDescription(),
+                from.toLocalDate() + " " + from.toLocalTime(), to.toLocalDate() + " " + to.toLocalTime(),
+                null, null, from, null, null, to);
+    }
+
+    /**
+     * Generates a date and time on the quarter hour within the year after START.
+     *
+     * @return A new date and time.
+     */
+    private LocalDateTime generateDateTime() {
+        LocalDate date = START.plusDays(random.nextInt(365));
+        return date.atTime(LocalTime.of(8 + random.nextInt(14), 15 * random.nextInt(4)));
+    }
+}
@@ -4,7 +4,20 @@ import minion.ui.Ui;
 import minion.task.TaskList;
 import minion.storage.Storage;
 import minion.parser.Parser;
+import minion.reminder.ReminderScheduler;
+import minion.server.MinionServer;
+import minion.task.ConcurrentTaskList;
 import minion.exception.MinionException;
+import minion.responses.MinionResponses;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
 
 /**
  * Represents the main entry point for the Minion chatbot.
@@ -19,6 +32,8 @@ public class Minion {
     private TaskList tasks;
     /** The user interface component for interacting with the user. */
     private Ui ui;
+    /** How long before a deadline or event to remind the user of it, or null for no reminders. */
+    private Duration reminderLead;
 
     /**
      * Initializes the chatbot by setting up the UI, loading tasks from storage,
@@ -27,10 +42,22 @@ public class Minion {
      * @param filePath The relative path to the data file where tasks are stored.
      */
     public Minion(String filePath) {
+        this(new Storage(filePath));
+    }
+
+    /**
+     * Initializes the chatbot with an already configured Storage component.
+     *
+     * @param storage The storage component used to load and save tasks.
+     */
+    public Minion(Storage storage) {
         ui = new Ui();
-        storage = new Storage(filePath);
+        this.storage = storage;
         try {
-            tasks = new TaskList(storage.load());
+            tasks = new TaskList(storage.load(), storage.getNextId());
+            if (!storage.getDamagedLines().isEmpty()) {
+                ui.showError(MinionResponses.getDamagedLinesMessage(storage.getDamagedLines()));
+            }
         } catch (MinionException e) {
             // If loading fails (e.g., file not found), start with an empty list
             ui.showError(e.getMessage());
@@ -38,31 +65,216 @@ public class Minion {
         }
     }
 
+    /**
+     * Turns on reminders for the interactive session, shown the given time before each deadline
+     * falls due and each event starts.
+     *
+     * @param lead How long before a task to remind the user of it.
+     */
+    public void setReminderLead(Duration lead) {
+        this.reminderLead = lead;
+    }
+
     /**
      * Starts the main execution loop of the chatbot.
-     * Continues to read and parse commands until the 'bye' command is issued.
+     * Continues to read and parse commands until the 'bye' command is issued or the input ends.
+     * Reminders, if turned on, are shown between and during commands from a thread of their own.
+     * Changes still waiting to be saved are written however the loop ends, and also when the
+     * process is stopped while waiting for a command.
      */
     public void run() {
         ui.showWelcome();
+        ReminderScheduler reminders = null;
+        if (reminderLead != null) {
+            reminders = new ReminderScheduler(Clock.systemDefaultZone(), reminderLead, ui);
+            reminders.watch(tasks);
+            reminders.start();
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                storage.flushBackgroundWrites();
+            } catch (IOException e) {
+                ui.showError("\t  Bido! I couldn't save your data to the disk.");
+            }
+        }));
         boolean isExit = false;
 
-        while (!isExit) {
+        try {
+            while (!isExit) {
+                try {
+                    String fullCommand = ui.readCommand();
+                    if (fullCommand == null) {
+                        break;
+                    }
+                    isExit = Parser.parse(fullCommand, tasks, ui, storage);
+                } catch (MinionException e) {
+                    // Catch and display any chatbot-specific errors
+                    ui.showError(e.getMessage());
+                }
+                showBackgroundWriteFailure();
+            }
+        } finally {
+            if (reminders != null) {
+                reminders.stop();
+            }
+            try {
+                storage.close();
+            } catch (IOException e) {
+                ui.showError("\t  Bido! I couldn't save your data to the disk.");
+            }
+        }
+    }
+
+    /**
+     * Shows an error if a change saved in the background could not be written since the last check.
+     */
+    private void showBackgroundWriteFailure() {
+        try {
+            storage.checkBackgroundWrites();
+        } catch (IOException e) {
+            ui.showError("\t  Bido! I couldn't save your data to the disk.");
+        }
+    }
+
+    /**
+     * Runs every command in a script against the task list, then shows a throughput summary.
+     * Changes are saved once at the end (or at the Storage's checkpoints) instead of after every command.
+     * Blank lines and lines starting with '#' are skipped, and a 'bye' ends the script early.
+     *
+     * @param script The source of commands, one per line.
+     */
+    public void runBatch(BufferedReader script) {
+        storage.setDeferred(true);
+        int commandCount = 0;
+        int failedCount = 0;
+        long start = System.nanoTime();
+
+        try {
+            boolean isExit = false;
+            String line;
+            while (!isExit && (line = script.readLine()) != null) {
+                if (line.isBlank() || line.strip().startsWith("#")) {
+                    continue;
+                }
+                commandCount++;
+                try {
+                    isExit = Parser.parse(line, tasks, ui, storage);
+                } catch (MinionException e) {
+                    failedCount++;
+                    ui.showError(e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            ui.showError(MinionResponses.ERROR_BATCH_FILE);
+        }
+
+        try {
+            storage.flush(tasks.getAllTasks());
+            storage.close();
+        } catch (IOException e) {
+            ui.showError("\t  Bido! I couldn't save your data to the disk.");
+        }
+        ui.showMessage(MinionResponses.getBatchSummaryMessage(commandCount, failedCount, System.nanoTime() - start));
+    }
+
+    /**
+     * Serves the loaded tasks to many clients at once over TCP until the process is stopped.
+     * Every session shares one task list; changes are saved in the background from the list's
+     * latest snapshot, and anything unsaved is written when the server shuts down.
+     *
+     * @param port The port to listen on, on the loopback interface only.
+     */
+    public void serve(int port) {
+        ConcurrentTaskList sharedTasks = new ConcurrentTaskList(tasks.getAllTasks());
+        storage.setAsync(true);
+        storage.setSnapshotSource(sharedTasks::getAllTasks);
+        MinionServer server = new MinionServer(sharedTasks, storage, Runtime.getRuntime().availableProcessors());
+
+        Thread serving = Thread.currentThread();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop();
             try {
-                String fullCommand = ui.readCommand();
-                isExit = Parser.parse(fullCommand, tasks, ui, storage);
-            } catch (MinionException e) {
-                // Catch and display any chatbot-specific errors
-                ui.showError(e.getMessage());
+                serving.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
             }
+        }));
+
+        try {
+            ui.showMessage(MinionResponses.getServerStartMessage(port));
+            server.serve(new InetSocketAddress("127.0.0.1", port));
+        } catch (IOException e) {
+            ui.showError("\t  Bido... I couldn't listen on port " + port + "!");
+        }
+
+        try {
+            storage.close();
+        } catch (IOException e) {
+            ui.showError("\t  Bido! I couldn't save your data to the disk.");
         }
     }
 
     /**
      * Main method to launch the Minion application.
+     * Pass {@code --journal} to append each change to a journal instead of rewriting the data file,
+     * {@code --binary} to save the data file in the compact binary format, and {@code --lazy}
+     * to parse tasks from the data file only when they are first used. {@code --async} saves changes
+     * on a background thread so commands never wait for the disk. {@code --durable} syncs every save to
+     * the disk before the command finishes, grouping the syncs of changes made at the same time, and
+     * {@code --commit-delay MS} lets each sync wait up to MS milliseconds for more changes to join it.
+     * {@code --batch FILE} runs the commands in FILE (or standard input if FILE is {@code -}) with a single
+     * deferred save, and {@code --checkpoint N} additionally saves after every N changes in batch mode.
+     * {@code --server PORT} serves the task list to many clients at once over TCP instead.
+     * {@code --remind MINUTES} shows a reminder MINUTES minutes before each deadline or event in an
+     * interactive session.
      *
-     * @param args Command line arguments (not used).
+     * @param args Command line arguments.
      */
     public static void main(String[] args) {
-        new Minion("data/minion.txt").run();
+        Storage storage = new Storage("data/minion.txt");
+        String scriptPath = null;
+        int port = -1;
+        Duration reminderLead = null;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--journal")) {
+                storage.setJournaled(true);
+            } else if (args[i].equals("--binary")) {
+                storage.setBinary(true);
+            } else if (args[i].equals("--lazy")) {
+                storage.setLazy(true);
+            } else if (args[i].equals("--async")) {
+                storage.setAsync(true);
+            } else if (args[i].equals("--durable")) {
+                storage.setDurable(true);
+            } else if (args[i].equals("--commit-delay") && i + 1 < args.length) {
+                storage.setCommitDelay(Long.parseLong(args[++i]));
+            } else if (args[i].equals("--batch") && i + 1 < args.length) {
+                scriptPath = args[++i];
+            } else if (args[i].equals("--checkpoint") && i + 1 < args.length) {
+                storage.setCheckpointInterval(Integer.parseInt(args[++i]));
+            } else if (args[i].equals("--server") && i + 1 < args.length) {
+                port = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--remind") && i + 1 < args.length) {
+                reminderLead = Duration.ofMinutes(Long.parseLong(args[++i]));
+            }
+        }
+
+        Minion bot = new Minion(storage);
+        bot.setReminderLead(reminderLead);
+        if (port >= 0) {
+            bot.serve(port);
+            return;
+        }
+        if (scriptPath == null) {
+            bot.run();
+            return;
+        }
+        try (BufferedReader script = scriptPath.equals("-")
+                ? new BufferedReader(new InputStreamReader(System.in))
+                : Files.newBufferedReader(Path.of(scriptPath))) {
+            bot.runBatch(script);
+        } catch (IOException e) {
+            bot.ui.showError(MinionResponses.ERROR_BATCH_FILE);
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,26 @@
+package minion.parser;
+
+import minion.exception.MinionException;
+import minion.storage.Storage;
+import minion.task.TaskList;
+import minion.ui.Ui;
+
+/**
+ * Represents a command the Parser dispatches to by its first word.
+ * New commands are added with {@link Parser#register(String, Command)}.
+ */
+@FunctionalInterface
+public interface Command {
+
+    /**
+     * Runs the command.
+     *
+     * @param input   The full user input, trimmed, starting with the command word as the user typed it.
+     * @param tasks   The TaskList object containing the current tasks.
+     * @param ui      The Ui object for user interaction.
+     * @param storage The Storage object for updating the save file.
+     * @return True if the chatbot should exit after this command, false otherwise.
+     * @throws MinionException If the command is invalid or parameters are missing.
+     */
+    boolean execute(String input, TaskList tasks, Ui ui, Storage storage) throws MinionException;
+}
@@ -0,0 +1,113 @@
+package minion.parser;
+
+import java.util.Locale;
+
+/**
+ * Represents the table of commands the Parser dispatches to, keyed by command word.
+ * Words are matched without regard to case straight from the user's input, so finding a command
+ * neither copies nor lower-cases any text. The table is open-addressed and kept at most half full,
+ * so a lookup usually compares a single entry.
+ * Commands should all be registered before the first lookup; the table is not safe to change
+ * while other threads are dispatching.
+ */
+class CommandRegistry {
+
+    /** The number of entries an empty table starts with; always a power of two. */
+    private static final int INITIAL_CAPACITY = 32;
+
+    /** The lower-cased command word of each entry, or null for a free entry. */
+    private String[] words;
+    /** The command of each entry. */
+    private Command[] commands;
+    /** The number of commands registered. */
+    private int size;
+
+    /** Initializes an empty registry. */
+    CommandRegistry() {
+        this.words = new String[INITIAL_CAPACITY];
+        this.commands = new Command[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Registers a command under a word, replacing any command already registered under it.
+     *
+     * @param word    The command word, matched without regard to case.
+     * @param command The command to run.
+     */
+    void register(String word, Command command) {
+        if ((size + 1) * 2 > words.length) {
+            grow();
+        }
+        String key = word.toLowerCase(Locale.ROOT);
+        int slot = findSlot(key, 0, key.length());
+        if (words[slot] == null) {
+            words[slot] = key;
+            size++;
+        }
+        commands[slot] = command;
+    }
+
+    /**
+     * Finds the command registered under the word at the given range of a text.
+     *
+     * @param text  The text holding the word.
+     * @param start The index of the first character of the word.
+     * @param end   The index after the last character of the word.
+     * @return The command, or null if no command has that word.
+     */
+    Command find(String text, int start, int end) {
+        return commands[findSlot(text, start, end)];
+    }
+
+    /**
+     * Finds the entry holding a word, or the free entry where it would go.
+     *
+     * @param text  The text holding the word.
+     * @param start The index of the first character of the word.
+     * @param end   The index after the last character of the word.
+     * @return The index of the entry.
+     */
+    private int findSlot(String text, int start, int end) {
+        int length = end - start;
+        int mask = words.length - 1;
+        for (int slot = hash(text, start, end) & mask; ; slot = (slot + 1) & mask) {
+            String word = words[slot];
+            if (word == null || (word.length() == length && text.regionMatches(true, start, word, 0, length))) {
+                return slot;
+            }
+        }
+    }
+
+    /**
+     * Hashes a word as if it were lower-cased, so that every spelling of a word lands on the same entry.
+     *
+     * @param text  The text holding the word.
+     * @param start The index of the first character of the word.
+     * @param end   The index after the last character of the word.
+     * @return The hash of the lower-cased word, with its bits spread for a power-of-two table.
+     */
+    private static int hash(String text, int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + Character.toLowerCase(text.charAt(i));
+        }
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Doubles the size of the table and registers every command again.
+     */
+    private void grow() {
+        String[] oldWords = words;
+        Command[] oldCommands = commands;
+        words = new String[oldWords.length * 2];
+        commands = new Command[oldWords.length * 2];
+        for (int i = 0; i < oldWords.length; i++) {
+            if (oldWords[i] != null) {
+                int slot = findSlot(oldWords[i], 0, oldWords[i].length());
+                words[slot] = oldWords[i];
+                commands[slot] = oldCommands[i];
+            }
+        }
+    }
+}
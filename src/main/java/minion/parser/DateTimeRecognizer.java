@@ -0,0 +1,317 @@
+package minion.parser;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.Month;
+import java.time.Year;
+import java.time.format.TextStyle;
+import java.time.temporal.Temporal;
+import java.time.temporal.TemporalAdjusters;
+import java.util.Locale;
+
+/**
+ * Recognizes the dates and times users type after /by, /from and /to, reading the text once
+ * and never throwing, so that text which is not a date costs no more than text which is.
+ *
+ * <p>A date is one of:
+ * <ul>
+ * <li>{@code yyyy-MM-dd}, e.g. 2026-04-01</li>
+ * <li>{@code d/M/yyyy}, e.g. 1/4/2026</li>
+ * <li>{@code today} or {@code tomorrow}</li>
+ * <li>a day of the week, in full or as its first three letters, meaning the next such day after today</li>
+ * </ul>
+ * A time is {@code HH:mm} or {@code HH:mm:ss}, and a date and time is a date followed by a time,
+ * separated by spaces or a 'T'. After a date the time may also be {@code HHmm}, e.g. 1/4/2026 1800;
+ * four digits on their own are more likely a year, so they are not read as a time.
+ * Words are matched without regard to case.
+ */
+final class DateTimeRecognizer {
+
+    /** The days of the week, in order. */
+    private static final DayOfWeek[] DAYS = DayOfWeek.values();
+    /** The English name of each day of the week, in lower case. */
+    private static final String[] DAY_NAMES = new String[DAYS.length];
+    /** The number of letters in a shortened day name. */
+    private static final int SHORT_DAY_LENGTH = 3;
+
+    static {
+        for (int i = 0; i < DAYS.length; i++) {
+            DAY_NAMES[i] = DAYS[i].getDisplayName(TextStyle.FULL, Locale.ENGLISH).toLowerCase(Locale.ROOT);
+        }
+    }
+
+    /** The text being read. */
+    private final String text;
+    /** The index after the last non-whitespace character of the text. */
+    private final int end;
+    /** The index of the next character to read. */
+    private int position;
+
+    /**
+     * Initializes a recognizer over a text, ignoring leading and trailing whitespace.
+     *
+     * @param text The text to read.
+     */
+    private DateTimeRecognizer(String text) {
+        int start = 0;
+        int last = text.length();
+        while (start < last && Character.isWhitespace(text.charAt(start))) {
+            start++;
+        }
+        while (last > start && Character.isWhitespace(text.charAt(last - 1))) {
+            last--;
+        }
+        this.text = text;
+        this.end = last;
+        this.position = start;
+    }
+
+    /**
+     * Recognizes a date, a time, or a date and time.
+     *
+     * @param text The text to recognize.
+     * @return A LocalDate, LocalTime or LocalDateTime, or null if the whole text is none of them.
+     */
+    static Temporal recognize(String text) {
+        return new DateTimeRecognizer(text).readDateTime();
+    }
+
+    /**
+     * Returns the date a recognized value stands for.
+     *
+     * @param value The value returned by {@link #recognize(String)}.
+     * @return The value if it is a date alone, or null.
+     */
+    static LocalDate toDate(Temporal value) {
+        return (value instanceof LocalDate) ? (LocalDate) value : null;
+    }
+
+    /**
+     * Returns the time a recognized value stands for.
+     *
+     * @param value The value returned by {@link #recognize(String)}.
+     * @return The value if it is a time alone, or null.
+     */
+    static LocalTime toTime(Temporal value) {
+        return (value instanceof LocalTime) ? (LocalTime) value : null;
+    }
+
+    /**
+     * Returns the date and time a recognized value stands for.
+     *
+     * @param value The value returned by {@link #recognize(String)}.
+     * @return The value if it is a date with a time, or null.
+     */
+    static LocalDateTime toDateTime(Temporal value) {
+        return (value instanceof LocalDateTime) ? (LocalDateTime) value : null;
+    }
+
+    /**
+     * Reads the whole text as a date, a time, or a date followed by a time.
+     *
+     * @return The value read, or null if the text is none of them.
+     */
+    private Temporal readDateTime() {
+        LocalDate date = readDate();
+        if (date == null) {
+            LocalTime time = readTime(false);
+            return (position == end) ? time : null;
+        }
+        if (position == end) {
+            return date;
+        }
+
+        int separator = position;
+        if (text.charAt(position) == 'T' || text.charAt(position) == 't') {
+            position++;
+        } else {
+            while (position < end && Character.isWhitespace(text.charAt(position))) {
+                position++;
+            }
+        }
+        if (position == separator) {
+            return null;
+        }
+        LocalTime time = readTime(true);
+        return (time != null && position == end) ? LocalDateTime.of(date, time) : null;
+    }
+
+    /**
+     * Reads a date at the current position, moving past it if one is found.
+     *
+     * @return The date, or null if none starts here.
+     */
+    private LocalDate readDate() {
+        int start = position;
+        if (start == end) {
+            return null;
+        }
+        if (Character.isLetter(text.charAt(start))) {
+            int wordEnd = start;
+            while (wordEnd < end && Character.isLetter(text.charAt(wordEnd))) {
+                wordEnd++;
+            }
+            LocalDate date = readRelativeDate(start, wordEnd - start);
+            if (date != null) {
+                position = wordEnd;
+            }
+            return date;
+        }
+
+        int first = readNumber();
+        int firstDigits = position - start;
+        LocalDate date = null;
+        if (firstDigits == 4 && skip('-')) {
+            int month = readNumber(2);
+            int day = skip('-') ? readNumber(2) : -1;
+            date = toDate(first, month, day);
+        } else if (firstDigits >= 1 && firstDigits <= 2 && skip('/')) {
+            int monthStart = position;
+            int month = readNumber();
+            boolean isShortMonth = position - monthStart >= 1 && position - monthStart <= 2;
+            int year = (isShortMonth && skip('/')) ? readNumber(4) : -1;
+            date = toDate(year, month, first);
+        }
+        if (date == null) {
+            position = start;
+        }
+        return date;
+    }
+
+    /**
+     * Reads a time at the current position, moving past it if one is found.
+     *
+     * @param isAfterDate Whether the time follows a date, which allows it to be written as {@code HHmm}.
+     * @return The time, or null if none starts here.
+     */
+    private LocalTime readTime(boolean isAfterDate) {
+        int start = position;
+        int first = readNumber();
+        int firstDigits = position - start;
+        int hour = -1;
+        int minute = -1;
+        int second = 0;
+        if (firstDigits == 4 && isAfterDate) {
+            hour = first / 100;
+            minute = first % 100;
+        } else if (firstDigits >= 1 && firstDigits <= 2 && skip(':')) {
+            hour = first;
+            minute = readNumber(2);
+            if (minute >= 0 && skip(':')) {
+                second = readNumber(2);
+            }
+        }
+        if (hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59) {
+            position = start;
+            return null;
+        }
+        return LocalTime.of(hour, minute, second);
+    }
+
+    /**
+     * Finds the date a word such as "tomorrow" or "fri" stands for.
+     *
+     * @param start  The index of the word.
+     * @param length The length of the word.
+     * @return The date, or null if the word is not a known day.
+     */
+    private LocalDate readRelativeDate(int start, int length) {
+        if (isWord(start, length, "today")) {
+            return LocalDate.now();
+        }
+        if (isWord(start, length, "tomorrow")) {
+            return LocalDate.now().plusDays(1);
+        }
+        for (int i = 0; i < DAYS.length; i++) {
+            if (isWord(start, length, DAY_NAMES[i])
+                    || (length == SHORT_DAY_LENGTH && text.regionMatches(true, start, DAY_NAMES[i], 0, length))) {
+                return LocalDate.now().with(TemporalAdjusters.next(DAYS[i]));
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Checks whether the word at an index is the given word, without regard to case.
+     *
+     * @param start  The index of the word.
+     * @param length The length of the word.
+     * @param word   The word to compare with, in lower case.
+     * @return True if they are the same word.
+     */
+    private boolean isWord(int start, int length, String word) {
+        return length == word.length() && text.regionMatches(true, start, word, 0, length);
+    }
+
+    /**
+     * Reads the digits at the current position as a number.
+     *
+     * @return The number, or -1 if there are no digits or more than nine.
+     */
+    private int readNumber() {
+        int start = position;
+        int value = 0;
+        while (position < end && isDigit(text.charAt(position))) {
+            value = value * 10 + (text.charAt(position) - '0');
+            position++;
+        }
+        int digits = position - start;
+        return (digits == 0 || digits > 9) ? -1 : value;
+    }
+
+    /**
+     * Reads exactly the given number of digits as a number.
+     *
+     * @param digits The number of digits expected.
+     * @return The number, or -1 if there is any other number of digits.
+     */
+    private int readNumber(int digits) {
+        int start = position;
+        int value = readNumber();
+        return (position - start == digits) ? value : -1;
+    }
+
+    /**
+     * Moves past a character if it is the next one.
+     *
+     * @param c The character expected.
+     * @return True if the character was there.
+     */
+    private boolean skip(char c) {
+        if (position < end && text.charAt(position) == c) {
+            position++;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Checks whether a character is an ASCII digit.
+     *
+     * @param c The character.
+     * @return True if it is between '0' and '9'.
+     */
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    /**
+     * Builds a date after checking that it exists.
+     *
+     * @param year  The year, or -1 if it was not read.
+     * @param month The month of the year, or -1 if it was not read.
+     * @param day   The day of the month, or -1 if it was not read.
+     * @return The date, or null if there is no such date.
+     */
+    private static LocalDate toDate(int year, int month, int day) {
+        if (year < 0 || month < 1 || month > 12 || day < 1) {
+            return null;
+        }
+        if (day > Month.of(month).length(Year.isLeap(year))) {
+            return null;
+        }
+        return LocalDate.of(year, month, day);
+    }
+}
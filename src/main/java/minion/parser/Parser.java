@@ -2,19 +2,32 @@ package minion.parser;
 
 import minion.ui.Ui;
 import minion.task.TaskList;
+import minion.task.TaskView;
 import minion.task.Task;
 import minion.task.Todo;
 import minion.task.Deadline;
 import minion.task.Event;
+import minion.task.Recurrence;
 import minion.storage.Storage;
 import minion.exception.MinionException;
 import minion.responses.MinionResponses;
+import minion.stats.CommandEvent;
+import minion.stats.LatencyHistogram;
+import minion.stats.Stats;
 
 import java.io.IOException;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.time.temporal.Temporal;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Predicate;
+import java.util.stream.LongStream;
+
+import jdk.jfr.FlightRecorder;
 
 /**
  * Deals with making sense of the user command.
@@ -23,8 +36,37 @@ import java.util.ArrayList;
  */
 public class Parser {
 
+    /** The number of tasks on each page when a paged list does not give a size. */
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    /** The number of closest matches a typo-tolerant search shows. */
+    private static final int FUZZY_RESULT_COUNT = 10;
+
+    /** The commands, by the word they start with. */
+    private static final CommandRegistry COMMANDS = new CommandRegistry();
+
+    static {
+        register("bye", (input, tasks, ui, storage) -> handleBye(input, ui));
+        registerAction("list", (input, tasks, ui, storage) -> handleList(input, tasks, ui));
+        registerAction("more", (input, tasks, ui, storage) -> handleMore(input, ui));
+        registerAction("mark", Parser::handleMark);
+        registerAction("unmark", Parser::handleUnmark);
+        registerAction("todo", Parser::handleTodo);
+        registerAction("deadline", Parser::handleDeadline);
+        registerAction("event", Parser::handleEvent);
+        registerAction("find", (input, tasks, ui, storage) -> handleFind(input, tasks, ui));
+        registerAction("query", (input, tasks, ui, storage) -> handleQuery(input, tasks, ui));
+        registerAction("delete", Parser::handleDelete);
+        registerAction("due", (input, tasks, ui, storage) -> handleDue(input, tasks, ui));
+        registerAction("between", (input, tasks, ui, storage) -> handleBetween(input, tasks, ui));
+        registerAction("upcoming", (input, tasks, ui, storage) -> handleUpcoming(input, tasks, ui));
+        registerAction("import", Parser::handleImport);
+        registerAction("export", Parser::handleExport);
+        registerAction("stats", (input, tasks, ui, storage) -> handleStats(input, tasks, ui));
+    }
+
     /**
      * Parses the user input and executes the appropriate command.
+     * The command is found by the first word of the input, without regard to case.
      *
      * @param input   The full raw input string from the user.
      * @param tasks   The TaskList object containing the current tasks.
@@ -37,34 +79,188 @@ public class Parser {
             throws MinionException {
 
         String trimmedInput = input.trim();
-        String lowerInput = trimmedInput.toLowerCase();
+        Command command = COMMANDS.find(trimmedInput, 0, wordEnd(trimmedInput, 0));
+        if (command == null) {
+            throw new MinionException(MinionResponses.UNKNOWN_COMMAND);
+        }
+        return command.execute(trimmedInput, tasks, ui, storage);
+    }
+
+    /**
+     * Checks whether the input is a command that reads or writes a file named in it,
+     * which only the user running the chatbot should be allowed to do.
+     *
+     * @param input The full raw input string.
+     * @return True if the input is an import or export command.
+     */
+    public static boolean isFileCommand(String input) {
+        String trimmedInput = input.trim();
+        int end = wordEnd(trimmedInput, 0);
+        return (end == 6) && (trimmedInput.regionMatches(true, 0, "import", 0, end)
+                || trimmedInput.regionMatches(true, 0, "export", 0, end));
+    }
+
+    /**
+     * Adds a command, or replaces the one registered under the same word.
+     * Commands should be registered before the chatbot starts reading input.
+     *
+     * @param word    The first word of the command, matched without regard to case.
+     * @param command The command to run.
+     */
+    public static void register(String word, Command command) {
+        COMMANDS.register(word, timed(word, command));
+    }
 
-        if (lowerInput.equals("bye")) {
-            ui.showBye();
-            return true;
+    /**
+     * Wraps a command so that each run is timed for the stats command and reported to any
+     * flight recording that has command events enabled.
+     *
+     * @param word    The command word the runs are recorded under.
+     * @param command The command to time.
+     * @return The timed command.
+     */
+    private static Command timed(String word, Command command) {
+        LatencyHistogram histogram = Stats.getCommandHistogram(word.toLowerCase(Locale.ROOT));
+        return (input, tasks, ui, storage) -> {
+            // Without a flight recorder running, skip even creating the event
+            CommandEvent event = FlightRecorder.isInitialized() ? new CommandEvent() : null;
+            if (event != null) {
+                event.begin();
+            }
+            long start = Stats.startCommand();
+            try {
+                return command.execute(input, tasks, ui, storage);
+            } finally {
+                Stats.endCommand(histogram, start);
+                if (event != null && event.shouldCommit()) {
+                    event.command = word;
+                    event.commit();
+                }
+            }
+        };
+    }
+
+    /**
+     * Registers a command that never ends the chatbot.
+     *
+     * @param word   The first word of the command.
+     * @param action The action to run.
+     */
+    private static void registerAction(String word, Action action) {
+        register(word, (input, tasks, ui, storage) -> {
+            action.run(input, tasks, ui, storage);
+            return false;
+        });
+    }
+
+    /**
+     * Processes the bye command.
+     *
+     * @param input The trimmed user input.
+     * @param ui    The Ui object used to say goodbye.
+     * @return True, so that the chatbot exits.
+     * @throws MinionException If anything follows the command word.
+     */
+    private static boolean handleBye(String input, Ui ui) throws MinionException {
+        if (input.length() > 3) { // "bye" is 3 chars
+            throw new MinionException(MinionResponses.UNKNOWN_COMMAND);
         }
+        ui.showBye();
+        return true;
+    }
 
-        if (lowerInput.equals("list")) {
+    /**
+     * Processes the list command, showing every task, or every task of a named view such as
+     * "list pending", or, with options, one page of either.
+     *
+     * @param input The trimmed user input.
+     * @param tasks The TaskList containing the tasks to display.
+     * @param ui    The Ui object used to display the tasks.
+     * @throws MinionException If the view is unknown or a paging option is invalid.
+     */
+    private static void handleList(String input, TaskList tasks, Ui ui) throws MinionException {
+        if (input.length() == 4) { // "list" is 4 chars
             ui.showTaskList(tasks);
-        } else if (lowerInput.startsWith("mark")) {
-            handleMark(trimmedInput, tasks, ui, storage);
-        } else if (lowerInput.startsWith("unmark")) {
-            handleUnmark(trimmedInput, tasks, ui, storage);
-        } else if (lowerInput.startsWith("todo")) {
-            handleTodo(trimmedInput, tasks, ui, storage);
-        } else if (lowerInput.startsWith("deadline")) {
-            handleDeadline(trimmedInput, tasks, ui, storage);
-        } else if (lowerInput.startsWith("event")) {
-            handleEvent(trimmedInput, tasks, ui, storage);
-        } else if (lowerInput.startsWith("find")) {
-            handleFind(trimmedInput, tasks, ui);
-        } else if (lowerInput.startsWith("delete")) {
-            handleDelete(trimmedInput, tasks, ui, storage);
+            return;
+        }
+        ArrayList<String> parts = splitWords(input);
+        TaskView view = TaskView.find(parts.get(1));
+        if (view != null && parts.size() == 2) {
+            ui.showView(tasks, view);
         } else {
+            handleListPage(parts, view, tasks, ui);
+        }
+    }
+
+    /**
+     * Processes a paged list command such as "list --page 2 --size 50" or "list by-due --page 2".
+     * Either option may be left out; the first page and 20 tasks per page are used by default.
+     *
+     * @param parts The words of the trimmed user command.
+     * @param view  The view named after the command word, or null to page through the whole list.
+     * @param tasks The TaskList containing the tasks to display.
+     * @param ui    The Ui object used to display the page.
+     * @throws MinionException If an option is unknown or its value is not a positive number.
+     */
+    private static void handleListPage(ArrayList<String> parts, TaskView view, TaskList tasks, Ui ui)
+            throws MinionException {
+        int first = (view == null) ? 1 : 2; // The first word is "list", then the view if there is one
+        int page = 1;
+        int pageSize = DEFAULT_PAGE_SIZE;
+        if ((parts.size() - first) % 2 != 0) {
+            throw new MinionException(MinionResponses.ERROR_INVALID_PAGE);
+        }
+        for (int i = first; i < parts.size(); i += 2) {
+            int value = parsePositive(parts.get(i + 1));
+            if (parts.get(i).equalsIgnoreCase("--page")) {
+                page = value;
+            } else if (parts.get(i).equalsIgnoreCase("--size")) {
+                pageSize = value;
+            } else {
+                throw new MinionException(MinionResponses.ERROR_INVALID_PAGE);
+            }
+        }
+        if (view == null) {
+            ui.showTaskPage(tasks, page, pageSize);
+        } else {
+            ui.showViewPage(tasks, view, page, pageSize);
+        }
+    }
+
+    /**
+     * Processes the more command by showing the next page of the current paged listing.
+     *
+     * @param input The trimmed user input.
+     * @param ui    The Ui object holding the paged listing.
+     * @throws MinionException If anything follows the command word, or no paged listing has pages left.
+     */
+    private static void handleMore(String input, Ui ui) throws MinionException {
+        if (input.length() > 4) { // "more" is 4 chars
             throw new MinionException(MinionResponses.UNKNOWN_COMMAND);
         }
+        if (!ui.hasNextPage()) {
+            throw new MinionException(MinionResponses.ERROR_NO_MORE_PAGES);
+        }
+        ui.showNextPage();
+    }
 
-        return false;
+    /**
+     * Parses a page number or page size.
+     *
+     * @param text The text to parse.
+     * @return The positive number.
+     * @throws MinionException If the text is not a positive number.
+     */
+    private static int parsePositive(String text) throws MinionException {
+        try {
+            int value = Integer.parseInt(text);
+            if (value <= 0) {
+                throw new MinionException(MinionResponses.ERROR_INVALID_PAGE);
+            }
+            return value;
+        } catch (NumberFormatException e) {
+            throw new MinionException(MinionResponses.ERROR_INVALID_PAGE);
+        }
     }
 
     /**
@@ -86,8 +282,9 @@ public class Parser {
         String description = input.substring(5).trim();
         Todo newTodo = new Todo(description);
         tasks.addTask(newTodo);
+        ui.forgetShownTasks();
         showAddFeedback(newTodo, tasks, ui);
-        save(tasks, storage, ui);
+        save(ui, () -> storage.saveAdded(tasks.getAllTasks(), newTodo));
     }
 
     /**
@@ -109,18 +306,22 @@ public class Parser {
         if (byIndex == -1) {
             throw new MinionException(MinionResponses.ERROR_MISSING_BY);
         }
+        int everyIndex = findEvery(input, byIndex);
 
         String description = input.substring(9, byIndex).trim();
-        String by = input.substring(byIndex + 3).trim();
+        String by = input.substring(byIndex + 3, everyIndex).trim();
 
-        LocalDate byDate = parseDate(by);
-        LocalTime byTime = parseTime(by);
-        LocalDateTime byDateTime = parseDateTime(by);
+        Temporal byValue = DateTimeRecognizer.recognize(by);
 
-        Deadline newDeadline = new Deadline(description, by, byDate, byTime, byDateTime);
+        Deadline newDeadline = new Deadline(description, by, DateTimeRecognizer.toDate(byValue),
+                DateTimeRecognizer.toTime(byValue), DateTimeRecognizer.toDateTime(byValue));
+        if (everyIndex < input.length()) {
+            newDeadline.setRecurrence(parseRecurrence(input.substring(everyIndex), newDeadline.getDueDateTime()));
+        }
         tasks.addTask(newDeadline);
+        ui.forgetShownTasks();
         showAddFeedback(newDeadline, tasks, ui);
-        save(tasks, storage, ui);
+        save(ui, () -> storage.saveAdded(tasks.getAllTasks(), newDeadline));
     }
 
     /**
@@ -149,23 +350,33 @@ public class Parser {
             throw new MinionException(MinionResponses.ERROR_EVENT_TIME_ORDER);
         }
 
+        int everyIndex = findEvery(input, toIndex);
         String description = input.substring(6, fromIndex).trim();
         String from = input.substring(fromIndex + 5, toIndex).trim();
-        String to = input.substring(toIndex + 3).trim();
+        String to = input.substring(toIndex + 3, everyIndex).trim();
 
+        Temporal fromValue = DateTimeRecognizer.recognize(from);
+        Temporal toValue = DateTimeRecognizer.recognize(to);
         Event newEvent = new Event(description, from, to,
-                parseDate(from), parseTime(from), parseDateTime(from),
-                parseDate(to), parseTime(to), parseDateTime(to));
+                DateTimeRecognizer.toDate(fromValue), DateTimeRecognizer.toTime(fromValue),
+                DateTimeRecognizer.toDateTime(fromValue),
+                DateTimeRecognizer.toDate(toValue), DateTimeRecognizer.toTime(toValue),
+                DateTimeRecognizer.toDateTime(toValue));
+        if (everyIndex < input.length()) {
+            newEvent.setRecurrence(parseRecurrence(input.substring(everyIndex), newEvent.getStartDateTime()));
+        }
 
         tasks.addTask(newEvent);
+        ui.forgetShownTasks();
         showAddFeedback(newEvent, tasks, ui);
-        save(tasks, storage, ui);
+        save(ui, () -> storage.saveAdded(tasks.getAllTasks(), newEvent));
     }
 
     /**
      * Marks a specific task in the list as completed.
      * Validates the task index, checks if the task is already marked to avoid redundant operations,
      * updates the task status, and saves the updated list to storage.
+     * A selection of several tasks, such as "mark 1-500", is marked in one pass and saved once.
      *
      * @param input   The raw user command (e.g., "mark 1").
      * @param tasks   The TaskList containing the tasks to be modified.
@@ -175,23 +386,26 @@ public class Parser {
      */
     private static void handleMark(String input, TaskList tasks, Ui ui, Storage storage)
             throws MinionException {
+        long[] ids = parseSelection(input, tasks, ui);
+        if (ids != null) {
+            markAll(ids, true, tasks, ui, storage);
+            return;
+        }
 
-        int taskIndex = parseIndex(input, tasks) - 1;
-        Task task = tasks.getTask(taskIndex);
-
-        if (task.getStatusIcon().equals("X")) {
+        Task task = markOne(parseTaskId(input, tasks, ui), true, tasks);
+        if (task == null) {
             throw new MinionException(MinionResponses.ERROR_ALREADY_DONE);
         }
 
-        task.setDone(true);
         ui.showMessage(MinionResponses.MESSAGE_MARK_SUCCESS + "\t    " + task);
-        save(tasks, storage, ui);
+        save(ui, () -> storage.saveMarked(tasks.getAllTasks(), task, true));
     }
 
     /**
      * Unmarks a specific task in the list, setting its status to not completed.
      * Ensures the index is valid and the task is currently marked as done before
      * reverting its status and saving the changes.
+     * A selection of several tasks, such as "unmark done", is unmarked in one pass and saved once.
      *
      * @param input   The raw user command (e.g., "unmark 1").
      * @param tasks   The TaskList containing the tasks to be modified.
@@ -201,44 +415,110 @@ public class Parser {
      */
     private static void handleUnmark(String input, TaskList tasks, Ui ui, Storage storage)
             throws MinionException {
-        int taskIndex = parseIndex(input, tasks) - 1;
-        Task task = tasks.getTask(taskIndex);
+        long[] ids = parseSelection(input, tasks, ui);
+        if (ids != null) {
+            markAll(ids, false, tasks, ui, storage);
+            return;
+        }
 
-        if (task.getStatusIcon().equals(" ")) {
+        Task task = markOne(parseTaskId(input, tasks, ui), false, tasks);
+        if (task == null) {
             throw new MinionException(MinionResponses.ERROR_NOT_DONE_YET);
         }
 
-        task.setDone(false);
         ui.showMessage(MinionResponses.MESSAGE_UNMARK_SUCCESS + "\t    " + task);
-        save(tasks, storage, ui);
+        save(ui, () -> storage.saveMarked(tasks.getAllTasks(), task, false));
     }
 
     /**
      * Deletes a specific task from the task list based on the provided index.
      * Reconstructs the task list after removal, displays a confirmation message with the
      * removed task details and new total count, and updates the storage file.
+     * A single task is removed from its position directly, while a selection of several tasks,
+     * such as "delete 3,7,9" or "delete done", is removed in a single sweep and saved once.
      *
      * @param input   The raw user command (e.g., "delete 2").
      * @param tasks   The TaskList from which the task will be removed.
      * @param ui      The Ui object used to display the deletion feedback.
      * @param storage The Storage object to save the shortened task list.
-     * @throws MinionException If the index provided is invalid or non-numeric.
+     * @throws MinionException If the index provided is invalid or non-numeric, or another session
+     *                         has removed a selected task.
      */
     private static void handleDelete(String input, TaskList tasks, Ui ui, Storage storage)
             throws MinionException {
-        int taskIndex = parseIndex(input, tasks) - 1;
-        Task removedTask = tasks.deleteTask(taskIndex);
+        long[] ids = parseSelection(input, tasks, ui);
+        if (ids != null) {
+            ArrayList<Task> removedTasks = tasks.deleteTasksById(ids);
+            if (removedTasks == null) {
+                throw new MinionException(MinionResponses.ERROR_TASK_MOVED);
+            }
+            ui.forgetShownTasks();
+            ui.showMessage(MinionResponses.getBulkDeleteMessage(removedTasks.size(), tasks.getSize()));
+            save(ui, () -> storage.saveDeleted(tasks.getAllTasks(), removedTasks));
+            return;
+        }
 
+        Task removedTask = tasks.deleteTaskById(parseTaskId(input, tasks, ui));
+        if (removedTask == null) {
+            throw new MinionException(MinionResponses.ERROR_TASK_MOVED);
+        }
+        ui.forgetShownTasks();
         String feedback = MinionResponses.MESSAGE_DELETE_SUCCESS
                 + "\t    " + removedTask.toString() + "\n"
                 + MinionResponses.getTaskCountMessage(tasks.getSize());
 
         ui.showMessage(feedback);
-        save(tasks, storage, ui);
+        save(ui, () -> storage.saveDeleted(tasks.getAllTasks(), removedTask));
+    }
+
+    /**
+     * Marks or unmarks a single task by its ID.
+     *
+     * @param id     The ID of the task.
+     * @param isDone The new completion status of the task.
+     * @param tasks  The TaskList containing the task.
+     * @return The task, or null if it already had the new status.
+     * @throws MinionException If another session has removed the task.
+     */
+    private static Task markOne(long id, boolean isDone, TaskList tasks) throws MinionException {
+        ArrayList<Task> changed = tasks.markTasksById(new long[] {id}, isDone);
+        if (changed == null) {
+            throw new MinionException(MinionResponses.ERROR_TASK_MOVED);
+        }
+        return changed.isEmpty() ? null : changed.get(0);
+    }
+
+    /**
+     * Marks or unmarks several tasks in one pass and saves the change once.
+     * Tasks that already have the new status are left alone.
+     *
+     * @param ids     The IDs of the tasks, in ascending order without repeats.
+     * @param isDone  The new completion status of the tasks.
+     * @param tasks   The TaskList containing the tasks to be modified.
+     * @param ui      The Ui object used to display the result.
+     * @param storage The Storage object used to persist the change.
+     * @throws MinionException If every selected task already has the new status, or another
+     *                         session has removed a selected task.
+     */
+    private static void markAll(long[] ids, boolean isDone, TaskList tasks, Ui ui, Storage storage)
+            throws MinionException {
+        ArrayList<Task> changed = tasks.markTasksById(ids, isDone);
+        if (changed == null) {
+            throw new MinionException(MinionResponses.ERROR_TASK_MOVED);
+        }
+        if (changed.isEmpty()) {
+            throw new MinionException(isDone
+                    ? MinionResponses.ERROR_ALL_ALREADY_DONE
+                    : MinionResponses.ERROR_NONE_DONE_YET);
+        }
+
+        ui.showMessage(MinionResponses.getBulkMarkMessage(changed.size(), isDone));
+        save(ui, () -> storage.saveMarked(tasks.getAllTasks(), changed, isDone));
     }
 
     /**
      * Processes the find command by searching for tasks that match the keyword.
+     * A keyword starting with '~', as in "find ~reprot", allows for typos and shows the closest matches first.
      *
      * @param input The raw user input (e.g., "find book").
      * @param tasks The task list to search within.
@@ -250,30 +530,286 @@ public class Parser {
             throw new MinionException("\t  Bido! What am I looking for? Give me a keyword!");
         }
         String keyword = input.substring(5).trim(); // "find " is 5 chars
+        if (keyword.startsWith("~")) {
+            String term = keyword.substring(1).trim();
+            if (term.isEmpty()) {
+                throw new MinionException(MinionResponses.ERROR_EMPTY_FUZZY_TERM);
+            }
+            ui.showSearchResults(tasks.findFuzzy(term, FUZZY_RESULT_COUNT));
+            return;
+        }
         ArrayList<Task> matches = tasks.findTasks(keyword);
 
         ui.showSearchResults(matches);
     }
 
     /**
-     * Parses and validates the integer index provided in user commands.
+     * Processes the query command by listing the tasks that pass every filter given.
+     * The filters are compiled once, then run over the whole list; see {@link QueryCompiler}.
+     *
+     * @param input The raw user input (e.g., "query type:D done:false due<2026-12-01 text:report").
+     * @param tasks The task list to search within.
+     * @param ui    The UI for displaying the results.
+     * @throws MinionException If there are no filters, or one of them is not understood.
+     */
+    private static void handleQuery(String input, TaskList tasks, Ui ui) throws MinionException {
+        ArrayList<String> parts = splitWords(input);
+        Predicate<Task> filter = QueryCompiler.compile(parts.subList(1, parts.size())); // The first word is "query"
+        ui.showSearchResults(tasks.filterTasks(filter));
+    }
+
+    /**
+     * Processes the due command by listing the deadlines that fall due on a date.
+     *
+     * @param input The raw user input (e.g., "due 2026-04-01").
+     * @param tasks The task list to search within.
+     * @param ui    The UI for displaying the results.
+     * @throws MinionException If the date is missing or invalid.
+     */
+    private static void handleDue(String input, TaskList tasks, Ui ui) throws MinionException {
+        LocalDate date = parseDate(input.substring(3).trim()); // "due" is 3 chars
+        if (date == null) {
+            throw new MinionException(MinionResponses.ERROR_INVALID_DATE);
+        }
+        ui.showSearchResults(tasks.findDueOn(date));
+    }
+
+    /**
+     * Processes the between command by listing the deadlines due and events taking place in a window.
+     * Each end of the window is a date, optionally followed by a time. A start without a time
+     * begins at the start of its day, and an end without a time lasts until the end of its day.
+     *
+     * @param input The raw user input (e.g., "between 2026-04-01 2026-04-07 18:00").
+     * @param tasks The task list to search within.
+     * @param ui    The UI for displaying the results.
+     * @throws MinionException If the window is missing, invalid or in the wrong order.
+     */
+    private static void handleBetween(String input, TaskList tasks, Ui ui) throws MinionException {
+        ArrayList<String> parts = splitWords(input);
+        int next = 1; // The first word is "between"
+
+        LocalDate fromDate = (next < parts.size()) ? parseDate(parts.get(next++)) : null;
+        LocalTime fromTime = (next < parts.size()) ? parseTime(parts.get(next)) : null;
+        if (fromTime != null) {
+            next++;
+        }
+        LocalDate toDate = (next < parts.size()) ? parseDate(parts.get(next++)) : null;
+        LocalTime toTime = (next < parts.size()) ? parseTime(parts.get(next)) : null;
+        if (toTime != null) {
+            next++;
+        }
+
+        if (fromDate == null || toDate == null || next != parts.size()) {
+            throw new MinionException(MinionResponses.ERROR_INVALID_WINDOW);
+        }
+        LocalDateTime from = fromDate.atTime(fromTime != null ? fromTime : LocalTime.MIN);
+        LocalDateTime to = toDate.atTime(toTime != null ? toTime : LocalTime.MAX);
+        if (from.isAfter(to)) {
+            throw new MinionException(MinionResponses.ERROR_WINDOW_ORDER);
+        }
+        ui.showSearchResults(tasks.findBetween(from, to));
+    }
+
+    /**
+     * Processes the upcoming command by listing the next deadlines and events from now on.
+     *
+     * @param input The raw user input (e.g., "upcoming 5").
+     * @param tasks The task list to search within.
+     * @param ui    The UI for displaying the results.
+     * @throws MinionException If the count is missing or not a positive integer.
+     */
+    private static void handleUpcoming(String input, TaskList tasks, Ui ui) throws MinionException {
+        try {
+            int count = Integer.parseInt(input.substring(8).trim()); // "upcoming" is 8 chars
+            if (count <= 0) {
+                throw new MinionException(MinionResponses.ERROR_INVALID_COUNT);
+            }
+            ui.showSearchResults(tasks.findUpcoming(LocalDateTime.now(), count));
+        } catch (NumberFormatException e) {
+            throw new MinionException(MinionResponses.ERROR_INVALID_COUNT);
+        }
+    }
+
+    /**
+     * Processes the import command by appending every task stored in another file.
+     * The file may be in either the text or the binary format.
+     *
+     * @param input   The raw user input (e.g., "import backup.txt").
+     * @param tasks   The task list the imported tasks are added to.
+     * @param ui      The UI for displaying feedback.
+     * @param storage The storage used to read the file and save the longer list.
+     * @throws MinionException If the path is missing or the file cannot be read.
+     */
+    private static void handleImport(String input, TaskList tasks, Ui ui, Storage storage)
+            throws MinionException {
+        String path = input.substring(6).trim(); // "import" is 6 chars
+        if (path.isEmpty()) {
+            throw new MinionException(MinionResponses.ERROR_EMPTY_PATH);
+        }
+
+        for (Task task : storage.importTasks(path)) {
+            tasks.addTask(task);
+        }
+        ui.forgetShownTasks();
+        ui.showMessage(MinionResponses.MESSAGE_IMPORT_SUCCESS + path + "\n"
+                + MinionResponses.getTaskCountMessage(tasks.getSize()));
+        save(ui, () -> storage.save(tasks.getAllTasks()));
+    }
+
+    /**
+     * Processes the export command by writing every task to another file in the text format.
+     *
+     * @param input   The raw user input (e.g., "export backup.txt").
+     * @param tasks   The task list to be exported.
+     * @param ui      The UI for displaying feedback.
+     * @param storage The storage used to write the file.
+     * @throws MinionException If the path is missing.
+     */
+    private static void handleExport(String input, TaskList tasks, Ui ui, Storage storage)
+            throws MinionException {
+        String path = input.substring(6).trim(); // "export" is 6 chars
+        if (path.isEmpty()) {
+            throw new MinionException(MinionResponses.ERROR_EMPTY_PATH);
+        }
+
+        try {
+            storage.exportText(tasks.getAllTasks(), path);
+            ui.showMessage(MinionResponses.MESSAGE_EXPORT_SUCCESS + path);
+        } catch (IOException e) {
+            ui.showError("\t  Bido! I couldn't save your data to the disk.");
+        }
+    }
+
+    /**
+     * Processes the stats command by showing how long each command and each phase of a command
+     * has taken, or by starting the figures afresh with "stats reset".
+     *
+     * @param input The raw user input (e.g., "stats" or "stats reset").
+     * @param tasks The task list, whose size is reported.
+     * @param ui    The UI for displaying the figures.
+     * @throws MinionException If anything other than "reset" follows the command word.
+     */
+    private static void handleStats(String input, TaskList tasks, Ui ui) throws MinionException {
+        String option = input.substring(5).trim(); // "stats" is 5 chars
+        if (option.isEmpty()) {
+            ui.showMessage(Stats.getReport(tasks.getSize()));
+        } else if (option.equalsIgnoreCase("reset")) {
+            Stats.reset();
+            ui.showMessage(MinionResponses.MESSAGE_STATS_RESET);
+        } else {
+            throw new MinionException(MinionResponses.UNKNOWN_COMMAND);
+        }
+    }
+
+    /**
+     * Parses and validates the task number provided in user commands.
      * Checks that the input contains exactly one argument, that the argument is a valid
-     * integer, and that the integer falls within the current bounds of the task list.
+     * integer, and that the integer falls within the bounds of the list as the user last saw it.
+     * An argument of the form "#id" names a task by its ID instead.
      *
      * @param input The full user command string to be parsed.
-     * @param tasks The current TaskList used to validate the range of the index.
-     * @return The validated 1-based integer index provided by the user.
-     * @throws MinionException If the format is incorrect, not an integer, or out of list bounds.
+     * @param tasks The current TaskList.
+     * @param ui    The Ui holding the version of the list the user last saw numbered.
+     * @return The ID of the task.
+     * @throws MinionException If the format is incorrect, not an integer, out of list bounds, or an unknown ID.
      */
-    private static int parseIndex(String input, TaskList tasks) throws MinionException {
-        String[] parts = input.split("\\s+");
-        if (parts.length != 2) {
+    private static long parseTaskId(String input, TaskList tasks, Ui ui) throws MinionException {
+        int start = skipWhitespace(input, wordEnd(input, 0));
+        int end = wordEnd(input, start);
+        if (start == end || end != input.length()) {
             throw new MinionException(MinionResponses.ERROR_INVALID_FORMAT);
         }
+        if (input.charAt(start) == '#') {
+            return parseId(input, start + 1, end, tasks);
+        }
+        List<Task> shown = ui.getShownTasks(tasks);
+        return shown.get(parseNumber(input, start, end, shown) - 1).getId();
+    }
+
+    /**
+     * Parses the selection of tasks that a bulk mark, unmark or delete command applies to.
+     * The selection is either "done", for every completed task, or a comma-separated list of
+     * task numbers, ranges of task numbers such as "1-500", and IDs such as "#12".
+     * Task numbers refer to the list as the user last saw it, and are turned into IDs at once,
+     * so that changes made since by other sessions cannot make them select other tasks.
+     * Every part is checked before any task is changed, so a bad part changes nothing.
+     *
+     * @param input The full user command string to be parsed.
+     * @param tasks The current TaskList.
+     * @param ui    The Ui holding the version of the list the user last saw numbered.
+     * @return The IDs selected in ascending order without repeats, or null if the command names a single task.
+     * @throws MinionException If any part is malformed, out of list bounds, or an unknown ID.
+     */
+    private static long[] parseSelection(String input, TaskList tasks, Ui ui) throws MinionException {
+        List<Task> shown = ui.getShownTasks(tasks);
+        int start = skipWhitespace(input, wordEnd(input, 0));
+        int end = input.length();
+        if (end - start == 4 && input.regionMatches(true, start, "done", 0, 4)) { // "done" is 4 chars
+            long[] ids = shown.stream().filter(Task::isDone).mapToLong(Task::getId).sorted().toArray();
+            if (ids.length == 0) {
+                throw new MinionException(MinionResponses.ERROR_NO_DONE_TASKS);
+            }
+            return ids;
+        }
+        if (input.indexOf(',', start) == -1 && (start == end || input.indexOf('-', start + 1) == -1)) {
+            return null;
+        }
+
+        BitSet positions = new BitSet();
+        ArrayList<Long> namedIds = new ArrayList<>();
+        while (start <= end) {
+            int partEnd = input.indexOf(',', start);
+            if (partEnd == -1) {
+                partEnd = end;
+            }
+            int partStart = skipWhitespace(input, start);
+            int last = partEnd;
+            while (last > partStart && Character.isWhitespace(input.charAt(last - 1))) {
+                last--;
+            }
+            if (partStart == last) {
+                throw new MinionException(MinionResponses.ERROR_INVALID_FORMAT);
+            }
+
+            int dash = input.indexOf('-', partStart + 1);
+            if (input.charAt(partStart) == '#') {
+                namedIds.add(parseId(input, partStart + 1, last, tasks));
+            } else if (dash == -1 || dash >= last) {
+                positions.set(parseNumber(input, partStart, last, shown) - 1);
+            } else {
+                int first = parseNumber(input, partStart, dash, shown);
+                int second = parseNumber(input, skipWhitespace(input, dash + 1), last, shown);
+                if (first > second) {
+                    throw new MinionException(MinionResponses.ERROR_INVALID_FORMAT);
+                }
+                positions.set(first - 1, second);
+            }
+            start = partEnd + 1;
+        }
+
+        LongStream numbered = positions.stream().mapToLong(position -> shown.get(position).getId());
+        LongStream named = namedIds.stream().mapToLong(Long::longValue);
+        return LongStream.concat(numbered, named).sorted().distinct().toArray();
+    }
+
+    /**
+     * Parses a task number and checks that it is inside the list.
+     *
+     * @param input The text holding the number.
+     * @param start The index of the first character of the number.
+     * @param end   The index after the last character of the number.
+     * @param shown The version of the list the user last saw numbered.
+     * @return The validated 1-based integer index of the task.
+     * @throws MinionException If the text is not an integer or is out of list bounds.
+     */
+    private static int parseNumber(String input, int start, int end, List<Task> shown) throws MinionException {
+        while (end > start && Character.isWhitespace(input.charAt(end - 1))) {
+            end--;
+        }
         try {
-            int index = Integer.parseInt(parts[1]);
-            if (index <= 0 || index > tasks.getSize()) {
-                throw new MinionException("\t  Invalid task number. You have " + tasks.getSize() + " tasks.");
+            int index = Integer.parseInt(input, start, end, 10);
+            if (index <= 0 || index > shown.size()) {
+                throw new MinionException("\t  Invalid task number. You have " + shown.size() + " tasks.");
             }
             return index;
         } catch (NumberFormatException e) {
@@ -282,47 +818,129 @@ public class Parser {
     }
 
     /**
-     * Attempts to parse a string into a LocalDate object.
+     * Parses a task ID and checks that a task has it.
      *
-     * @param input The raw string to be parsed (expected format: yyyy-MM-dd).
-     * @return A LocalDate object if successful, or null if the format is invalid.
+     * @param input The text holding the ID.
+     * @param start The index of the first digit of the ID, after its leading "#".
+     * @param end   The index after the last digit of the ID.
+     * @param tasks The current TaskList.
+     * @return The ID.
+     * @throws MinionException If the text is not a number or no task has the ID.
      */
-    private static LocalDate parseDate(String input) {
+    private static long parseId(String input, int start, int end, TaskList tasks) throws MinionException {
         try {
-            return LocalDate.parse(input);
-        } catch (Exception e) {
-            return null;
+            long id = Long.parseLong(input, start, end, 10);
+            if (tasks.getTaskById(id) == null) {
+                throw new MinionException(MinionResponses.getNoSuchIdMessage(input.substring(start, end)));
+            }
+            return id;
+        } catch (NumberFormatException e) {
+            throw new MinionException(MinionResponses.ERROR_NOT_INT);
         }
     }
 
     /**
-     * Attempts to parse a string into a LocalTime object.
+     * Finds the end of the word starting at the given index.
      *
-     * @param input The raw string to be parsed (expected format: HH:mm).
-     * @return A LocalTime object if successful, or null if the format is invalid.
+     * @param text The text to scan.
+     * @param from The index the word starts at.
+     * @return The index of the first whitespace character at or after from, or the length of the text.
      */
-    private static LocalTime parseTime(String input) {
-        try {
-            return LocalTime.parse(input);
-        } catch (Exception e) {
-            return null;
+    private static int wordEnd(String text, int from) {
+        int end = from;
+        while (end < text.length() && !Character.isWhitespace(text.charAt(end))) {
+            end++;
         }
+        return end;
     }
 
     /**
-     * Attempts to parse a string into a LocalDateTime object.
-     * Handles inputs with spaces by replacing them with 'T' for ISO compatibility.
+     * Finds the start of the next word.
      *
-     * @param input The raw string to be parsed (expected format: yyyy-MM-dd HH:mm).
-     * @return A LocalDateTime object if successful, or null if the format is invalid.
+     * @param text The text to scan.
+     * @param from The index to start scanning at.
+     * @return The index of the first non-whitespace character at or after from, or the length of the text.
      */
-    private static LocalDateTime parseDateTime(String input) {
-        try {
-            // Standardizes "yyyy-MM-dd HH:mm" to "yyyy-MM-ddTHH:mm"
-            return LocalDateTime.parse(input.trim().replace(" ", "T"));
-        } catch (Exception e) {
-            return null;
+    private static int skipWhitespace(String text, int from) {
+        int start = from;
+        while (start < text.length() && Character.isWhitespace(text.charAt(start))) {
+            start++;
+        }
+        return start;
+    }
+
+    /**
+     * Splits a text into its whitespace-separated words.
+     *
+     * @param text The text to split.
+     * @return The words in order.
+     */
+    private static ArrayList<String> splitWords(String text) {
+        ArrayList<String> words = new ArrayList<>();
+        for (int start = skipWhitespace(text, 0); start < text.length(); ) {
+            int end = wordEnd(text, start);
+            words.add(text.substring(start, end));
+            start = skipWhitespace(text, end);
+        }
+        return words;
+    }
+
+    /**
+     * Finds where the optional repeat of a deadline or event begins.
+     *
+     * @param input The raw user input.
+     * @param after The index of the last field before the repeat.
+     * @return The index of "/every", or the length of the input if the task does not repeat.
+     */
+    private static int findEvery(String input, int after) {
+        int everyIndex = input.indexOf("/every", after);
+        return (everyIndex == -1) ? input.length() : everyIndex;
+    }
+
+    /**
+     * Parses the repeat of a deadline or event, such as "/every week /until 2027-06-30".
+     *
+     * @param rule  The repeat, starting with "/every".
+     * @param first When the first occurrence is due or starts, or null if the task has no date.
+     * @return The recurrence rule.
+     * @throws MinionException If the repeat is not understood, the task has no date,
+     *                         or the last date is before the first occurrence.
+     */
+    private static Recurrence parseRecurrence(String rule, LocalDateTime first) throws MinionException {
+        int untilIndex = rule.indexOf("/until");
+        String word = rule.substring(6, (untilIndex == -1) ? rule.length() : untilIndex).trim(); // "/every" is 6 chars
+        Recurrence.Frequency frequency = Recurrence.Frequency.find(word);
+        LocalDate until = (untilIndex == -1) ? null : parseDate(rule.substring(untilIndex + 6).trim());
+        if (frequency == null || (untilIndex != -1 && until == null)) {
+            throw new MinionException(MinionResponses.ERROR_INVALID_RECURRENCE);
+        }
+        if (first == null) {
+            throw new MinionException(MinionResponses.ERROR_UNDATED_RECURRENCE);
         }
+        if (until != null && until.isBefore(first.toLocalDate())) {
+            throw new MinionException(MinionResponses.ERROR_RECURRENCE_ORDER);
+        }
+        return new Recurrence(frequency, until);
+    }
+
+    /**
+     * Attempts to parse a string into a LocalDate object.
+     *
+     * @param input The raw string to be parsed, in any date format {@link DateTimeRecognizer} accepts.
+     * @return A LocalDate object if successful, or null if the string is not a date alone.
+     */
+    private static LocalDate parseDate(String input) {
+        return DateTimeRecognizer.toDate(DateTimeRecognizer.recognize(input));
+    }
+
+    /**
+     * Attempts to parse a string into a LocalTime object.
+     *
+     * @param input The raw string to be parsed, in any time format {@link DateTimeRecognizer} accepts.
+     * @return A LocalTime object if successful, or null if the string is not a time alone.
+     */
+    private static LocalTime parseTime(String input) {
+        return DateTimeRecognizer.toTime(DateTimeRecognizer.recognize(input));
     }
 
     /**
@@ -335,7 +953,7 @@ public class Parser {
      */
     private static void showAddFeedback(Task task, TaskList tasks, Ui ui) {
         String feedback = MinionResponses.MESSAGE_ADD_SUCCESS
-                + "\t    " + task.toString() + "\n"
+                + "\t    " + task.toString() + " (#" + task.getId() + ")\n"
                 + MinionResponses.getTaskCountMessage(tasks.getSize());
         ui.showMessage(feedback);
     }
@@ -345,15 +963,47 @@ public class Parser {
      * If a persistence error occurs (e.g., file permissions or disk space issues),
      * a "Bido" error message is displayed to the user via the UI.
      *
-     * @param tasks   The TaskList containing the current data to be persisted.
-     * @param storage The Storage object responsible for writing data to the hard drive.
-     * @param ui      The Ui object used to report any I/O errors that occur during the save process.
+     * @param ui     The Ui object used to report any I/O errors that occur during the save process.
+     * @param action The Storage call that persists the change that was just made.
      */
-    private static void save(TaskList tasks, Storage storage, Ui ui) {
+    private static void save(Ui ui, SaveAction action) {
+        long start = System.nanoTime();
         try {
-            storage.save(tasks.getAllTasks());
+            action.run();
         } catch (IOException e) {
             ui.showError("\t  Bido! I couldn't save your data to the disk.");
+        } finally {
+            Stats.recordPhase(Stats.Phase.SAVE, start);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Represents a command handler that never ends the chatbot.
+     */
+    @FunctionalInterface
+    private interface Action {
+        /**
+         * Runs the handler.
+         *
+         * @param input   The trimmed user input.
+         * @param tasks   The TaskList object containing the current tasks.
+         * @param ui      The Ui object for user interaction.
+         * @param storage The Storage object for updating the save file.
+         * @throws MinionException If the command is invalid or parameters are missing.
+         */
+        void run(String input, TaskList tasks, Ui ui, Storage storage) throws MinionException;
+    }
+
+    /**
+     * Represents a single Storage call that persists a change to the task list.
+     */
+    @FunctionalInterface
+    private interface SaveAction {
+        /**
+         * Performs the Storage call.
+         *
+         * @throws IOException If the writing operation fails.
+         */
+        void run() throws IOException;
+    }
+}
@@ -0,0 +1,351 @@
+package minion.parser;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.Temporal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import minion.exception.MinionException;
+import minion.responses.MinionResponses;
+import minion.task.Deadline;
+import minion.task.Event;
+import minion.task.Task;
+import minion.task.Todo;
+
+/**
+ * Compiles the filters of a query command into a single test over tasks, once per query, so that
+ * nothing is parsed again while the test runs over every task in the list.
+ *
+ * <p>A task must pass every filter. A filter is one of:
+ * <ul>
+ * <li>{@code type:T}, {@code type:D} or {@code type:E}, or several joined by commas such as {@code type:D,E}</li>
+ * <li>{@code done:true} or {@code done:false}</li>
+ * <li>{@code text:WORD}, or just {@code WORD}, for descriptions containing the word in any case</li>
+ * <li>{@code due}, {@code from} or {@code to}, then one of {@code : = < <= > >=}, then a date, or a date
+ *     and time joined by a 'T', comparing a deadline's due time or an event's start or end time</li>
+ * <li>{@code id}, then one of {@code : = < <= > >=}, then a task ID</li>
+ * </ul>
+ * A filter starting with '-' matches the tasks the rest of it does not. Comparing with a date alone
+ * takes in the whole day: {@code due:2026-12-01} matches anything due that day, and
+ * {@code due<2026-12-01} anything due before it starts. Filters are checked cheapest first,
+ * whatever order they are typed in.
+ */
+final class QueryCompiler {
+
+    /** The cost of a filter that reads a field of the task. */
+    private static final int COST_FIELD = 0;
+    /** The cost of a filter that works out a date and time. */
+    private static final int COST_TIME = 1;
+    /** The cost of a filter that searches the description. */
+    private static final int COST_TEXT = 2;
+    /** The number of distinct costs. */
+    private static final int COST_COUNT = 3;
+
+    /** Prevents instantiation, as every member is static. */
+    private QueryCompiler() {
+    }
+
+    /**
+     * Compiles a list of filters into one test that a task passes only if it passes them all.
+     *
+     * @param filters The filters, one per word.
+     * @return The test, which has no side effects and is safe to run on several threads at once.
+     * @throws MinionException If there are no filters, or one of them is not understood.
+     */
+    static Predicate<Task> compile(List<String> filters) throws MinionException {
+        if (filters.isEmpty()) {
+            throw new MinionException(MinionResponses.ERROR_EMPTY_QUERY);
+        }
+        List<List<Predicate<Task>>> byCost = new ArrayList<>(COST_COUNT);
+        for (int i = 0; i < COST_COUNT; i++) {
+            byCost.add(new ArrayList<>());
+        }
+        for (String filter : filters) {
+            boolean isNegated = filter.length() > 1 && filter.charAt(0) == '-';
+            String body = isNegated ? filter.substring(1) : filter;
+            int cost = findCost(body);
+            Predicate<Task> test = compileFilter(filter, body);
+            byCost.get(cost).add(isNegated ? test.negate() : test);
+        }
+
+        Predicate<Task> chain = null;
+        for (List<Predicate<Task>> tests : byCost) {
+            for (Predicate<Task> test : tests) {
+                chain = (chain == null) ? test : chain.and(test);
+            }
+        }
+        return chain;
+    }
+
+    /**
+     * Works out how expensive a filter is to check, from its field.
+     *
+     * @param body The filter without any leading '-'.
+     * @return One of the COST constants.
+     */
+    private static int findCost(String body) {
+        int operator = findOperator(body);
+        String field = (operator < 0) ? "text" : body.substring(0, operator).toLowerCase(Locale.ROOT);
+        switch (field) {
+        case "type":
+        case "done":
+        case "id":
+            return COST_FIELD;
+        case "due":
+        case "from":
+        case "to":
+            return COST_TIME;
+        default:
+            return COST_TEXT;
+        }
+    }
+
+    /**
+     * Compiles one filter.
+     *
+     * @param filter The filter as typed, for error messages.
+     * @param body   The filter without any leading '-'.
+     * @return The test the filter stands for.
+     * @throws MinionException If the filter is not understood.
+     */
+    private static Predicate<Task> compileFilter(String filter, String body) throws MinionException {
+        int operator = findOperator(body);
+        if (operator < 0) {
+            return compileText(body);
+        }
+        String field = body.substring(0, operator).toLowerCase(Locale.ROOT);
+        int valueStart = operator + 1;
+        if (valueStart < body.length() && body.charAt(valueStart) == '=' && body.charAt(operator) != '=') {
+            valueStart++;
+        }
+        String comparison = body.substring(operator, valueStart);
+        String value = body.substring(valueStart);
+        if (value.isEmpty()) {
+            throw new MinionException(MinionResponses.getInvalidFilterMessage(filter));
+        }
+
+        switch (field) {
+        case "type":
+            requireEquality(filter, comparison);
+            return compileType(filter, value);
+        case "done":
+            requireEquality(filter, comparison);
+            return compileDone(filter, value);
+        case "text":
+            requireEquality(filter, comparison);
+            return compileText(value);
+        case "id":
+            return compileId(filter, comparison, value);
+        case "due":
+            return compileTime(filter, comparison, value,
+                    task -> (task instanceof Deadline) ? ((Deadline) task).getDueDateTime() : null);
+        case "from":
+            return compileTime(filter, comparison, value,
+                    task -> (task instanceof Event) ? ((Event) task).getStartDateTime() : null);
+        case "to":
+            return compileTime(filter, comparison, value,
+                    task -> (task instanceof Event) ? ((Event) task).getEndDateTime() : null);
+        default:
+            throw new MinionException(MinionResponses.getInvalidFilterMessage(filter));
+        }
+    }
+
+    /**
+     * Finds where the field of a filter ends and its comparison begins.
+     *
+     * @param body The filter without any leading '-'.
+     * @return The index of the first ':', '=', '<' or '>', or -1 if the filter is a bare word.
+     */
+    private static int findOperator(String body) {
+        for (int i = 0; i < body.length(); i++) {
+            char c = body.charAt(i);
+            if (c == ':' || c == '=' || c == '<' || c == '>') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Checks that a filter on a field that cannot be ordered asks for an exact match.
+     *
+     * @param filter     The filter as typed, for error messages.
+     * @param comparison The comparison.
+     * @throws MinionException If the comparison is not ':' or '='.
+     */
+    private static void requireEquality(String filter, String comparison) throws MinionException {
+        if (!comparison.equals(":") && !comparison.equals("=")) {
+            throw new MinionException(MinionResponses.getInvalidFilterMessage(filter));
+        }
+    }
+
+    /**
+     * Compiles a type filter.
+     *
+     * @param filter The filter as typed, for error messages.
+     * @param value  The types, as letters or names joined by commas.
+     * @return A test for tasks of any of the types.
+     * @throws MinionException If a type is not understood.
+     */
+    private static Predicate<Task> compileType(String filter, String value) throws MinionException {
+        boolean isTodo = false;
+        boolean isDeadline = false;
+        boolean isEvent = false;
+        for (String type : value.split(",")) {
+            switch (type.toLowerCase(Locale.ROOT)) {
+            case "t":
+            case "todo":
+                isTodo = true;
+                break;
+            case "d":
+            case "deadline":
+                isDeadline = true;
+                break;
+            case "e":
+            case "event":
+                isEvent = true;
+                break;
+            default:
+                throw new MinionException(MinionResponses.getInvalidFilterMessage(filter));
+            }
+        }
+        boolean wantsTodo = isTodo;
+        boolean wantsDeadline = isDeadline;
+        boolean wantsEvent = isEvent;
+        return task -> (wantsTodo && task instanceof Todo)
+                || (wantsDeadline && task instanceof Deadline)
+                || (wantsEvent && task instanceof Event);
+    }
+
+    /**
+     * Compiles a done filter.
+     *
+     * @param filter The filter as typed, for error messages.
+     * @param value  "true" or "yes" for done tasks, "false" or "no" for the rest.
+     * @return A test for tasks with the given status.
+     * @throws MinionException If the value is not understood.
+     */
+    private static Predicate<Task> compileDone(String filter, String value) throws MinionException {
+        switch (value.toLowerCase(Locale.ROOT)) {
+        case "true":
+        case "yes":
+            return Task::isDone;
+        case "false":
+        case "no":
+            return task -> !task.isDone();
+        default:
+            throw new MinionException(MinionResponses.getInvalidFilterMessage(filter));
+        }
+    }
+
+    /**
+     * Compiles a text filter. Each description is searched in place, without making a lower-case copy.
+     *
+     * @param word The word to look for.
+     * @return A test for tasks whose description contains the word in any case.
+     */
+    private static Predicate<Task> compileText(String word) {
+        return task -> {
+            String description = task.getDescription();
+            int last = description.length() - word.length();
+            for (int i = 0; i <= last; i++) {
+                if (description.regionMatches(true, i, word, 0, word.length())) {
+                    return true;
+                }
+            }
+            return false;
+        };
+    }
+
+    /**
+     * Compiles an ID filter.
+     *
+     * @param filter     The filter as typed, for error messages.
+     * @param comparison The comparison.
+     * @param value      The ID, with or without a leading '#'.
+     * @return A test for tasks whose ID compares as asked.
+     * @throws MinionException If the ID is not a number.
+     */
+    private static Predicate<Task> compileId(String filter, String comparison, String value) throws MinionException {
+        long id;
+        try {
+            id = Long.parseLong(value.startsWith("#") ? value.substring(1) : value);
+        } catch (NumberFormatException e) {
+            throw new MinionException(MinionResponses.getInvalidFilterMessage(filter));
+        }
+        switch (comparison) {
+        case "<":
+            return task -> task.getId() < id;
+        case "<=":
+            return task -> task.getId() <= id;
+        case ">":
+            return task -> task.getId() > id;
+        case ">=":
+            return task -> task.getId() >= id;
+        default:
+            return task -> task.getId() == id;
+        }
+    }
+
+    /**
+     * Compiles a filter on a date and time of a task into a test for an inclusive range of times.
+     *
+     * @param filter     The filter as typed, for error messages.
+     * @param comparison The comparison.
+     * @param value      A date, or a date and time joined by a 'T'.
+     * @param timeOf     Returns the time of a task that is compared, or null if it has none.
+     * @return A test for tasks whose time compares as asked. Tasks without the time never pass.
+     * @throws MinionException If the value is not a date, or a date and time.
+     */
+    private static Predicate<Task> compileTime(String filter, String comparison, String value,
+            Function<Task, LocalDateTime> timeOf) throws MinionException {
+        Temporal recognized = DateTimeRecognizer.recognize(value);
+        LocalDate date = DateTimeRecognizer.toDate(recognized);
+        LocalDateTime dateTime = DateTimeRecognizer.toDateTime(recognized);
+        LocalDateTime first;
+        LocalDateTime last;
+        if (dateTime != null) {
+            first = dateTime;
+            last = dateTime;
+        } else if (date != null) {
+            first = date.atStartOfDay();
+            last = date.atTime(LocalTime.MAX);
+        } else {
+            throw new MinionException(MinionResponses.getInvalidFilterMessage(filter));
+        }
+
+        LocalDateTime low;
+        LocalDateTime high;
+        switch (comparison) {
+        case "<":
+            low = null;
+            high = first.minusNanos(1);
+            break;
+        case "<=":
+            low = null;
+            high = last;
+            break;
+        case ">":
+            low = last.plusNanos(1);
+            high = null;
+            break;
+        case ">=":
+            low = first;
+            high = null;
+            break;
+        default:
+            low = first;
+            high = last;
+            break;
+        }
+        return task -> {
+            LocalDateTime time = timeOf.apply(task);
+            return time != null && (low == null || !time.isBefore(low)) && (high == null || !time.isAfter(high));
+        };
+    }
+}
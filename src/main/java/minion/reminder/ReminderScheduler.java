@@ -0,0 +1,314 @@
+package minion.reminder;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import minion.task.Deadline;
+import minion.task.Event;
+import minion.task.Task;
+import minion.task.TaskList;
+import minion.task.TaskListener;
+import minion.ui.Ui;
+
+/**
+ * Reminds the user of deadlines and events a set time before they are due or start.
+ * Every dated task that is not done has one timer in a {@link TimingWheel} of one-second ticks,
+ * so hundreds of thousands of reminders share a single thread. Only that thread touches the wheel:
+ * changes to the task list are queued as they happen and applied on the next tick, so commands
+ * never wait for the scheduler. Marking a task as done or deleting it cancels its reminder, and
+ * unmarking it sets the reminder again. A recurring task has a timer only for its next occurrence,
+ * which is replaced by one for the occurrence after it when it fires.
+ *
+ * <p>The time is read from a Clock, so a scheduler can run on a fixed or offset clock and be
+ * driven by calling {@link #runDue()} directly instead of starting its thread.
+ */
+public class ReminderScheduler implements TaskListener {
+
+    /** The time between ticks of the scheduler's thread, in nanoseconds. */
+    private static final long TICK_NANOS = TimeUnit.SECONDS.toNanos(1);
+    /** The number of seconds in a minute. */
+    private static final long SECONDS_PER_MINUTE = 60;
+
+    /** The source of the current time and time zone. */
+    private final Clock clock;
+    /** How long before a task is due its reminder fires, in seconds. */
+    private final long leadSeconds;
+    /** Where reminders are shown. */
+    private final Ui ui;
+    /** The reminders waiting to fire, keyed by second since the epoch. */
+    private final TimingWheel<Reminder> wheel;
+    /** The timer of each task with a reminder waiting, by task ID. */
+    private final HashMap<Long, TimingWheel.Timer<Reminder>> timers;
+    /** The changes to the task list not yet applied to the wheel. */
+    private final Queue<Change> changes;
+    /** Whether the scheduler's thread should keep running. */
+    private volatile boolean isRunning;
+    /** The scheduler's thread, or null if it has not been started. */
+    private Thread thread;
+
+    /**
+     * Initializes a scheduler with no reminders.
+     *
+     * @param clock The source of the current time and time zone.
+     * @param lead  How long before a task is due its reminder fires.
+     * @param ui    Where reminders are shown.
+     */
+    public ReminderScheduler(Clock clock, Duration lead, Ui ui) {
+        this.clock = clock;
+        this.leadSeconds = lead.getSeconds();
+        this.ui = ui;
+        this.wheel = new TimingWheel<>(now());
+        this.timers = new HashMap<>();
+        this.changes = new ConcurrentLinkedQueue<>();
+    }
+
+    /**
+     * Sets a reminder for every dated task in a list that is not done and not yet due,
+     * then follows the list's changes. Must be called before the scheduler is started.
+     *
+     * @param tasks The task list to remind the user about.
+     */
+    public void watch(TaskList tasks) {
+        for (Task task : tasks.getAllTasks()) {
+            reschedule(task);
+        }
+        tasks.addListener(this);
+    }
+
+    /**
+     * Starts the scheduler's thread, which fires reminders as they fall due until {@link #stop()}.
+     * The thread is a daemon, so it never keeps the chatbot running.
+     */
+    public void start() {
+        isRunning = true;
+        thread = new Thread(this::run, "minion-reminders");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stops the scheduler's thread and waits for it to finish.
+     */
+    public void stop() {
+        isRunning = false;
+        if (thread == null) {
+            return;
+        }
+        LockSupport.unpark(thread);
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Applies the queued changes to the task list, then fires every reminder due by the clock's
+     * current time. The scheduler's thread calls this once a second; only one thread may call it.
+     */
+    public void runDue() {
+        Change change;
+        while ((change = changes.poll()) != null) {
+            if (change.isDeleted) {
+                cancel(change.task);
+            } else {
+                reschedule(change.task);
+            }
+        }
+        wheel.advanceTo(now(), this::remind);
+    }
+
+    /**
+     * Notes that a task was added, so it gets a reminder if it needs one.
+     *
+     * @param task The task added.
+     */
+    @Override
+    public void taskAdded(Task task) {
+        changes.add(new Change(task, false));
+    }
+
+    /**
+     * Notes that a task was deleted, so its reminder is cancelled.
+     *
+     * @param task The task deleted.
+     */
+    @Override
+    public void taskDeleted(Task task) {
+        changes.add(new Change(task, true));
+    }
+
+    /**
+     * Notes that a task was marked or unmarked, so its reminder is cancelled or set again.
+     *
+     * @param task The task, with its new status.
+     */
+    @Override
+    public void taskMarked(Task task) {
+        changes.add(new Change(task, false));
+    }
+
+    /**
+     * Runs the scheduler's ticks until it is stopped.
+     */
+    private void run() {
+        while (isRunning) {
+            runDue();
+            LockSupport.parkNanos(this, TICK_NANOS);
+        }
+    }
+
+    /**
+     * Sets or clears the reminder of a task to match its current status.
+     *
+     * @param task The task.
+     */
+    private void reschedule(Task task) {
+        cancel(task);
+        scheduleAfter(task, toDateTime(now()));
+    }
+
+    /**
+     * Sets the reminder of a task that is not done for the first time it is due after a given time.
+     *
+     * @param task  The task, which has no reminder waiting.
+     * @param after The time.
+     */
+    private void scheduleAfter(Task task, LocalDateTime after) {
+        LocalDateTime due = findDueTime(task, after);
+        if (due == null || task.isDone()) {
+            return;
+        }
+        long dueSecond = toSecond(due);
+        timers.put(task.getId(), wheel.schedule(dueSecond - leadSeconds, new Reminder(task, dueSecond)));
+    }
+
+    /**
+     * Cancels the reminder of a task, if it has one waiting.
+     *
+     * @param task The task.
+     */
+    private void cancel(Task task) {
+        TimingWheel.Timer<Reminder> timer = timers.remove(task.getId());
+        if (timer != null) {
+            wheel.cancel(timer);
+        }
+    }
+
+    /**
+     * Shows the reminder of a task whose timer has fired, unless it is done by now, or its time
+     * passed more than a minute ago, as when the computer was asleep while the reminder was due.
+     * A recurring task then gets a reminder for its next occurrence that has not passed.
+     *
+     * @param reminder The reminder that fired.
+     */
+    private void remind(Reminder reminder) {
+        Task task = reminder.task;
+        timers.remove(task.getId());
+        if (task.isDone()) {
+            return;
+        }
+        long secondsLeft = reminder.dueSecond - now();
+        if (secondsLeft >= -SECONDS_PER_MINUTE) {
+            secondsLeft = Math.max(0, secondsLeft);
+            long minutesLeft = (secondsLeft + SECONDS_PER_MINUTE - 1) / SECONDS_PER_MINUTE;
+            ui.showReminder(task, minutesLeft, task instanceof Event);
+        }
+        scheduleAfter(task, toDateTime(Math.max(reminder.dueSecond, now() - SECONDS_PER_MINUTE)));
+    }
+
+    /**
+     * Finds the first time a task is due, or starts if it is an event, after a given time.
+     *
+     * @param task  The task.
+     * @param after The time.
+     * @return The due or start time, of the next occurrence if the task recurs,
+     *         or null if the task has no date or nothing is due after the time.
+     */
+    private static LocalDateTime findDueTime(Task task, LocalDateTime after) {
+        if (task instanceof Deadline) {
+            return ((Deadline) task).findNextDue(after);
+        } else if (task instanceof Event) {
+            return ((Event) task).findNextStart(after);
+        }
+        return null;
+    }
+
+    /**
+     * Converts a date and time in the clock's time zone to a second since the epoch.
+     *
+     * @param dateTime The date and time.
+     * @return The second since the epoch.
+     */
+    private long toSecond(LocalDateTime dateTime) {
+        return dateTime.atZone(clock.getZone()).toEpochSecond();
+    }
+
+    /**
+     * Converts a second since the epoch to a date and time in the clock's time zone.
+     *
+     * @param second The second since the epoch.
+     * @return The date and time.
+     */
+    private LocalDateTime toDateTime(long second) {
+        return LocalDateTime.ofInstant(Instant.ofEpochSecond(second), clock.getZone());
+    }
+
+    /**
+     * Returns the clock's current second since the epoch.
+     *
+     * @return The current second.
+     */
+    private long now() {
+        return clock.instant().getEpochSecond();
+    }
+
+    /**
+     * Represents a reminder waiting in the wheel: a task, and when the occurrence it is for is due.
+     */
+    private static class Reminder {
+        /** The task to remind the user of. */
+        private final Task task;
+        /** When the task, or the occurrence of it, is due or starts, in seconds since the epoch. */
+        private final long dueSecond;
+
+        /**
+         * Initializes a reminder.
+         *
+         * @param task      The task to remind the user of.
+         * @param dueSecond When the task is due or starts, in seconds since the epoch.
+         */
+        private Reminder(Task task, long dueSecond) {
+            this.task = task;
+            this.dueSecond = dueSecond;
+        }
+    }
+
+    /**
+     * Represents a change to the task list waiting to be applied to the wheel.
+     */
+    private static class Change {
+        /** The task that changed. */
+        private final Task task;
+        /** Whether the task was deleted, rather than added, marked or unmarked. */
+        private final boolean isDeleted;
+
+        /**
+         * Initializes a change.
+         *
+         * @param task      The task that changed.
+         * @param isDeleted Whether the task was deleted.
+         */
+        private Change(Task task, boolean isDeleted) {
+            this.task = task;
+            this.isDeleted = isDeleted;
+        }
+    }
+}
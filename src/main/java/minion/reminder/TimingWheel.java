@@ -0,0 +1,239 @@
+package minion.reminder;
+
+import java.util.function.Consumer;
+
+/**
+ * Represents a hierarchical timing wheel: a clock of ticks whose timers are kept in rings of
+ * SLOT_COUNT slots, one ring per level, where a slot of each level spans SLOT_COUNT times the
+ * ticks of a slot of the level below. A timer goes in the lowest level whose ring reaches its tick,
+ * and drops down a level each time the clock reaches the start of its slot, until it fires from
+ * the lowest ring on its exact tick. Each slot is a doubly-linked list, so scheduling and
+ * cancelling a timer take O(1) however many timers are waiting, and no timer needs a thread.
+ * Spans of ticks with nothing to do are skipped a whole slot at a time.
+ *
+ * <p>The wheel is not safe to use from several threads at once.
+ *
+ * @param <T> The type of value stored with each timer.
+ */
+class TimingWheel<T> {
+
+    /** The number of bits of a tick that select the slot within one level. */
+    private static final int SLOT_BITS = 6;
+    /** The number of slots in each level's ring. */
+    private static final int SLOT_COUNT = 1 << SLOT_BITS;
+    /** The bits of a tick that select the slot within one level. */
+    private static final long SLOT_MASK = SLOT_COUNT - 1;
+    /** The number of levels, which together reach 2^42 ticks ahead, about 139,000 years of seconds. */
+    private static final int LEVEL_COUNT = 7;
+    /** The index of the list holding timers further ahead than the top level reaches. */
+    private static final int OVERFLOW = LEVEL_COUNT * SLOT_COUNT;
+
+    /** The head of the list of timers in each slot of each level, followed by that of the overflow list. */
+    private final Timer<T>[] slots;
+    /** The number of timers in each level, followed by the number in the overflow list. */
+    private final int[] levelCounts;
+    /** The last tick the wheel has been advanced to. */
+    private long currentTick;
+    /** The number of timers waiting to fire. */
+    private int size;
+
+    /**
+     * Initializes an empty wheel.
+     *
+     * @param startTick The tick the wheel starts at; timers fire on ticks after it.
+     */
+    @SuppressWarnings("unchecked")
+    TimingWheel(long startTick) {
+        this.slots = (Timer<T>[]) new Timer<?>[OVERFLOW + 1];
+        for (int i = 0; i < slots.length; i++) {
+            slots[i] = new Timer<>(0, null);
+        }
+        this.levelCounts = new int[LEVEL_COUNT + 1];
+        this.currentTick = startTick;
+    }
+
+    /**
+     * Schedules a value to be handed back when the wheel reaches a tick.
+     *
+     * @param tick  The tick to fire on. A tick the wheel has already reached fires on the next one.
+     * @param value The value to hand back.
+     * @return The timer, which can be passed to {@link #cancel(Timer)}.
+     */
+    Timer<T> schedule(long tick, T value) {
+        Timer<T> timer = new Timer<>(tick, value);
+        place(timer, currentTick + 1);
+        size++;
+        return timer;
+    }
+
+    /**
+     * Cancels a timer, unless it has already fired or been cancelled.
+     *
+     * @param timer The timer returned by {@link #schedule(long, Object)}.
+     */
+    void cancel(Timer<T> timer) {
+        if (timer.slot >= 0) {
+            unlink(timer);
+            size--;
+        }
+    }
+
+    /**
+     * Returns the number of timers waiting to fire.
+     *
+     * @return The number of timers.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Advances the wheel tick by tick to the given tick, firing every timer due on the way in
+     * order of tick. The action may schedule and cancel timers, which fire no earlier than the next tick.
+     *
+     * @param tick    The tick to advance to. The wheel never moves backwards.
+     * @param expired The action run on the value of each timer that fires.
+     */
+    void advanceTo(long tick, Consumer<T> expired) {
+        while (currentTick < tick) {
+            if (size == 0) {
+                currentTick = tick;
+                return;
+            }
+            // Nothing happens before the next slot of the lowest level that holds any timers starts
+            int level = 0;
+            while (levelCounts[level] == 0) {
+                level++;
+            }
+            long next = currentTick + 1;
+            if (level > 0) {
+                int bits = SLOT_BITS * level;
+                next = ((currentTick >> bits) + 1) << bits;
+                if (next > tick) {
+                    currentTick = tick;
+                    return;
+                }
+            }
+            currentTick = next;
+            cascade();
+            fire(expired);
+        }
+    }
+
+    /**
+     * Moves the timers of every slot that starts on the current tick down to the levels below,
+     * starting from the top so that timers can fall through several levels at once.
+     */
+    private void cascade() {
+        for (int level = LEVEL_COUNT; level > 0; level--) {
+            int bits = SLOT_BITS * level;
+            if ((currentTick & ((1L << bits) - 1)) != 0) {
+                continue;
+            }
+            Timer<T> head = slots[slotOf(level, currentTick)];
+            while (head.next != head) {
+                Timer<T> timer = head.next;
+                unlink(timer);
+                place(timer, currentTick);
+            }
+        }
+    }
+
+    /**
+     * Fires every timer in the lowest level's slot for the current tick.
+     *
+     * @param expired The action run on the value of each timer that fires.
+     */
+    private void fire(Consumer<T> expired) {
+        Timer<T> head = slots[slotOf(0, currentTick)];
+        while (head.next != head) {
+            Timer<T> timer = head.next;
+            unlink(timer);
+            size--;
+            expired.accept(timer.value);
+        }
+    }
+
+    /**
+     * Puts a timer in the slot of the lowest level whose ring reaches its tick from the current tick.
+     *
+     * @param timer   The timer, not in any slot.
+     * @param minTick The earliest tick the timer may fire on.
+     */
+    private void place(Timer<T> timer, long minTick) {
+        long tick = Math.max(timer.tick, minTick);
+        int level = 0;
+        while (level < LEVEL_COUNT
+                && (tick >> (SLOT_BITS * (level + 1))) != (currentTick >> (SLOT_BITS * (level + 1)))) {
+            level++;
+        }
+        int slot = slotOf(level, tick);
+        Timer<T> head = slots[slot];
+        timer.previous = head.previous;
+        timer.next = head;
+        head.previous.next = timer;
+        head.previous = timer;
+        timer.slot = slot;
+        levelCounts[slot / SLOT_COUNT]++;
+    }
+
+    /**
+     * Finds the slot of a level that a tick falls in.
+     *
+     * @param level The level, or LEVEL_COUNT for the overflow list.
+     * @param tick  The tick.
+     * @return The index of the slot's list.
+     */
+    private static int slotOf(int level, long tick) {
+        if (level == LEVEL_COUNT) {
+            return OVERFLOW;
+        }
+        return level * SLOT_COUNT + (int) ((tick >> (SLOT_BITS * level)) & SLOT_MASK);
+    }
+
+    /**
+     * Takes a timer out of its slot.
+     *
+     * @param timer The timer, which must be in a slot.
+     */
+    private void unlink(Timer<T> timer) {
+        timer.previous.next = timer.next;
+        timer.next.previous = timer.previous;
+        timer.previous = null;
+        timer.next = null;
+        levelCounts[timer.slot / SLOT_COUNT]--;
+        timer.slot = -1;
+    }
+
+    /**
+     * Represents a value waiting in the wheel for its tick, or the head of a slot's list.
+     *
+     * @param <T> The type of value stored.
+     */
+    static final class Timer<T> {
+        /** The tick the timer fires on. */
+        private final long tick;
+        /** The value handed back when the timer fires. */
+        private final T value;
+        /** The timer before this one in its slot, or the last one if this is the head. */
+        private Timer<T> previous;
+        /** The timer after this one in its slot, or the first one if this is the head. */
+        private Timer<T> next;
+        /** The index of the slot holding the timer, or -1 once it has fired or been cancelled. */
+        private int slot;
+
+        /**
+         * Initializes a timer that is not in any slot, or the empty list of a slot if value is null.
+         *
+         * @param tick  The tick the timer fires on.
+         * @param value The value handed back when the timer fires.
+         */
+        private Timer(long tick, T value) {
+            this.tick = tick;
+            this.value = value;
+            this.previous = this;
+            this.next = this;
+            this.slot = -1;
+        }
+    }
+}
@@ -1,5 +1,8 @@
 package minion.responses;
 
+import java.io.PrintStream;
+import java.util.List;
+
 public class MinionResponses {
     // UI Formatting
     public static final String LINE_BREAK = "\t______________________________________________________________________";
@@ -19,9 +22,12 @@ public class MinionResponses {
     public static final String MESSAGE_UNMARK_SUCCESS = "\t  OK, I've marked this task as not done yet:\n";
     public static final String MESSAGE_DELETE_SUCCESS = "\t  Noted.This task is gone, " +
             "just like my sleep during finals week:\n";
+    public static final String MESSAGE_EXPORT_SUCCESS = "\t  Ba-na-na! I've written your tasks to: ";
+    public static final String MESSAGE_IMPORT_SUCCESS = "\t  Ba-na-na! I've tossed in every task from: ";
+    public static final String MESSAGE_STATS_RESET = "\t  Poof! I've started counting afresh.";
 
 //  Error Messages.
-    public static final String ERROR_INVALID_FORMAT = "\t  Syntax Error! Use: [command] [task number].\n" +
+    public static final String ERROR_INVALID_FORMAT = "\t  Syntax Error! Use: [command] [task number or #id].\n" +
             "\t  Check your 'mark', 'unmark' or 'delete' command parameters!";
     public static final String ERROR_NOT_INT = "\t  Please enter a valid integer for the task number.";
     public static final String ERROR_ALREADY_DONE = "\t  This task is already marked. Go enjoy a snack!";
@@ -39,7 +45,42 @@ public class MinionResponses {
             "the end time (/to)!";
     public static final String ERROR_EVENT_PART_EMPTY = "\t  One of the event details is empty. " +
             "Check your input format!";
+    public static final String ERROR_INVALID_RECURRENCE = "\t  Please give the repeat as: " +
+            "/every day|week|month [/until yyyy-MM-dd]";
+    public static final String ERROR_UNDATED_RECURRENCE = "\t  Only a task with a date can repeat!";
+    public static final String ERROR_RECURRENCE_ORDER = "\t  The last date (/until) must not be before " +
+            "the first occurrence!";
+    public static final String ERROR_INVALID_DATE = "\t  Please give a date in yyyy-MM-dd format!";
+    public static final String ERROR_INVALID_WINDOW = "\t  Please give the window as: " +
+            "between yyyy-MM-dd [HH:mm] yyyy-MM-dd [HH:mm]";
+    public static final String ERROR_WINDOW_ORDER = "\t  The start of the window must not be after its end!";
+    public static final String ERROR_INVALID_COUNT = "\t  Please tell me how many tasks to show, " +
+            "e.g. 'upcoming 5'.";
     public static final String ERROR_LOADING_FILE = "\t  Bido... I couldn't find your save file!";
+    public static final String ERROR_DAMAGED_FILE_KEPT = "\t  Bido... I couldn't read your save file, " +
+            "so I won't save over it. Move it away and restart me!";
+    public static final String ERROR_IMPORT_FILE = "\t  Bido... I couldn't read the file to import!";
+    public static final String ERROR_EMPTY_PATH = "\t  Please tell me which file to use!";
+    public static final String ERROR_REMOTE_FILE_COMMAND = "\t  Bido! Only the user at my own keyboard " +
+            "can import and export files!";
+    public static final String ERROR_TASK_MOVED = "\t  Bido! Someone else just changed the list. " +
+            "Check it with 'list' and try again!";
+    public static final String ERROR_COMMAND_FAILED = "\t  Bido... Something went wrong with that command. " +
+            "Check your list with 'list'!";
+    public static final String ERROR_INVALID_PAGE = "\t  Please use: list [VIEW] [--page N] [--size M], " +
+            "with positive numbers!\n\t  The views are by-due, pending, done, todos, deadlines and events.";
+    public static final String ERROR_NO_MORE_PAGES = "\t  There's nothing more to show! " +
+            "Start a paged list with 'list --page 1'.";
+    public static final String ERROR_BATCH_FILE = "\t  Bido... I couldn't read the script file!";
+    public static final String ERROR_ALL_ALREADY_DONE = "\t  All of those tasks are already marked. " +
+            "Go enjoy a snack!";
+    public static final String ERROR_NONE_DONE_YET = "\t  None of those tasks are done yet. " +
+            "Don't procrastinate like a freshman!";
+    public static final String ERROR_NO_DONE_TASKS = "\t  You haven't finished any tasks yet!";
+    public static final String ERROR_EMPTY_QUERY = "\t  Bido! What am I looking for? " +
+            "Try 'query type:D done:false due<2026-12-01 text:report'.";
+    public static final String ERROR_EMPTY_FUZZY_TERM = "\t  Bido! What am I looking for? " +
+            "Give me a word after the ~, e.g. find ~reprot";
 
     /**
      * Returns the formatted string for the total task count.
@@ -52,14 +93,196 @@ public class MinionResponses {
         return "\t  Now you have " + size + " " + taskWord + " in the list.";
     }
 
+    /**
+     * Returns the message shown after several tasks are marked or unmarked at once.
+     *
+     * @param count  The number of tasks changed.
+     * @param isDone True if the tasks were marked as done, false if they were unmarked.
+     * @return Formatted string with singular/plural handling.
+     */
+    public static String getBulkMarkMessage(int count, boolean isDone) {
+        String taskWord = (count == 1) ? "task" : "tasks";
+        return isDone
+                ? "\t  Woohoo! I've marked " + count + " " + taskWord + " as done."
+                : "\t  OK, I've marked " + count + " " + taskWord + " as not done yet.";
+    }
+
+    /**
+     * Returns the message shown after several tasks are deleted at once.
+     *
+     * @param count The number of tasks deleted.
+     * @param size  The number of tasks left.
+     * @return Formatted string with singular/plural handling.
+     */
+    public static String getBulkDeleteMessage(int count, int size) {
+        String taskWord = (count == 1) ? "task is" : "tasks are";
+        return "\t  Noted. " + count + " " + taskWord + " gone, just like my sleep during finals week.\n"
+                + getTaskCountMessage(size);
+    }
+
+    /**
+     * Builds the message shown when the save file could not be read and was moved aside.
+     *
+     * @param path Where the save file was moved.
+     * @return The formatted message.
+     */
+    public static String getDamagedFileMessage(String path) {
+        return "\t  Bido... I couldn't read your save file! I moved it to " + path + "\n"
+                + "\t  and started a new list, so nothing in it is lost.";
+    }
+
+    /**
+     * Returns the warning shown at startup when some lines of the save file could not be read.
+     * At most five line numbers are listed, followed by how many more there are.
+     *
+     * @param lines The one-based numbers of the damaged lines, in ascending order.
+     * @return Formatted string with the line numbers and singular/plural handling.
+     */
+    public static String getDamagedLinesMessage(List<Integer> lines) {
+        int shown = Math.min(lines.size(), 5);
+        StringBuilder numbers = new StringBuilder();
+        for (int i = 0; i < shown; i++) {
+            numbers.append((i == 0) ? "" : (i == lines.size() - 1) ? " and " : ", ").append(lines.get(i));
+        }
+        if (lines.size() > shown) {
+            numbers.append(" and ").append(lines.size() - shown).append(" more");
+        }
+        boolean isOne = lines.size() == 1;
+        String lineWord = isOne ? "line " : "lines ";
+        String pronoun = isOne ? "it" : "them";
+        return "\t  Bido! I couldn't read " + lineWord + numbers + " of your save file.\n"
+                + "\t  I kept " + pronoun + (isOne ? " as a todo" : " as todos") + " so nothing is lost. "
+                + "Fix or delete " + pronoun + " when you can!";
+    }
+
+    /**
+     * Returns the message shown when a command names a task by an ID that no task has.
+     *
+     * @param id The ID the user gave, without its leading "#".
+     * @return Formatted string with the ID.
+     */
+    public static String getNoSuchIdMessage(String id) {
+        return "\t  Bido! There's no task #" + id + " in your list. Check the IDs with 'list'.";
+    }
+
+    /**
+     * Returns the message shown when a query has a filter that is not understood.
+     *
+     * @param filter The filter as the user typed it.
+     * @return Formatted string with the filter and the filters that are understood.
+     */
+    public static String getInvalidFilterMessage(String filter) {
+        return "\t  Bido! I don't understand the filter '" + filter + "'.\n"
+                + "\t  Use type:T|D|E, done:true|false, text:WORD, id<N, "
+                + "or due, from or to with : < <= > >= and a date.";
+    }
+
+    /**
+     * Returns the line shown above the tasks of a view of the list.
+     *
+     * @param view The name of the view.
+     * @return Formatted string with the view's name, ending with a newline.
+     */
+    public static String getViewHeaderMessage(String view) {
+        return "\t  Here's the '" + view + "' view of your mission:\n";
+    }
+
+    /**
+     * Returns the message shown when a view of the list has no tasks.
+     *
+     * @param view The name of the view.
+     * @return Formatted string with the view's name.
+     */
+    public static String getEmptyViewMessage(String view) {
+        return "\t  Nothing to see in the '" + view + "' view yet! Go grab a banana.";
+    }
+
+    /**
+     * Returns the reminder shown shortly before a task is due or starts.
+     *
+     * @param task        The task as displayed, with its ID.
+     * @param minutesLeft The number of minutes until the task is due or starts.
+     * @param isStart     Whether the task starts, rather than falls due, then.
+     * @return Formatted string with singular/plural handling.
+     */
+    public static String getReminderMessage(String task, long minutesLeft, boolean isStart) {
+        String when;
+        if (minutesLeft == 0) {
+            when = isStart ? "starts now" : "is due now";
+        } else {
+            String minuteWord = (minutesLeft == 1) ? "minute" : "minutes";
+            when = (isStart ? "starts in " : "is due in ") + minutesLeft + " " + minuteWord;
+        }
+        return "\t  Bee-do bee-do! Reminder: this " + when + "!\n\t    " + task;
+    }
+
+    /**
+     * Returns the line shown under a page of the task list.
+     *
+     * @param page      The one-based number of the page shown.
+     * @param pageCount The total number of pages.
+     * @return Formatted string telling the user whether more pages follow.
+     */
+    public static String getPageFooterMessage(int page, int pageCount) {
+        String next = (page < pageCount) ? "Type 'more' for the next page." : "That's the whole mission!";
+        return "\t  Page " + page + " of " + pageCount + ". " + next;
+    }
+
+    /**
+     * Returns the message shown when a page past the end of the list is asked for.
+     *
+     * @param pageCount The total number of pages.
+     * @return Formatted string with singular/plural handling.
+     */
+    public static String getPageOutOfRangeMessage(int pageCount) {
+        String pageWord = (pageCount == 1) ? "page" : "pages";
+        return "\t  Bido! Your list only has " + pageCount + " " + pageWord + ".";
+    }
+
+    /**
+     * Returns the message shown when the server starts listening.
+     *
+     * @param port The port the server listens on.
+     * @return Formatted string with the port.
+     */
+    public static String getServerStartMessage(int port) {
+        return "\t  Bello! Minions are standing by on port " + port + ".\n"
+                + "\t  Press Ctrl+C to stop the server.";
+    }
+
+    /**
+     * Returns the summary shown after a batch script has run.
+     *
+     * @param commandCount The number of commands that were run.
+     * @param failedCount  The number of commands that were rejected.
+     * @param elapsedNanos The time the whole script took, in nanoseconds.
+     * @return Formatted string with the command count, failures, duration and throughput.
+     */
+    public static String getBatchSummaryMessage(int commandCount, int failedCount, long elapsedNanos) {
+        double seconds = Math.max(elapsedNanos, 1) / 1e9;
+        return String.format("\t  Ba-na-na! I ran %d commands (%d failed) in %.1f ms.\n"
+                + "\t  That's %.0f commands per second!",
+                commandCount, failedCount, elapsedNanos / 1e6, commandCount / seconds);
+    }
+
     /**
      * Prints a message wrapped in horizontal line breaks.
      *
      * @param message The text to be displayed.
      */
     public static void printWithLines(String message) {
-        System.out.println(LINE_BREAK);
-        System.out.println(message);
-        System.out.println(LINE_BREAK);
+        printWithLines(System.out, message);
+    }
+
+    /**
+     * Prints a message wrapped in horizontal line breaks to the given stream.
+     *
+     * @param out     Where the message is printed.
+     * @param message The text to be displayed.
+     */
+    public static void printWithLines(PrintStream out, String message) {
+        out.println(LINE_BREAK);
+        out.println(message);
+        out.println(LINE_BREAK);
     }
 }
\ No newline at end of file
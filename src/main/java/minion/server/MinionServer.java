@@ -0,0 +1,265 @@
+package minion.server;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import minion.exception.MinionException;
+import minion.parser.Parser;
+import minion.responses.MinionResponses;
+import minion.storage.Storage;
+import minion.task.ConcurrentTaskList;
+import minion.ui.Ui;
+
+/**
+ * Serves the chatbot to many clients at once over TCP, all sharing one task list and one Storage.
+ * Each client sends one command per line and receives the same replies the console would show.
+ * A single selector thread owns every connection, so an idle client costs no thread at all and
+ * thousands of them fit in a few megabytes; the commands themselves run on a small pool of workers,
+ * with each session's commands running one after another in the order they were sent.
+ */
+public class MinionServer {
+
+    /** The size of the buffer the selector thread reads every connection into. */
+    private static final int READ_BUFFER_SIZE = 16 * 1024;
+
+    /** The task list shared by every session. */
+    private final ConcurrentTaskList tasks;
+    /** The storage shared by every session. */
+    private final Storage storage;
+    /** The workers that run commands. */
+    private final ExecutorService workers;
+    /** The sessions with new replies to send, handed from workers to the selector thread. */
+    private final ConcurrentLinkedQueue<Session> pendingReplies;
+    /** The selector that watches every connection, open while the server is serving. */
+    private volatile Selector selector;
+    /** Whether the server should keep serving. */
+    private volatile boolean isServing;
+
+    /**
+     * Initializes a server over a shared task list and storage.
+     * The storage should save asynchronously from the list's snapshots, so sessions never wait on the disk.
+     *
+     * @param tasks       The task list shared by every session.
+     * @param storage     The storage shared by every session.
+     * @param workerCount The number of threads that run commands.
+     */
+    public MinionServer(ConcurrentTaskList tasks, Storage storage, int workerCount) {
+        this.tasks = tasks;
+        this.storage = storage;
+        this.workers = Executors.newFixedThreadPool(workerCount, runnable -> {
+            Thread thread = new Thread(runnable, "minion-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.pendingReplies = new ConcurrentLinkedQueue<>();
+    }
+
+    /**
+     * Accepts and serves clients on the given address until {@link #stop()} is called.
+     *
+     * @param address The address and port to listen on.
+     * @throws IOException If the address cannot be bound.
+     */
+    public void serve(InetSocketAddress address) throws IOException {
+        ByteBuffer readBuffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+        try (Selector openSelector = Selector.open();
+                ServerSocketChannel server = ServerSocketChannel.open()) {
+            server.bind(address, 1024);
+            server.configureBlocking(false);
+            server.register(openSelector, SelectionKey.OP_ACCEPT);
+            selector = openSelector;
+            isServing = true;
+
+            while (isServing) {
+                openSelector.select();
+                Session session;
+                while ((session = pendingReplies.poll()) != null) {
+                    sendReplies(session);
+                }
+                for (SelectionKey key : openSelector.selectedKeys()) {
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        accept(server);
+                    } else {
+                        handleReady(key, readBuffer);
+                    }
+                }
+                openSelector.selectedKeys().clear();
+            }
+
+            for (SelectionKey key : openSelector.keys()) {
+                key.channel().close();
+            }
+        } finally {
+            workers.shutdown();
+            try {
+                workers.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Makes {@link #serve} close every connection and return.
+     */
+    public void stop() {
+        isServing = false;
+        Selector current = selector;
+        if (current != null) {
+            current.wakeup();
+        }
+    }
+
+    /**
+     * Accepts a new client and greets it.
+     *
+     * @param server The listening channel.
+     * @throws IOException If the selector can no longer be used.
+     */
+    private void accept(ServerSocketChannel server) throws IOException {
+        SocketChannel channel = server.accept();
+        if (channel == null) {
+            return;
+        }
+        channel.configureBlocking(false);
+        Session session = new Session(channel);
+        session.setKey(channel.register(selector, SelectionKey.OP_READ, session));
+        session.getUi().showWelcome();
+        session.sendPrinted(false);
+        sendReplies(session);
+    }
+
+    /**
+     * Reads from or writes to a client whose connection is ready.
+     *
+     * @param key        The ready connection's key.
+     * @param readBuffer The buffer to read into.
+     */
+    private void handleReady(SelectionKey key, ByteBuffer readBuffer) {
+        Session session = (Session) key.attachment();
+        try {
+            if (key.isReadable()) {
+                readBuffer.clear();
+                int read = session.getChannel().read(readBuffer);
+                if (read < 0) {
+                    session.closeInput();
+                } else {
+                    readBuffer.flip();
+                    if (session.receive(readBuffer)) {
+                        workers.execute(() -> runCommands(session));
+                    }
+                }
+            }
+            sendReplies(session);
+        } catch (IOException e) {
+            close(session);
+        }
+    }
+
+    /**
+     * Sends what a session has queued and closes it if it is finished.
+     * Called on the selector thread.
+     *
+     * @param session The session to serve.
+     */
+    private void sendReplies(Session session) {
+        if (!session.getKey().isValid()) {
+            return;
+        }
+        try {
+            if (session.sendReplies()) {
+                close(session);
+            }
+        } catch (IOException e) {
+            close(session);
+        }
+    }
+
+    /**
+     * Runs a session's queued commands one after another, replying after each one.
+     * A command that fails unexpectedly is reported to its client like any other error, and the
+     * session is always left idle when the worker stops, so it never waits for a worker that is gone.
+     * Called on a worker.
+     *
+     * @param session The session whose commands are run.
+     */
+    private void runCommands(Session session) {
+        Ui ui = session.getUi();
+        boolean isIdle = false;
+        try {
+            String command;
+            while ((command = session.nextCommand()) != null) {
+                runCommand(command, session, ui);
+            }
+            isIdle = true;
+        } finally {
+            if (!isIdle) {
+                session.stopRunning();
+            }
+            // Let the selector thread notice the session is idle, in case its client has gone
+            pendingReplies.add(session);
+            selector.wakeup();
+        }
+    }
+
+    /**
+     * Runs a single command of a session and queues its reply.
+     * Commands that read or write files named by the client are refused.
+     * Called on a worker.
+     *
+     * @param command The command line.
+     * @param session The session the command came from.
+     * @param ui      The session's Ui.
+     */
+    private void runCommand(String command, Session session, Ui ui) {
+        boolean isExit = false;
+        try {
+            if (Parser.isFileCommand(command)) {
+                // The files would be opened with the server's access, not the client's
+                throw new MinionException(MinionResponses.ERROR_REMOTE_FILE_COMMAND);
+            }
+            isExit = Parser.parse(command, tasks, ui, storage);
+        } catch (MinionException e) {
+            ui.showError(e.getMessage());
+        } catch (IndexOutOfBoundsException e) {
+            // Another session removed tasks between checking the task number and using it
+            ui.showError(MinionResponses.ERROR_TASK_MOVED);
+        } catch (RuntimeException e) {
+            ui.showError(MinionResponses.ERROR_COMMAND_FAILED);
+        }
+        try {
+            storage.checkBackgroundWrites();
+        } catch (IOException e) {
+            ui.showError("\t  Bido! I couldn't save your data to the disk.");
+        }
+        session.sendPrinted(isExit);
+        pendingReplies.add(session);
+        selector.wakeup();
+    }
+
+    /**
+     * Closes a session's connection.
+     *
+     * @param session The session to close.
+     */
+    private void close(Session session) {
+        session.getKey().cancel();
+        try {
+            session.getChannel().close();
+        } catch (IOException e) {
+            // The connection is being discarded either way
+        }
+    }
+}
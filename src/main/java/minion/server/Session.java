@@ -0,0 +1,231 @@
+package minion.server;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+
+import minion.ui.Ui;
+
+/**
+ * Represents one client connected to the server.
+ * The selector thread splits the bytes the client sends into command lines and writes replies back;
+ * commands themselves run on a worker, one at a time, and print through this session's own Ui,
+ * whose output is collected and queued for the selector thread to send.
+ * An idle session holds no thread and only a few small buffers.
+ */
+class Session {
+
+    /** The longest command line accepted, in bytes; longer lines end the session. */
+    static final int MAX_LINE_BYTES = 64 * 1024;
+    /** The amount of unsent output beyond which the session stops reading new commands. */
+    static final int MAX_PENDING_OUTPUT = 1024 * 1024;
+    /**
+     * The number of queued commands beyond which the session stops reading new ones. The lines of
+     * the read that crossed it are still queued, so a queue holds at most this many plus one read's worth.
+     */
+    static final int MAX_QUEUED_COMMANDS = 256;
+
+    /** The connection to the client. */
+    private final SocketChannel channel;
+    /** The selection key of the connection, set once it is registered. */
+    private SelectionKey key;
+    /** The bytes of the command line received so far. */
+    private final ByteArrayOutputStream partialLine;
+    /** Collects everything the Ui prints while a command runs. */
+    private final ByteArrayOutputStream printed;
+    /** The Ui that commands of this session print through. */
+    private final Ui ui;
+    /** The command lines waiting to run, guarded by this session. */
+    private final ArrayDeque<String> commands;
+    /** The replies waiting to be sent, guarded by this session. */
+    private final ArrayDeque<ByteBuffer> replies;
+    /** The number of reply bytes waiting to be sent, guarded by this session. */
+    private int pendingOutput;
+    /** Whether a worker is running this session's commands, guarded by this session. */
+    private boolean isRunning;
+    /** Whether the session ends once its replies are sent, guarded by this session. */
+    private boolean isClosing;
+    /** Whether the client has stopped sending, guarded by this session. */
+    private boolean isInputClosed;
+
+    /**
+     * Initializes a session for a newly accepted connection.
+     *
+     * @param channel The connection to the client.
+     */
+    Session(SocketChannel channel) {
+        this.channel = channel;
+        this.partialLine = new ByteArrayOutputStream(0);
+        this.printed = new ByteArrayOutputStream(0);
+        this.ui = new Ui(new PrintStream(printed, false, StandardCharsets.UTF_8));
+        this.commands = new ArrayDeque<>(2);
+        this.replies = new ArrayDeque<>(2);
+    }
+
+    /**
+     * Returns the connection to the client.
+     *
+     * @return The socket channel.
+     */
+    SocketChannel getChannel() {
+        return channel;
+    }
+
+    /**
+     * Returns the selection key of the connection.
+     *
+     * @return The selection key.
+     */
+    SelectionKey getKey() {
+        return key;
+    }
+
+    /**
+     * Records the selection key of the connection.
+     *
+     * @param key The selection key.
+     */
+    void setKey(SelectionKey key) {
+        this.key = key;
+    }
+
+    /**
+     * Returns the Ui that commands of this session print through.
+     * Must only be used by the thread currently running the session's commands.
+     *
+     * @return The session's Ui.
+     */
+    Ui getUi() {
+        return ui;
+    }
+
+    /**
+     * Splits newly received bytes into command lines and queues every complete line.
+     * Called on the selector thread.
+     *
+     * @param bytes The received bytes, from position to limit.
+     * @return True if a worker needs to be started for the queued lines.
+     * @throws IOException If a line is longer than MAX_LINE_BYTES.
+     */
+    boolean receive(ByteBuffer bytes) throws IOException {
+        boolean needsWorker = false;
+        while (bytes.hasRemaining()) {
+            byte b = bytes.get();
+            if (b != '\n') {
+                if (partialLine.size() >= MAX_LINE_BYTES) {
+                    throw new IOException("Command line too long");
+                }
+                partialLine.write(b);
+                continue;
+            }
+
+            String line = partialLine.toString(StandardCharsets.UTF_8);
+            partialLine.reset();
+            if (line.endsWith("\r")) {
+                line = line.substring(0, line.length() - 1);
+            }
+            needsWorker |= queueCommand(line);
+        }
+        return needsWorker;
+    }
+
+    /**
+     * Takes the next command to run, or marks the session idle if there is none.
+     * Called on the worker.
+     *
+     * @return The next command line, or null if the queue is empty.
+     */
+    synchronized String nextCommand() {
+        String command = isClosing ? null : commands.poll();
+        if (command == null) {
+            isRunning = false;
+        }
+        return command;
+    }
+
+    /**
+     * Marks the session idle after its worker stopped without emptying the queue, so that the
+     * next command received starts a new worker.
+     * Called on the worker.
+     */
+    synchronized void stopRunning() {
+        isRunning = false;
+    }
+
+    /**
+     * Queues everything the Ui has printed since the last call as a reply.
+     * Called on the worker after each command.
+     *
+     * @param isLast True if the session should end once the reply is sent.
+     */
+    void sendPrinted(boolean isLast) {
+        byte[] bytes = printed.toByteArray();
+        printed.reset();
+        synchronized (this) {
+            if (bytes.length > 0) {
+                replies.add(ByteBuffer.wrap(bytes));
+                pendingOutput += bytes.length;
+            }
+            isClosing |= isLast;
+        }
+    }
+
+    /**
+     * Sends as much of the queued replies as the connection accepts without blocking,
+     * and decides whether the session should keep reading and writing.
+     * Called on the selector thread.
+     *
+     * @return True if the session is finished and should be closed.
+     * @throws IOException If the connection fails.
+     */
+    synchronized boolean sendReplies() throws IOException {
+        while (!replies.isEmpty()) {
+            ByteBuffer reply = replies.peek();
+            pendingOutput -= channel.write(reply);
+            if (reply.hasRemaining()) {
+                break;
+            }
+            replies.poll();
+        }
+
+        boolean isIdle = !isRunning && commands.isEmpty();
+        if (replies.isEmpty() && (isClosing || (isInputClosed && isIdle))) {
+            return true;
+        }
+        int interest = replies.isEmpty() ? 0 : SelectionKey.OP_WRITE;
+        if (!isClosing && !isInputClosed && pendingOutput < MAX_PENDING_OUTPUT
+                && commands.size() < MAX_QUEUED_COMMANDS) {
+            interest |= SelectionKey.OP_READ;
+        }
+        key.interestOps(interest);
+        return false;
+    }
+
+    /**
+     * Records that the client has stopped sending. Queued commands still run and are answered.
+     * Called on the selector thread.
+     */
+    synchronized void closeInput() {
+        isInputClosed = true;
+    }
+
+    /**
+     * Queues a command line.
+     *
+     * @param line The command line.
+     * @return True if no worker is running this session's commands and one must be started.
+     */
+    private synchronized boolean queueCommand(String line) {
+        commands.add(line);
+        if (isRunning) {
+            return false;
+        }
+        isRunning = true;
+        return true;
+    }
+}
@@ -0,0 +1,25 @@
+package minion.stats;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Represents one command as a Java Flight Recorder event, so that commands show up on the
+ * timeline of a recording next to garbage collections and I/O.
+ * The event is only committed while a recording has it enabled, for example with
+ * {@code java -XX:StartFlightRecording:filename=minion.jfr -cp bin minion.Minion}.
+ */
+@Name("minion.Command")
+@Label("Minion Command")
+@Category("Minion")
+@Description("A command run by the chatbot")
+@StackTrace(false)
+public class CommandEvent extends jdk.jfr.Event {
+
+    /** The command word. */
+    @Label("Command")
+    public String command;
+}
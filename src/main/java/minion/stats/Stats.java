@@ -0,0 +1,219 @@
+package minion.stats;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects how long the chatbot spends on each command and on each phase of a command,
+ * and how much it writes and syncs to the disk, for the stats command to report.
+ * Every session of a server shares the same figures. Recording takes two clock reads and one
+ * histogram update, so it stays on all the time.
+ *
+ * <p>The phases are the task list updates and queries, rendering output and saving; whatever
+ * else a command spends its time on, mostly reading its input, is counted as parsing.
+ */
+public final class Stats {
+
+    /**
+     * Represents one phase of a command.
+     */
+    public enum Phase {
+        /** Reading the command and everything not covered by another phase. */
+        PARSE("parse"),
+        /** Adding tasks to or removing tasks from the task list. */
+        UPDATE("list update"),
+        /** Searching the task list. */
+        QUERY("list query"),
+        /** Building and printing the reply. */
+        RENDER("render"),
+        /** Persisting the change. */
+        SAVE("save");
+
+        /** The name the phase is reported under. */
+        private final String label;
+
+        /**
+         * Initializes a phase.
+         *
+         * @param label The name the phase is reported under.
+         */
+        Phase(String label) {
+            this.label = label;
+        }
+    }
+
+    /** The time spent on each command, by command word, in alphabetical order. */
+    private static final Map<String, LatencyHistogram> COMMANDS = new ConcurrentSkipListMap<>();
+    /** The time spent in each phase, by phase. */
+    private static final LatencyHistogram[] PHASES = new LatencyHistogram[Phase.values().length];
+    /** The time the current command on each thread has spent in timed phases so far. */
+    private static final ThreadLocal<long[]> PHASE_NANOS = ThreadLocal.withInitial(() -> new long[1]);
+    /** The number of times the data file or journal was written. */
+    private static final LongAdder WRITES = new LongAdder();
+    /** The number of bytes written to the data file and journal. */
+    private static final LongAdder BYTES_WRITTEN = new LongAdder();
+    /** The number of times a file or folder was synced to the disk. */
+    private static final LongAdder SYNCS = new LongAdder();
+    /** The nanoTime since which the figures were collected. */
+    private static volatile long since = System.nanoTime();
+
+    static {
+        for (Phase phase : Phase.values()) {
+            PHASES[phase.ordinal()] = new LatencyHistogram();
+        }
+    }
+
+    /** Prevents instantiation, as every member is static. */
+    private Stats() {
+    }
+
+    /**
+     * Returns the histogram that a command's durations are recorded in, creating it if needed.
+     * Callers should keep the histogram rather than look it up for every command.
+     *
+     * @param word The command word.
+     * @return The command's histogram.
+     */
+    public static LatencyHistogram getCommandHistogram(String word) {
+        return COMMANDS.computeIfAbsent(word, w -> new LatencyHistogram());
+    }
+
+    /**
+     * Marks the start of a command on the calling thread.
+     *
+     * @return The start time, to pass to {@link #endCommand(LatencyHistogram, long)}.
+     */
+    public static long startCommand() {
+        PHASE_NANOS.get()[0] = 0;
+        return System.nanoTime();
+    }
+
+    /**
+     * Records a command that ran on the calling thread, and the time it spent outside the other phases.
+     *
+     * @param histogram The command's histogram.
+     * @param start     The time returned by {@link #startCommand()}.
+     */
+    public static void endCommand(LatencyHistogram histogram, long start) {
+        long elapsed = System.nanoTime() - start;
+        histogram.record(elapsed);
+        PHASES[Phase.PARSE.ordinal()].record(elapsed - PHASE_NANOS.get()[0]);
+    }
+
+    /**
+     * Records time spent in a phase.
+     *
+     * @param phase The phase.
+     * @param start The System.nanoTime at which the phase started.
+     */
+    public static void recordPhase(Phase phase, long start) {
+        long elapsed = System.nanoTime() - start;
+        PHASES[phase.ordinal()].record(elapsed);
+        PHASE_NANOS.get()[0] += elapsed;
+    }
+
+    /**
+     * Records one write to the data file or journal.
+     *
+     * @param bytes The number of bytes written.
+     */
+    public static void recordWrite(long bytes) {
+        WRITES.increment();
+        BYTES_WRITTEN.add(bytes);
+    }
+
+    /**
+     * Records one sync of a file or folder to the disk.
+     */
+    public static void recordSync() {
+        SYNCS.increment();
+    }
+
+    /**
+     * Clears every figure collected so far.
+     */
+    public static void reset() {
+        for (LatencyHistogram histogram : COMMANDS.values()) {
+            histogram.reset();
+        }
+        for (LatencyHistogram histogram : PHASES) {
+            histogram.reset();
+        }
+        WRITES.reset();
+        BYTES_WRITTEN.reset();
+        SYNCS.reset();
+        since = System.nanoTime();
+    }
+
+    /**
+     * Builds the report shown by the stats command: the counters, then a line for each command
+     * that has run and for each phase, with its count and latency percentiles.
+     *
+     * @param taskCount The number of tasks in the list.
+     * @return The report, with every line indented like other replies.
+     */
+    public static String getReport(int taskCount) {
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("\t  Stats for the last %s:\n", formatNanos(System.nanoTime() - since)));
+        report.append(String.format("\t  Tasks: %d   Saves: %d   Written: %s   Syncs: %d\n",
+                taskCount, WRITES.sum(), formatBytes(BYTES_WRITTEN.sum()), SYNCS.sum()));
+        report.append(String.format("\t  %-14s %8s %10s %10s %10s %10s", "", "count", "mean", "p50", "p99", "max"));
+        for (Map.Entry<String, LatencyHistogram> entry : COMMANDS.entrySet()) {
+            appendLine(report, entry.getKey(), entry.getValue());
+        }
+        for (Phase phase : Phase.values()) {
+            appendLine(report, "(" + phase.label + ")", PHASES[phase.ordinal()]);
+        }
+        return report.toString();
+    }
+
+    /**
+     * Appends one line of the report, unless the histogram is empty.
+     *
+     * @param report    The report being built.
+     * @param name      The name of the line.
+     * @param histogram The durations to summarise.
+     */
+    private static void appendLine(StringBuilder report, String name, LatencyHistogram histogram) {
+        long count = histogram.getCount();
+        if (count == 0) {
+            return;
+        }
+        report.append(String.format("\n\t  %-14s %8d %10s %10s %10s %10s", name, count,
+                formatNanos(histogram.getMean()), formatNanos(histogram.getPercentile(0.50)),
+                formatNanos(histogram.getPercentile(0.99)), formatNanos(histogram.getMax())));
+    }
+
+    /**
+     * Formats a duration in the largest unit that keeps it at one or more.
+     *
+     * @param nanos The duration in nanoseconds.
+     * @return The duration, such as "850 ns", "12.3 us", "4.56 ms" or "2.00 s".
+     */
+    static String formatNanos(long nanos) {
+        if (nanos < 1_000) {
+            return nanos + " ns";
+        } else if (nanos < 1_000_000) {
+            return String.format("%.1f us", nanos / 1e3);
+        } else if (nanos < 1_000_000_000) {
+            return String.format("%.2f ms", nanos / 1e6);
+        }
+        return String.format("%.2f s", nanos / 1e9);
+    }
+
+    /**
+     * Formats a number of bytes in the largest binary unit that keeps it at one or more.
+     *
+     * @param bytes The number of bytes.
+     * @return The size, such as "512 B", "4.0 KB" or "1.5 MB".
+     */
+    static String formatBytes(long bytes) {
+        if (bytes < 1024) {
+            return bytes + " B";
+        } else if (bytes < 1024 * 1024) {
+            return String.format("%.1f KB", bytes / 1024.0);
+        }
+        return String.format("%.1f MB", bytes / (1024.0 * 1024));
+    }
+}
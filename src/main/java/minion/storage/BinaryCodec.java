@@ -0,0 +1,230 @@
+package minion.storage;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import minion.task.Deadline;
+import minion.task.Event;
+import minion.task.Recurrence;
+import minion.task.Task;
+import minion.task.Todo;
+
+/**
+ * Handles the compact binary file format.
+ * The file starts with a magic number, a format version and the number of tasks,
+ * followed by one record per task, each led by the task's ID. Descriptions are length-prefixed UTF-8 and dates are
+ * stored as epoch days and nanoseconds of the day, so loading needs no text parsing. Deadlines and events end
+ * with their recurrence rule, if any, which files of earlier versions do not have.
+ */
+class BinaryCodec implements TaskCodec {
+
+    /** The bytes every binary data file starts with. */
+    static final byte[] MAGIC = {'M', 'N', 'B', 0};
+    /** The version of the record layout written by this codec. */
+    private static final short VERSION = 3;
+    /** The last version whose records do not start with the task's ID. */
+    private static final short VERSION_WITHOUT_IDS = 1;
+    /** The last version whose deadlines and events have no recurrence rule. */
+    private static final short VERSION_WITHOUT_RECURRENCE = 2;
+
+    /**
+     * Checks whether a file starting with the given bytes is in this format.
+     *
+     * @param header The first bytes of the file.
+     * @return True if the bytes start with the magic number.
+     */
+    static boolean matches(byte[] header) {
+        return header.length >= MAGIC.length && Arrays.equals(header, 0, MAGIC.length, MAGIC, 0, MAGIC.length);
+    }
+
+    /**
+     * Reads the header and every record of the stream.
+     *
+     * @param in The stream to read from.
+     * @return An ArrayList containing the tasks in file order.
+     * @throws IOException If the stream cannot be read, or has an unknown version or record type.
+     */
+    @Override
+    public ArrayList<Task> read(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(new BufferedInputStream(in));
+        byte[] magic = new byte[MAGIC.length];
+        data.readFully(magic);
+        if (!matches(magic)) {
+            throw new IOException("Not a binary data file");
+        }
+        short version = data.readShort();
+        if (version < VERSION_WITHOUT_IDS || version > VERSION) {
+            throw new IOException("Unsupported data file version " + version);
+        }
+
+        int count = data.readInt();
+        ArrayList<Task> loadedTasks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            long id = (version == VERSION_WITHOUT_IDS) ? -1 : data.readLong();
+            Task task = readTask(data, version > VERSION_WITHOUT_RECURRENCE);
+            task.setId(id);
+            loadedTasks.add(task);
+        }
+        return loadedTasks;
+    }
+
+    /**
+     * Writes the header followed by one record per task.
+     *
+     * @param tasks The tasks to be written.
+     * @param out   The stream to write to.
+     * @throws IOException If the stream cannot be written.
+     */
+    @Override
+    public void write(List<Task> tasks, OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+        data.write(MAGIC);
+        data.writeShort(VERSION);
+        data.writeInt(tasks.size());
+        for (Task task : tasks) {
+            data.writeLong(task.getId());
+            task.writeBinary(data);
+        }
+        data.flush();
+    }
+
+    /**
+     * Reads a single record written by {@link Task#writeBinary}.
+     *
+     * @param in            The stream positioned at the start of a record.
+     * @param hasRecurrence Whether deadlines and events end with a recurrence rule.
+     * @return The reconstructed task.
+     * @throws IOException If the stream cannot be read or the record type is unknown.
+     */
+    private Task readTask(DataInputStream in, boolean hasRecurrence) throws IOException {
+        char tag = (char) in.readByte();
+        boolean isDone = in.readBoolean();
+        String description = readText(in);
+
+        Task task;
+        switch (tag) {
+        case 'T':
+            task = new Todo(description);
+            break;
+        case 'D': {
+            String by = readText(in);
+            int present = in.readByte();
+            Deadline deadline = new Deadline(description, by,
+                    readDate(in, present), readTime(in, present), readDateTime(in, present));
+            if (hasRecurrence) {
+                deadline.setRecurrence(readRecurrence(in));
+            }
+            task = deadline;
+            break;
+        }
+        case 'E': {
+            String from = readText(in);
+            String to = readText(in);
+            int fromPresent = in.readByte();
+            LocalDate fromDate = readDate(in, fromPresent);
+            LocalTime fromTime = readTime(in, fromPresent);
+            LocalDateTime fromDateTime = readDateTime(in, fromPresent);
+            int toPresent = in.readByte();
+            Event event = new Event(description, from, to, fromDate, fromTime, fromDateTime,
+                    readDate(in, toPresent), readTime(in, toPresent), readDateTime(in, toPresent));
+            if (hasRecurrence) {
+                event.setRecurrence(readRecurrence(in));
+            }
+            task = event;
+            break;
+        }
+        default:
+            throw new IOException("Unknown task type " + tag);
+        }
+
+        if (isDone) {
+            task.setDone(true);
+        }
+        return task;
+    }
+
+    /**
+     * Reads a length-prefixed UTF-8 string.
+     *
+     * @param in The stream to read from.
+     * @return The decoded string.
+     * @throws IOException If the stream cannot be read.
+     */
+    private String readText(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads the date of a temporal group if its presence bit is set.
+     *
+     * @param in      The stream to read from.
+     * @param present The presence byte of the group.
+     * @return The date, or null if it is absent.
+     * @throws IOException If the stream cannot be read.
+     */
+    private LocalDate readDate(DataInputStream in, int present) throws IOException {
+        return (present & 1) != 0 ? LocalDate.ofEpochDay(in.readLong()) : null;
+    }
+
+    /**
+     * Reads the time of a temporal group if its presence bit is set.
+     *
+     * @param in      The stream to read from.
+     * @param present The presence byte of the group.
+     * @return The time, or null if it is absent.
+     * @throws IOException If the stream cannot be read.
+     */
+    private LocalTime readTime(DataInputStream in, int present) throws IOException {
+        return (present & 2) != 0 ? LocalTime.ofNanoOfDay(in.readLong()) : null;
+    }
+
+    /**
+     * Reads the date and time of a temporal group if its presence bit is set.
+     *
+     * @param in      The stream to read from.
+     * @param present The presence byte of the group.
+     * @return The date and time, or null if it is absent.
+     * @throws IOException If the stream cannot be read.
+     */
+    private LocalDateTime readDateTime(DataInputStream in, int present) throws IOException {
+        if ((present & 4) == 0) {
+            return null;
+        }
+        LocalDate date = LocalDate.ofEpochDay(in.readLong());
+        return date.atTime(LocalTime.ofNanoOfDay(in.readLong()));
+    }
+
+    /**
+     * Reads a recurrence rule written by {@link Task#writeBinary}.
+     *
+     * @param in The stream to read from.
+     * @return The rule, or null if the task does not recur.
+     * @throws IOException If the stream cannot be read or the frequency is unknown.
+     */
+    private Recurrence readRecurrence(DataInputStream in) throws IOException {
+        int frequency = in.readByte();
+        if (frequency == 0) {
+            return null;
+        }
+        Recurrence.Frequency[] frequencies = Recurrence.Frequency.values();
+        if (frequency < 0 || frequency > frequencies.length) {
+            throw new IOException("Unknown recurrence " + frequency);
+        }
+        LocalDate until = in.readBoolean() ? LocalDate.ofEpochDay(in.readLong()) : null;
+        return new Recurrence(frequencies[frequency - 1], until);
+    }
+}
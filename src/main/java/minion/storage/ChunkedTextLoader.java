@@ -0,0 +1,224 @@
+package minion.storage;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import minion.task.Task;
+
+/**
+ * Reads a text data file by splitting it into byte ranges that end on line breaks and parsing
+ * the ranges at the same time on the common fork-join pool, then joining their tasks back
+ * together in file order. Files too small to be worth splitting are parsed on the calling thread.
+ * A line that cannot be parsed is kept as a todo holding its raw text, as in {@link MappedTaskList},
+ * so that nothing is lost and the positions in journal records still line up; its line number
+ * is reported so the user can repair it.
+ */
+class ChunkedTextLoader {
+
+    /** The smallest range worth parsing on a thread of its own, in bytes. */
+    private static final long MIN_CHUNK_BYTES = 1024 * 1024;
+    /** The largest range parsed at once, which keeps each range's buffer well within an array. */
+    private static final long MAX_CHUNK_BYTES = 256L * 1024 * 1024;
+    /** The number of ranges per pool thread, so that one slow range does not leave the others idle. */
+    private static final int CHUNKS_PER_THREAD = 4;
+    /** The number of bytes read at a time while looking for the end of a line. */
+    private static final int PROBE_BYTES = 4096;
+
+    /** The format used to parse each line. */
+    private final TextCodec codec;
+
+    /**
+     * Initializes a loader for files written by the given format in UTF-8, where a line break is
+     * always the single byte '\n' and no other character contains that byte, so ranges can be split on it.
+     *
+     * @param codec The format used to parse each line.
+     */
+    ChunkedTextLoader(TextCodec codec) {
+        this.codec = codec;
+    }
+
+    /**
+     * Reads every non-blank line of a file as a task.
+     *
+     * @param path         The path of the file.
+     * @param damagedLines The list the one-based numbers of lines that could not be parsed are added to.
+     * @return An ArrayList containing the tasks in file order.
+     * @throws IOException If the file cannot be read.
+     */
+    ArrayList<Task> load(Path path, List<Integer> damagedLines) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long[] bounds = findChunkBounds(channel);
+            Chunk[] chunks = new Chunk[bounds.length - 1];
+            if (chunks.length == 1) {
+                chunks[0] = parseChunk(channel, bounds[0], bounds[1]);
+            } else {
+                parseChunks(channel, bounds, chunks);
+            }
+
+            int taskCount = 0;
+            for (Chunk chunk : chunks) {
+                taskCount += chunk.tasks.size();
+            }
+            ArrayList<Task> tasks = new ArrayList<>(taskCount);
+            int linesBefore = 0;
+            for (Chunk chunk : chunks) {
+                tasks.addAll(chunk.tasks);
+                for (int line : chunk.damagedLines) {
+                    damagedLines.add(linesBefore + line);
+                }
+                linesBefore += chunk.lineCount;
+            }
+            return tasks;
+        }
+    }
+
+    /**
+     * Splits a file into ranges of whole lines, one per chunk of work.
+     *
+     * @param channel The open file.
+     * @return The byte offset each range starts at, followed by the size of the file.
+     * @throws IOException If the file cannot be read.
+     */
+    private long[] findChunkBounds(FileChannel channel) throws IOException {
+        long size = channel.size();
+        int threads = ForkJoinPool.getCommonPoolParallelism();
+        long wanted = Math.min(size / MIN_CHUNK_BYTES, (long) threads * CHUNKS_PER_THREAD);
+        int chunkCount = (int) Math.max(Math.max(wanted, 1), (size + MAX_CHUNK_BYTES - 1) / MAX_CHUNK_BYTES);
+
+        long[] bounds = new long[chunkCount + 1];
+        for (int i = 1; i < chunkCount; i++) {
+            long target = Math.max(size / chunkCount * i, bounds[i - 1]);
+            bounds[i] = findLineStart(channel, target, size);
+        }
+        bounds[chunkCount] = size;
+        return bounds;
+    }
+
+    /**
+     * Finds the start of the first line that begins at or after an offset.
+     *
+     * @param channel The open file.
+     * @param offset  The byte offset to search from.
+     * @param size    The size of the file.
+     * @return The offset just after the first line break at or after offset - 1, or the size of the file.
+     * @throws IOException If the file cannot be read.
+     */
+    private static long findLineStart(FileChannel channel, long offset, long size) throws IOException {
+        if (offset == 0) {
+            return 0;
+        }
+        ByteBuffer probe = ByteBuffer.allocate(PROBE_BYTES);
+        long position = offset - 1;
+        while (position < size) {
+            probe.clear();
+            int read = channel.read(probe, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (probe.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return size;
+    }
+
+    /**
+     * Parses every range but the last on the common fork-join pool and the last on the calling thread.
+     *
+     * @param channel The open file, which is safe to read from several threads at positions.
+     * @param bounds  The byte offset each range starts at, followed by the size of the file.
+     * @param chunks  The array the parsed ranges are stored in, in file order.
+     * @throws IOException If the file cannot be read.
+     */
+    private void parseChunks(FileChannel channel, long[] bounds, Chunk[] chunks) throws IOException {
+        List<ForkJoinTask<Chunk>> running = new ArrayList<>(chunks.length - 1);
+        for (int i = 0; i < chunks.length - 1; i++) {
+            long start = bounds[i];
+            long end = bounds[i + 1];
+            running.add(ForkJoinPool.commonPool().submit(() -> parseChunk(channel, start, end)));
+        }
+        chunks[chunks.length - 1] = parseChunk(channel, bounds[chunks.length - 1], bounds[chunks.length]);
+
+        try {
+            for (int i = 0; i < running.size(); i++) {
+                chunks[i] = running.get(i).get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while loading the data file");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw (cause instanceof IOException) ? (IOException) cause : new IOException(cause);
+        }
+    }
+
+    /**
+     * Reads and parses one range of the file.
+     *
+     * @param channel The open file.
+     * @param start   The byte offset of the first line in the range.
+     * @param end     The byte offset just after the range.
+     * @return The tasks of the range and the lines that could not be parsed.
+     * @throws IOException If the file cannot be read.
+     */
+    private Chunk parseChunk(FileChannel channel, long start, long end) throws IOException {
+        byte[] bytes = new byte[(int) (end - start)];
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        // A positional read may return fewer bytes than asked for, or -1 if the file has shrunk
+        int read = 0;
+        while (buffer.hasRemaining() && read >= 0) {
+            read = channel.read(buffer, start + buffer.position());
+        }
+
+        String text = new String(bytes, 0, buffer.position(), StandardCharsets.UTF_8);
+        Chunk chunk = new Chunk();
+        int lineStart = 0;
+        while (lineStart < text.length()) {
+            int lineEnd = text.indexOf('\n', lineStart);
+            if (lineEnd < 0) {
+                lineEnd = text.length();
+            }
+            int contentEnd = (lineEnd > lineStart && text.charAt(lineEnd - 1) == '\r') ? lineEnd - 1 : lineEnd;
+            chunk.lineCount++;
+            String line = text.substring(lineStart, contentEnd);
+            if (!line.trim().isEmpty()) {
+                try {
+                    chunk.tasks.add(codec.parseTask(line));
+                } catch (RuntimeException e) {
+                    chunk.tasks.add(codec.keepDamagedLine(line));
+                    chunk.damagedLines.add(chunk.lineCount);
+                }
+            }
+            lineStart = lineEnd + 1;
+        }
+        return chunk;
+    }
+
+    /**
+     * Represents the result of parsing one range of the file.
+     */
+    private static class Chunk {
+        /** The tasks of the range, in file order. */
+        private final ArrayList<Task> tasks = new ArrayList<>();
+        /** The one-based numbers, counted from the start of the range, of lines that could not be parsed. */
+        private final List<Integer> damagedLines = new ArrayList<>();
+        /** The number of lines in the range, blank ones included. */
+        private int lineCount;
+    }
+}
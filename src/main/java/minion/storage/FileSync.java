@@ -0,0 +1,55 @@
+package minion.storage;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import minion.stats.Stats;
+
+/**
+ * Forces files and folders to the disk, for saves that must survive a crash or power cut.
+ * Writing a file only hands its bytes to the operating system; they reach the disk some time later
+ * unless the file is synced. Renaming, creating or deleting a file likewise changes its folder,
+ * which must be synced too before the change is certain to last.
+ */
+final class FileSync {
+
+    /** Prevents instantiation, as every member is static. */
+    private FileSync() {
+    }
+
+    /**
+     * Forces the contents of an open file to the disk.
+     *
+     * @param channel The open file.
+     * @throws IOException If the file cannot be synced.
+     */
+    static void syncFile(FileChannel channel) throws IOException {
+        channel.force(false);
+        Stats.recordSync();
+    }
+
+    /**
+     * Forces the folder holding a file to the disk, so that a file just renamed into it,
+     * created in it or deleted from it stays that way.
+     * Platforms that cannot open a folder for syncing, such as Windows, make folder changes
+     * durable by themselves, so there is nothing to do on them.
+     *
+     * @param file A file in the folder.
+     * @throws IOException If the folder can be opened but not synced.
+     */
+    static void syncFolderOf(Path file) throws IOException {
+        Path folder = file.toAbsolutePath().getParent();
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(folder, StandardOpenOption.READ);
+        } catch (IOException e) {
+            return;
+        }
+        try (channel) {
+            channel.force(true);
+            Stats.recordSync();
+        }
+    }
+}
@@ -0,0 +1,252 @@
+package minion.storage;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.function.LongConsumer;
+
+import minion.stats.Stats;
+
+/**
+ * Represents the append-only mutation log kept next to the snapshot file.
+ * Each line is one small record describing a single change to the task list,
+ * so a mutation costs one short append instead of a full rewrite of the data file.
+ * When the active log grows past its threshold it is sealed, and the sealed log
+ * is later folded into the snapshot by {@link Storage}; a full save seals it too,
+ * and replaces it together with the snapshot.
+ */
+class Journal {
+
+    /** Record prefix for a newly added task, followed by the task's file format. */
+    static final String ADD = "+";
+    /** Record prefix for tasks being marked as done, followed by their IDs. */
+    static final String MARK = "M";
+    /** Record prefix for tasks being marked as not done, followed by their IDs. */
+    static final String UNMARK = "U";
+    /** Record prefix for deleted tasks, followed by their IDs. */
+    static final String DELETE = "-";
+    /** Separator between the record prefix and its payload. */
+    static final String SEPARATOR = " | ";
+
+    /** The log currently receiving appends. */
+    private final Path activePath;
+    /** The log that has been sealed and is waiting to be compacted. */
+    private final Path sealedPath;
+    /** The open active log, opened on the first append. */
+    private FileChannel channel;
+    /** The writer for the active log, opened on the first append. */
+    private BufferedWriter writer;
+    /** The current size of the active log in bytes. */
+    private long size;
+    /** Whether every append and seal is synced to the disk before it returns. */
+    private boolean isDurable;
+
+    /**
+     * Initializes a journal for the given snapshot file.
+     * The log files live beside the snapshot and share its name as a prefix.
+     *
+     * @param snapshotPath The path of the snapshot file the journal belongs to.
+     */
+    Journal(Path snapshotPath) {
+        this.activePath = snapshotPath.resolveSibling(snapshotPath.getFileName() + ".log");
+        this.sealedPath = snapshotPath.resolveSibling(snapshotPath.getFileName() + ".log.sealed");
+        this.size = -1;
+    }
+
+    /**
+     * Switches durable writing on or off.
+     * When on, appended records are synced to the disk before {@link #appendAll(List)} returns,
+     * and sealing the log syncs its folder.
+     *
+     * @param isDurable True to sync every change to the disk.
+     */
+    void setDurable(boolean isDurable) {
+        this.isDurable = isDurable;
+    }
+
+    /**
+     * Returns the path of the active log.
+     *
+     * @return The active log path.
+     */
+    Path getActivePath() {
+        return activePath;
+    }
+
+    /**
+     * Returns the path of the sealed log.
+     *
+     * @return The sealed log path.
+     */
+    Path getSealedPath() {
+        return sealedPath;
+    }
+
+    /**
+     * Builds the text of a single record, without its line separator.
+     *
+     * @param type    The record prefix (one of ADD, MARK, UNMARK or DELETE).
+     * @param payload The record body.
+     * @return The record as it appears in the log.
+     */
+    static String format(String type, String payload) {
+        return type + SEPARATOR + payload;
+    }
+
+    /**
+     * Builds the payload naming several tasks by their IDs, such as "12-511,600".
+     * A single task is written as just its ID.
+     *
+     * @param ids The IDs of the tasks in ascending order, at least one.
+     * @return The IDs as runs of consecutive numbers separated by commas.
+     */
+    static String formatIds(long[] ids) {
+        StringBuilder payload = new StringBuilder();
+        int start = 0;
+        while (start < ids.length) {
+            int end = start + 1;
+            while (end < ids.length && ids[end] == ids[end - 1] + 1) {
+                end++;
+            }
+            if (payload.length() > 0) {
+                payload.append(',');
+            }
+            payload.append(ids[start]);
+            if (end - start > 1) {
+                payload.append('-').append(ids[end - 1]);
+            }
+            start = end;
+        }
+        return payload.toString();
+    }
+
+    /**
+     * Reads a payload written by {@link #formatIds(long[])}, passing each ID to an action in turn.
+     * The payload is checked in full before the first ID is passed on, so a malformed record
+     * never takes effect in part.
+     *
+     * @param payload The IDs as runs of consecutive numbers separated by commas.
+     * @param action  The action to apply to each ID, in ascending order.
+     * @throws NumberFormatException If the payload is malformed.
+     */
+    static void forEachId(String payload, LongConsumer action) {
+        String[] runs = payload.split(",", -1);
+        long[] firsts = new long[runs.length];
+        long[] lasts = new long[runs.length];
+        for (int i = 0; i < runs.length; i++) {
+            int dash = runs[i].indexOf('-');
+            firsts[i] = Long.parseLong((dash == -1) ? runs[i] : runs[i].substring(0, dash));
+            lasts[i] = (dash == -1) ? firsts[i] : Long.parseLong(runs[i].substring(dash + 1));
+            if (firsts[i] < 0 || lasts[i] < firsts[i]) {
+                throw new NumberFormatException("Invalid run: " + runs[i]);
+            }
+        }
+        for (int i = 0; i < runs.length; i++) {
+            for (long id = firsts[i]; id <= lasts[i]; id++) {
+                action.accept(id);
+            }
+        }
+    }
+
+    /**
+     * Appends several records built by {@link #format} and flushes them together,
+     * so a burst of changes costs a single write to the operating system, and in durable mode
+     * a single sync.
+     *
+     * @param records The records to append, in order.
+     * @throws IOException If the log cannot be written.
+     */
+    void appendAll(List<String> records) throws IOException {
+        if (writer == null) {
+            open();
+        }
+        long bytes = 0;
+        for (String record : records) {
+            String line = record + System.lineSeparator();
+            writer.write(line);
+            bytes += line.getBytes(StandardCharsets.UTF_8).length;
+        }
+        writer.flush();
+        if (isDurable) {
+            FileSync.syncFile(channel);
+        }
+        size += bytes;
+        Stats.recordWrite(bytes);
+    }
+
+    /**
+     * Returns the size of the active log in bytes.
+     *
+     * @return The number of bytes in the active log.
+     * @throws IOException If the size of an existing log cannot be read.
+     */
+    long size() throws IOException {
+        if (size < 0) {
+            size = Files.exists(activePath) ? Files.size(activePath) : 0;
+        }
+        return size;
+    }
+
+    /**
+     * Checks whether a sealed log is still waiting to be compacted.
+     *
+     * @return True if a sealed log exists, false otherwise.
+     */
+    boolean hasSealed() {
+        return Files.exists(sealedPath);
+    }
+
+    /**
+     * Closes the active log and renames it to the sealed log, so that new records
+     * start a fresh active log. Must only be called when no sealed log exists.
+     *
+     * @throws IOException If the active log cannot be closed or renamed.
+     */
+    void seal() throws IOException {
+        close();
+        Files.move(activePath, sealedPath, StandardCopyOption.ATOMIC_MOVE);
+        if (isDurable) {
+            FileSync.syncFolderOf(sealedPath);
+        }
+        size = 0;
+    }
+
+    /**
+     * Closes the writer of the active log if it is open.
+     *
+     * @throws IOException If the writer cannot be closed.
+     */
+    void close() throws IOException {
+        if (writer != null) {
+            writer.close();
+            writer = null;
+            channel = null;
+        }
+    }
+
+    /**
+     * Opens the active log for appending, creating it and its parent folder if needed.
+     *
+     * @throws IOException If the log cannot be opened.
+     */
+    private void open() throws IOException {
+        if (activePath.getParent() != null) {
+            Files.createDirectories(activePath.getParent());
+        }
+        size();
+        boolean isNew = !Files.exists(activePath);
+        channel = FileChannel.open(activePath, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        writer = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8));
+        if (isDurable && isNew) {
+            FileSync.syncFolderOf(activePath);
+        }
+    }
+}
@@ -0,0 +1,330 @@
+package minion.storage;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+import minion.task.IdLookup;
+import minion.task.Task;
+import minion.task.TaskList;
+
+/**
+ * Represents a list of tasks backed by a memory-mapped text data file.
+ * Loading only records where each non-blank line starts; a line is parsed into a Task
+ * the first time it is accessed and kept from then on, so the heap only holds the tasks
+ * that have actually been used. Tasks added later are held in memory like in any other list.
+ * The ID at the start of each line is read while indexing and kept beside its offset, so the next
+ * free ID is known, and a task is found by its ID, without parsing any other task.
+ * Removing a task shifts the offsets and IDs after it down, which parses nothing but takes time
+ * in proportion to the number of later tasks.
+ */
+class MappedTaskList extends AbstractList<Task> implements RandomAccess, IdLookup {
+
+    /** Marks a position whose task was added in memory rather than read from the file. */
+    private static final int NOT_MAPPED = -1;
+
+    /** The read-only mapping of the data file. */
+    private final MappedByteBuffer buffer;
+    /** The format used to parse a line once it is accessed. */
+    private final TextCodec codec;
+    /** The byte offset of the line behind each position, or NOT_MAPPED. */
+    private int[] offsets;
+    /** The ID of the task at each position, or -1 if it has none. */
+    private long[] ids;
+    /** Whether the IDs increase from position to position, which {@link #indexOfId(long)} relies on. */
+    private boolean isOrdered;
+    /** The task at each position, or null if its line has not been parsed yet. */
+    private Task[] loaded;
+    /** The number of tasks in the list. */
+    private int size;
+    /** The ID after the highest one in the list. */
+    private long nextId;
+    /** Whether every task in the list has an ID. */
+    private boolean isNumbered;
+
+    /**
+     * Maps a text data file and records where each of its non-blank lines starts.
+     *
+     * @param path  The path of the data file, which must be smaller than 2 GB.
+     * @param codec The format used to parse each line.
+     * @throws IOException If the file cannot be mapped.
+     */
+    MappedTaskList(Path path, TextCodec codec) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        this.codec = codec;
+        this.offsets = new int[16];
+        this.ids = new long[16];
+        this.nextId = TaskList.FIRST_ID;
+        this.isNumbered = true;
+        this.isOrdered = true;
+        indexLines();
+        this.loaded = new Task[offsets.length];
+    }
+
+    /**
+     * Returns the task at a position, parsing its line on first access.
+     *
+     * @param index The zero-based position of the task.
+     * @return The task at the position.
+     */
+    @Override
+    public Task get(int index) {
+        checkIndex(index);
+        if (loaded[index] == null) {
+            loaded[index] = parseLine(offsets[index]);
+        }
+        return loaded[index];
+    }
+
+    /**
+     * Replaces the task at a position.
+     *
+     * @param index The zero-based position of the task.
+     * @param task  The new task.
+     * @return The task previously at the position.
+     */
+    @Override
+    public Task set(int index, Task task) {
+        Task previous = get(index);
+        loaded[index] = task;
+        offsets[index] = NOT_MAPPED;
+        if (task.getId() != ids[index]) {
+            ids[index] = task.getId();
+            isOrdered = false;
+        }
+        return previous;
+    }
+
+    /**
+     * Appends a task held in memory.
+     *
+     * @param index The position to insert at, which must be the end of the list.
+     * @param task  The task to be appended.
+     */
+    @Override
+    public void add(int index, Task task) {
+        if (index != size) {
+            throw new UnsupportedOperationException("Tasks can only be appended");
+        }
+        ensureCapacity(size + 1);
+        recordId(task.getId());
+        offsets[size] = NOT_MAPPED;
+        loaded[size] = task;
+        size++;
+        modCount++;
+    }
+
+    /**
+     * Removes the task at a position, shifting later tasks down.
+     *
+     * @param index The zero-based position of the task.
+     * @return The removed task.
+     */
+    @Override
+    public Task remove(int index) {
+        Task removed = get(index);
+        int moved = size - index - 1;
+        System.arraycopy(offsets, index + 1, offsets, index, moved);
+        System.arraycopy(ids, index + 1, ids, index, moved);
+        System.arraycopy(loaded, index + 1, loaded, index, moved);
+        size--;
+        loaded[size] = null;
+        modCount++;
+        return removed;
+    }
+
+    /**
+     * Finds the position of a task from its ID, parsing only the task found.
+     *
+     * @param o The task to look for.
+     * @return The zero-based position of the task, or -1 if it is not in the list.
+     */
+    @Override
+    public int indexOf(Object o) {
+        if (!(o instanceof Task)) {
+            return -1;
+        }
+        int index = indexOfId(((Task) o).getId());
+        return (index >= 0 && get(index) == o) ? index : -1;
+    }
+
+    /**
+     * Finds the position of the task with the given ID from the IDs read while indexing,
+     * without parsing any task.
+     *
+     * @param id The ID of the task.
+     * @return The zero-based position of the task, or -1 if no task has the ID.
+     */
+    @Override
+    public int indexOfId(long id) {
+        if (isOrdered) {
+            int index = Arrays.binarySearch(ids, 0, size, id);
+            return (index >= 0) ? index : -1;
+        }
+        for (int i = 0; i < size; i++) {
+            if (ids[i] == id) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the number of tasks in the list.
+     *
+     * @return The size of the list.
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the ID after the highest one in the list.
+     *
+     * @return The next free ID.
+     */
+    long getNextId() {
+        return nextId;
+    }
+
+    /**
+     * Checks whether every task in the list has an ID, which tasks saved before IDs existed do not.
+     *
+     * @return True if every line and every added task has an ID.
+     */
+    boolean isNumbered() {
+        return isNumbered;
+    }
+
+    /**
+     * Scans the mapping once and records the start of every non-blank line.
+     */
+    private void indexLines() {
+        int limit = buffer.limit();
+        int lineStart = 0;
+        boolean isBlank = true;
+        for (int i = 0; i < limit; i++) {
+            byte b = buffer.get(i);
+            if (b == '\n') {
+                addOffset(lineStart, isBlank);
+                lineStart = i + 1;
+                isBlank = true;
+            } else if (b != ' ' && b != '\t' && b != '\r') {
+                isBlank = false;
+            }
+        }
+        addOffset(lineStart, isBlank);
+    }
+
+    /**
+     * Records the start of a line unless the line is blank.
+     *
+     * @param lineStart The byte offset of the line.
+     * @param isBlank   Whether the line holds only whitespace.
+     */
+    private void addOffset(int lineStart, boolean isBlank) {
+        if (isBlank) {
+            return;
+        }
+        if (size == offsets.length) {
+            offsets = Arrays.copyOf(offsets, size * 2);
+            ids = Arrays.copyOf(ids, size * 2);
+        }
+        long id = readId(lineStart);
+        recordId(id);
+        offsets[size++] = lineStart;
+    }
+
+    /**
+     * Reads the ID at the start of a line without parsing the rest of it.
+     *
+     * @param lineStart The byte offset of the line.
+     * @return The ID, or -1 if the line does not start with one.
+     */
+    private long readId(int lineStart) {
+        long id = 0;
+        int end = lineStart;
+        while (end < buffer.limit() && end - lineStart < 18 && buffer.get(end) >= '0' && buffer.get(end) <= '9') {
+            id = id * 10 + (buffer.get(end) - '0');
+            end++;
+        }
+        boolean hasId = end > lineStart && end + 1 < buffer.limit()
+                && buffer.get(end) == ' ' && buffer.get(end + 1) == '|';
+        return hasId ? id : -1;
+    }
+
+    /**
+     * Takes note of the ID of a task entering the list at the end.
+     *
+     * @param id The ID of the task, or -1 if it has none.
+     */
+    private void recordId(long id) {
+        isOrdered &= id >= 0 && (size == 0 || id > ids[size - 1]);
+        ids[size] = id;
+        if (id < 0) {
+            isNumbered = false;
+        } else {
+            nextId = Math.max(nextId, id + 1);
+        }
+    }
+
+    /**
+     * Parses the line starting at the given offset.
+     * A line that cannot be parsed is kept as a todo holding the raw text, so nothing is lost.
+     *
+     * @param offset The byte offset of the line.
+     * @return The task described by the line.
+     */
+    private Task parseLine(int offset) {
+        int end = offset;
+        while (end < buffer.limit() && buffer.get(end) != '\n') {
+            end++;
+        }
+        if (end > offset && buffer.get(end - 1) == '\r') {
+            end--;
+        }
+
+        byte[] bytes = new byte[end - offset];
+        buffer.get(offset, bytes);
+        String line = new String(bytes, StandardCharsets.UTF_8);
+        try {
+            return codec.parseTask(line);
+        } catch (RuntimeException e) {
+            return codec.keepDamagedLine(line);
+        }
+    }
+
+    /**
+     * Grows the backing arrays to hold at least the given number of tasks.
+     *
+     * @param capacity The number of tasks to make room for.
+     */
+    private void ensureCapacity(int capacity) {
+        if (capacity > offsets.length) {
+            int newLength = Math.max(capacity, offsets.length * 2);
+            offsets = Arrays.copyOf(offsets, newLength);
+            ids = Arrays.copyOf(ids, newLength);
+            loaded = Arrays.copyOf(loaded, newLength);
+        }
+    }
+
+    /**
+     * Checks that a position is inside the list.
+     *
+     * @param index The zero-based position to check.
+     */
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+}
@@ -1,30 +1,101 @@
 package minion.storage;
 
-import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileWriter;
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
 import java.io.IOException;
-import java.time.LocalDate;
-import java.time.LocalDateTime;
-import java.time.LocalTime;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
-import java.util.Scanner;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
 
 import minion.exception.MinionException;
-import minion.task.Deadline;
-import minion.task.Event;
 import minion.task.Task;
-import minion.task.Todo;
+import minion.task.TaskList;
 import minion.responses.MinionResponses;
+import minion.stats.Stats;
 
 /**
- * Handles the loading and saving of task data to a local text file.
- * Optimized to handle hybrid date/time formats using java.time objects.
+ * Handles the loading and saving of task data to a local file.
+ * The data file is either in the pipe-separated text format or in the compact binary format;
+ * the format is recognised from the start of the file when loading, and chosen by
+ * {@link #setBinary(boolean)} when saving.
+ * In journaled mode, each change is appended to a small log beside the data file
+ * and the log is folded back into the data file in the background once it grows large.
+ * In deferred mode, changes are only written when flushed or at periodic checkpoints.
+ * In durable mode, every file is synced to the disk before it replaces the last one, and a change
+ * is only saved once it is on the disk; changes made at about the same time share one sync.
  */
 public class Storage {
 
+    /** The default size in bytes the journal may reach before it is compacted. */
+    private static final long DEFAULT_COMPACTION_THRESHOLD = 1024 * 1024;
+    /** The default time the background writer waits to merge further changes, in milliseconds. */
+    private static final long DEFAULT_FLUSH_DELAY = 50;
+    /**
+     * The default time a durable save waits for others to share its sync, in milliseconds.
+     * Changes made while a sync is under way are grouped into the next one even without waiting.
+     */
+    private static final long DEFAULT_COMMIT_DELAY = 0;
+
     /** The path to the data file. */
     private String filePath;
+    /** Whether mutations are appended to the journal instead of rewriting the data file. */
+    private boolean isJournaled;
+    /** The size in bytes the journal may reach before it is compacted. */
+    private long compactionThreshold;
+    /** The journal kept beside the data file. */
+    private final Journal journal;
+    /** The single background thread that folds sealed journals into the data file. */
+    private ExecutorService compactor;
+    /** The compaction currently running in the background, or null if there is none. */
+    private Future<?> compaction;
+    /** The pipe-separated text format, also used for journal records, import and export. */
+    private final TextCodec textCodec;
+    /** The reader that parses text snapshot files in parallel ranges. */
+    private final ChunkedTextLoader textLoader;
+    /** The compact binary format. */
+    private final BinaryCodec binaryCodec;
+    /** Whether the data file is written in the binary format instead of the text format. */
+    private boolean isBinary;
+    /** Whether a text data file is memory-mapped and parsed on demand instead of all at once. */
+    private boolean isLazy;
+    /** Whether changes are held back until {@link #flush(List)} or the next checkpoint. */
+    private boolean isDeferred;
+    /** The number of held-back changes that triggers a checkpoint save, or 0 to only save on flush. */
+    private int checkpointInterval;
+    /** The number of changes made since the data file was last written. */
+    private int pendingChanges;
+    /** Whether changes are handed to a background writer instead of being written on the calling thread. */
+    private boolean isAsync;
+    /** How long the background writer waits to merge further changes into one write, in milliseconds. */
+    private long flushDelay;
+    /** Whether every write is synced to the disk, and changes are only saved once they are on it. */
+    private boolean isDurable;
+    /** How long a durable save waits for further changes to share its sync, in milliseconds. */
+    private long commitDelay;
+    /** The background writer, started on the first change in asynchronous or durable mode. */
+    private volatile WriteBehind writeBehind;
+    /** The source of the latest list that background writes save, or null to save the list each change passes. */
+    private Supplier<List<Task>> snapshotSource;
+    /** The ID after the highest one loaded by {@link #load()}. */
+    private long nextId;
+    /** The numbers of the data file's lines that {@link #load()} could not parse. */
+    private List<Integer> damagedLines;
+    /** Whether a data file that could not be loaded is still in place, so nothing may be saved over it. */
+    private boolean isLoadFailed;
 
     /**
      * Initializes the Storage object with a specific file path.
@@ -33,127 +104,867 @@ public class Storage {
      */
     public Storage(String filePath) {
         this.filePath = filePath;
+        this.compactionThreshold = DEFAULT_COMPACTION_THRESHOLD;
+        this.flushDelay = DEFAULT_FLUSH_DELAY;
+        this.commitDelay = DEFAULT_COMMIT_DELAY;
+        this.journal = new Journal(Path.of(filePath));
+        this.textCodec = new TextCodec();
+        this.textLoader = new ChunkedTextLoader(textCodec);
+        this.binaryCodec = new BinaryCodec();
+        this.damagedLines = List.of();
+    }
+
+    /**
+     * Chooses the format the data file is written in.
+     * Either format is still recognised when loading.
+     *
+     * @param isBinary True to write the compact binary format, false for the text format.
+     */
+    public void setBinary(boolean isBinary) {
+        this.isBinary = isBinary;
+    }
+
+    /**
+     * Switches journaled mode on or off.
+     * When on, every mutation is appended to the journal rather than rewriting the data file.
+     *
+     * @param isJournaled True to append mutations to the journal.
+     */
+    public void setJournaled(boolean isJournaled) {
+        this.isJournaled = isJournaled;
+    }
+
+    /**
+     * Switches lazy loading on or off.
+     * When on, a text data file is memory-mapped and each task is only parsed when first used.
+     * Lazy loading also keeps saves journaled, since rewriting the data file would parse every task.
+     *
+     * @param isLazy True to load the data file on demand.
+     */
+    public void setLazy(boolean isLazy) {
+        this.isLazy = isLazy;
+    }
+
+    /**
+     * Switches deferred saving on or off.
+     * When on, changes are not written as they happen; the whole list is saved once on
+     * {@link #flush(List)}, and also every {@code checkpointInterval} changes if one is set.
+     *
+     * @param isDeferred True to hold changes back until they are flushed.
+     */
+    public void setDeferred(boolean isDeferred) {
+        this.isDeferred = isDeferred;
+    }
+
+    /**
+     * Sets how many deferred changes may build up before the list is saved anyway.
+     *
+     * @param checkpointInterval The number of changes between saves, or 0 to only save on flush.
+     */
+    public void setCheckpointInterval(int checkpointInterval) {
+        this.checkpointInterval = checkpointInterval;
+    }
+
+    /**
+     * Switches asynchronous saving on or off. Must be chosen before the first change is saved.
+     * When on, changes are handed to a single background writer and the caller never waits for the disk;
+     * the writer merges each burst of changes into one write at most {@code flushDelay} milliseconds later.
+     * Failed background writes are reported by {@link #checkBackgroundWrites()}.
+     *
+     * @param isAsync True to save changes in the background.
+     */
+    public void setAsync(boolean isAsync) {
+        this.isAsync = isAsync;
+    }
+
+    /**
+     * Switches durable saving on or off. Must be chosen before the first change is saved.
+     * When on, the data file and journal are synced to the disk on every write, so a crash or power cut
+     * never loses a saved change nor leaves a half-written file. Each change is handed to the background
+     * writer, which groups the changes of every caller waiting at the same time into one write and one
+     * sync; the caller returns once its change is on the disk. In asynchronous mode the caller does not
+     * wait, but every background write is still synced.
+     *
+     * @param isDurable True to sync every change to the disk before it counts as saved.
+     */
+    public void setDurable(boolean isDurable) {
+        this.isDurable = isDurable;
+        journal.setDurable(isDurable);
+    }
+
+    /**
+     * Sets how long a durable save waits for further changes to share its sync, which trades
+     * the latency of each change for fewer syncs when many changes arrive at once.
+     *
+     * @param commitDelay The delay in milliseconds, or 0 to only group changes made during a sync.
+     */
+    public void setCommitDelay(long commitDelay) {
+        this.commitDelay = commitDelay;
+    }
+
+    /**
+     * Makes every asynchronous save write the latest list from the given source instead of the list
+     * passed with each change. Each change then costs the caller nothing but a signal, and the writer
+     * always saves the newest version, which keeps saves correct when several sessions change one
+     * list at once. The data file is always rewritten in full in this mode, never journaled.
+     *
+     * @param snapshotSource Supplies a list that is never modified after it is returned.
+     */
+    public void setSnapshotSource(Supplier<List<Task>> snapshotSource) {
+        this.snapshotSource = snapshotSource;
+    }
+
+    /**
+     * Sets how long the background writer waits after a change for further changes to merge with it.
+     *
+     * @param flushDelay The delay in milliseconds.
+     */
+    public void setFlushDelay(long flushDelay) {
+        this.flushDelay = flushDelay;
+    }
+
+    /**
+     * Sets the size the journal may reach before it is compacted into the data file.
+     *
+     * @param compactionThreshold The threshold in bytes.
+     */
+    public void setCompactionThreshold(long compactionThreshold) {
+        this.compactionThreshold = compactionThreshold;
     }
 
     /**
      * Loads tasks from the hard drive.
      * If the file does not exist, it returns an empty list.
+     * Any journal left beside the data file is replayed on top of it.
+     * Every loaded task has an ID; tasks saved before IDs existed are given theirs in list order,
+     * and the data file is rewritten at once so that those IDs never change.
+     * Lines of a text data file that cannot be parsed are kept as todos holding their raw text,
+     * and their numbers are available from {@link #getDamagedLines()}.
+     *
+     * A data file or journal that cannot be loaded at all is moved aside, so it is never saved over.
      *
      * @return An ArrayList containing tasks reconstructed from the file.
-     * @throws MinionException If the file is corrupted or unreadable.
+     * @throws MinionException If the file is corrupted or unreadable, with a message saying where it was moved.
      */
-    public ArrayList<Task> load() throws MinionException {
-        ArrayList<Task> loadedTasks = new ArrayList<>();
-        File f = new File(filePath);
+    public List<Task> load() throws MinionException {
+        isLoadFailed = false;
+        try {
+            recoverCompaction();
+            if (isLazy) {
+                MappedTaskList mappedTasks = mapSnapshot(Path.of(filePath));
+                if (mappedTasks != null) {
+                    replay(journal.getSealedPath(), mappedTasks);
+                    replay(journal.getActivePath(), mappedTasks);
+                    if (mappedTasks.isNumbered()) {
+                        nextId = mappedTasks.getNextId();
+                        return mappedTasks;
+                    }
+                }
+            }
 
-        if (!f.exists()) {
+            List<Integer> damaged = new ArrayList<>();
+            ArrayList<Task> loadedTasks = loadSnapshot(Path.of(filePath), damaged);
+            damagedLines = damaged;
+            replay(journal.getSealedPath(), loadedTasks);
+            replay(journal.getActivePath(), loadedTasks);
+            boolean isNumbered = loadedTasks.stream().allMatch(task -> task.getId() >= 0);
+            nextId = TaskList.assignMissingIds(loadedTasks);
+            if (!isNumbered) {
+                writeBatch(loadedTasks, List.of());
+            }
             return loadedTasks;
+        } catch (IOException | RuntimeException e) {
+            throw new MinionException(setAsideDamagedFiles());
         }
+    }
 
+    /**
+     * Moves the data file and its journals out of the way after they could not be loaded, so that
+     * the next save starts a new file instead of overwriting the user's tasks with an empty list.
+     * If they cannot be moved, every later save is refused instead.
+     *
+     * @return The message telling the user what happened to the files.
+     */
+    private String setAsideDamagedFiles() {
+        Path dataPath = Path.of(filePath);
+        Path aside = null;
         try {
-            Scanner s = new Scanner(f);
-            while (s.hasNext()) {
-                String line = s.nextLine();
-                if (!line.trim().isEmpty()) {
-                    loadedTasks.add(parseTaskFromLine(line));
+            for (Path path : List.of(dataPath, journal.getSealedPath(), journal.getActivePath())) {
+                if (Files.exists(path)) {
+                    Path target = findFreePath(path.resolveSibling(path.getFileName() + ".damaged"));
+                    Files.move(path, target);
+                    aside = (aside == null) ? target : aside;
                 }
             }
-            s.close();
-        } catch (FileNotFoundException e) {
-            throw new MinionException(MinionResponses.ERROR_LOADING_FILE);
+        } catch (IOException e) {
+            isLoadFailed = true;
+            return MinionResponses.ERROR_DAMAGED_FILE_KEPT;
+        }
+        return (aside == null)
+                ? MinionResponses.ERROR_LOADING_FILE
+                : MinionResponses.getDamagedFileMessage(aside.toString());
+    }
+
+    /**
+     * Returns the given path, or a numbered variant of it if a file already exists there.
+     *
+     * @param path The preferred path.
+     * @return A path where no file exists yet.
+     */
+    private static Path findFreePath(Path path) {
+        Path candidate = path;
+        for (int i = 2; Files.exists(candidate); i++) {
+            candidate = path.resolveSibling(path.getFileName() + "-" + i);
         }
-        return loadedTasks;
+        return candidate;
+    }
+
+    /**
+     * Returns the ID after the highest one among the tasks last returned by {@link #load()}.
+     *
+     * @return The ID to give the next new task.
+     */
+    public long getNextId() {
+        return nextId;
+    }
+
+    /**
+     * Returns the numbers of the lines in the data file that the last {@link #load()} could not parse.
+     * Lazy loading parses lines only when they are used, so it never reports any.
+     *
+     * @return The one-based line numbers in ascending order, or an empty list if every line was read.
+     */
+    public List<Integer> getDamagedLines() {
+        return damagedLines;
+    }
+
+    /**
+     * Reads the tasks stored in another file, in either the text or the binary format.
+     *
+     * @param path The path of the file to import.
+     * @return An ArrayList containing tasks reconstructed from the file.
+     * @throws MinionException If the file does not exist or is unreadable.
+     */
+    public ArrayList<Task> importTasks(String path) throws MinionException {
+        Path source = Path.of(path);
+        if (!Files.exists(source)) {
+            throw new MinionException(MinionResponses.ERROR_IMPORT_FILE);
+        }
+        try {
+            return loadSnapshot(source);
+        } catch (IOException | RuntimeException e) {
+            throw new MinionException(MinionResponses.ERROR_IMPORT_FILE);
+        }
+    }
+
+    /**
+     * Writes the tasks to another file in the pipe-separated text format.
+     *
+     * @param tasks The tasks to be exported.
+     * @param path  The path of the file to write.
+     * @throws IOException If the writing operation fails.
+     */
+    public void exportText(List<Task> tasks, String path) throws IOException {
+        writeSnapshot(Path.of(path), tasks, textCodec);
+    }
+
+    /**
+     * Records that a task was appended to the end of the list.
+     *
+     * @param tasks The current list of tasks, used when the whole file has to be rewritten.
+     * @param task  The task that was added.
+     * @throws IOException If the writing operation fails.
+     */
+    public void saveAdded(List<Task> tasks, Task task) throws IOException {
+        saveChange(tasks, Journal.ADD, textCodec.formatTask(task));
+    }
+
+    /**
+     * Records that a task was marked or unmarked.
+     *
+     * @param tasks  The current list of tasks, used when the whole file has to be rewritten.
+     * @param task   The changed task.
+     * @param isDone The new completion status of the task.
+     * @throws IOException If the writing operation fails.
+     */
+    public void saveMarked(List<Task> tasks, Task task, boolean isDone) throws IOException {
+        saveChange(tasks, isDone ? Journal.MARK : Journal.UNMARK, String.valueOf(task.getId()));
+    }
+
+    /**
+     * Records that a task was removed.
+     *
+     * @param tasks The current list of tasks, used when the whole file has to be rewritten.
+     * @param task  The removed task.
+     * @throws IOException If the writing operation fails.
+     */
+    public void saveDeleted(List<Task> tasks, Task task) throws IOException {
+        saveChange(tasks, Journal.DELETE, String.valueOf(task.getId()));
+    }
+
+    /**
+     * Records that several tasks were marked or unmarked, as a single change.
+     *
+     * @param tasks   The current list of tasks, used when the whole file has to be rewritten.
+     * @param changed The changed tasks, at least one.
+     * @param isDone  The new completion status of the tasks.
+     * @throws IOException If the writing operation fails.
+     */
+    public void saveMarked(List<Task> tasks, List<Task> changed, boolean isDone) throws IOException {
+        saveChange(tasks, isDone ? Journal.MARK : Journal.UNMARK, Journal.formatIds(toIds(changed)));
+    }
+
+    /**
+     * Records that several tasks were removed, as a single change.
+     *
+     * @param tasks   The current list of tasks, used when the whole file has to be rewritten.
+     * @param removed The removed tasks, at least one.
+     * @throws IOException If the writing operation fails.
+     */
+    public void saveDeleted(List<Task> tasks, List<Task> removed) throws IOException {
+        saveChange(tasks, Journal.DELETE, Journal.formatIds(toIds(removed)));
+    }
+
+    /**
+     * Saves the whole list if any deferred changes have not been written yet.
+     *
+     * @param tasks The current list of tasks.
+     * @throws IOException If the writing operation fails.
+     */
+    public void flush(List<Task> tasks) throws IOException {
+        if (pendingChanges > 0) {
+            save(tasks);
+        }
+    }
+
+    /**
+     * Throws the most recent background write failure that has not been reported yet.
+     * The failed changes are retried with the next write, so each failure is only reported once.
+     *
+     * @throws IOException If a background write has failed since the last check.
+     */
+    public void checkBackgroundWrites() throws IOException {
+        IOException failure = (writeBehind == null) ? null : writeBehind.takeFailure();
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Blocks until every change handed to the background writer is on disk.
+     * Unlike {@link #close()}, this may be called from any thread, such as a shutdown hook,
+     * while commands are still being saved.
+     *
+     * @throws IOException If the changes cannot be written.
+     */
+    public void flushBackgroundWrites() throws IOException {
+        WriteBehind writer = writeBehind;
+        if (writer != null) {
+            writer.flush();
+        }
+    }
+
+    /**
+     * Writes any changes still held by the background writer, waits for any running compaction
+     * and releases the journal. Should be called once when the chatbot exits.
+     *
+     * @throws IOException If the last changes cannot be written or the journal cannot be closed.
+     */
+    public void close() throws IOException {
+        try {
+            if (writeBehind != null) {
+                writeBehind.close();
+            }
+        } finally {
+            awaitCompaction();
+            journal.close();
+            if (compactor != null) {
+                compactor.shutdown();
+            }
+        }
+    }
+
+    /**
+     * Reads the tasks stored in a snapshot file, recognising its format from its first bytes.
+     *
+     * @param path The path of the snapshot file.
+     * @return An ArrayList containing tasks reconstructed from the file, or an empty list if it does not exist.
+     * @throws IOException If the file is unreadable.
+     */
+    private ArrayList<Task> loadSnapshot(Path path) throws IOException {
+        return loadSnapshot(path, new ArrayList<>());
+    }
+
+    /**
+     * Reads the tasks stored in a snapshot file, recognising its format from its first bytes.
+     * A text file is parsed in parallel ranges, and lines that cannot be parsed are kept as todos.
+     *
+     * @param path         The path of the snapshot file.
+     * @param damagedLines The list the numbers of text lines that could not be parsed are added to.
+     * @return An ArrayList containing tasks reconstructed from the file, or an empty list if it does not exist.
+     * @throws IOException If the file is unreadable.
+     */
+    private ArrayList<Task> loadSnapshot(Path path, List<Integer> damagedLines) throws IOException {
+        if (!Files.exists(path)) {
+            return new ArrayList<>();
+        }
+
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(path))) {
+            in.mark(BinaryCodec.MAGIC.length);
+            byte[] header = in.readNBytes(BinaryCodec.MAGIC.length);
+            in.reset();
+            if (BinaryCodec.matches(header)) {
+                return binaryCodec.read(in);
+            }
+        }
+        return textLoader.load(path, damagedLines);
+    }
+
+    /**
+     * Memory-maps a text snapshot file so its tasks are parsed on demand.
+     * Binary files, files too large to map in one piece and missing files are not mapped.
+     *
+     * @param path The path of the snapshot file.
+     * @return A list of the tasks in the file, or null if the file cannot be mapped.
+     * @throws IOException If the file is unreadable.
+     */
+    private MappedTaskList mapSnapshot(Path path) throws IOException {
+        if (!Files.exists(path) || Files.size(path) > Integer.MAX_VALUE) {
+            return null;
+        }
+
+        try (InputStream in = Files.newInputStream(path)) {
+            if (BinaryCodec.matches(in.readNBytes(BinaryCodec.MAGIC.length))) {
+                return null;
+            }
+        }
+        return new MappedTaskList(path, textCodec);
     }
 
     /**
      * Overwrites the current data file with the updated list of tasks.
+     * Since the data file then holds every change, any journal is discarded.
+     * In asynchronous mode a copy of the list is handed to the background writer instead.
      *
      * @param tasks The current list of tasks to be saved.
      * @throws IOException If the writing operation fails.
      */
-    public void save(ArrayList<Task> tasks) throws IOException {
-        File f = new File(filePath);
+    public void save(List<Task> tasks) throws IOException {
+        pendingChanges = 0;
+        if (isAsync && snapshotSource != null) {
+            getWriteBehind().submitSnapshot(snapshotSource);
+            return;
+        }
+        if (isAsync) {
+            getWriteBehind().submitSnapshot(new ArrayList<>(tasks));
+            return;
+        }
+        if (isDurable) {
+            // The caller waits until the list is written, so it does not need to be copied
+            WriteBehind writer = getWriteBehind();
+            writer.await(writer.submitSnapshot(tasks));
+            return;
+        }
+        writeBatch(tasks, List.of());
+    }
 
-        if (f.getParentFile() != null) {
-            f.getParentFile().mkdirs();
+    /**
+     * Persists a single change in whichever way the current mode calls for:
+     * deferred, as a full rewrite, or as a journal record, on this thread or in the background.
+     *
+     * @param tasks   The current list of tasks, used when the whole file has to be rewritten.
+     * @param type    The journal record prefix describing the change.
+     * @param payload The journal record body.
+     * @throws IOException If the writing operation fails.
+     */
+    private void saveChange(List<Task> tasks, String type, String payload) throws IOException {
+        if (isAsync && snapshotSource != null) {
+            getWriteBehind().submitSnapshot(snapshotSource);
+            return;
+        }
+        if (deferChange(tasks)) {
+            return;
+        }
+        if (!isJournaled && !isLazy) {
+            save(tasks);
+            return;
+        }
+
+        String record = Journal.format(type, payload);
+        if (isAsync) {
+            getWriteBehind().submitRecord(record);
+            return;
+        }
+        if (isDurable) {
+            WriteBehind writer = getWriteBehind();
+            writer.await(writer.submitRecord(record));
+            return;
+        }
+        writeBatch(null, List.of(record));
+    }
+
+    /**
+     * Writes a snapshot and then appends journal records after it.
+     * Runs on the background writer in asynchronous mode, and on the calling thread otherwise.
+     * A journal left beside the old data file is sealed first and the snapshot then replaces the
+     * data file the way a compaction does, so a crash at any point leaves either the old data file
+     * with its whole journal or the new one with none, and never replays old records on top of
+     * the new snapshot.
+     *
+     * @param snapshot The whole list to write to the data file, or null to only append records.
+     * @param records  The journal records to append after the snapshot, in order.
+     * @throws IOException If the writing operation fails, or the data file could not be loaded
+     *                     and is still in place.
+     */
+    private void writeBatch(List<Task> snapshot, List<String> records) throws IOException {
+        if (isLoadFailed) {
+            throw new IOException("The data file could not be loaded, so it is not written over");
+        }
+        if (snapshot != null) {
+            awaitCompaction();
+            if (journal.size() > 0) {
+                if (journal.hasSealed()) {
+                    // Only one log can be sealed, so fold the one a failed compaction left first
+                    compact();
+                }
+                journal.seal();
+            }
+            if (journal.hasSealed()) {
+                replaceSealed(snapshot);
+            } else {
+                writeSnapshot(Path.of(filePath), snapshot, getSnapshotCodec());
+            }
+        }
+        if (!records.isEmpty()) {
+            journal.appendAll(records);
+            compactIfNeeded();
         }
+    }
 
-        FileWriter fw = new FileWriter(filePath);
-        for (Task task : tasks) {
-            fw.write(task.toFileFormat() + System.lineSeparator());
+    /**
+     * Returns the background writer, starting it on first use.
+     * Synchronized so that sessions saving at the same time share a single writer.
+     * Callers of a durable save wait for the writer, so it only waits commitDelay for more changes.
+     *
+     * @return The background writer.
+     */
+    private synchronized WriteBehind getWriteBehind() {
+        if (writeBehind == null) {
+            writeBehind = new WriteBehind(this::writeBatch, (isDurable && !isAsync) ? commitDelay : flushDelay);
         }
-        fw.close();
+        return writeBehind;
     }
 
     /**
-     * Translates a single line of text into a specific Task object.
-     * Handles reconstruction of LocalDate, LocalTime, and LocalDateTime objects.
+     * Holds a change back when saving is deferred, saving the whole list at each checkpoint.
      *
-     * @param line A pipe-separated string from the text file.
-     * @return A specific Task subclass (Todo, Deadline, or Event).
+     * @param tasks The current list of tasks.
+     * @return True if the change was deferred, false if it still has to be written.
+     * @throws IOException If a checkpoint save fails.
      */
-    private Task parseTaskFromLine(String line) {
-        String[] parts = line.split(" \\| ");
-        String type = parts[0];
-        boolean isDone = parts[1].equals("1");
-        String description = parts[2];
+    private boolean deferChange(List<Task> tasks) throws IOException {
+        if (!isDeferred) {
+            return false;
+        }
+        pendingChanges++;
+        if (checkpointInterval > 0 && pendingChanges >= checkpointInterval) {
+            save(tasks);
+        }
+        return true;
+    }
 
-        Task task;
-        switch (type) {
-        case "T":
-            task = new Todo(description);
-            break;
-        case "D":
-            // Indices: 3(byStr), 4(date), 5(time), 6(dateTime)
-            task = new Deadline(description, parts[3],
-                    parseDate(parts[4]),
-                    parseTime(parts[5]),
-                    parseDateTime(parts[6]));
-            break;
-        case "E":
-            // Indices: 3(fromStr), 4(toStr), 5-7(from objects), 8-10(to objects)
-            task = new Event(description, parts[3], parts[4],
-                    parseDate(parts[5]), parseTime(parts[6]), parseDateTime(parts[7]),
-                    parseDate(parts[8]), parseTime(parts[9]), parseDateTime(parts[10]));
-            break;
-        default:
-            task = new Todo("Unknown Task Type");
-            break;
+    /**
+     * Writes every task to a snapshot file, replacing its contents.
+     *
+     * @param path  The path of the snapshot file.
+     * @param tasks The tasks to be written.
+     * @param codec The format to write the tasks in.
+     * @throws IOException If the writing operation fails.
+     */
+    private void writeSnapshot(Path path, List<Task> tasks, TaskCodec codec) throws IOException {
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
         }
 
-        if (isDone) {
-            task.setDone(true);
+        // Write beside the file and swap it in, so a mapped or half-written file is never truncated
+        Path temporaryPath = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporaryPath, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            codec.write(tasks, Channels.newOutputStream(channel));
+            if (isDurable) {
+                FileSync.syncFile(channel);
+            }
+        }
+        Stats.recordWrite(Files.size(temporaryPath));
+        Files.move(temporaryPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        if (isDurable) {
+            FileSync.syncFolderOf(path);
         }
-        return task;
     }
 
     /**
-     * Reconstructs a LocalDate object from a string saved in the file.
+     * Applies every record of a journal file to a list of tasks, in order.
+     * A malformed record can only be the tail of an interrupted append, so replay stops there.
      *
-     * @param input The string representation of the date, or "null".
-     * @return The parsed LocalDate, or null if the input string is "null".
+     * @param path  The journal file to replay.
+     * @param tasks The list of tasks the records are applied to.
+     * @throws IOException If the journal cannot be read.
      */
-    private LocalDate parseDate(String input) {
-        return input.equals("null") ? null : LocalDate.parse(input);
+    private void replay(Path path, List<Task> tasks) throws IOException {
+        if (!Files.exists(path)) {
+            return;
+        }
+
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!applyRecord(line, tasks)) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Applies a single journal record to a list of tasks.
+     * Records name tasks by ID, so applying one again changes nothing: a task that is already
+     * in the list is not added twice, and a task that is no longer in it is not marked or removed.
+     *
+     * @param record The journal line to apply.
+     * @param tasks  The list of tasks the record is applied to.
+     * @return True if the record was applied, false if it is malformed.
+     */
+    private boolean applyRecord(String record, List<Task> tasks) {
+        int separator = record.indexOf(Journal.SEPARATOR);
+        if (separator == -1) {
+            return false;
+        }
+        String type = record.substring(0, separator);
+        String payload = record.substring(separator + Journal.SEPARATOR.length());
+
+        try {
+            switch (type) {
+            case Journal.ADD:
+                Task task = textCodec.parseTask(payload);
+                if (task.getId() < 0 || indexOfId(tasks, task.getId()) < 0) {
+                    tasks.add(task);
+                }
+                return true;
+            case Journal.MARK:
+            case Journal.UNMARK:
+                Journal.forEachId(payload, id -> {
+                    int index = indexOfId(tasks, id);
+                    if (index >= 0) {
+                        tasks.get(index).setDone(type.equals(Journal.MARK));
+                    }
+                });
+                return true;
+            case Journal.DELETE:
+                BitSet positions = new BitSet();
+                Journal.forEachId(payload, id -> {
+                    int index = indexOfId(tasks, id);
+                    if (index >= 0) {
+                        positions.set(index);
+                    }
+                });
+                removeAll(tasks, positions);
+                return true;
+            default:
+                return false;
+            }
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Finds the position of the task with the given ID.
+     * Tasks are given increasing IDs as they are added, so the list is searched by halves;
+     * only if the search lands on a task without an ID, such as a damaged line, is every task checked.
+     *
+     * @param tasks The list of tasks, in the order they were added.
+     * @param id    The ID to look for.
+     * @return The zero-based position of the task, or -1 if no task has the ID.
+     */
+    private static int indexOfId(List<Task> tasks, long id) {
+        int low = 0;
+        int high = tasks.size() - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            long middleId = tasks.get(middle).getId();
+            if (middleId < 0) {
+                for (int i = 0; i < tasks.size(); i++) {
+                    if (tasks.get(i).getId() == id) {
+                        return i;
+                    }
+                }
+                return -1;
+            }
+            if (middleId == id) {
+                return middle;
+            } else if (middleId < id) {
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the IDs of several tasks in ascending order.
+     *
+     * @param tasks The tasks.
+     * @return Their IDs.
+     */
+    private static long[] toIds(List<Task> tasks) {
+        long[] ids = new long[tasks.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = tasks.get(i).getId();
+        }
+        Arrays.sort(ids);
+        return ids;
+    }
+
+    /**
+     * Removes the tasks at several positions from a list, moving the remaining tasks up in one pass
+     * when the list allows it.
+     *
+     * @param tasks     The list to remove from.
+     * @param positions The zero-based positions of the tasks to remove, all inside the list.
+     */
+    private static void removeAll(List<Task> tasks, BitSet positions) {
+        if (!(tasks instanceof ArrayList)) {
+            for (int i = positions.length() - 1; i >= 0; i = positions.previousSetBit(i - 1)) {
+                tasks.remove(i);
+            }
+            return;
+        }
+        int next = positions.nextSetBit(0);
+        for (int i = next; i < tasks.size(); i++) {
+            if (!positions.get(i)) {
+                tasks.set(next++, tasks.get(i));
+            }
+        }
+        tasks.subList(next, tasks.size()).clear();
+    }
+
+    /**
+     * Seals the journal and starts a background compaction once it has passed the threshold.
+     * Only one compaction runs at a time; a sealed journal left by a failed compaction is retried.
+     *
+     * @throws IOException If the journal cannot be sealed.
+     */
+    private void compactIfNeeded() throws IOException {
+        if (compaction != null && !compaction.isDone()) {
+            return;
+        }
+        if (!journal.hasSealed()) {
+            if (journal.size() < compactionThreshold) {
+                return;
+            }
+            journal.seal();
+        }
+
+        if (compactor == null) {
+            compactor = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "minion-compactor");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        compaction = compactor.submit(() -> {
+            compact();
+            return null;
+        });
+    }
+
+    /**
+     * Folds the sealed journal into the data file.
+     *
+     * @throws IOException If any file cannot be read or written.
+     */
+    private void compact() throws IOException {
+        ArrayList<Task> compacted = loadSnapshot(Path.of(filePath));
+        replay(journal.getSealedPath(), compacted);
+        replaceSealed(compacted);
+    }
+
+    /**
+     * Replaces the data file and the sealed journal with a snapshot that holds every sealed record.
+     * The new snapshot is written to a temporary file first; the sealed journal is deleted
+     * before the temporary file replaces the data file, so an interrupted replacement can
+     * always be finished or discarded by {@link #recoverCompaction()} without replaying twice.
+     *
+     * @param tasks The tasks of the new snapshot.
+     * @throws IOException If any file cannot be written.
+     */
+    private void replaceSealed(List<Task> tasks) throws IOException {
+        Path compactPath = getCompactPath();
+        writeSnapshot(compactPath, tasks, getSnapshotCodec());
+        Files.delete(journal.getSealedPath());
+        Files.move(compactPath, Path.of(filePath),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        if (isDurable) {
+            FileSync.syncFolderOf(compactPath);
+        }
+    }
+
+    /**
+     * Finishes or discards a compaction that was interrupted by a crash.
+     * If the sealed journal still exists, the temporary snapshot is incomplete and is dropped;
+     * otherwise the temporary snapshot already contains the sealed records and is moved into place.
+     *
+     * @throws IOException If the temporary snapshot cannot be moved or deleted.
+     */
+    private void recoverCompaction() throws IOException {
+        Path compactPath = getCompactPath();
+        if (!Files.exists(compactPath)) {
+            return;
+        }
+        if (journal.hasSealed()) {
+            Files.delete(compactPath);
+        } else {
+            Files.move(compactPath, Path.of(filePath),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+    }
+
+    /**
+     * Blocks until the running compaction, if any, has finished.
+     * A failed compaction leaves the sealed journal in place, so it is simply retried later.
+     */
+    private void awaitCompaction() {
+        if (compaction == null) {
+            return;
+        }
+        try {
+            compaction.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            // The sealed journal is still on disk and will be replayed or compacted again
+        } finally {
+            compaction = null;
+        }
     }
 
     /**
-     * Reconstructs a LocalTime object from a string saved in the file.
+     * Returns the format the data file is written in.
      *
-     * @param input The string representation of the time, or "null".
-     * @return The parsed LocalTime, or null if the input string is "null".
+     * @return The binary codec if binary mode is on, otherwise the text codec.
      */
-    private LocalTime parseTime(String input) {
-        return input.equals("null") ? null : LocalTime.parse(input);
+    private TaskCodec getSnapshotCodec() {
+        return isBinary ? binaryCodec : textCodec;
     }
 
     /**
-     * Reconstructs a LocalDateTime object from a string saved in the file.
+     * Returns the path of the temporary snapshot written during compaction.
      *
-     * @param input The string representation of the date and time, or "null".
-     * @return The parsed LocalDateTime, or null if the input string is "null".
+     * @return The temporary snapshot path.
      */
-    private LocalDateTime parseDateTime(String input) {
-        return input.equals("null") ? null : LocalDateTime.parse(input);
+    private Path getCompactPath() {
+        Path path = Path.of(filePath);
+        return path.resolveSibling(path.getFileName() + ".compact");
     }
-}
\ No newline at end of file
+}
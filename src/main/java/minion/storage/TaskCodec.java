@@ -0,0 +1,33 @@
+package minion.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import minion.task.Task;
+
+/**
+ * Represents a file format that a whole list of tasks can be written in and read back from.
+ */
+interface TaskCodec {
+
+    /**
+     * Reads every task from a stream positioned at the start of a file.
+     *
+     * @param in The stream to read from.
+     * @return An ArrayList containing the tasks in file order.
+     * @throws IOException If the stream cannot be read or is not in this format.
+     */
+    ArrayList<Task> read(InputStream in) throws IOException;
+
+    /**
+     * Writes every task to a stream, including any header the format needs.
+     *
+     * @param tasks The tasks to be written.
+     * @param out   The stream to write to.
+     * @throws IOException If the stream cannot be written.
+     */
+    void write(List<Task> tasks, OutputStream out) throws IOException;
+}
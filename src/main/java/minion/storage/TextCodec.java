@@ -0,0 +1,198 @@
+package minion.storage;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import minion.task.Deadline;
+import minion.task.Event;
+import minion.task.Recurrence;
+import minion.task.Task;
+import minion.task.Todo;
+
+/**
+ * Handles the human-readable, pipe-separated file format with one task per line.
+ * This is the original format of the data file and is also used for import and export.
+ * Each line starts with the task's ID, which lines written before tasks had IDs leave out.
+ * A recurring deadline or event has its rule as one more field at the end of its line.
+ * Files are always read and written in UTF-8, like the journal, whatever the platform's default.
+ */
+class TextCodec implements TaskCodec {
+
+    /** The separator between fields, compiled once rather than on every line as String.split would. */
+    private static final Pattern FIELD_SEPARATOR = Pattern.compile(" \\| ");
+
+    /**
+     * Reads every non-blank line of the stream as a task.
+     *
+     * @param in The stream to read from.
+     * @return An ArrayList containing the tasks in file order.
+     * @throws IOException If the stream cannot be read.
+     */
+    @Override
+    public ArrayList<Task> read(InputStream in) throws IOException {
+        ArrayList<Task> loadedTasks = new ArrayList<>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (!line.trim().isEmpty()) {
+                loadedTasks.add(parseTask(line));
+            }
+        }
+        return loadedTasks;
+    }
+
+    /**
+     * Writes every task on its own line.
+     *
+     * @param tasks The tasks to be written.
+     * @param out   The stream to write to.
+     * @throws IOException If the stream cannot be written.
+     */
+    @Override
+    public void write(List<Task> tasks, OutputStream out) throws IOException {
+        BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        for (Task task : tasks) {
+            writer.write(formatTask(task));
+            writer.write(System.lineSeparator());
+        }
+        writer.flush();
+    }
+
+    /**
+     * Translates a task into a single line of text, without its line separator.
+     *
+     * @param task The task to be written.
+     * @return The task's ID followed by its file format, or only the file format if it has no ID.
+     */
+    String formatTask(Task task) {
+        return (task.getId() < 0) ? task.toFileFormat() : task.getId() + " | " + task.toFileFormat();
+    }
+
+    /**
+     * Translates a single line of text into a specific Task object.
+     * Handles reconstruction of LocalDate, LocalTime, and LocalDateTime objects.
+     *
+     * @param line A pipe-separated string from the text file.
+     * @return A specific Task subclass (Todo, Deadline, or Event), with its ID if the line has one.
+     */
+    Task parseTask(String line) {
+        String[] parts = FIELD_SEPARATOR.split(line);
+        long id = parseId(parts[0]);
+        // Lines with an ID have every other field one place further along
+        int first = (id < 0) ? 0 : 1;
+        String type = parts[first];
+        boolean isDone = parts[first + 1].equals("1");
+        String description = parts[first + 2];
+
+        Task task;
+        switch (type) {
+        case "T":
+            task = new Todo(description);
+            break;
+        case "D":
+            // Indices after first: 3(byStr), 4(date), 5(time), 6(dateTime)
+            task = new Deadline(description, parts[first + 3],
+                    parseDate(parts[first + 4]),
+                    parseTime(parts[first + 5]),
+                    parseDateTime(parts[first + 6]));
+            // A recurring deadline has its rule as a 7th field
+            if (parts.length > first + 7) {
+                ((Deadline) task).setRecurrence(Recurrence.parse(parts[first + 7]));
+            }
+            break;
+        case "E":
+            // Indices after first: 3(fromStr), 4(toStr), 5-7(from objects), 8-10(to objects)
+            task = new Event(description, parts[first + 3], parts[first + 4],
+                    parseDate(parts[first + 5]), parseTime(parts[first + 6]), parseDateTime(parts[first + 7]),
+                    parseDate(parts[first + 8]), parseTime(parts[first + 9]), parseDateTime(parts[first + 10]));
+            // A recurring event has its rule as an 11th field
+            if (parts.length > first + 11) {
+                ((Event) task).setRecurrence(Recurrence.parse(parts[first + 11]));
+            }
+            break;
+        default:
+            task = new Todo("Unknown Task Type");
+            break;
+        }
+
+        if (isDone) {
+            task.setDone(true);
+        }
+        task.setId(id);
+        return task;
+    }
+
+    /**
+     * Keeps a line that cannot be parsed as a todo holding the raw text, so nothing is lost.
+     * Field separators in the text become slashes, so that the todo's description survives being saved.
+     *
+     * @param line The line that could not be parsed.
+     * @return A Todo describing the line, with the line's ID if it starts with one.
+     */
+    Task keepDamagedLine(String line) {
+        int separator = line.indexOf(" |");
+        Task task = new Todo(line.replace(" | ", " / "));
+        task.setId((separator < 0) ? -1 : parseId(line.substring(0, separator)));
+        return task;
+    }
+
+    /**
+     * Reads the ID at the start of a line.
+     *
+     * @param field The first field of the line.
+     * @return The ID, or -1 if the field is not one, as in lines written before tasks had IDs.
+     */
+    static long parseId(String field) {
+        if (field.isEmpty() || field.length() > 18) {
+            return -1;
+        }
+        for (int i = 0; i < field.length(); i++) {
+            if (field.charAt(i) < '0' || field.charAt(i) > '9') {
+                return -1;
+            }
+        }
+        return Long.parseLong(field);
+    }
+
+    /**
+     * Reconstructs a LocalDate object from a string saved in the file.
+     *
+     * @param input The string representation of the date, or "null".
+     * @return The parsed LocalDate, or null if the input string is "null".
+     */
+    private LocalDate parseDate(String input) {
+        return input.equals("null") ? null : LocalDate.parse(input);
+    }
+
+    /**
+     * Reconstructs a LocalTime object from a string saved in the file.
+     *
+     * @param input The string representation of the time, or "null".
+     * @return The parsed LocalTime, or null if the input string is "null".
+     */
+    private LocalTime parseTime(String input) {
+        return input.equals("null") ? null : LocalTime.parse(input);
+    }
+
+    /**
+     * Reconstructs a LocalDateTime object from a string saved in the file.
+     *
+     * @param input The string representation of the date and time, or "null".
+     * @return The parsed LocalDateTime, or null if the input string is "null".
+     */
+    private LocalDateTime parseDateTime(String input) {
+        return input.equals("null") ? null : LocalDateTime.parse(input);
+    }
+}
@@ -0,0 +1,292 @@
+package minion.storage;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import minion.task.Task;
+
+/**
+ * Represents the single background thread that persists changes for {@link Storage}.
+ * Callers hand over either a snapshot of the whole list (or a source of the latest one)
+ * or a pre-formatted journal record, and return at once. The first change of a burst starts a short delay during which further
+ * changes are merged in: a newer snapshot replaces an older one and records pile up in order,
+ * so the whole burst reaches the disk in one write, at most the delay after its first change.
+ * A failed write is reported through {@link #takeFailure()} and kept to be retried
+ * together with the next change or flush.
+ * Every change is numbered as it is queued, so a caller that must not go on until its change
+ * is on disk can wait for that number with {@link #await(long)}; changes queued while a batch
+ * is being written all go into the next batch, so many waiting callers share each write.
+ */
+class WriteBehind {
+
+    /**
+     * Represents the work that actually touches the disk, run on the writer thread.
+     */
+    @FunctionalInterface
+    interface Sink {
+        /**
+         * Writes a merged batch of changes.
+         *
+         * @param snapshot The latest snapshot of the whole list, or null if only records changed.
+         * @param records  The journal records made after the snapshot, in order.
+         * @throws IOException If the writing operation fails.
+         */
+        void write(List<Task> snapshot, List<String> records) throws IOException;
+    }
+
+    /** Guards every field below and is waited on by both threads. */
+    private final Object lock = new Object();
+    /** Where merged batches are written. */
+    private final Sink sink;
+    /** How long the writer waits for more changes after the first one of a burst, in milliseconds. */
+    private final long delayMillis;
+    /** The thread that performs every write. */
+    private final Thread thread;
+    /** The source of the latest snapshot waiting to be written, or null if there is none. */
+    private Supplier<List<Task>> pendingSnapshot;
+    /** The journal records waiting to be written, in order. */
+    private ArrayList<String> pendingRecords;
+    /** Whether a batch has been taken by the writer and is being written right now. */
+    private boolean isWriting;
+    /** Whether the writer should skip the delay and write immediately. */
+    private boolean isFlushRequested;
+    /** Whether the last write failed, in which case nothing is retried until the next change or flush. */
+    private boolean isStalled;
+    /** Whether the writer should stop once everything pending has been written. */
+    private boolean isClosed;
+    /** The most recent write failure that has not been reported yet, or null if there is none. */
+    private IOException failure;
+    /** The number of changes queued so far. */
+    private long submitted;
+    /** The number of changes queued so far that have been written. */
+    private long written;
+
+    /**
+     * Initializes and starts the writer thread.
+     *
+     * @param sink        Where merged batches are written.
+     * @param delayMillis How long to wait for more changes after the first one of a burst.
+     */
+    WriteBehind(Sink sink, long delayMillis) {
+        this.sink = sink;
+        this.delayMillis = delayMillis;
+        this.pendingRecords = new ArrayList<>();
+        this.thread = new Thread(this::runWriter, "minion-writer");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Queues a snapshot of the whole list, replacing any snapshot and records still waiting.
+     *
+     * @param snapshot A copy of the list that is not modified afterwards.
+     * @return The number of the change, to pass to {@link #await(long)}.
+     */
+    long submitSnapshot(List<Task> snapshot) {
+        return submitSnapshot(() -> snapshot);
+    }
+
+    /**
+     * Queues a source of snapshots, replacing any snapshot and records still waiting.
+     * The source is only asked for its snapshot when the write happens, so the newest
+     * version of the list is written however many changes were merged.
+     *
+     * @param snapshot A source of copies of the list that are not modified afterwards.
+     * @return The number of the change, to pass to {@link #await(long)}.
+     */
+    long submitSnapshot(Supplier<List<Task>> snapshot) {
+        synchronized (lock) {
+            pendingSnapshot = snapshot;
+            pendingRecords = new ArrayList<>();
+            isStalled = false;
+            lock.notifyAll();
+            return ++submitted;
+        }
+    }
+
+    /**
+     * Queues a journal record after everything already waiting.
+     *
+     * @param record A record built by {@link Journal#format}.
+     * @return The number of the change, to pass to {@link #await(long)}.
+     */
+    long submitRecord(String record) {
+        synchronized (lock) {
+            pendingRecords.add(record);
+            isStalled = false;
+            lock.notifyAll();
+            return ++submitted;
+        }
+    }
+
+    /**
+     * Blocks until a change has been written.
+     * If the batch holding the change fails, the failure is thrown here instead of being left
+     * for {@link #takeFailure()}, and the change is kept to be retried with the next one.
+     *
+     * @param change The number returned when the change was queued.
+     * @throws IOException If the change could not be written.
+     */
+    void await(long change) throws IOException {
+        synchronized (lock) {
+            try {
+                while (written < change) {
+                    if (isStalled) {
+                        IOException latest = takeFailure();
+                        throw (latest != null) ? latest : new IOException("An earlier change could not be written");
+                    }
+                    lock.wait();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for a change to be written");
+            }
+        }
+    }
+
+    /**
+     * Returns the latest write failure and forgets it, so each failure is reported once.
+     *
+     * @return The failure, or null if every write since the last call succeeded.
+     */
+    IOException takeFailure() {
+        synchronized (lock) {
+            IOException latest = failure;
+            failure = null;
+            return latest;
+        }
+    }
+
+    /**
+     * Writes everything still waiting without further delay and blocks until it is on disk.
+     * Changes held back by an earlier failure are retried. That failure is never dropped: it is
+     * thrown along with the retry's failure if the retry fails too, and otherwise still left for
+     * {@link #takeFailure()}.
+     *
+     * @throws IOException If the final write fails, with any earlier unreported failure suppressed in it.
+     */
+    void flush() throws IOException {
+        synchronized (lock) {
+            IOException unreported = failure;
+            isStalled = false;
+            isFlushRequested = true;
+            lock.notifyAll();
+            try {
+                while (hasPending() || isWriting) {
+                    lock.wait();
+                    if (failure != null && failure != unreported) {
+                        IOException latest = takeFailure();
+                        if (unreported != null) {
+                            latest.addSuppressed(unreported);
+                        }
+                        throw latest;
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                isFlushRequested = false;
+            }
+        }
+    }
+
+    /**
+     * Writes everything still waiting and stops the writer thread.
+     *
+     * @throws IOException If the final write fails.
+     */
+    void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            synchronized (lock) {
+                isClosed = true;
+                lock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Checks whether any change is waiting to be written. Must be called while holding the lock.
+     *
+     * @return True if a snapshot or record is waiting.
+     */
+    private boolean hasPending() {
+        return pendingSnapshot != null || !pendingRecords.isEmpty();
+    }
+
+    /**
+     * Runs on the writer thread: waits for a burst of changes, lets it settle for the delay,
+     * then writes it as one batch, until closed.
+     */
+    private void runWriter() {
+        while (true) {
+            Supplier<List<Task>> snapshot;
+            List<String> records;
+            long batchEnd;
+            synchronized (lock) {
+                try {
+                    while ((!hasPending() || isStalled) && !isClosed) {
+                        lock.wait();
+                    }
+                    if (!hasPending() || isStalled) {
+                        return;
+                    }
+                    long deadline = System.currentTimeMillis() + delayMillis;
+                    long remaining = delayMillis;
+                    while (remaining > 0 && !isFlushRequested && !isClosed) {
+                        lock.wait(remaining);
+                        remaining = deadline - System.currentTimeMillis();
+                    }
+                } catch (InterruptedException e) {
+                    return;
+                }
+                snapshot = pendingSnapshot;
+                records = pendingRecords;
+                pendingSnapshot = null;
+                pendingRecords = new ArrayList<>();
+                isWriting = true;
+                batchEnd = submitted;
+            }
+
+            IOException writeFailure = null;
+            try {
+                sink.write(snapshot == null ? null : snapshot.get(), records);
+            } catch (IOException | RuntimeException e) {
+                writeFailure = (e instanceof IOException) ? (IOException) e : new IOException(e);
+            }
+
+            synchronized (lock) {
+                isWriting = false;
+                if (writeFailure != null) {
+                    failure = writeFailure;
+                    isStalled = true;
+                    requeue(snapshot, records);
+                } else {
+                    written = batchEnd;
+                }
+                lock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Puts a batch that failed to write back in front of anything queued since,
+     * so it is retried with the next write. Must be called while holding the lock.
+     *
+     * @param snapshot The snapshot source of the failed batch, or null.
+     * @param records  The records of the failed batch.
+     */
+    private void requeue(Supplier<List<Task>> snapshot, List<String> records) {
+        if (pendingSnapshot != null) {
+            // A newer snapshot already contains every change of the failed batch
+            return;
+        }
+        pendingSnapshot = snapshot;
+        records.addAll(pendingRecords);
+        pendingRecords = new ArrayList<>(records);
+    }
+}
@@ -0,0 +1,425 @@
+package minion.task;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Represents a task list that several sessions can read and change at the same time.
+ * The tasks are kept as immutable versions: reading a task, counting the tasks and listing them
+ * never take a lock, and a listing always sees one consistent version even while other sessions
+ * change the list. Adding, deleting, marking and unmarking, which change the positions of tasks or
+ * the views that depend on them, take the list's write lock. The searches, views and lookups by ID
+ * that share the list's indexes with them take its read lock, so any number of them run at once and
+ * only wait for changes; the first of each kind takes the write lock instead, to build its index.
+ */
+public class ConcurrentTaskList extends TaskList {
+
+    /** The versioned list of tasks shared with the parent class. */
+    private final VersionedList versions;
+    /** Held by the changes that move tasks around, one at a time. */
+    private final Lock writeLock;
+    /** Held by the index searches that depend on those changes, any number at a time. */
+    private final Lock readLock;
+
+    /** Initializes an empty ConcurrentTaskList. */
+    public ConcurrentTaskList() {
+        this(List.of());
+    }
+
+    /**
+     * Initializes a ConcurrentTaskList holding a copy of an existing collection of tasks.
+     * Every task is read from the collection, so a list that loads its tasks on demand is loaded in full.
+     *
+     * @param initialTasks A list of tasks to populate the list.
+     */
+    public ConcurrentTaskList(List<Task> initialTasks) {
+        this(new VersionedList(TaskVector.of(initialTasks)));
+    }
+
+    /**
+     * Initializes a ConcurrentTaskList over the given versioned list.
+     *
+     * @param versions The versioned list holding the tasks.
+     */
+    private ConcurrentTaskList(VersionedList versions) {
+        super(versions);
+        this.versions = versions;
+        ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        this.writeLock = lock.writeLock();
+        this.readLock = lock.readLock();
+    }
+
+    /**
+     * Adds a task to the end of the list.
+     *
+     * @param task The task object to be added.
+     */
+    @Override
+    public void addTask(Task task) {
+        writeLock.lock();
+        try {
+            super.addTask(task);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Removes a task from the list based on its index.
+     *
+     * @param index The zero-based index of the task to be removed.
+     * @return The task that was removed from the list.
+     * @throws IndexOutOfBoundsException If another session has shortened the list in the meantime.
+     */
+    @Override
+    public Task deleteTask(int index) {
+        writeLock.lock();
+        try {
+            return super.deleteTask(index);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Removes the tasks at several positions at once, publishing a single new version.
+     *
+     * @param positions The zero-based positions of the tasks to remove, as they are before the removal.
+     * @return The removed tasks, in list order.
+     * @throws IndexOutOfBoundsException If another session has shortened the list in the meantime.
+     */
+    @Override
+    public ArrayList<Task> deleteTasks(BitSet positions) {
+        writeLock.lock();
+        try {
+            return super.deleteTasks(positions);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Removes the tasks with the given IDs at once, checking under the lock that every one of them
+     * is still in the list, so tasks chosen from an older version never remove others.
+     *
+     * @param ids The IDs of the tasks to remove, in ascending order without repeats.
+     * @return The removed tasks in list order, or null if another session has removed any of them.
+     */
+    @Override
+    public ArrayList<Task> deleteTasksById(long[] ids) {
+        writeLock.lock();
+        try {
+            return super.deleteTasksById(ids);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Removes the task with the given ID, finding its position under the lock so that a task chosen
+     * from an older version never removes another.
+     *
+     * @param id The ID of the task to remove.
+     * @return The removed task, or null if another session has removed it.
+     */
+    @Override
+    public Task deleteTaskById(long id) {
+        writeLock.lock();
+        try {
+            return super.deleteTaskById(id);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Marks the tasks with the given IDs as done or not done, checking under the lock that every
+     * one of them is still in the list.
+     *
+     * @param ids    The IDs of the tasks, in ascending order without repeats.
+     * @param isDone The new completion status of the tasks.
+     * @return The tasks whose status was changed, or null if another session has removed any of them.
+     */
+    @Override
+    public ArrayList<Task> markTasksById(long[] ids, boolean isDone) {
+        writeLock.lock();
+        try {
+            return super.markTasksById(ids, isDone);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Publishes a new version without the tasks at several positions.
+     *
+     * @param positions The zero-based positions of the tasks to remove.
+     */
+    @Override
+    void removeAll(BitSet positions) {
+        versions.current = versions.current.withRemoved(positions);
+    }
+
+    /**
+     * Returns the current version of the list. It never changes, so it can be read, listed or saved
+     * while other sessions keep changing the list.
+     *
+     * @return An immutable list of all tasks.
+     */
+    @Override
+    public List<Task> getAllTasks() {
+        return versions.current;
+    }
+
+    /**
+     * Retrieves a task by its ID.
+     *
+     * @param id The ID of the task.
+     * @return The task with the ID, or null if there is none.
+     */
+    @Override
+    public Task getTaskById(long id) {
+        return read(this::hasIdIndex, () -> super.getTaskById(id));
+    }
+
+    /**
+     * Finds the current position of the task with the given ID.
+     * Another session may move the task as soon as the lock is released.
+     *
+     * @param id The ID of the task.
+     * @return The zero-based index of the task, or -1 if there is no task with the ID.
+     */
+    @Override
+    public int findIndex(long id) {
+        return read(this::hasIdIndex, () -> super.findIndex(id));
+    }
+
+    /**
+     * Searches for tasks that contain the specified keyword in their description.
+     *
+     * @param keyword The string to search for.
+     * @return A new ArrayList containing only the matching tasks.
+     */
+    @Override
+    public ArrayList<Task> findTasks(String keyword) {
+        return read(this::hasKeywordIndex, () -> super.findTasks(keyword));
+    }
+
+    /**
+     * Searches for the tasks whose descriptions contain words close to those of a term.
+     *
+     * @param term  The words to look for, in any case.
+     * @param limit The maximum number of tasks to return.
+     * @return A new ArrayList of the closest matches, closest first.
+     */
+    @Override
+    public ArrayList<Task> findFuzzy(String term, int limit) {
+        return read(this::hasFuzzyIndex, () -> super.findFuzzy(term, limit));
+    }
+
+    /**
+     * Finds the deadlines that fall due on the given date.
+     *
+     * @param date The date to look up.
+     * @return A new ArrayList of the matching deadlines in order of due time.
+     */
+    @Override
+    public ArrayList<Task> findDueOn(LocalDate date) {
+        return read(this::hasTimeIndex, () -> super.findDueOn(date));
+    }
+
+    /**
+     * Finds the deadlines due and the events taking place within the given window.
+     *
+     * @param from The start of the window.
+     * @param to   The end of the window.
+     * @return A new ArrayList of the matching tasks in order of due or start time.
+     */
+    @Override
+    public ArrayList<Task> findBetween(LocalDateTime from, LocalDateTime to) {
+        return read(this::hasTimeIndex, () -> super.findBetween(from, to));
+    }
+
+    /**
+     * Finds the next deadlines and events that are due or start at or after the given time.
+     *
+     * @param from  The earliest due or start time to include.
+     * @param count The maximum number of tasks to return.
+     * @return A new ArrayList of the matching tasks in order of due or start time.
+     */
+    @Override
+    public ArrayList<Task> findUpcoming(LocalDateTime from, int count) {
+        return read(this::hasTimeIndex, () -> super.findUpcoming(from, count));
+    }
+
+    /**
+     * Registers a listener to be told about every later change to the list.
+     * The listener is called while the write lock is held, by whichever session made the change.
+     *
+     * @param listener The listener.
+     */
+    @Override
+    public void addListener(TaskListener listener) {
+        writeLock.lock();
+        try {
+            super.addListener(listener);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Marks a task in the list as done or not done.
+     *
+     * @param task   The task, which must be in the list.
+     * @param isDone The new completion status of the task.
+     * @return True if the status was changed, false if the task already had it.
+     */
+    @Override
+    public boolean markTask(Task task, boolean isDone) {
+        writeLock.lock();
+        try {
+            return super.markTask(task, isDone);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of tasks in a view.
+     *
+     * @param view The view.
+     * @return The number of tasks the view shows.
+     */
+    @Override
+    public int getViewSize(TaskView view) {
+        return read(() -> hasView(view), () -> super.getViewSize(view));
+    }
+
+    /**
+     * Returns a run of the tasks of a view, in view order.
+     *
+     * @param view  The view.
+     * @param from  The zero-based position in the view of the first task to return.
+     * @param count The maximum number of tasks to return.
+     * @return A new ArrayList of the tasks, which is shorter than count if the view ends first.
+     */
+    @Override
+    public ArrayList<Task> getViewTasks(TaskView view, int from, int count) {
+        return read(() -> hasView(view), () -> super.getViewTasks(view, from, count));
+    }
+
+    /**
+     * Runs a search under the read lock once the index it uses exists, or under the write lock
+     * if the search must build it first.
+     *
+     * @param isBuilt Checks whether the index the search uses exists.
+     * @param search  The search.
+     * @param <T>     The type of the search's result.
+     * @return The result of the search.
+     */
+    private <T> T read(BooleanSupplier isBuilt, Supplier<T> search) {
+        readLock.lock();
+        try {
+            if (isBuilt.getAsBoolean()) {
+                return search.get();
+            }
+        } finally {
+            readLock.unlock();
+        }
+        writeLock.lock();
+        try {
+            return search.get();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Represents the mutable face of the versioned tasks that the parent class works on.
+     * Each change publishes a new version; reads and iteration use whichever version is current.
+     */
+    private static class VersionedList extends AbstractList<Task> implements RandomAccess {
+
+        /** The newest version of the tasks. */
+        private volatile TaskVector current;
+
+        /**
+         * Initializes the list with its first version.
+         *
+         * @param current The first version of the tasks.
+         */
+        private VersionedList(TaskVector current) {
+            this.current = current;
+        }
+
+        /**
+         * Returns the task at a position in the current version.
+         *
+         * @param index The zero-based position of the task.
+         * @return The task at the position.
+         */
+        @Override
+        public Task get(int index) {
+            return current.get(index);
+        }
+
+        /**
+         * Returns the number of tasks in the current version.
+         *
+         * @return The size of the list.
+         */
+        @Override
+        public int size() {
+            return current.size();
+        }
+
+        /**
+         * Publishes a new version with a task appended.
+         *
+         * @param index The position to insert at, which must be the end of the list.
+         * @param task  The task to be appended.
+         */
+        @Override
+        public void add(int index, Task task) {
+            if (index != current.size()) {
+                throw new UnsupportedOperationException("Tasks can only be appended");
+            }
+            current = current.withAppended(task);
+        }
+
+        /**
+         * Publishes a new version without the task at a position.
+         *
+         * @param index The zero-based position of the task.
+         * @return The removed task.
+         */
+        @Override
+        public Task remove(int index) {
+            TaskVector version = current;
+            Task removed = version.get(index);
+            current = version.withRemoved(index);
+            return removed;
+        }
+
+        /**
+         * Returns an iterator over the current version, unaffected by later changes.
+         *
+         * @return An iterator over the tasks.
+         */
+        @Override
+        public Iterator<Task> iterator() {
+            return current.iterator();
+        }
+    }
+}
@@ -1,26 +1,30 @@
 package minion.task;
 
+import java.io.DataOutput;
+import java.io.IOException;
+
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 
 /**
  * Represents a task to be completed by a specified date or time.
+ * The deadline is packed into a single long; the text the user typed is only kept
+ * when it is neither a date nor a time. A dated deadline may recur, in which case it
+ * stands for the whole series and is shown as its next occurrence.
  */
 public class Deadline extends Task {
 
-    /** The raw text describing the deadline. */
+    /** The raw text describing the deadline, or null if it is a date or time. */
     private String by;
-    /** The deadline as a specific date. */
-    private LocalDate byDate;
-    /** The deadline as a specific time. */
-    private LocalTime byTime;
-    /** The deadline as a specific date and time. */
-    private LocalDateTime byDateTime;
+    /** The deadline as a packed date, time, or date and time, or PackedTemporal.NONE if it is neither. */
+    private long due;
+    /** The rule by which the deadline repeats, or null if it falls due only once. */
+    private Recurrence recurrence;
 
     /**
      * Initializes a deadline task with the specified description and the deadline date/time.
+     * Only the most specific of byDateTime, byDate and byTime is kept.
      *
      * @param description Text describing the task.
      * @param by Text describing the deadline time.
@@ -30,45 +34,154 @@ public class Deadline extends Task {
      */
     public Deadline(String description, String by, LocalDate byDate, LocalTime byTime, LocalDateTime byDateTime) {
         super(description);
-        this.by = by;
-        this.byDate = byDate;
-        this.byTime = byTime;
-        this.byDateTime = byDateTime;
+        this.due = PackedTemporal.pack(byDate, byTime, byDateTime);
+        this.by = (due == PackedTemporal.NONE) ? intern(by) : null;
     }
 
     /**
-     * Returns a string representation of the deadline task.
+     * Initializes one occurrence of a recurring deadline.
      *
-     * @return Formatted string for console display.
+     * @param description Text describing the task.
+     * @param due         The packed due date, or date and time, of the occurrence.
      */
-    @Override
-    public String toString() {
-        String displayBy = by;
+    private Deadline(String description, long due) {
+        super(description);
+        this.due = due;
+    }
+
+    /**
+     * Returns the rule by which the deadline repeats.
+     *
+     * @return The rule, or null if the deadline falls due only once.
+     */
+    public Recurrence getRecurrence() {
+        return recurrence;
+    }
+
+    /**
+     * Makes the deadline repeat by a rule. Only a deadline with a date can repeat.
+     *
+     * @param recurrence The rule, or null for a deadline that falls due only once.
+     */
+    public void setRecurrence(Recurrence recurrence) {
+        this.recurrence = recurrence;
+    }
 
+    /**
+     * Returns the moment the deadline falls due, or its first occurrence falls due if it recurs.
+     * A deadline given only as a date is due at the end of that day.
+     *
+     * @return The due date and time, or null if the deadline has no date.
+     */
+    public LocalDateTime getDueDateTime() {
+        LocalDateTime byDateTime = PackedTemporal.toDateTime(due);
         if (byDateTime != null) {
-            displayBy = byDateTime.format(DateTimeFormatter.ofPattern("MMM dd yyyy, HH:mm"));
-        } else if (byDate != null) {
-            displayBy = byDate.format(DateTimeFormatter.ofPattern("MMM dd yyyy"));
-        } else if (byTime != null) {
-            displayBy = byTime.format(DateTimeFormatter.ofPattern("HH:mm"));
+            return byDateTime;
+        }
+        LocalDate byDate = PackedTemporal.toDate(due);
+        return (byDate != null) ? byDate.atTime(LocalTime.MAX) : null;
+    }
+
+    /**
+     * Finds the first time the deadline falls due after a given time.
+     *
+     * @param after The time.
+     * @return The due date and time of the deadline, or of its next occurrence if it recurs,
+     *         or null if it has no date or nothing falls due after the time.
+     */
+    public LocalDateTime findNextDue(LocalDateTime after) {
+        LocalDateTime first = getDueDateTime();
+        if (first == null) {
+            return null;
+        } else if (recurrence == null) {
+            return first.isAfter(after) ? first : null;
         }
+        long index = recurrence.indexAfter(first, after);
+        return (index < 0) ? null : recurrence.shift(first, index);
+    }
 
+    /**
+     * Creates one occurrence of the recurring deadline, as a deadline of its own with the same ID.
+     *
+     * @param index The number of the occurrence, counting the first as 0.
+     * @return The occurrence, which does not recur.
+     */
+    Deadline occurrence(long index) {
+        Deadline occurrence = new Deadline(description, recurrence.shift(due, index));
+        occurrence.setId(getId());
+        return occurrence;
+    }
+
+    /**
+     * Renders the deadline task for display. A recurring deadline is shown as the first
+     * occurrence not yet due, or the last once the series is over, followed by its rule.
+     *
+     * @return Formatted string for console display.
+     */
+    @Override
+    protected String render() {
+        if (recurrence == null) {
+            return render(PackedTemporal.format(by, due));
+        }
+        long index = recurrence.indexShownAt(getDueDateTime(), LocalDateTime.now());
+        return render(PackedTemporal.format(null, recurrence.shift(due, index))) + " (" + recurrence + ")";
+    }
+
+    /**
+     * Renders the deadline task with the given due time.
+     *
+     * @param displayBy The due time as it is displayed.
+     * @return Formatted string for console display.
+     */
+    private String render(String displayBy) {
         return "[D][" + getStatusIcon() + "] " + description + " (by: " + displayBy + ")";
     }
 
+    /**
+     * Checks whether the rendering can be cached, which it cannot for a recurring deadline,
+     * as the occurrence shown moves on with the time.
+     *
+     * @return True unless the deadline recurs.
+     */
+    @Override
+    protected boolean isRenderStable() {
+        return recurrence == null;
+    }
+
     /**
      * Returns a string representation of the deadline task to be saved.
      * Using ISO-8601 strings for date/time objects to ensure reliable re-parsing.
+     * A recurring deadline is saved once, as its first occurrence followed by its rule.
      *
      * @return Formatted string to be saved.
      */
     @Override
     public String toFileFormat() {
+        LocalDate byDate = PackedTemporal.toDate(due);
+        LocalTime byTime = PackedTemporal.toTime(due);
+        LocalDateTime byDateTime = PackedTemporal.toDateTime(due);
         String datePart = (byDate != null) ? byDate.toString() : "null";
         String timePart = (byTime != null) ? byTime.toString() : "null";
         String dateTimePart = (byDateTime != null) ? byDateTime.toString() : "null";
+        String byPart = PackedTemporal.toText(by, due);
 
-        return "D | " + (isDone ? "1" : "0") + " | " + description + " | " + by + " | "
+        String line = "D | " + (isDone ? "1" : "0") + " | " + description + " | " + byPart + " | "
                 + datePart + " | " + timePart + " | " + dateTimePart;
+        return (recurrence == null) ? line : line + " | " + recurrence.toText();
+    }
+
+    /**
+     * Writes the deadline task as a binary record.
+     *
+     * @param out The output to write the record to.
+     * @throws IOException If the output cannot be written.
+     */
+    @Override
+    public void writeBinary(DataOutput out) throws IOException {
+        writeBinaryHeader(out, 'D');
+        writeBinaryText(out, PackedTemporal.toText(by, due));
+        writeBinaryTemporals(out, PackedTemporal.toDate(due), PackedTemporal.toTime(due),
+                PackedTemporal.toDateTime(due));
+        writeBinaryRecurrence(out, recurrence);
     }
-}
\ No newline at end of file
+}
@@ -1,35 +1,36 @@
 package minion.task;
 
+import java.io.DataOutput;
+import java.io.IOException;
+
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 
 /**
  * Represents a task that starts and ends at specific times.
+ * Each end is packed into a single long; the text the user typed is only kept
+ * when it is neither a date nor a time. A dated event may recur, in which case it
+ * stands for the whole series and is shown as its next occurrence.
  */
 public class Event extends Task {
 
-    /** The starting time of the event as a raw string. */
+    /** The starting time of the event as a raw string, or null if it is a date or time. */
     private String timeFrom;
-    /** The start date of the event, or null if not specified. */
-    private LocalDate fromDate;
-    /** The start time of the event, or null if not specified. */
-    private LocalTime fromTime;
-    /** The start date and time of the event, or null if not specified. */
-    private LocalDateTime fromDateTime;
-
-    /** The ending time of the event as a raw string. */
+    /** The start of the event as a packed date, time, or date and time, or PackedTemporal.NONE. */
+    private long from;
+
+    /** The ending time of the event as a raw string, or null if it is a date or time. */
     private String timeTo;
-    /** The end date of the event, or null if not specified. */
-    private LocalDate toDate;
-    /** The end time of the event, or null if not specified. */
-    private LocalTime toTime;
-    /** The end date and time of the event, or null if not specified. */
-    private LocalDateTime toDateTime;
+    /** The end of the event as a packed date, time, or date and time, or PackedTemporal.NONE. */
+    private long to;
+
+    /** The rule by which the event repeats, or null if it takes place only once. */
+    private Recurrence recurrence;
 
     /**
      * Initializes an event task with specific smart date/time objects and fallback strings.
+     * Only the most specific of the date and time, date, and time of each end is kept.
      *
      * @param description Text describing the task.
      * @param timeFrom Raw string for the start time.
@@ -45,68 +46,216 @@ public class Event extends Task {
                  LocalDate fromDate, LocalTime fromTime, LocalDateTime fromDateTime,
                  LocalDate toDate, LocalTime toTime, LocalDateTime toDateTime) {
         super(description);
+        this.from = PackedTemporal.pack(fromDate, fromTime, fromDateTime);
+        this.to = PackedTemporal.pack(toDate, toTime, toDateTime);
+        this.timeFrom = (from == PackedTemporal.NONE) ? intern(timeFrom) : null;
+        this.timeTo = (to == PackedTemporal.NONE) ? intern(timeTo) : null;
+    }
+
+    /**
+     * Initializes one occurrence of a recurring event.
+     *
+     * @param description Text describing the task.
+     * @param timeFrom    Raw string for the start time, or null if it is a date or time.
+     * @param from        The packed start of the occurrence.
+     * @param timeTo      Raw string for the end time, or null if it is a date or time.
+     * @param to          The packed end of the occurrence.
+     */
+    private Event(String description, String timeFrom, long from, String timeTo, long to) {
+        super(description);
         this.timeFrom = timeFrom;
+        this.from = from;
         this.timeTo = timeTo;
-        this.fromDate = fromDate;
-        this.fromTime = fromTime;
-        this.fromDateTime = fromDateTime;
-        this.toDate = toDate;
-        this.toTime = toTime;
-        this.toDateTime = toDateTime;
+        this.to = to;
+    }
+
+    /**
+     * Returns the rule by which the event repeats.
+     *
+     * @return The rule, or null if the event takes place only once.
+     */
+    public Recurrence getRecurrence() {
+        return recurrence;
     }
 
     /**
-     * Formats the display string based on which smart date/time variables are available.
-     * Falls back to the raw string if no specific date or time object is present.
+     * Makes the event repeat by a rule. Only an event with a date can repeat.
      *
-     * @param raw The original raw string provided by the user.
-     * @param d The parsed LocalDate, or null.
-     * @param t The parsed LocalTime, or null.
-     * @param dt The parsed LocalDateTime, or null.
-     * @return The formatted time string for UI display.
+     * @param recurrence The rule, or null for an event that takes place only once.
      */
-    private String getFormattedTime(String raw, LocalDate d, LocalTime t, LocalDateTime dt) {
-        if (dt != null) {
-            return dt.format(DateTimeFormatter.ofPattern("MMM dd yyyy, HH:mm"));
-        } else if (d != null) {
-            return d.format(DateTimeFormatter.ofPattern("MMM dd yyyy"));
-        } else if (t != null) {
-            return t.format(DateTimeFormatter.ofPattern("HH:mm"));
+    public void setRecurrence(Recurrence recurrence) {
+        this.recurrence = recurrence;
+    }
+
+    /**
+     * Returns the moment the event starts, or its first occurrence starts if it recurs.
+     * A start given only as a date begins at the start of that day, and a start given only
+     * as a time is taken to be on the same day as the end.
+     *
+     * @return The start date and time, or null if neither end of the event has a date.
+     */
+    public LocalDateTime getStartDateTime() {
+        LocalDateTime fromDateTime = PackedTemporal.toDateTime(from);
+        LocalDate fromDate = PackedTemporal.toDate(from);
+        if (fromDateTime != null) {
+            return fromDateTime;
+        } else if (fromDate != null) {
+            return fromDate.atStartOfDay();
+        }
+
+        LocalDateTime toDateTime = PackedTemporal.toDateTime(to);
+        LocalDate day = (toDateTime != null) ? toDateTime.toLocalDate() : PackedTemporal.toDate(to);
+        if (day == null) {
+            return null;
+        }
+        LocalTime fromTime = PackedTemporal.toTime(from);
+        return (fromTime != null) ? day.atTime(fromTime) : day.atStartOfDay();
+    }
+
+    /**
+     * Returns the moment the event ends, or its first occurrence ends if it recurs.
+     * An end given only as a date lasts until the end of that day, and an end given only
+     * as a time is taken to be on the same day as the start.
+     *
+     * @return The end date and time, or null if neither end of the event has a date.
+     */
+    public LocalDateTime getEndDateTime() {
+        LocalDateTime toDateTime = PackedTemporal.toDateTime(to);
+        LocalDate toDate = PackedTemporal.toDate(to);
+        if (toDateTime != null) {
+            return toDateTime;
+        } else if (toDate != null) {
+            return toDate.atTime(LocalTime.MAX);
+        }
+
+        LocalDateTime fromDateTime = PackedTemporal.toDateTime(from);
+        LocalDate day = (fromDateTime != null) ? fromDateTime.toLocalDate() : PackedTemporal.toDate(from);
+        if (day == null) {
+            return null;
         }
-        return raw;
+        LocalTime toTime = PackedTemporal.toTime(to);
+        return (toTime != null) ? day.atTime(toTime) : day.atTime(LocalTime.MAX);
     }
 
     /**
-     * Returns a string representation of the event task.
+     * Finds the first time the event starts after a given time.
+     *
+     * @param after The time.
+     * @return The start date and time of the event, or of its next occurrence if it recurs,
+     *         or null if it has no date or nothing starts after the time.
+     */
+    public LocalDateTime findNextStart(LocalDateTime after) {
+        LocalDateTime first = getStartDateTime();
+        if (first == null) {
+            return null;
+        } else if (recurrence == null) {
+            return first.isAfter(after) ? first : null;
+        }
+        long index = recurrence.indexAfter(first, after);
+        return (index < 0) ? null : recurrence.shift(first, index);
+    }
+
+    /**
+     * Creates one occurrence of the recurring event, as an event of its own with the same ID.
+     *
+     * @param index The number of the occurrence, counting the first as 0.
+     * @return The occurrence, which does not recur.
+     */
+    Event occurrence(long index) {
+        Event occurrence = new Event(description, timeFrom, recurrence.shift(from, index),
+                timeTo, recurrence.shift(to, index));
+        occurrence.setId(getId());
+        return occurrence;
+    }
+
+    /**
+     * Renders the event task for display. A recurring event is shown as the first occurrence
+     * not yet over, or the last once the series is over, followed by its rule.
      *
      * @return Formatted string for console display.
      */
     @Override
-    public String toString() {
-        String displayFrom = getFormattedTime(timeFrom, fromDate, fromTime, fromDateTime);
-        String displayTo = getFormattedTime(timeTo, toDate, toTime, toDateTime);
+    protected String render() {
+        if (recurrence == null) {
+            return render(from, to);
+        }
+        long index = recurrence.indexShownAt(getEndDateTime(), LocalDateTime.now());
+        return render(recurrence.shift(from, index), recurrence.shift(to, index)) + " (" + recurrence + ")";
+    }
+
+    /**
+     * Renders the event task with the given start and end.
+     *
+     * @param shownFrom The packed start to be shown.
+     * @param shownTo   The packed end to be shown.
+     * @return Formatted string for console display.
+     */
+    private String render(long shownFrom, long shownTo) {
+        String displayFrom = PackedTemporal.format(timeFrom, shownFrom);
+        String displayTo = PackedTemporal.format(timeTo, shownTo);
         return "[E][" + getStatusIcon() + "] " + description + " (from: " + displayFrom + " to: " + displayTo + ")";
     }
 
+    /**
+     * Checks whether the rendering can be cached, which it cannot for a recurring event,
+     * as the occurrence shown moves on with the time.
+     *
+     * @return True unless the event recurs.
+     */
+    @Override
+    protected boolean isRenderStable() {
+        return recurrence == null;
+    }
+
     /**
      * Returns a string representation of the event task to be saved.
      * Stores all components to ensure the state can be perfectly reconstructed.
+     * A recurring event is saved once, as its first occurrence followed by its rule.
      *
      * @return Formatted string to be saved.
      */
     @Override
     public String toFileFormat() {
-        return String.format("E | %d | %s | %s | %s | %s | %s | %s | %s | %s | %s",
+        String line = String.format("E | %d | %s | %s | %s | %s | %s | %s | %s | %s | %s",
                 (isDone ? 1 : 0),
                 description,
-                timeFrom,
-                timeTo,
-                (fromDate != null ? fromDate : "null"),
-                (fromTime != null ? fromTime : "null"),
-                (fromDateTime != null ? fromDateTime : "null"),
-                (toDate != null ? toDate : "null"),
-                (toTime != null ? toTime : "null"),
-                (toDateTime != null ? toDateTime : "null")
+                PackedTemporal.toText(timeFrom, from),
+                PackedTemporal.toText(timeTo, to),
+                orNull(PackedTemporal.toDate(from)),
+                orNull(PackedTemporal.toTime(from)),
+                orNull(PackedTemporal.toDateTime(from)),
+                orNull(PackedTemporal.toDate(to)),
+                orNull(PackedTemporal.toTime(to)),
+                orNull(PackedTemporal.toDateTime(to))
         );
+        return (recurrence == null) ? line : line + " | " + recurrence.toText();
+    }
+
+    /**
+     * Writes the event task as a binary record.
+     *
+     * @param out The output to write the record to.
+     * @throws IOException If the output cannot be written.
+     */
+    @Override
+    public void writeBinary(DataOutput out) throws IOException {
+        writeBinaryHeader(out, 'E');
+        writeBinaryText(out, PackedTemporal.toText(timeFrom, from));
+        writeBinaryText(out, PackedTemporal.toText(timeTo, to));
+        writeBinaryTemporals(out, PackedTemporal.toDate(from), PackedTemporal.toTime(from),
+                PackedTemporal.toDateTime(from));
+        writeBinaryTemporals(out, PackedTemporal.toDate(to), PackedTemporal.toTime(to),
+                PackedTemporal.toDateTime(to));
+        writeBinaryRecurrence(out, recurrence);
+    }
+
+    /**
+     * Returns a value to be saved, or the text "null" in its place.
+     *
+     * @param value The value, or null.
+     * @return The value itself, or "null" if it is null.
+     */
+    private static Object orNull(Object value) {
+        return (value != null) ? value : "null";
     }
-}
\ No newline at end of file
+}
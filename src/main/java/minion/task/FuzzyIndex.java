@@ -0,0 +1,489 @@
+package minion.task;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Represents an index for typo-tolerant search over the words of task descriptions.
+ * Every distinct lower-cased word points to the tasks containing it, and the words themselves are
+ * kept in a BK-tree ordered by edit distance, so finding the words within a few edits of a search
+ * term only compares it with a small part of the vocabulary instead of with every task.
+ *
+ * <p>A term of up to two characters must match a word exactly, one of three or four characters may
+ * be one edit away, and a longer one two edits away, where an edit inserts, deletes or replaces a
+ * character. Removed tasks are purged from the posting lists in batches, as in {@link KeywordIndex};
+ * words no task contains any more stay in the tree, but are skipped by searches.
+ * Searches only read the index, so several may run at once while no task is added or removed.
+ */
+class FuzzyIndex {
+
+    /** The number of edits allowed for the longest term words. */
+    private static final int MAX_DISTANCE = 2;
+    /** The length from which a term may be one edit away from a word. */
+    private static final int ONE_EDIT_LENGTH = 3;
+    /** The length from which a term may be two edits away from a word. */
+    private static final int TWO_EDIT_LENGTH = 5;
+    /** The number of removed tasks that may linger in posting lists before they are purged. */
+    private static final int MIN_PURGE_SIZE = 1024;
+
+    /** The tasks containing each word, in the order they were added. */
+    private final HashMap<String, PostingList> postings;
+    /** The removed tasks that may still appear in posting lists. */
+    private final Set<Task> removed;
+    /** The root of the BK-tree of every word indexed, or null if there are none. */
+    private Node root;
+    /** The number of indexed tasks that have not been removed. */
+    private int liveCount;
+    /** The edit distance table used by adds, reused between comparisons. */
+    private final EditDistance insertDistance;
+
+    /** Initializes an empty index. */
+    FuzzyIndex() {
+        this.postings = new HashMap<>();
+        this.removed = Collections.newSetFromMap(new IdentityHashMap<>());
+        this.insertDistance = new EditDistance();
+    }
+
+    /**
+     * Adds a task to the index. Tasks must be added in list order.
+     *
+     * @param task The task to be indexed.
+     */
+    void add(Task task) {
+        if (removed.contains(task)) {
+            // The task still sits in old posting lists, which would put it out of order
+            purge();
+        }
+        for (String word : getWords(task.getDescription())) {
+            PostingList list = postings.get(word);
+            if (list == null) {
+                list = new PostingList();
+                postings.put(word, list);
+                insertWord(word);
+            }
+            list.add(task);
+        }
+        liveCount++;
+    }
+
+    /**
+     * Removes a task from the index.
+     * The task is only dropped from the posting lists once enough removals have built up.
+     *
+     * @param task The task to be removed.
+     */
+    void remove(Task task) {
+        removed.add(task);
+        liveCount--;
+        if (removed.size() > Math.max(MIN_PURGE_SIZE, liveCount / 4)) {
+            purge();
+        }
+    }
+
+    /**
+     * Finds the tasks whose descriptions contain a word close to every word of the term.
+     * Tasks are ranked by the total number of edits their closest words are away from the term's
+     * words, and tasks ranked equally by the order they were added.
+     *
+     * @param term  The words to look for, in any case.
+     * @param limit The maximum number of tasks to return.
+     * @return The best-ranked tasks, best first.
+     */
+    ArrayList<Task> find(String term, int limit) {
+        ArrayList<String> termWords = getWords(term);
+        if (termWords.isEmpty() || limit <= 0) {
+            return new ArrayList<>();
+        }
+        ArrayList<HashMap<String, Integer>> nearWords = new ArrayList<>(termWords.size());
+        for (String termWord : termWords) {
+            HashMap<String, Integer> near = findNearWords(termWord);
+            if (near.isEmpty()) {
+                return new ArrayList<>();
+            }
+            nearWords.add(near);
+        }
+        return (termWords.size() == 1)
+                ? findClosest(nearWords.get(0), limit)
+                : findClosestToAll(nearWords, limit);
+    }
+
+    /**
+     * Finds the tasks containing the words closest to a single-word term. Posting lists are in the order
+     * tasks were added, so merging those of the words at each distance in turn yields the tasks already
+     * ranked, and no more of any list is read than the results need.
+     *
+     * @param near  The words near the term, with their distances from it.
+     * @param limit The maximum number of tasks to return.
+     * @return The best-ranked tasks, best first.
+     */
+    private ArrayList<Task> findClosest(HashMap<String, Integer> near, int limit) {
+        ArrayList<Task> matches = new ArrayList<>();
+        Set<Task> found = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (int distance = 0; distance <= MAX_DISTANCE && matches.size() < limit; distance++) {
+            ArrayList<PostingList> lists = new ArrayList<>();
+            for (Map.Entry<String, Integer> entry : near.entrySet()) {
+                if (entry.getValue() == distance) {
+                    lists.add(postings.get(entry.getKey()));
+                }
+            }
+            Merger merger = new Merger(lists);
+            Task task;
+            while (matches.size() < limit && (task = merger.next()) != null) {
+                if (found.add(task)) {
+                    matches.add(task);
+                }
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Finds the tasks containing a word near each word of a term of several words. The tasks
+     * containing a word near the term word with the fewest candidates are checked against the
+     * other term words, keeping only the best-ranked.
+     *
+     * @param nearWords The words near each term word, with their distances from it.
+     * @param limit     The maximum number of tasks to return.
+     * @return The best-ranked tasks, best first.
+     */
+    private ArrayList<Task> findClosestToAll(ArrayList<HashMap<String, Integer>> nearWords, int limit) {
+        HashMap<String, Integer> rarest = nearWords.get(0);
+        long fewest = Long.MAX_VALUE;
+        for (HashMap<String, Integer> near : nearWords) {
+            long candidates = 0;
+            for (String word : near.keySet()) {
+                candidates += postings.get(word).size();
+            }
+            if (candidates < fewest) {
+                fewest = candidates;
+                rarest = near;
+            }
+        }
+        ArrayList<PostingList> lists = new ArrayList<>();
+        for (String word : rarest.keySet()) {
+            lists.add(postings.get(word));
+        }
+
+        // The worst of the best matches so far is at the head, ready to be replaced
+        PriorityQueue<Match> best = new PriorityQueue<>(limit, (a, b) -> b.compareTo(a));
+        Merger merger = new Merger(lists);
+        Task task;
+        while ((task = merger.next()) != null) {
+            int distance = findDistance(task, nearWords);
+            if (distance < 0) {
+                continue;
+            }
+            Match match = new Match(task, distance);
+            if (best.size() < limit) {
+                best.add(match);
+            } else if (match.compareTo(best.peek()) < 0) {
+                best.poll();
+                best.add(match);
+            }
+        }
+
+        Match[] ranked = best.toArray(new Match[0]);
+        Arrays.sort(ranked);
+        ArrayList<Task> matches = new ArrayList<>(ranked.length);
+        for (Match match : ranked) {
+            matches.add(match.task);
+        }
+        return matches;
+    }
+
+    /**
+     * Works out how far a task's description is from a term of several words.
+     *
+     * @param task      The task.
+     * @param nearWords The words near each term word, with their distances from it.
+     * @return The sum over the term words of the distance to the closest word of the description,
+     *         or -1 if the description has no word near one of them.
+     */
+    private static int findDistance(Task task, ArrayList<HashMap<String, Integer>> nearWords) {
+        ArrayList<String> words = getWords(task.getDescription());
+        int total = 0;
+        for (HashMap<String, Integer> near : nearWords) {
+            int closest = Integer.MAX_VALUE;
+            for (String word : words) {
+                Integer distance = near.get(word);
+                if (distance != null && distance < closest) {
+                    closest = distance;
+                }
+            }
+            if (closest == Integer.MAX_VALUE) {
+                return -1;
+            }
+            total += closest;
+        }
+        return total;
+    }
+
+    /**
+     * Finds the indexed words that some task still contains within the allowed edits of a term word.
+     *
+     * @param termWord The lower-cased term word.
+     * @return The words found, with their distances from the term word.
+     */
+    private HashMap<String, Integer> findNearWords(String termWord) {
+        int maxDistance = findMaxDistance(termWord);
+        HashMap<String, Integer> near = new HashMap<>();
+        if (root == null) {
+            return near;
+        }
+        // A table of its own, so that searches on several threads never share one
+        EditDistance editDistance = new EditDistance();
+        ArrayDeque<Node> pending = new ArrayDeque<>();
+        pending.push(root);
+        while (!pending.isEmpty()) {
+            Node node = pending.pop();
+            int distance = editDistance.between(termWord, node.word);
+            if (distance <= maxDistance && postings.containsKey(node.word)) {
+                near.put(node.word, distance);
+            }
+            // By the triangle inequality, only children this far from the node can be near enough
+            int last = Math.min(node.children.length - 1, distance + maxDistance);
+            for (int i = Math.max(1, distance - maxDistance); i <= last; i++) {
+                if (node.children[i] != null) {
+                    pending.push(node.children[i]);
+                }
+            }
+        }
+        return near;
+    }
+
+    /**
+     * Works out how many edits a term word may be away from the words it finds.
+     *
+     * @param termWord The term word.
+     * @return The number of edits allowed for a word of its length.
+     */
+    private static int findMaxDistance(String termWord) {
+        if (termWord.length() >= TWO_EDIT_LENGTH) {
+            return MAX_DISTANCE;
+        }
+        return (termWord.length() >= ONE_EDIT_LENGTH) ? 1 : 0;
+    }
+
+    /**
+     * Inserts a word into the BK-tree, unless it is already there.
+     *
+     * @param word The word.
+     */
+    private void insertWord(String word) {
+        if (root == null) {
+            root = new Node(word);
+            return;
+        }
+        Node node = root;
+        while (true) {
+            int distance = insertDistance.between(word, node.word);
+            if (distance == 0) {
+                return;
+            }
+            if (distance >= node.children.length) {
+                node.children = Arrays.copyOf(node.children, distance + 1);
+            }
+            if (node.children[distance] == null) {
+                node.children[distance] = new Node(word);
+                return;
+            }
+            node = node.children[distance];
+        }
+    }
+
+    /**
+     * Drops every removed task from the posting lists.
+     */
+    private void purge() {
+        postings.values().removeIf(list -> list.removeAll(removed));
+        removed.clear();
+    }
+
+    /**
+     * Splits a text into its distinct lower-cased words, runs of letters and digits.
+     *
+     * @param text The text.
+     * @return The distinct words, in the order they first appear.
+     */
+    private static ArrayList<String> getWords(String text) {
+        String lower = text.toLowerCase();
+        ArrayList<String> words = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= lower.length(); i++) {
+            boolean isWordChar = i < lower.length() && Character.isLetterOrDigit(lower.charAt(i));
+            if (isWordChar && start < 0) {
+                start = i;
+            } else if (!isWordChar && start >= 0) {
+                String word = lower.substring(start, i);
+                if (!words.contains(word)) {
+                    words.add(word);
+                }
+                start = -1;
+            }
+        }
+        return words;
+    }
+
+    /**
+     * Represents a word in the BK-tree. The child at index d holds the words at edit distance d from this one.
+     */
+    private static class Node {
+        /** The word. */
+        private final String word;
+        /** The subtrees of words at each distance from this one, with null for distances no word is at. */
+        private Node[] children;
+
+        /**
+         * Initializes a leaf node.
+         *
+         * @param word The word.
+         */
+        private Node(String word) {
+            this.word = word;
+            this.children = new Node[0];
+        }
+    }
+
+    /**
+     * Represents the table used to work out edit distances, whose rows are reused between comparisons.
+     * A table must only be used by one thread at a time.
+     */
+    private static class EditDistance {
+        /** The previous row of the table. */
+        private int[] previousRow;
+        /** The current row of the table. */
+        private int[] currentRow;
+
+        /** Initializes a table for words of up to 15 characters, growing it for longer ones. */
+        private EditDistance() {
+            this.previousRow = new int[16];
+            this.currentRow = new int[16];
+        }
+
+        /**
+         * Works out the edit distance between two words: the fewest characters that must be inserted,
+         * deleted or replaced to turn one into the other.
+         *
+         * @param a The first word.
+         * @param b The second word.
+         * @return The edit distance.
+         */
+        private int between(String a, String b) {
+            if (b.length() + 1 > previousRow.length) {
+                previousRow = new int[b.length() + 1];
+                currentRow = new int[b.length() + 1];
+            }
+            int[] previous = previousRow;
+            int[] current = currentRow;
+            for (int j = 0; j <= b.length(); j++) {
+                previous[j] = j;
+            }
+            for (int i = 1; i <= a.length(); i++) {
+                current[0] = i;
+                char c = a.charAt(i - 1);
+                for (int j = 1; j <= b.length(); j++) {
+                    int replace = previous[j - 1] + ((c == b.charAt(j - 1)) ? 0 : 1);
+                    current[j] = Math.min(replace, Math.min(previous[j], current[j - 1]) + 1);
+                }
+                int[] swap = previous;
+                previous = current;
+                current = swap;
+            }
+            return previous[b.length()];
+        }
+    }
+
+    /**
+     * Represents a merge of several posting lists into one run of tasks in the order they were added,
+     * skipping removed tasks and giving a task found in several lists only once.
+     */
+    private class Merger {
+        /** The position reached in each list, ordered by the ID of the task there. */
+        private final PriorityQueue<int[]> cursors;
+        /** The lists being merged. */
+        private final ArrayList<PostingList> lists;
+        /** The task returned last, or null if none has been. */
+        private Task last;
+
+        /**
+         * Initializes a merge.
+         *
+         * @param lists The posting lists to merge.
+         */
+        private Merger(ArrayList<PostingList> lists) {
+            this.lists = lists;
+            this.cursors = new PriorityQueue<>(Math.max(1, lists.size()),
+                    (a, b) -> Long.compare(taskAt(a).getId(), taskAt(b).getId()));
+            for (int i = 0; i < lists.size(); i++) {
+                if (lists.get(i).size() > 0) {
+                    cursors.add(new int[] {i, 0});
+                }
+            }
+        }
+
+        /**
+         * Returns the next task of the merged run.
+         *
+         * @return The task, or null once every list has been read.
+         */
+        private Task next() {
+            while (!cursors.isEmpty()) {
+                int[] cursor = cursors.poll();
+                Task task = taskAt(cursor);
+                cursor[1]++;
+                if (cursor[1] < lists.get(cursor[0]).size()) {
+                    cursors.add(cursor);
+                }
+                if (task != last && !removed.contains(task)) {
+                    last = task;
+                    return task;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Returns the task a cursor points at.
+         *
+         * @param cursor The index of a list and a position in it.
+         * @return The task.
+         */
+        private Task taskAt(int[] cursor) {
+            return lists.get(cursor[0]).get(cursor[1]);
+        }
+    }
+
+    /**
+     * Represents a task found by a search of several words, with how far it is from the term.
+     */
+    private static class Match implements Comparable<Match> {
+        /** The task. */
+        private final Task task;
+        /** The total number of edits between the term and the task's closest words. */
+        private final int distance;
+
+        /**
+         * Initializes a match.
+         *
+         * @param task     The task.
+         * @param distance The total number of edits from the term.
+         */
+        private Match(Task task, int distance) {
+            this.task = task;
+            this.distance = distance;
+        }
+
+        @Override
+        public int compareTo(Match other) {
+            int comparison = Integer.compare(distance, other.distance);
+            return (comparison != 0) ? comparison : Long.compare(task.getId(), other.task.getId());
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package minion.task;
+
+/**
+ * Represents a list of tasks that can find where a task is from its ID without reading the tasks,
+ * as a list that parses its tasks only when they are used can. {@link TaskList} looks tasks up
+ * through it instead of reading every task into a map of IDs.
+ */
+public interface IdLookup {
+
+    /**
+     * Finds the position of the task with the given ID.
+     *
+     * @param id The ID of the task.
+     * @return The zero-based position of the task, or -1 if no task has the ID.
+     */
+    int indexOfId(long id);
+}
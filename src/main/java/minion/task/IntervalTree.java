@@ -0,0 +1,282 @@
+package minion.task;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+/**
+ * Represents a balanced interval tree, kept as a treap ordered by start time.
+ * Each node also remembers the latest end time in its subtree, so searches can skip
+ * every subtree that finishes before the window being asked about.
+ *
+ * @param <T> The type of value stored with each interval.
+ */
+class IntervalTree<T> {
+
+    /** The source of node priorities that keep the treap balanced. */
+    private final Random random;
+    /** The root of the tree, or null if the tree is empty. */
+    private Node<T> root;
+
+    /** Initializes an empty tree. */
+    IntervalTree() {
+        this.random = new Random();
+    }
+
+    /**
+     * Inserts an interval. Intervals are ordered by start, then by sequence number.
+     *
+     * @param start    The start of the interval.
+     * @param end      The end of the interval, not before the start.
+     * @param sequence A number unique to this interval that breaks ties between equal starts.
+     * @param value    The value stored with the interval.
+     */
+    void insert(long start, long end, long sequence, T value) {
+        root = insert(root, new Node<>(start, end, sequence, value, random.nextInt()));
+    }
+
+    /**
+     * Removes the interval with the given start and sequence number, if present.
+     *
+     * @param start    The start of the interval.
+     * @param sequence The sequence number the interval was inserted with.
+     */
+    void remove(long start, long sequence) {
+        root = remove(root, start, sequence);
+    }
+
+    /**
+     * Collects the values of every interval that overlaps the window, in order of start.
+     *
+     * @param from    The start of the window.
+     * @param to      The end of the window.
+     * @param matches The list the matching values are appended to.
+     */
+    void findOverlapping(long from, long to, ArrayList<T> matches) {
+        findOverlapping(root, from, to, matches);
+    }
+
+    /**
+     * Collects the values of the first intervals that start at or after the given time, in order of start.
+     *
+     * @param from    The earliest start to include.
+     * @param limit   The maximum number of values to collect.
+     * @param matches The list the matching values are appended to.
+     */
+    void findStartingFrom(long from, int limit, ArrayList<T> matches) {
+        findStartingFrom(root, from, limit, matches);
+    }
+
+    /**
+     * Inserts a node into a subtree, rotating it upwards while its priority is higher.
+     *
+     * @param node  The root of the subtree.
+     * @param added The node to be inserted.
+     * @return The new root of the subtree.
+     */
+    private Node<T> insert(Node<T> node, Node<T> added) {
+        if (node == null) {
+            return added;
+        }
+        if (compare(added.start, added.sequence, node) < 0) {
+            node.left = insert(node.left, added);
+            if (node.left.priority > node.priority) {
+                node = rotateRight(node);
+            }
+        } else {
+            node.right = insert(node.right, added);
+            if (node.right.priority > node.priority) {
+                node = rotateLeft(node);
+            }
+        }
+        node.update();
+        return node;
+    }
+
+    /**
+     * Removes the node with the given key from a subtree.
+     *
+     * @param node     The root of the subtree.
+     * @param start    The start of the interval.
+     * @param sequence The sequence number of the interval.
+     * @return The new root of the subtree.
+     */
+    private Node<T> remove(Node<T> node, long start, long sequence) {
+        if (node == null) {
+            return null;
+        }
+        int comparison = compare(start, sequence, node);
+        if (comparison < 0) {
+            node.left = remove(node.left, start, sequence);
+        } else if (comparison > 0) {
+            node.right = remove(node.right, start, sequence);
+        } else {
+            return merge(node.left, node.right);
+        }
+        node.update();
+        return node;
+    }
+
+    /**
+     * Joins two subtrees where every key on the left is smaller than every key on the right.
+     *
+     * @param left  The subtree with the smaller keys.
+     * @param right The subtree with the larger keys.
+     * @return The root of the joined subtree.
+     */
+    private Node<T> merge(Node<T> left, Node<T> right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            left.update();
+            return left;
+        }
+        right.left = merge(left, right.left);
+        right.update();
+        return right;
+    }
+
+    /**
+     * Collects the overlapping intervals of a subtree in order of start.
+     *
+     * @param node    The root of the subtree.
+     * @param from    The start of the window.
+     * @param to      The end of the window.
+     * @param matches The list the matching values are appended to.
+     */
+    private void findOverlapping(Node<T> node, long from, long to, ArrayList<T> matches) {
+        if (node == null || node.maxEnd < from) {
+            return;
+        }
+        findOverlapping(node.left, from, to, matches);
+        if (node.start > to) {
+            // Everything to the right starts even later
+            return;
+        }
+        if (node.end >= from) {
+            matches.add(node.value);
+        }
+        findOverlapping(node.right, from, to, matches);
+    }
+
+    /**
+     * Collects the intervals of a subtree that start at or after the given time, in order of start.
+     *
+     * @param node    The root of the subtree.
+     * @param from    The earliest start to include.
+     * @param limit   The maximum number of values to collect.
+     * @param matches The list the matching values are appended to.
+     */
+    private void findStartingFrom(Node<T> node, long from, int limit, ArrayList<T> matches) {
+        if (node == null || matches.size() >= limit) {
+            return;
+        }
+        if (node.start >= from) {
+            findStartingFrom(node.left, from, limit, matches);
+            if (matches.size() < limit) {
+                matches.add(node.value);
+            }
+        }
+        findStartingFrom(node.right, from, limit, matches);
+    }
+
+    /**
+     * Rotates a subtree to the right, lifting its left child.
+     *
+     * @param node The root of the subtree.
+     * @return The new root of the subtree.
+     */
+    private Node<T> rotateRight(Node<T> node) {
+        Node<T> pivot = node.left;
+        node.left = pivot.right;
+        pivot.right = node;
+        node.update();
+        pivot.update();
+        return pivot;
+    }
+
+    /**
+     * Rotates a subtree to the left, lifting its right child.
+     *
+     * @param node The root of the subtree.
+     * @return The new root of the subtree.
+     */
+    private Node<T> rotateLeft(Node<T> node) {
+        Node<T> pivot = node.right;
+        node.right = pivot.left;
+        pivot.left = node;
+        node.update();
+        pivot.update();
+        return pivot;
+    }
+
+    /**
+     * Compares an interval key with the key of a node.
+     *
+     * @param start    The start of the interval.
+     * @param sequence The sequence number of the interval.
+     * @param node     The node to compare against.
+     * @return A negative number, zero or a positive number as the key is before, equal to or after the node's.
+     */
+    private static int compare(long start, long sequence, Node<?> node) {
+        int comparison = Long.compare(start, node.start);
+        return (comparison != 0) ? comparison : Long.compare(sequence, node.sequence);
+    }
+
+    /**
+     * Represents a single interval in the tree.
+     *
+     * @param <T> The type of value stored with the interval.
+     */
+    private static class Node<T> {
+        /** The start of the interval. */
+        private final long start;
+        /** The end of the interval. */
+        private final long end;
+        /** The sequence number that breaks ties between equal starts. */
+        private final long sequence;
+        /** The value stored with the interval. */
+        private final T value;
+        /** The random priority that keeps the treap balanced. */
+        private final int priority;
+        /** The latest end of any interval in this subtree. */
+        private long maxEnd;
+        /** The subtree of intervals ordered before this one. */
+        private Node<T> left;
+        /** The subtree of intervals ordered after this one. */
+        private Node<T> right;
+
+        /**
+         * Initializes a leaf node for an interval.
+         *
+         * @param start    The start of the interval.
+         * @param end      The end of the interval.
+         * @param sequence The sequence number of the interval.
+         * @param value    The value stored with the interval.
+         * @param priority The random priority that decides the node's height.
+         */
+        private Node(long start, long end, long sequence, T value, int priority) {
+            this.start = start;
+            this.end = end;
+            this.sequence = sequence;
+            this.value = value;
+            this.priority = priority;
+            this.maxEnd = end;
+        }
+
+        /** Recomputes the latest end of this subtree from the node's children. */
+        private void update() {
+            maxEnd = end;
+            if (left != null) {
+                maxEnd = Math.max(maxEnd, left.maxEnd);
+            }
+            if (right != null) {
+                maxEnd = Math.max(maxEnd, right.maxEnd);
+            }
+        }
+    }
+}
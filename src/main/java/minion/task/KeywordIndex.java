@@ -0,0 +1,242 @@
+package minion.task;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Represents an inverted trigram index over task descriptions.
+ * Every lower-cased three-character sequence of a description points to the tasks containing it,
+ * so a keyword search only has to check the tasks listed under one of the keyword's trigrams.
+ * A trigram shared by a large fraction of tasks stops being indexed, since it would not narrow a
+ * search anyway, and removed tasks are purged in batches, so they never outnumber a quarter of the
+ * live ones for long.
+ *
+ * <p>The index keeps an estimate of the heap it takes and never lets it pass a fixed budget.
+ * When an add pushes it over, the longest posting lists, which narrow a search the least, are
+ * dropped and their trigrams treated like common ones until the index is back under three quarters
+ * of the budget. Should the dropped trigrams themselves come to fill a quarter of the budget, as
+ * with descriptions that share almost no trigrams, the index gives up and every search scans the list.
+ */
+class KeywordIndex {
+
+    /** The length of the character sequences that are indexed. */
+    private static final int GRAM_LENGTH = 3;
+    /** The number of tasks a trigram may point to before it can be considered too common. */
+    private static final int MIN_SATURATION_SIZE = 4096;
+    /** A trigram shared by more than one in this many tasks is too common to index. */
+    private static final int SATURATION_DIVISOR = 8;
+    /** The number of removed tasks that may linger in posting lists before they are purged. */
+    private static final int MIN_PURGE_SIZE = 1024;
+    /** The heap the index may take when no other budget is given, in bytes. */
+    static final long DEFAULT_MAX_BYTES = 64L << 20;
+    /** The estimated heap of one task in a posting list, allowing for the list's spare capacity. */
+    private static final long BYTES_PER_POSTING = 8;
+    /** The estimated heap of one indexed trigram: its map entry, boxed key and empty posting list. */
+    private static final long BYTES_PER_TRIGRAM = 112;
+    /** The estimated heap of one trigram in a set, such as a saturated trigram or a removed task. */
+    private static final long BYTES_PER_SET_ENTRY = 64;
+
+    /** The tasks containing each trigram, in the order they were added. */
+    private HashMap<Long, PostingList> postings;
+    /** The trigrams that were too common, or whose posting lists were too long, to keep indexing. */
+    private HashSet<Long> saturated;
+    /** The removed tasks that may still appear in posting lists. */
+    private final Set<Task> removed;
+    /** The heap the index may take, in bytes. */
+    private final long maxBytes;
+    /** The number of tasks across all posting lists, including removed ones not yet purged. */
+    private long postingCount;
+    /** The number of indexed tasks that have not been removed. */
+    private int liveCount;
+    /** Whether the index has given up and left every search to a scan. */
+    private boolean isDisabled;
+
+    /** Initializes an empty index with the default heap budget. */
+    KeywordIndex() {
+        this(DEFAULT_MAX_BYTES);
+    }
+
+    /**
+     * Initializes an empty index.
+     *
+     * @param maxBytes The heap the index may take, in bytes.
+     */
+    KeywordIndex(long maxBytes) {
+        this.postings = new HashMap<>();
+        this.saturated = new HashSet<>();
+        this.removed = Collections.newSetFromMap(new IdentityHashMap<>());
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Adds a task to the index. Tasks must be added in list order.
+     *
+     * @param task The task to be indexed.
+     */
+    void add(Task task) {
+        if (isDisabled) {
+            return;
+        }
+        if (removed.contains(task)) {
+            // The task still sits in old posting lists, which would put it out of order
+            purge();
+        }
+
+        int saturationSize = Math.max(MIN_SATURATION_SIZE, liveCount / SATURATION_DIVISOR);
+        for (long gram : getGrams(task.getDescription().toLowerCase())) {
+            if (saturated.contains(gram)) {
+                continue;
+            }
+            PostingList list = postings.computeIfAbsent(gram, key -> new PostingList());
+            list.add(task);
+            postingCount++;
+            if (list.size() > saturationSize) {
+                postings.remove(gram);
+                saturated.add(gram);
+                postingCount -= list.size();
+            }
+        }
+        liveCount++;
+        if (estimateBytes() > maxBytes) {
+            shrink();
+        }
+    }
+
+    /**
+     * Removes a task from the index.
+     * The task is only dropped from the posting lists once enough removals have built up.
+     *
+     * @param task The task to be removed.
+     */
+    void remove(Task task) {
+        if (isDisabled) {
+            return;
+        }
+        removed.add(task);
+        liveCount--;
+        if (removed.size() > Math.max(MIN_PURGE_SIZE, liveCount / 4)) {
+            purge();
+        }
+    }
+
+    /**
+     * Finds the tasks whose lower-cased description contains the given keyword.
+     *
+     * @param target The lower-cased keyword to search for.
+     * @return The matching tasks in list order, or null if the keyword is too short
+     *         or too common for the index to narrow the search.
+     */
+    ArrayList<Task> find(String target) {
+        if (isDisabled) {
+            return null;
+        }
+        PostingList candidates = null;
+        for (long gram : getGrams(target)) {
+            if (saturated.contains(gram)) {
+                continue;
+            }
+            PostingList list = postings.get(gram);
+            if (list == null) {
+                return new ArrayList<>();
+            }
+            if (candidates == null || list.size() < candidates.size()) {
+                candidates = list;
+            }
+        }
+        if (candidates == null) {
+            return null;
+        }
+
+        ArrayList<Task> matches = new ArrayList<>();
+        for (int i = 0; i < candidates.size(); i++) {
+            Task task = candidates.get(i);
+            if (!removed.contains(task) && task.getDescription().toLowerCase().contains(target)) {
+                matches.add(task);
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Drops every removed task from the posting lists.
+     */
+    private void purge() {
+        postings.values().removeIf(list -> list.removeAll(removed));
+        removed.clear();
+        postingCount = 0;
+        for (PostingList list : postings.values()) {
+            postingCount += list.size();
+        }
+    }
+
+    /**
+     * Returns an estimate of the heap the index takes.
+     *
+     * @return The estimated size in bytes.
+     */
+    long estimateBytes() {
+        return postingCount * BYTES_PER_POSTING
+                + postings.size() * BYTES_PER_TRIGRAM
+                + (saturated.size() + removed.size()) * BYTES_PER_SET_ENTRY;
+    }
+
+    /**
+     * Brings the index back under three quarters of its budget by dropping the longest posting lists,
+     * or gives up on indexing altogether if the dropped trigrams would take too much themselves.
+     */
+    private void shrink() {
+        purge();
+        long target = maxBytes / 4 * 3;
+        if (estimateBytes() > target) {
+            ArrayList<Map.Entry<Long, PostingList>> entries = new ArrayList<>(postings.entrySet());
+            entries.sort((a, b) -> Integer.compare(b.getValue().size(), a.getValue().size()));
+            for (int i = 0; i < entries.size() && estimateBytes() > target; i++) {
+                long gram = entries.get(i).getKey();
+                postingCount -= entries.get(i).getValue().size();
+                postings.remove(gram);
+                saturated.add(gram);
+            }
+            // A map never shrinks its table, so copy what is left into one sized for it
+            postings = new HashMap<>(postings);
+        }
+        if (estimateBytes() > target || saturated.size() * BYTES_PER_SET_ENTRY > maxBytes / 4) {
+            postings = new HashMap<>();
+            saturated = new HashSet<>();
+            postingCount = 0;
+            isDisabled = true;
+        }
+    }
+
+    /**
+     * Returns the distinct trigrams of a string, each packed into a long.
+     *
+     * @param text The string to split into trigrams.
+     * @return The distinct packed trigrams, or an empty array if the string is too short.
+     */
+    private static long[] getGrams(String text) {
+        int count = text.length() - GRAM_LENGTH + 1;
+        if (count <= 0) {
+            return new long[0];
+        }
+
+        long[] grams = new long[count];
+        for (int i = 0; i < count; i++) {
+            grams[i] = ((long) text.charAt(i) << 32) | ((long) text.charAt(i + 1) << 16) | text.charAt(i + 2);
+        }
+        Arrays.sort(grams);
+
+        int distinct = 1;
+        for (int i = 1; i < count; i++) {
+            if (grams[i] != grams[distinct - 1]) {
+                grams[distinct++] = grams[i];
+            }
+        }
+        return Arrays.copyOf(grams, distinct);
+    }
+}
@@ -0,0 +1,86 @@
+package minion.task;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Holds the occurrences of recurring tasks most recently asked for, so that asking for the same
+ * window again, as paging through a week or repeating a query does, reuses the occurrences and
+ * their cached renderings instead of creating them anew. The cache holds at most a fixed number
+ * of occurrences and drops the least recently used first, so a series that runs for ever never
+ * fills memory.
+ */
+class OccurrenceCache {
+
+    /** The number of occurrences kept. */
+    static final int CAPACITY = 1024;
+
+    /** The occurrences by series and number, from the least to the most recently used. */
+    private final LinkedHashMap<Key, Task> occurrences;
+
+    /** Initializes an empty cache. */
+    OccurrenceCache() {
+        this.occurrences = new LinkedHashMap<>(CAPACITY * 4 / 3 + 1, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Task> eldest) {
+                return size() > CAPACITY;
+            }
+        };
+    }
+
+    /**
+     * Returns an occurrence of a recurring deadline or event, creating it if it is not cached.
+     * Every lookup reorders the cache, so lookups are serialized even for searches that otherwise only read.
+     *
+     * @param series The recurring deadline or event.
+     * @param index  The number of the occurrence, counting the first as 0.
+     * @return The occurrence.
+     */
+    synchronized Task get(Task series, long index) {
+        Key key = new Key(series.getId(), index);
+        Task occurrence = occurrences.get(key);
+        if (occurrence == null) {
+            occurrence = (series instanceof Deadline)
+                    ? ((Deadline) series).occurrence(index)
+                    : ((Event) series).occurrence(index);
+            occurrences.put(key, occurrence);
+        }
+        return occurrence;
+    }
+
+    /**
+     * Represents the position of an occurrence in the cache.
+     */
+    private static class Key {
+
+        /** The ID of the recurring task. */
+        private final long id;
+        /** The number of the occurrence. */
+        private final long index;
+
+        /**
+         * Initializes a key.
+         *
+         * @param id    The ID of the recurring task.
+         * @param index The number of the occurrence.
+         */
+        private Key(long id, long index) {
+            this.id = id;
+            this.index = index;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) other;
+            return id == key.id && index == key.index;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(id * 31 + index);
+        }
+    }
+}
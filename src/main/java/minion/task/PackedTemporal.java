@@ -0,0 +1,115 @@
+package minion.task;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+
+/**
+ * Packs a date, a time, or a date and time into a single long, so that a task needs no objects
+ * to remember when it is due. The lowest two bits tag which of the three the long holds, and the
+ * rest hold a date as days since the epoch, a time as nanoseconds of the day, or a date and time
+ * as seconds since the epoch. A date and time is kept to the second, the finest the chatbot reads.
+ */
+final class PackedTemporal {
+
+    /** The packed value of a moment that is neither a date nor a time. */
+    static final long NONE = 0;
+
+    /** The number of low bits holding the tag. */
+    private static final int TAG_BITS = 2;
+    /** The bits holding the tag. */
+    private static final long TAG_MASK = (1 << TAG_BITS) - 1;
+    /** The tag of a date on its own. */
+    private static final long DATE = 1;
+    /** The tag of a time on its own. */
+    private static final long TIME = 2;
+    /** The tag of a date with a time. */
+    private static final long DATE_TIME = 3;
+
+    /** Prevents instantiation, as every member is static. */
+    private PackedTemporal() {
+    }
+
+    /**
+     * Packs the most specific of a date and time, a date, or a time, in that order.
+     *
+     * @param date     The date, or null.
+     * @param time     The time, or null.
+     * @param dateTime The date and time, or null.
+     * @return The packed value, or NONE if all three are null.
+     */
+    static long pack(LocalDate date, LocalTime time, LocalDateTime dateTime) {
+        if (dateTime != null) {
+            return (dateTime.toEpochSecond(ZoneOffset.UTC) << TAG_BITS) | DATE_TIME;
+        } else if (date != null) {
+            return (date.toEpochDay() << TAG_BITS) | DATE;
+        } else if (time != null) {
+            return (time.toNanoOfDay() << TAG_BITS) | TIME;
+        }
+        return NONE;
+    }
+
+    /**
+     * Returns the date a packed value holds on its own.
+     *
+     * @param packed The packed value.
+     * @return The date, or null if the value is not a date alone.
+     */
+    static LocalDate toDate(long packed) {
+        return ((packed & TAG_MASK) == DATE) ? LocalDate.ofEpochDay(packed >> TAG_BITS) : null;
+    }
+
+    /**
+     * Returns the time a packed value holds on its own.
+     *
+     * @param packed The packed value.
+     * @return The time, or null if the value is not a time alone.
+     */
+    static LocalTime toTime(long packed) {
+        return ((packed & TAG_MASK) == TIME) ? LocalTime.ofNanoOfDay(packed >>> TAG_BITS) : null;
+    }
+
+    /**
+     * Returns the date and time a packed value holds.
+     *
+     * @param packed The packed value.
+     * @return The date and time, or null if the value is not a date with a time.
+     */
+    static LocalDateTime toDateTime(long packed) {
+        return ((packed & TAG_MASK) == DATE_TIME)
+                ? LocalDateTime.ofEpochSecond(packed >> TAG_BITS, 0, ZoneOffset.UTC)
+                : null;
+    }
+
+    /**
+     * Formats a moment for display, falling back to its raw text if it is neither a date nor a time.
+     *
+     * @param raw    The raw text of the moment, used only if the packed value is NONE.
+     * @param packed The packed value.
+     * @return The formatted string for display.
+     */
+    static String format(String raw, long packed) {
+        return TaskFormatter.format(raw, toDate(packed), toTime(packed), toDateTime(packed));
+    }
+
+    /**
+     * Returns the text a moment is saved as: its raw text if it has no value, or else the value
+     * in ISO-8601 form, which reads back as the same value.
+     *
+     * @param raw    The raw text of the moment, or null if it was recognised.
+     * @param packed The packed value.
+     * @return The text to save.
+     */
+    static String toText(String raw, long packed) {
+        if (raw != null) {
+            return raw;
+        }
+        LocalDateTime dateTime = toDateTime(packed);
+        if (dateTime != null) {
+            return dateTime.toString();
+        }
+        LocalDate date = toDate(packed);
+        return (date != null) ? date.toString() : String.valueOf(toTime(packed));
+    }
+}
@@ -0,0 +1,68 @@
+package minion.task;
+
+import java.util.Arrays;
+import java.util.Set;
+
+/**
+ * Represents a growable array of the tasks listed under one key of an index, such as the tasks
+ * containing one trigram or one word, in the order they were added.
+ */
+class PostingList {
+
+    /** The tasks in the order they were added. */
+    private Task[] tasks = new Task[2];
+    /** The number of tasks in use. */
+    private int size;
+
+    /**
+     * Appends a task to the list.
+     *
+     * @param task The task to be appended.
+     */
+    void add(Task task) {
+        if (size == tasks.length) {
+            tasks = Arrays.copyOf(tasks, size * 2);
+        }
+        tasks[size++] = task;
+    }
+
+    /**
+     * Returns the task at a position.
+     *
+     * @param index The zero-based position.
+     * @return The task.
+     */
+    Task get(int index) {
+        return tasks[index];
+    }
+
+    /**
+     * Returns the number of tasks in the list.
+     *
+     * @return The number of tasks.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Removes every task in the given set, keeping the others in order.
+     *
+     * @param toRemove The tasks to be removed.
+     * @return True if the list is now empty.
+     */
+    boolean removeAll(Set<Task> toRemove) {
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            if (!toRemove.contains(tasks[i])) {
+                tasks[kept++] = tasks[i];
+            }
+        }
+        Arrays.fill(tasks, kept, size, null);
+        size = kept;
+        if (size < tasks.length / 4) {
+            tasks = Arrays.copyOf(tasks, Math.max(2, size * 2));
+        }
+        return size == 0;
+    }
+}
@@ -0,0 +1,263 @@
+package minion.task;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+/**
+ * Represents a sorted collection that can be read from any position, kept as a treap ordered by key.
+ * Each node also remembers the size of its subtree, so a run of values starting at any position is
+ * found in O(log n) and then read in order, without visiting the values before it.
+ *
+ * @param <T> The type of value stored with each key.
+ */
+class RankedTree<T> {
+
+    /** The source of node priorities that keep the treap balanced. */
+    private final Random random;
+    /** The root of the tree, or null if the tree is empty. */
+    private Node<T> root;
+
+    /** Initializes an empty tree. */
+    RankedTree() {
+        this.random = new Random();
+    }
+
+    /**
+     * Inserts a value, unless a value with the same key and sequence number is already present.
+     * Values are ordered by key, then by sequence number.
+     *
+     * @param key      The key the value is sorted by.
+     * @param sequence A number unique to this value that breaks ties between equal keys.
+     * @param value    The value.
+     */
+    void insert(long key, long sequence, T value) {
+        root = insert(root, new Node<>(key, sequence, value, random.nextInt()));
+    }
+
+    /**
+     * Removes the value with the given key and sequence number, if present.
+     *
+     * @param key      The key the value was inserted with.
+     * @param sequence The sequence number the value was inserted with.
+     */
+    void remove(long key, long sequence) {
+        root = remove(root, key, sequence);
+    }
+
+    /**
+     * Returns the number of values in the tree.
+     *
+     * @return The size of the tree.
+     */
+    int size() {
+        return sizeOf(root);
+    }
+
+    /**
+     * Collects a run of values in order.
+     *
+     * @param from  The zero-based position of the first value to collect.
+     * @param count The maximum number of values to collect.
+     * @return The values from the position onwards, or fewer if the tree ends first.
+     */
+    ArrayList<T> collect(int from, int count) {
+        ArrayList<T> values = new ArrayList<>(Math.max(0, Math.min(count, size() - from)));
+        collect(root, from, count, values);
+        return values;
+    }
+
+    /**
+     * Inserts a node into a subtree, rotating it upwards while its priority is higher.
+     *
+     * @param node  The root of the subtree.
+     * @param added The node to be inserted.
+     * @return The new root of the subtree.
+     */
+    private Node<T> insert(Node<T> node, Node<T> added) {
+        if (node == null) {
+            return added;
+        }
+        int comparison = compare(added.key, added.sequence, node);
+        if (comparison == 0) {
+            return node;
+        } else if (comparison < 0) {
+            node.left = insert(node.left, added);
+            if (node.left.priority > node.priority) {
+                node = rotateRight(node);
+            }
+        } else {
+            node.right = insert(node.right, added);
+            if (node.right.priority > node.priority) {
+                node = rotateLeft(node);
+            }
+        }
+        node.update();
+        return node;
+    }
+
+    /**
+     * Removes the node with the given key from a subtree.
+     *
+     * @param node     The root of the subtree.
+     * @param key      The key of the value.
+     * @param sequence The sequence number of the value.
+     * @return The new root of the subtree.
+     */
+    private Node<T> remove(Node<T> node, long key, long sequence) {
+        if (node == null) {
+            return null;
+        }
+        int comparison = compare(key, sequence, node);
+        if (comparison < 0) {
+            node.left = remove(node.left, key, sequence);
+        } else if (comparison > 0) {
+            node.right = remove(node.right, key, sequence);
+        } else {
+            return merge(node.left, node.right);
+        }
+        node.update();
+        return node;
+    }
+
+    /**
+     * Joins two subtrees where every key on the left is smaller than every key on the right.
+     *
+     * @param left  The subtree with the smaller keys.
+     * @param right The subtree with the larger keys.
+     * @return The root of the joined subtree.
+     */
+    private Node<T> merge(Node<T> left, Node<T> right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            left.update();
+            return left;
+        }
+        right.left = merge(left, right.left);
+        right.update();
+        return right;
+    }
+
+    /**
+     * Collects a run of the values of a subtree in order, skipping the subtrees that lie wholly before it.
+     *
+     * @param node   The root of the subtree.
+     * @param skip   The number of values of the subtree to pass over before collecting.
+     * @param count  The maximum number of values to collect.
+     * @param values The list the values are appended to.
+     */
+    private void collect(Node<T> node, int skip, int count, ArrayList<T> values) {
+        if (node == null || values.size() >= count) {
+            return;
+        }
+        int leftSize = sizeOf(node.left);
+        if (skip < leftSize) {
+            collect(node.left, skip, count, values);
+        }
+        if (skip <= leftSize && values.size() < count) {
+            values.add(node.value);
+        }
+        collect(node.right, Math.max(0, skip - leftSize - 1), count, values);
+    }
+
+    /**
+     * Rotates a subtree to the right, lifting its left child.
+     *
+     * @param node The root of the subtree.
+     * @return The new root of the subtree.
+     */
+    private Node<T> rotateRight(Node<T> node) {
+        Node<T> pivot = node.left;
+        node.left = pivot.right;
+        pivot.right = node;
+        node.update();
+        pivot.update();
+        return pivot;
+    }
+
+    /**
+     * Rotates a subtree to the left, lifting its right child.
+     *
+     * @param node The root of the subtree.
+     * @return The new root of the subtree.
+     */
+    private Node<T> rotateLeft(Node<T> node) {
+        Node<T> pivot = node.right;
+        node.right = pivot.left;
+        pivot.left = node;
+        node.update();
+        pivot.update();
+        return pivot;
+    }
+
+    /**
+     * Returns the number of values in a subtree.
+     *
+     * @param node The root of the subtree, or null.
+     * @return The size of the subtree.
+     */
+    private static int sizeOf(Node<?> node) {
+        return (node == null) ? 0 : node.size;
+    }
+
+    /**
+     * Compares a key and sequence number with those of a node.
+     *
+     * @param key      The key.
+     * @param sequence The sequence number.
+     * @param node     The node to compare against.
+     * @return A negative number, zero or a positive number as the key is before, equal to or after the node's.
+     */
+    private static int compare(long key, long sequence, Node<?> node) {
+        int comparison = Long.compare(key, node.key);
+        return (comparison != 0) ? comparison : Long.compare(sequence, node.sequence);
+    }
+
+    /**
+     * Represents a single value in the tree.
+     *
+     * @param <T> The type of value stored.
+     */
+    private static class Node<T> {
+        /** The key the value is sorted by. */
+        private final long key;
+        /** The sequence number that breaks ties between equal keys. */
+        private final long sequence;
+        /** The value. */
+        private final T value;
+        /** The random priority that keeps the treap balanced. */
+        private final int priority;
+        /** The number of values in this subtree. */
+        private int size;
+        /** The subtree of values ordered before this one. */
+        private Node<T> left;
+        /** The subtree of values ordered after this one. */
+        private Node<T> right;
+
+        /**
+         * Initializes a leaf node for a value.
+         *
+         * @param key      The key the value is sorted by.
+         * @param sequence The sequence number of the value.
+         * @param value    The value.
+         * @param priority The random priority that decides the node's height.
+         */
+        private Node(long key, long sequence, T value, int priority) {
+            this.key = key;
+            this.sequence = sequence;
+            this.value = value;
+            this.priority = priority;
+            this.size = 1;
+        }
+
+        /** Recomputes the size of this subtree from the node's children. */
+        private void update() {
+            size = 1 + sizeOf(left) + sizeOf(right);
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package minion.task;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Represents the rule by which a deadline or event repeats: every day, week or month from its
+ * first occurrence, optionally until a last date. A recurring task is stored once, with its first
+ * occurrence, and the rest are worked out from the rule only when they are asked for, so a series
+ * costs the same to save and load however long it runs.
+ *
+ * <p>The n-th occurrence is the first moved on by n days, weeks or months. Moving by months keeps
+ * the day of the month of the first occurrence where the month has it, so a series starting on
+ * the 31st falls on the last day of shorter months without drifting.
+ */
+public final class Recurrence {
+
+    /**
+     * Represents how often a task repeats.
+     */
+    public enum Frequency {
+        /** Repeats every day. */
+        DAILY("day", ChronoUnit.DAYS),
+        /** Repeats every week. */
+        WEEKLY("week", ChronoUnit.WEEKS),
+        /** Repeats every month. */
+        MONTHLY("month", ChronoUnit.MONTHS);
+
+        /** The word the frequency is typed and saved as, e.g. "week". */
+        private final String word;
+        /** The unit each occurrence is moved on by. */
+        private final ChronoUnit unit;
+
+        /**
+         * Initializes a frequency.
+         *
+         * @param word The word the frequency is typed and saved as.
+         * @param unit The unit each occurrence is moved on by.
+         */
+        Frequency(String word, ChronoUnit unit) {
+            this.word = word;
+            this.unit = unit;
+        }
+
+        /**
+         * Finds a frequency by its word, without regard to case.
+         *
+         * @param word "day", "week" or "month".
+         * @return The frequency, or null if the word is not one.
+         */
+        public static Frequency find(String word) {
+            for (Frequency frequency : values()) {
+                if (frequency.word.equalsIgnoreCase(word)) {
+                    return frequency;
+                }
+            }
+            return null;
+        }
+    }
+
+    /** How often the task repeats. */
+    private final Frequency frequency;
+    /** The last date an occurrence may fall on, or null if the series never ends. */
+    private final LocalDate until;
+
+    /**
+     * Initializes a rule.
+     *
+     * @param frequency How often the task repeats.
+     * @param until     The last date an occurrence may fall on, or null if the series never ends.
+     */
+    public Recurrence(Frequency frequency, LocalDate until) {
+        this.frequency = frequency;
+        this.until = until;
+    }
+
+    /**
+     * Reads a rule saved by {@link #toText()}.
+     *
+     * @param text The saved rule, e.g. "week" or "month until 2027-06-30".
+     * @return The rule.
+     * @throws IllegalArgumentException If the text is not a saved rule.
+     */
+    public static Recurrence parse(String text) {
+        String[] words = text.trim().split(" ");
+        Frequency frequency = Frequency.find(words[0]);
+        if (frequency == null || (words.length != 1 && (words.length != 3 || !words[1].equals("until")))) {
+            throw new IllegalArgumentException("Not a recurrence: " + text);
+        }
+        return new Recurrence(frequency, (words.length == 3) ? LocalDate.parse(words[2]) : null);
+    }
+
+    /**
+     * Returns how often the task repeats.
+     *
+     * @return The frequency.
+     */
+    public Frequency getFrequency() {
+        return frequency;
+    }
+
+    /**
+     * Returns the last date an occurrence may fall on.
+     *
+     * @return The date, or null if the series never ends.
+     */
+    public LocalDate getUntil() {
+        return until;
+    }
+
+    /**
+     * Moves the date of a first occurrence on to that of another.
+     *
+     * @param first The date of the first occurrence.
+     * @param index The number of the occurrence, counting the first as 0.
+     * @return The date of the occurrence.
+     */
+    LocalDate shift(LocalDate first, long index) {
+        return first.plus(index, frequency.unit);
+    }
+
+    /**
+     * Moves the date and time of a first occurrence on to that of another.
+     *
+     * @param first The date and time of the first occurrence.
+     * @param index The number of the occurrence, counting the first as 0.
+     * @return The date and time of the occurrence.
+     */
+    LocalDateTime shift(LocalDateTime first, long index) {
+        return first.plus(index, frequency.unit);
+    }
+
+    /**
+     * Moves a packed moment of a first occurrence on to that of another. A time on its own
+     * belongs to whichever day the other end of the task falls on, so it stays as it is.
+     *
+     * @param packed The packed moment of the first occurrence.
+     * @param index  The number of the occurrence, counting the first as 0.
+     * @return The packed moment of the occurrence.
+     */
+    long shift(long packed, long index) {
+        LocalDateTime dateTime = PackedTemporal.toDateTime(packed);
+        if (dateTime != null) {
+            return PackedTemporal.pack(null, null, shift(dateTime, index));
+        }
+        LocalDate date = PackedTemporal.toDate(packed);
+        return (date != null) ? PackedTemporal.pack(shift(date, index), null, null) : packed;
+    }
+
+    /**
+     * Finds the first occurrence at or after a given time.
+     *
+     * @param first The first occurrence.
+     * @param time  The time.
+     * @return The number of the occurrence, or -1 if the series ends before the time.
+     */
+    long indexFrom(LocalDateTime first, LocalDateTime time) {
+        // Start from the whole number of units between, then settle the months of uneven length
+        long index = Math.max(0, frequency.unit.between(first, time));
+        while (shift(first, index).isBefore(time)) {
+            index++;
+        }
+        while (index > 0 && !shift(first, index - 1).isBefore(time)) {
+            index--;
+        }
+        return includes(first, index) ? index : -1;
+    }
+
+    /**
+     * Finds the first occurrence strictly after a given time.
+     *
+     * @param first The first occurrence.
+     * @param time  The time.
+     * @return The number of the occurrence, or -1 if the series ends by the time.
+     */
+    long indexAfter(LocalDateTime first, LocalDateTime time) {
+        return indexFrom(first, time.plusNanos(1));
+    }
+
+    /**
+     * Checks whether an occurrence falls on or before the last date of the series.
+     *
+     * @param first The first occurrence.
+     * @param index The number of the occurrence.
+     * @return True if the occurrence is part of the series.
+     */
+    boolean includes(LocalDateTime first, long index) {
+        return until == null || !shift(first, index).toLocalDate().isAfter(until);
+    }
+
+    /**
+     * Finds the last occurrence of a series that ends.
+     *
+     * @param first The first occurrence.
+     * @return The number of the last occurrence, or -1 if even the first falls after the last date.
+     */
+    long lastIndex(LocalDateTime first) {
+        long index = Math.max(0, frequency.unit.between(first.toLocalDate(), until));
+        while (index >= 0 && !includes(first, index)) {
+            index--;
+        }
+        while (includes(first, index + 1)) {
+            index++;
+        }
+        return index;
+    }
+
+    /**
+     * Finds the occurrence a recurring task is shown as at a given time: the first that has not
+     * yet ended, or the last once the series is over.
+     *
+     * @param firstEnd The end of the first occurrence, or its due time for a deadline.
+     * @param now      The time.
+     * @return The number of the occurrence.
+     */
+    long indexShownAt(LocalDateTime firstEnd, LocalDateTime now) {
+        long index = indexFrom(firstEnd, now);
+        return (index >= 0) ? index : Math.max(0, lastIndex(firstEnd));
+    }
+
+    /**
+     * Returns the text the rule is saved as.
+     *
+     * @return The frequency's word, followed by "until" and the last date if the series ends.
+     */
+    public String toText() {
+        return (until == null) ? frequency.word : frequency.word + " until " + until;
+    }
+
+    /**
+     * Returns the rule as it is displayed to the user.
+     *
+     * @return The rule, e.g. "every week until Jun 30 2027".
+     */
+    @Override
+    public String toString() {
+        String rule = "every " + frequency.word;
+        return (until == null) ? rule : rule + " until " + until.format(TaskFormatter.DATE);
+    }
+}
@@ -1,15 +1,44 @@
 package minion.task;
 
+import java.io.DataOutput;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
 /**
  * Represents a general task in the Minion chatbot.
  */
 public abstract class Task {
 
+    /** Gives atomic access to isDone, so concurrent sessions cannot both mark the same task. */
+    private static final VarHandle IS_DONE;
+
+    static {
+        try {
+            IS_DONE = MethodHandles.lookup().findVarHandle(Task.class, "isDone", boolean.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
     /** The description of the task. */
     protected String description;
 
-    /** The completion status of the task. */
-    protected boolean isDone;
+    /** The completion status of the task, safe to read from any thread. */
+    protected volatile boolean isDone;
+
+    /** The position of the status icon in every rendered task, as in "[T][X] read book". */
+    private static final int STATUS_ICON_INDEX = 4;
+
+    /** The last rendering of the task for display, or null if it has changed since. */
+    private String display;
+
+    /** The stable ID of the task, which never changes once given and is saved with it. */
+    private long id;
 
     /**
      * Initializes a task with a description and sets its completion status to false.
@@ -17,8 +46,20 @@ public abstract class Task {
      * @param description Text describing the task.
      */
     public Task(String description) {
-        this.description = description;
+        this.description = intern(description);
         this.isDone = false;
+        this.id = -1;
+    }
+
+    /**
+     * Returns the canonical copy of a string, so that tasks sharing a description or a moment's
+     * text, as recurring chores and tasks loaded from a file often do, share a single String.
+     *
+     * @param text The string, or null.
+     * @return The canonical copy, or null if the text is null.
+     */
+    protected static String intern(String text) {
+        return (text == null) ? null : text.intern();
     }
 
     /**
@@ -30,6 +71,15 @@ public abstract class Task {
         return (isDone ? "X" : " "); // mark done task with X
     }
 
+    /**
+     * Returns whether the task is done.
+     *
+     * @return True if the task is done, false otherwise.
+     */
+    public boolean isDone() {
+        return isDone;
+    }
+
     /**
      * Returns the description of the task.
      *
@@ -46,6 +96,80 @@ public abstract class Task {
      */
     public void setDone(boolean isDone) {
         this.isDone = isDone;
+        display = null;
+    }
+
+    /**
+     * Atomically updates the completion status of the task if it currently has the expected value.
+     *
+     * @param expected The completion status the task must have for the update to happen.
+     * @param isDone   The new completion status of the task.
+     * @return True if the status was updated, false if it did not have the expected value.
+     */
+    public boolean compareAndSetDone(boolean expected, boolean isDone) {
+        if (!IS_DONE.compareAndSet(this, expected, isDone)) {
+            return false;
+        }
+        display = null;
+        return true;
+    }
+
+    /**
+     * Returns the task as it is displayed to the user.
+     * The rendering is cached, since everything but the completion status never changes, and is only
+     * redone after the status changes. A rendering whose status icon disagrees with the current status,
+     * which can only come from a render racing a status change, is never returned.
+     * A task whose rendering changes with the time, such as a recurring one, is rendered every time.
+     *
+     * @return Formatted string for console display.
+     */
+    @Override
+    public String toString() {
+        if (!isRenderStable()) {
+            return render();
+        }
+        String cached = display;
+        if (cached == null || cached.charAt(STATUS_ICON_INDEX) != getStatusIcon().charAt(0)) {
+            cached = render();
+            display = cached;
+        }
+        return cached;
+    }
+
+    /**
+     * Renders the task for display, in the form "[type][status] description" followed by any details.
+     *
+     * @return Formatted string for console display.
+     */
+    protected abstract String render();
+
+    /**
+     * Checks whether the rendering of the task only changes with its completion status, so that it can be cached.
+     *
+     * @return True unless the rendering also changes with the time.
+     */
+    protected boolean isRenderStable() {
+        return true;
+    }
+
+    /**
+     * Returns the stable ID of the task. IDs are given in increasing order as tasks enter a TaskList,
+     * so they also break ties in the order tasks were added.
+     *
+     * @return The ID of the task, or -1 if it has not been given one yet.
+     */
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * Gives the task its stable ID. Only a TaskList handing out new IDs, and Storage restoring
+     * saved ones, should call this.
+     *
+     * @param id The ID of the task.
+     */
+    public void setId(long id) {
+        this.id = id;
     }
 
     /**
@@ -54,4 +178,84 @@ public abstract class Task {
      * @return Formatted string to be saved.
      */
     public abstract String toFileFormat();
-}
\ No newline at end of file
+
+    /**
+     * Writes the task as a binary record: a type tag, its status, its description,
+     * and any type-specific fields.
+     *
+     * @param out The output to write the record to.
+     * @throws IOException If the output cannot be written.
+     */
+    public abstract void writeBinary(DataOutput out) throws IOException;
+
+    /**
+     * Writes the fields every binary record starts with.
+     *
+     * @param out The output to write to.
+     * @param tag The byte identifying the type of task.
+     * @throws IOException If the output cannot be written.
+     */
+    protected void writeBinaryHeader(DataOutput out, char tag) throws IOException {
+        out.writeByte(tag);
+        out.writeBoolean(isDone);
+        writeBinaryText(out, description);
+    }
+
+    /**
+     * Writes a string as its UTF-8 byte length followed by the bytes.
+     *
+     * @param out  The output to write to.
+     * @param text The string to be written.
+     * @throws IOException If the output cannot be written.
+     */
+    protected static void writeBinaryText(DataOutput out, String text) throws IOException {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Writes an optional date, time and date-time as a presence byte followed by the values
+     * that are present, using epoch days for dates and nanoseconds of the day for times.
+     *
+     * @param out      The output to write to.
+     * @param date     The date, or null.
+     * @param time     The time, or null.
+     * @param dateTime The date and time, or null.
+     * @throws IOException If the output cannot be written.
+     */
+    protected static void writeBinaryTemporals(DataOutput out, LocalDate date, LocalTime time,
+            LocalDateTime dateTime) throws IOException {
+        out.writeByte((date != null ? 1 : 0) | (time != null ? 2 : 0) | (dateTime != null ? 4 : 0));
+        if (date != null) {
+            out.writeLong(date.toEpochDay());
+        }
+        if (time != null) {
+            out.writeLong(time.toNanoOfDay());
+        }
+        if (dateTime != null) {
+            out.writeLong(dateTime.toLocalDate().toEpochDay());
+            out.writeLong(dateTime.toLocalTime().toNanoOfDay());
+        }
+    }
+
+    /**
+     * Writes an optional recurrence rule as a frequency byte, 0 if there is no rule, followed for
+     * a rule by whether it ends and, if it does, the epoch day of its last date.
+     *
+     * @param out        The output to write to.
+     * @param recurrence The rule, or null.
+     * @throws IOException If the output cannot be written.
+     */
+    protected static void writeBinaryRecurrence(DataOutput out, Recurrence recurrence) throws IOException {
+        if (recurrence == null) {
+            out.writeByte(0);
+            return;
+        }
+        out.writeByte(recurrence.getFrequency().ordinal() + 1);
+        out.writeBoolean(recurrence.getUntil() != null);
+        if (recurrence.getUntil() != null) {
+            out.writeLong(recurrence.getUntil().toEpochDay());
+        }
+    }
+}
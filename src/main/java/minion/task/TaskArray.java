@@ -0,0 +1,359 @@
+package minion.task;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+
+/**
+ * Represents the tasks of a TaskList in the order they were added, with O(log n) reads and
+ * deletes by position.
+ * Tasks are only ever appended, so they sit in one array in order of entry. Deleting a task
+ * empties its slot instead of shifting every later task down, and a Fenwick tree over the slots
+ * counts the tasks before any slot, which turns a position into a slot and back in O(log n).
+ * While no slot is empty, positions are slots and reads take O(1); once empty slots outnumber
+ * the tasks, they are squeezed out in a single pass.
+ * Reading positions one after another, as a listing does, steps from slot to slot without searching.
+ * Tasks are given increasing IDs as they are added, so the slots are also in order of ID,
+ * and {@link #indexOf(Object)} finds a task by binary search.
+ * Like an ArrayList, a TaskArray must not be used by several threads without a lock, even to read.
+ */
+class TaskArray extends AbstractList<Task> implements RandomAccess {
+
+    /** The number of slots a new array starts with. */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /** The task in each slot, or null if it has been deleted. */
+    private Task[] slots;
+    /** The ID of the task each slot holds or held, kept after deletion so the IDs stay in order. */
+    private long[] ids;
+    /** The Fenwick tree over the slots, indexed from 1, counting the tasks in ranges of slots. */
+    private int[] counts;
+    /** The number of slots in use, including empty ones. */
+    private int used;
+    /** The number of tasks in the list. */
+    private int size;
+    /** Whether the IDs increase from slot to slot, which {@link #indexOf(Object)} relies on. */
+    private boolean isOrdered;
+    /** The position of the task last read through its slot, or -1 if positions have moved since. */
+    private int lastIndex;
+    /** The slot of the task last read. */
+    private int lastSlot;
+
+    /** Initializes an empty TaskArray. */
+    TaskArray() {
+        this.slots = new Task[INITIAL_CAPACITY];
+        this.ids = new long[INITIAL_CAPACITY];
+        this.counts = new int[INITIAL_CAPACITY + 1];
+        this.isOrdered = true;
+        this.lastIndex = -1;
+    }
+
+    /**
+     * Initializes a TaskArray holding the given tasks in order.
+     *
+     * @param tasks The tasks to hold.
+     */
+    TaskArray(Collection<Task> tasks) {
+        this.slots = tasks.toArray(new Task[Math.max(tasks.size(), INITIAL_CAPACITY)]);
+        this.ids = new long[slots.length];
+        this.counts = new int[slots.length + 1];
+        this.used = tasks.size();
+        this.size = tasks.size();
+        this.isOrdered = true;
+        this.lastIndex = -1;
+        for (int slot = 0; slot < used; slot++) {
+            ids[slot] = slots[slot].getId();
+            isOrdered &= ids[slot] >= 0 && (slot == 0 || ids[slot] > ids[slot - 1]);
+        }
+        fillCounts();
+    }
+
+    /**
+     * Returns the task at a position.
+     *
+     * @param index The zero-based position of the task.
+     * @return The task at the position.
+     */
+    @Override
+    public Task get(int index) {
+        checkIndex(index);
+        return slots[toSlot(index)];
+    }
+
+    /**
+     * Replaces the task at a position.
+     *
+     * @param index The zero-based position of the task.
+     * @param task  The new task.
+     * @return The task previously at the position.
+     */
+    @Override
+    public Task set(int index, Task task) {
+        checkIndex(index);
+        int slot = toSlot(index);
+        Task previous = slots[slot];
+        slots[slot] = task;
+        if (task.getId() != ids[slot]) {
+            ids[slot] = task.getId();
+            isOrdered = false;
+        }
+        return previous;
+    }
+
+    /**
+     * Appends a task.
+     *
+     * @param index The position to insert at, which must be the end of the list.
+     * @param task  The task to be appended.
+     */
+    @Override
+    public void add(int index, Task task) {
+        if (index != size) {
+            throw new UnsupportedOperationException("Tasks can only be appended");
+        }
+        if (used == slots.length) {
+            int capacity = slots.length * 2;
+            slots = Arrays.copyOf(slots, capacity);
+            ids = Arrays.copyOf(ids, capacity);
+            counts = Arrays.copyOf(counts, capacity + 1);
+        }
+
+        long id = task.getId();
+        isOrdered &= id >= 0 && (used == 0 || id > ids[used - 1]);
+        slots[used] = task;
+        ids[used] = id;
+        used++;
+        // The new entry covers its own slot and the entries of the slots just before it
+        int count = 1;
+        for (int step = 1; step < (used & -used); step <<= 1) {
+            count += counts[used - step];
+        }
+        counts[used] = count;
+        size++;
+        modCount++;
+    }
+
+    /**
+     * Removes the task at a position, leaving its slot empty.
+     *
+     * @param index The zero-based position of the task.
+     * @return The removed task.
+     */
+    @Override
+    public Task remove(int index) {
+        checkIndex(index);
+        int slot = toSlot(index);
+        Task removed = slots[slot];
+        slots[slot] = null;
+        size--;
+        modCount++;
+        lastIndex = -1;
+
+        if (slot == used - 1) {
+            // Empty slots at the end are simply given up, which needs no counting
+            while (used > 0 && slots[used - 1] == null) {
+                used--;
+            }
+            return removed;
+        }
+        for (int i = slot + 1; i <= used; i += i & -i) {
+            counts[i]--;
+        }
+        if (used - size > size) {
+            compact();
+        }
+        return removed;
+    }
+
+    /**
+     * Removes the tasks at several positions in a single pass, closing every gap they leave.
+     *
+     * @param positions The zero-based positions of the tasks to remove, all inside the list.
+     */
+    void removeAll(BitSet positions) {
+        int last = positions.length() - 1;
+        if (last >= size) {
+            checkIndex(last);
+        }
+        int next = 0;
+        int index = 0;
+        for (int slot = 0; slot < used; slot++) {
+            if (slots[slot] == null) {
+                continue;
+            }
+            if (!positions.get(index++)) {
+                slots[next] = slots[slot];
+                ids[next] = ids[slot];
+                next++;
+            }
+        }
+        Arrays.fill(slots, next, used, null);
+        used = next;
+        size = next;
+        lastIndex = -1;
+        modCount++;
+        fillCounts();
+    }
+
+    /**
+     * Returns the number of tasks in the list.
+     *
+     * @return The size of the list.
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the position of a task, found by its ID.
+     *
+     * @param o The task to look for.
+     * @return The zero-based position of the task, or -1 if it is not in the list.
+     */
+    @Override
+    public int indexOf(Object o) {
+        if (!isOrdered) {
+            return super.indexOf(o);
+        }
+        if (!(o instanceof Task)) {
+            return -1;
+        }
+        int slot = Arrays.binarySearch(ids, 0, used, ((Task) o).getId());
+        if (slot < 0 || slots[slot] != o) {
+            return -1;
+        }
+        return countBefore(slot);
+    }
+
+    /**
+     * Returns an iterator that walks the slots directly, skipping the empty ones.
+     *
+     * @return An iterator over the tasks in order.
+     */
+    @Override
+    public Iterator<Task> iterator() {
+        return new Iterator<>() {
+            /** The slot to look at next. */
+            private int slot;
+            /** The number of tasks returned so far. */
+            private int returned;
+            /** The modification count the iteration started from. */
+            private final int expectedModCount = modCount;
+
+            @Override
+            public boolean hasNext() {
+                return returned < size;
+            }
+
+            @Override
+            public Task next() {
+                if (modCount != expectedModCount) {
+                    throw new ConcurrentModificationException();
+                }
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                while (slots[slot] == null) {
+                    slot++;
+                }
+                returned++;
+                return slots[slot++];
+            }
+        };
+    }
+
+    /**
+     * Finds the slot holding the task at a position.
+     *
+     * @param index The zero-based position of the task, inside the list.
+     * @return The slot of the task.
+     */
+    private int toSlot(int index) {
+        if (size == used) {
+            return index;
+        }
+        if (index == lastIndex + 1 && lastIndex >= 0) {
+            int slot = lastSlot + 1;
+            while (slots[slot] == null) {
+                slot++;
+            }
+            lastIndex = index;
+            lastSlot = slot;
+            return slot;
+        }
+
+        // Walk down the Fenwick tree to the last entry with fewer than index + 1 tasks before it
+        int entry = 0;
+        int remaining = index + 1;
+        for (int step = Integer.highestOneBit(used); step > 0; step >>= 1) {
+            int next = entry + step;
+            if (next <= used && counts[next] < remaining) {
+                entry = next;
+                remaining -= counts[next];
+            }
+        }
+        lastIndex = index;
+        lastSlot = entry;
+        return entry;
+    }
+
+    /**
+     * Counts the tasks in the slots before the given one, which is the position of the task in it.
+     *
+     * @param slot The slot.
+     * @return The number of tasks before the slot.
+     */
+    private int countBefore(int slot) {
+        if (size == used) {
+            return slot;
+        }
+        int count = 0;
+        for (int i = slot; i > 0; i -= i & -i) {
+            count += counts[i];
+        }
+        return count;
+    }
+
+    /**
+     * Moves every task to the front of the array, removing the empty slots between them.
+     */
+    private void compact() {
+        int next = 0;
+        for (int slot = 0; slot < used; slot++) {
+            if (slots[slot] != null) {
+                slots[next] = slots[slot];
+                ids[next] = ids[slot];
+                next++;
+            }
+        }
+        Arrays.fill(slots, next, used, null);
+        used = next;
+        fillCounts();
+    }
+
+    /**
+     * Rebuilds the Fenwick tree for slots that are all in use.
+     */
+    private void fillCounts() {
+        for (int i = 1; i <= used; i++) {
+            counts[i] = i & -i;
+        }
+    }
+
+    /**
+     * Checks that a position is inside the list.
+     *
+     * @param index The zero-based position to check.
+     */
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package minion.task;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Holds the date and time formats used to display tasks.
+ * The formatters are compiled once and shared, since they are immutable and safe to use from any thread.
+ */
+final class TaskFormatter {
+
+    /** The display format of a date with a time, e.g. "Apr 01 2026, 23:59". */
+    static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("MMM dd yyyy, HH:mm");
+    /** The display format of a date on its own, e.g. "Apr 01 2026". */
+    static final DateTimeFormatter DATE = DateTimeFormatter.ofPattern("MMM dd yyyy");
+    /** The display format of a time on its own, e.g. "23:59". */
+    static final DateTimeFormatter TIME = DateTimeFormatter.ofPattern("HH:mm");
+
+    /** Prevents instantiation of this holder of constants. */
+    private TaskFormatter() {
+    }
+
+    /**
+     * Formats a moment using the most specific value available.
+     * Falls back to the raw string if no date or time object is present.
+     *
+     * @param raw      The original raw string provided by the user.
+     * @param date     The parsed date, or null.
+     * @param time     The parsed time, or null.
+     * @param dateTime The parsed date and time, or null.
+     * @return The formatted string for display.
+     */
+    static String format(String raw, LocalDate date, LocalTime time, LocalDateTime dateTime) {
+        if (dateTime != null) {
+            return DATE_TIME.format(dateTime);
+        } else if (date != null) {
+            return DATE.format(date);
+        } else if (time != null) {
+            return TIME.format(time);
+        }
+        return raw;
+    }
+}
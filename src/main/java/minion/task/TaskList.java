@@ -1,6 +1,19 @@
 package minion.task;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import minion.stats.Stats;
 
 /**
  * Represents a list of tasks in the Minion chatbot.
@@ -9,31 +22,123 @@ import java.util.ArrayList;
  */
 public class TaskList {
 
+    /** The ID given to the first task of a new list. */
+    public static final long FIRST_ID = 1;
+    /** The number of tasks from which a filter is run on every core at once rather than on one thread. */
+    private static final int PARALLEL_FILTER_THRESHOLD = 50_000;
+
     /** The collection of tasks managed by the chatbot. */
-    private final ArrayList<Task> tasks;
+    private final List<Task> tasks;
+    /** The keyword index used by searches, built on the first search. */
+    private KeywordIndex keywordIndex;
+    /** The word index used by typo-tolerant searches, built on the first such search. */
+    private FuzzyIndex fuzzyIndex;
+    /** The time index used by date queries, built on the first date query. */
+    private TimeIndex timeIndex;
+    /** The tasks by ID, built on the first lookup by ID. */
+    private HashMap<Long, Task> idIndex;
+    /** The tasks of each view in view order, each built the first time its view is shown. */
+    private final EnumMap<TaskView, RankedTree<Task>> views;
+    /** The listeners told about every change to the list. */
+    private final List<TaskListener> listeners;
+    /** The ID given to the next task that enters the list. */
+    private long nextId;
 
     /** Initializes an empty TaskList. */
     public TaskList() {
-        this.tasks = new ArrayList<>();
+        this.tasks = new TaskArray();
+        this.views = new EnumMap<>(TaskView.class);
+        this.listeners = new ArrayList<>();
+        this.nextId = FIRST_ID;
+    }
+
+    /**
+     * Initializes a TaskList with an existing collection of tasks, giving an ID to every task
+     * that does not have one yet. Every task is read, so use {@link #TaskList(List, long)} for
+     * a list that loads its tasks on demand.
+     *
+     * @param initialTasks A list of tasks to populate the list.
+     */
+    public TaskList(List<Task> initialTasks) {
+        this(initialTasks, assignMissingIds(initialTasks));
     }
 
     /**
-     * Initializes a TaskList with an existing collection of tasks.
-     * Typically used when loading data from storage.
+     * Initializes a TaskList with an existing collection of tasks that all have IDs.
+     * Typically used when loading data from storage. An ArrayList is copied into a structure
+     * that deletes from any position in O(log n); any other list is used as-is, so a list that
+     * loads its tasks on demand keeps doing so.
      *
-     * @param initialTasks An ArrayList of tasks to populate the list.
+     * @param initialTasks A list of tasks to populate the list.
+     * @param nextId       An ID higher than that of any task in the list.
      */
-    public TaskList(ArrayList<Task> initialTasks) {
-        this.tasks = initialTasks;
+    public TaskList(List<Task> initialTasks, long nextId) {
+        this.tasks = (initialTasks instanceof ArrayList) ? new TaskArray(initialTasks) : initialTasks;
+        this.views = new EnumMap<>(TaskView.class);
+        this.listeners = new ArrayList<>();
+        this.nextId = nextId;
     }
 
     /**
-     * Adds a task to the list.
+     * Gives every task without an ID the next free one, in list order, after the highest ID in the list.
+     *
+     * @param tasks The tasks to check.
+     * @return The ID after the highest one in the list.
+     */
+    public static long assignMissingIds(List<Task> tasks) {
+        long nextId = FIRST_ID;
+        boolean isMissing = false;
+        for (Task task : tasks) {
+            nextId = Math.max(nextId, task.getId() + 1);
+            isMissing |= task.getId() < 0;
+        }
+        if (isMissing) {
+            for (Task task : tasks) {
+                if (task.getId() < 0) {
+                    task.setId(nextId++);
+                }
+            }
+        }
+        return nextId;
+    }
+
+    /**
+     * Registers a listener to be told about every later change to the list.
+     *
+     * @param listener The listener.
+     */
+    public void addListener(TaskListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Adds a task to the list and gives it a new ID.
      *
      * @param task The task object to be added.
      */
     public void addTask(Task task) {
+        long start = System.nanoTime();
+        task.setId(nextId++);
         tasks.add(task);
+        if (idIndex != null) {
+            idIndex.put(task.getId(), task);
+        }
+        if (keywordIndex != null) {
+            keywordIndex.add(task);
+        }
+        if (fuzzyIndex != null) {
+            fuzzyIndex.add(task);
+        }
+        if (timeIndex != null) {
+            timeIndex.add(task);
+        }
+        for (TaskView view : views.keySet()) {
+            addToView(view, task);
+        }
+        for (TaskListener listener : listeners) {
+            listener.taskAdded(task);
+        }
+        Stats.recordPhase(Stats.Phase.UPDATE, start);
     }
 
     /**
@@ -43,7 +148,138 @@ public class TaskList {
      * @return The task that was removed from the list.
      */
     public Task deleteTask(int index) {
-        return tasks.remove(index);
+        long start = System.nanoTime();
+        Task removedTask = tasks.remove(index);
+        if (idIndex != null) {
+            idIndex.remove(removedTask.getId());
+        }
+        if (keywordIndex != null) {
+            keywordIndex.remove(removedTask);
+        }
+        if (fuzzyIndex != null) {
+            fuzzyIndex.remove(removedTask);
+        }
+        if (timeIndex != null) {
+            timeIndex.remove(removedTask);
+        }
+        for (TaskView view : views.keySet()) {
+            removeFromView(view, removedTask);
+        }
+        for (TaskListener listener : listeners) {
+            listener.taskDeleted(removedTask);
+        }
+        Stats.recordPhase(Stats.Phase.UPDATE, start);
+        return removedTask;
+    }
+
+    /**
+     * Removes the tasks at several positions at once.
+     * The remaining tasks are moved up in a single sweep instead of once for every removed task.
+     *
+     * @param positions The zero-based positions of the tasks to remove, as they are before the removal.
+     * @return The removed tasks, in list order.
+     */
+    public ArrayList<Task> deleteTasks(BitSet positions) {
+        long start = System.nanoTime();
+        ArrayList<Task> removedTasks = new ArrayList<>(positions.cardinality());
+        for (int i = positions.nextSetBit(0); i >= 0; i = positions.nextSetBit(i + 1)) {
+            removedTasks.add(tasks.get(i));
+        }
+        removeAll(positions);
+        for (Task removedTask : removedTasks) {
+            if (idIndex != null) {
+                idIndex.remove(removedTask.getId());
+            }
+            if (keywordIndex != null) {
+                keywordIndex.remove(removedTask);
+            }
+            if (fuzzyIndex != null) {
+                fuzzyIndex.remove(removedTask);
+            }
+            if (timeIndex != null) {
+                timeIndex.remove(removedTask);
+            }
+            for (TaskView view : views.keySet()) {
+                removeFromView(view, removedTask);
+            }
+            for (TaskListener listener : listeners) {
+                listener.taskDeleted(removedTask);
+            }
+        }
+        Stats.recordPhase(Stats.Phase.UPDATE, start);
+        return removedTasks;
+    }
+
+    /**
+     * Removes the tasks with the given IDs at once, but only if every one of them is still in the list.
+     *
+     * @param ids The IDs of the tasks to remove, in ascending order without repeats.
+     * @return The removed tasks in list order, or null if any of the IDs is no longer in the list,
+     *         in which case nothing is removed.
+     */
+    public ArrayList<Task> deleteTasksById(long[] ids) {
+        BitSet positions = findPositions(ids);
+        return (positions == null) ? null : deleteTasks(positions);
+    }
+
+    /**
+     * Removes the task with the given ID, if it is still in the list.
+     * The task is found by its ID and removed from its position in O(log n), without sweeping the list.
+     *
+     * @param id The ID of the task to remove.
+     * @return The removed task, or null if no task in the list has the ID.
+     */
+    public Task deleteTaskById(long id) {
+        int position = findPosition(id);
+        return (position < 0) ? null : deleteTask(position);
+    }
+
+    /**
+     * Marks the tasks with the given IDs as done or not done, but only if every one of them is
+     * still in the list. Tasks that already have the new status are left alone.
+     *
+     * @param ids    The IDs of the tasks, in ascending order without repeats.
+     * @param isDone The new completion status of the tasks.
+     * @return The tasks whose status was changed, in list order, or null if any of the IDs is
+     *         no longer in the list, in which case nothing is changed.
+     */
+    public ArrayList<Task> markTasksById(long[] ids, boolean isDone) {
+        BitSet positions = findPositions(ids);
+        if (positions == null) {
+            return null;
+        }
+        ArrayList<Task> changed = new ArrayList<>();
+        for (int i = positions.nextSetBit(0); i >= 0; i = positions.nextSetBit(i + 1)) {
+            Task task = tasks.get(i);
+            if (markTask(task, isDone)) {
+                changed.add(task);
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Marks a task in the list as done or not done, moving it between the views that depend on
+     * whether it is done. The status is changed atomically, as by {@link Task#compareAndSetDone}.
+     *
+     * @param task   The task, which must be in the list.
+     * @param isDone The new completion status of the task.
+     * @return True if the status was changed, false if the task already had it.
+     */
+    public boolean markTask(Task task, boolean isDone) {
+        if (!task.compareAndSetDone(!isDone, isDone)) {
+            return false;
+        }
+        for (TaskView view : views.keySet()) {
+            if (view.dependsOnStatus()) {
+                removeFromView(view, task);
+                addToView(view, task);
+            }
+        }
+        for (TaskListener listener : listeners) {
+            listener.taskMarked(task);
+        }
+        return true;
     }
 
     /**
@@ -56,6 +292,40 @@ public class TaskList {
         return tasks.get(index);
     }
 
+    /**
+     * Retrieves a task by its ID.
+     *
+     * @param id The ID of the task.
+     * @return The task with the ID, or null if there is none.
+     */
+    public Task getTaskById(long id) {
+        if (tasks instanceof IdLookup) {
+            int index = ((IdLookup) tasks).indexOfId(id);
+            return (index < 0) ? null : tasks.get(index);
+        }
+        if (idIndex == null) {
+            idIndex = new HashMap<>();
+            for (Task task : tasks) {
+                idIndex.put(task.getId(), task);
+            }
+        }
+        return idIndex.get(id);
+    }
+
+    /**
+     * Finds the current position of the task with the given ID.
+     *
+     * @param id The ID of the task.
+     * @return The zero-based index of the task, or -1 if there is no task with the ID.
+     */
+    public int findIndex(long id) {
+        if (tasks instanceof IdLookup) {
+            return ((IdLookup) tasks).indexOfId(id);
+        }
+        Task task = getTaskById(id);
+        return (task == null) ? -1 : tasks.indexOf(task);
+    }
+
     /**
      * Returns the current number of tasks in the list.
      *
@@ -75,26 +345,54 @@ public class TaskList {
     }
 
     /**
-     * Returns the underlying ArrayList of tasks.
+     * Returns the underlying list of tasks.
      * Useful for passing the entire collection to the Storage class for saving.
      *
-     * @return The ArrayList containing all tasks.
+     * @return The list containing all tasks.
      */
-    public ArrayList<Task> getAllTasks() {
+    public List<Task> getAllTasks() {
         return tasks;
     }
 
     /**
      * Searches for tasks that contain the specified keyword in their description.
-     * The search is case-insensitive.
+     * The search is case-insensitive. The keyword index narrows the search down to a few
+     * candidates; keywords too short or too common for the index fall back to a full scan.
      *
      * @param keyword The string to search for.
      * @return A new ArrayList containing only the matching tasks.
      */
     public ArrayList<Task> findTasks(String keyword) {
-        ArrayList<Task> matches = new ArrayList<>();
+        long start = System.nanoTime();
+        try {
+            return searchTasks(keyword);
+        } finally {
+            Stats.recordPhase(Stats.Phase.QUERY, start);
+        }
+    }
+
+    /**
+     * Searches for tasks that contain the specified keyword in their description, without timing the search.
+     *
+     * @param keyword The string to search for.
+     * @return A new ArrayList containing only the matching tasks.
+     */
+    private ArrayList<Task> searchTasks(String keyword) {
         String searchTarget = keyword.toLowerCase(); // Convert keyword to lower case once
 
+        if (keywordIndex == null) {
+            keywordIndex = new KeywordIndex();
+            for (Task task : tasks) {
+                keywordIndex.add(task);
+            }
+        }
+        ArrayList<Task> matches = keywordIndex.find(searchTarget);
+        if (matches != null) {
+            return matches;
+        }
+
+        matches = new ArrayList<>();
+
         for (Task task : tasks) {
             // Convert each description to lower case before checking
             if (task.getDescription().toLowerCase().contains(searchTarget)) {
@@ -103,4 +401,331 @@ public class TaskList {
         }
         return matches;
     }
-}
\ No newline at end of file
+
+    /**
+     * Searches for the tasks whose descriptions contain words close to those of a term, allowing for typos
+     * such as "reprot" for "report". The word index narrows the search down to the words within a few edits
+     * of the term's words, so the list is never scanned.
+     *
+     * @param term  The words to look for, in any case.
+     * @param limit The maximum number of tasks to return.
+     * @return A new ArrayList of the closest matches, closest first; see {@link FuzzyIndex#find(String, int)}.
+     */
+    public ArrayList<Task> findFuzzy(String term, int limit) {
+        long start = System.nanoTime();
+        if (fuzzyIndex == null) {
+            fuzzyIndex = new FuzzyIndex();
+            for (Task task : tasks) {
+                fuzzyIndex.add(task);
+            }
+        }
+        ArrayList<Task> matches = fuzzyIndex.find(term, limit);
+        Stats.recordPhase(Stats.Phase.QUERY, start);
+        return matches;
+    }
+
+    /**
+     * Finds the deadlines that fall due on the given date.
+     *
+     * @param date The date to look up.
+     * @return A new ArrayList of the matching deadlines in order of due time.
+     */
+    public ArrayList<Task> findDueOn(LocalDate date) {
+        long start = System.nanoTime();
+        ArrayList<Task> matches = getTimeIndex().findDeadlines(date.atStartOfDay(), date.atTime(LocalTime.MAX));
+        Stats.recordPhase(Stats.Phase.QUERY, start);
+        return matches;
+    }
+
+    /**
+     * Finds the deadlines due and the events taking place within the given window.
+     *
+     * @param from The start of the window.
+     * @param to   The end of the window.
+     * @return A new ArrayList of the matching tasks in order of due or start time.
+     */
+    public ArrayList<Task> findBetween(LocalDateTime from, LocalDateTime to) {
+        long start = System.nanoTime();
+        ArrayList<Task> matches = getTimeIndex().findBetween(from, to);
+        Stats.recordPhase(Stats.Phase.QUERY, start);
+        return matches;
+    }
+
+    /**
+     * Finds the next deadlines and events that are due or start at or after the given time.
+     *
+     * @param from  The earliest due or start time to include.
+     * @param count The maximum number of tasks to return.
+     * @return A new ArrayList of the matching tasks in order of due or start time.
+     */
+    public ArrayList<Task> findUpcoming(LocalDateTime from, int count) {
+        long start = System.nanoTime();
+        ArrayList<Task> matches = getTimeIndex().findUpcoming(from, count);
+        Stats.recordPhase(Stats.Phase.QUERY, start);
+        return matches;
+    }
+
+    /**
+     * Returns the number of tasks in a view.
+     *
+     * @param view The view.
+     * @return The number of tasks the view shows.
+     */
+    public int getViewSize(TaskView view) {
+        return getView(view).size();
+    }
+
+    /**
+     * Returns a run of the tasks of a view, in view order. The view is kept sorted as the list
+     * changes, so this takes time in proportion to the tasks returned, not to the size of the list.
+     *
+     * @param view  The view.
+     * @param from  The zero-based position in the view of the first task to return.
+     * @param count The maximum number of tasks to return.
+     * @return A new ArrayList of the tasks, which is shorter than count if the view ends first.
+     */
+    public ArrayList<Task> getViewTasks(TaskView view, int from, int count) {
+        long start = System.nanoTime();
+        ArrayList<Task> viewTasks = getView(view).collect(from, count);
+        Stats.recordPhase(Stats.Phase.QUERY, start);
+        return viewTasks;
+    }
+
+    /**
+     * Checks whether the keyword index has been built, after which keyword searches only read the list.
+     *
+     * @return True if the index exists.
+     */
+    boolean hasKeywordIndex() {
+        return keywordIndex != null;
+    }
+
+    /**
+     * Checks whether the word index has been built, after which typo-tolerant searches only read the list.
+     *
+     * @return True if the index exists.
+     */
+    boolean hasFuzzyIndex() {
+        return fuzzyIndex != null;
+    }
+
+    /**
+     * Checks whether the time index has been built, after which date queries only read the list.
+     *
+     * @return True if the index exists.
+     */
+    boolean hasTimeIndex() {
+        return timeIndex != null;
+    }
+
+    /**
+     * Checks whether lookups by ID can be answered without building anything.
+     *
+     * @return True if the list looks up IDs itself or the ID index exists.
+     */
+    boolean hasIdIndex() {
+        return tasks instanceof IdLookup || idIndex != null;
+    }
+
+    /**
+     * Checks whether a view has been built, after which showing it only reads the list.
+     *
+     * @param view The view.
+     * @return True if the view's sorted tasks exist.
+     */
+    boolean hasView(TaskView view) {
+        return views.containsKey(view);
+    }
+
+    /**
+     * Finds the tasks that pass a filter, in list order.
+     * The filter reads every task, so large lists are copied into an array and split across the
+     * common fork-join pool, since the underlying list may not be safe to read from several threads.
+     * The tasks are read through {@link #getAllTasks()}, so a list that keeps immutable versions
+     * is filtered without holding its lock.
+     *
+     * @param filter The test a task must pass, which must be safe to run on several threads at once.
+     * @return A new ArrayList of the matching tasks.
+     */
+    public ArrayList<Task> filterTasks(Predicate<Task> filter) {
+        long start = System.nanoTime();
+        List<Task> current = getAllTasks();
+        ArrayList<Task> matches;
+        if (current.size() >= PARALLEL_FILTER_THRESHOLD && ForkJoinPool.getCommonPoolParallelism() > 1) {
+            matches = Arrays.stream(current.toArray(new Task[0]))
+                    .parallel()
+                    .filter(filter)
+                    .collect(Collectors.toCollection(ArrayList::new));
+        } else {
+            matches = new ArrayList<>();
+            for (Task task : current) {
+                if (filter.test(task)) {
+                    matches.add(task);
+                }
+            }
+        }
+        Stats.recordPhase(Stats.Phase.QUERY, start);
+        return matches;
+    }
+
+    /**
+     * Removes the tasks at several positions from the underlying list.
+     * A list that loads its tasks on demand has them removed one at a time, from the back.
+     *
+     * @param positions The zero-based positions of the tasks to remove.
+     */
+    void removeAll(BitSet positions) {
+        if (tasks instanceof TaskArray) {
+            ((TaskArray) tasks).removeAll(positions);
+            return;
+        }
+        for (int i = positions.length() - 1; i >= 0; i = positions.previousSetBit(i - 1)) {
+            tasks.remove(i);
+        }
+    }
+
+    /**
+     * Finds the current positions of the tasks with the given IDs.
+     * A list that can look up IDs itself is asked directly. Otherwise, since tasks are given
+     * increasing IDs as they are added, each task is found by halving the list; when the IDs are
+     * many, or a task is out of order, the list is read once from end to end instead.
+     *
+     * @param ids The IDs, in ascending order without repeats.
+     * @return The zero-based positions of the tasks, or null if any of the IDs is not in the list.
+     */
+    private BitSet findPositions(long[] ids) {
+        BitSet positions = new BitSet();
+        if (tasks instanceof IdLookup) {
+            for (long id : ids) {
+                int position = ((IdLookup) tasks).indexOfId(id);
+                if (position < 0) {
+                    return null;
+                }
+                positions.set(position);
+            }
+            return positions;
+        }
+        if ((long) ids.length * Long.SIZE <= tasks.size()) {
+            for (long id : ids) {
+                int position = searchById(id);
+                if (position < 0) {
+                    break;
+                }
+                positions.set(position);
+            }
+            if (positions.cardinality() == ids.length) {
+                return positions;
+            }
+            positions.clear();
+        }
+
+        for (int i = 0; i < tasks.size(); i++) {
+            if (Arrays.binarySearch(ids, tasks.get(i).getId()) >= 0) {
+                positions.set(i);
+            }
+        }
+        return (positions.cardinality() == ids.length) ? positions : null;
+    }
+
+    /**
+     * Finds the current position of the task with the given ID, asking the list directly if it can
+     * look up IDs and otherwise halving it. The list is only read from end to end when the task
+     * is not where the order of IDs puts it.
+     *
+     * @param id The ID of the task.
+     * @return The zero-based position of the task, or -1 if it is not in the list.
+     */
+    private int findPosition(long id) {
+        if (tasks instanceof IdLookup) {
+            return ((IdLookup) tasks).indexOfId(id);
+        }
+        int position = searchById(id);
+        if (position >= 0) {
+            return position;
+        }
+        for (int i = 0; i < tasks.size(); i++) {
+            if (tasks.get(i).getId() == id) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Finds the position of a task by halving the list, which relies on the IDs increasing along it.
+     *
+     * @param id The ID of the task.
+     * @return The zero-based position of the task, or -1 if it is not where the order puts it.
+     */
+    private int searchById(long id) {
+        int low = 0;
+        int high = tasks.size() - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            long middleId = tasks.get(middle).getId();
+            if (middleId == id) {
+                return middle;
+            } else if (middleId < id) {
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the sorted tasks of a view, building them from the current tasks on first use.
+     *
+     * @param view The view.
+     * @return The tasks of the view.
+     */
+    private RankedTree<Task> getView(TaskView view) {
+        RankedTree<Task> viewTasks = views.get(view);
+        if (viewTasks == null) {
+            viewTasks = new RankedTree<>();
+            views.put(view, viewTasks);
+            for (Task task : tasks) {
+                addToView(view, task);
+            }
+        }
+        return viewTasks;
+    }
+
+    /**
+     * Adds a task to a built view, if the view includes it.
+     *
+     * @param view The view.
+     * @param task The task.
+     */
+    private void addToView(TaskView view, Task task) {
+        if (view.includes(task)) {
+            views.get(view).insert(view.sortKeyOf(task), task.getId(), task);
+        }
+    }
+
+    /**
+     * Removes a task from a built view, if the view holds it.
+     *
+     * @param view The view.
+     * @param task The task.
+     */
+    private void removeFromView(TaskView view, Task task) {
+        views.get(view).remove(view.sortKeyOf(task), task.getId());
+    }
+
+    /**
+     * Returns the time index, building it from the current tasks on first use.
+     *
+     * @return The time index.
+     */
+    private TimeIndex getTimeIndex() {
+        if (timeIndex == null) {
+            timeIndex = new TimeIndex();
+            for (Task task : tasks) {
+                timeIndex.add(task);
+            }
+        }
+        return timeIndex;
+    }
+}
@@ -0,0 +1,30 @@
+package minion.task;
+
+/**
+ * Represents something that follows the changes made to a task list, such as a reminder service.
+ * The task list calls it on the thread that made the change, right after the change, so it
+ * should only note the change and do any slow work elsewhere.
+ */
+public interface TaskListener {
+
+    /**
+     * Called after a task is added to the list.
+     *
+     * @param task The task added, which already has its ID.
+     */
+    void taskAdded(Task task);
+
+    /**
+     * Called after a task is deleted from the list.
+     *
+     * @param task The task deleted.
+     */
+    void taskDeleted(Task task);
+
+    /**
+     * Called after a task in the list is marked as done or not done.
+     *
+     * @param task The task, which already has its new status.
+     */
+    void taskMarked(Task task);
+}
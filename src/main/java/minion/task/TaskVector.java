@@ -0,0 +1,183 @@
+package minion.task;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Represents one immutable version of a list of tasks, stored in fixed-size chunks.
+ * Changing the list produces a new version and leaves the old one untouched, so readers can
+ * keep using whichever version they picked up without any locking. A new version shares every
+ * chunk it can with the old one: appending copies at most the small array of chunk references,
+ * and removing copies only the chunks from the removed position onwards.
+ * Only the newest version may be changed, and only by one thread at a time.
+ */
+class TaskVector extends AbstractList<Task> implements RandomAccess {
+
+    /** The number of bits of an index that select the position inside a chunk. */
+    private static final int CHUNK_BITS = 9;
+    /** The number of tasks each chunk holds. */
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    /** The mask that selects the position inside a chunk. */
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    /** The version with no tasks. */
+    static final TaskVector EMPTY = new TaskVector(new Task[0][], 0);
+
+    /** The chunks holding the tasks, in order; slots at or after size are unused. */
+    private final Task[][] chunks;
+    /** The number of tasks in this version. */
+    private final int size;
+
+    /**
+     * Initializes a version over the given chunks.
+     *
+     * @param chunks The chunks holding the tasks.
+     * @param size   The number of tasks in this version.
+     */
+    private TaskVector(Task[][] chunks, int size) {
+        this.chunks = chunks;
+        this.size = size;
+    }
+
+    /**
+     * Builds a version holding the given tasks in order.
+     *
+     * @param tasks The tasks to hold.
+     * @return A new version.
+     */
+    static TaskVector of(List<Task> tasks) {
+        int size = tasks.size();
+        Task[][] chunks = new Task[(size + CHUNK_SIZE - 1) >>> CHUNK_BITS][];
+        for (int c = 0; c < chunks.length; c++) {
+            chunks[c] = new Task[CHUNK_SIZE];
+        }
+        int i = 0;
+        for (Task task : tasks) {
+            chunks[i >>> CHUNK_BITS][i & CHUNK_MASK] = task;
+            i++;
+        }
+        return new TaskVector(chunks, size);
+    }
+
+    /**
+     * Returns the task at a position.
+     *
+     * @param index The zero-based position of the task.
+     * @return The task at the position.
+     */
+    @Override
+    public Task get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        return chunks[index >>> CHUNK_BITS][index & CHUNK_MASK];
+    }
+
+    /**
+     * Returns the number of tasks in this version.
+     *
+     * @return The size of the list.
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns a new version with a task added at the end.
+     * The task is written into a free slot of the shared last chunk, which no older version can see
+     * since it lies beyond their sizes.
+     *
+     * @param task The task to append.
+     * @return The new version.
+     */
+    TaskVector withAppended(Task task) {
+        int chunk = size >>> CHUNK_BITS;
+        Task[][] newChunks = chunks;
+        if (chunk == chunks.length) {
+            newChunks = Arrays.copyOf(chunks, chunk + 1);
+            newChunks[chunk] = new Task[CHUNK_SIZE];
+        }
+        newChunks[chunk][size & CHUNK_MASK] = task;
+        return new TaskVector(newChunks, size + 1);
+    }
+
+    /**
+     * Returns a new version without the task at a position.
+     * Chunks before the position are shared; the rest are copied with later tasks shifted down.
+     *
+     * @param index The zero-based position of the task to remove.
+     * @return The new version.
+     */
+    TaskVector withRemoved(int index) {
+        get(index);
+        int newSize = size - 1;
+        int firstChanged = index >>> CHUNK_BITS;
+        int chunkCount = (newSize + CHUNK_SIZE - 1) >>> CHUNK_BITS;
+        Task[][] newChunks = Arrays.copyOf(chunks, chunkCount);
+
+        for (int c = firstChanged; c < chunkCount; c++) {
+            Task[] chunk = new Task[CHUNK_SIZE];
+            int start = c << CHUNK_BITS;
+            int end = Math.min(start + CHUNK_SIZE, newSize);
+            int kept = Math.max(0, Math.min(index, end) - start);
+            copyRange(start, chunk, 0, kept);
+            copyRange(start + kept + 1, chunk, kept, end - start - kept);
+            newChunks[c] = chunk;
+        }
+        return new TaskVector(newChunks, newSize);
+    }
+
+    /**
+     * Returns a new version without the tasks at several positions, built in a single pass.
+     * Chunks before the first position are shared; the rest are rebuilt from the tasks that remain.
+     *
+     * @param positions The zero-based positions of the tasks to remove, all inside this version.
+     * @return The new version.
+     */
+    TaskVector withRemoved(BitSet positions) {
+        int first = positions.nextSetBit(0);
+        if (first < 0) {
+            return this;
+        }
+        get(positions.length() - 1);
+        int newSize = size - positions.cardinality();
+        int firstChanged = first >>> CHUNK_BITS;
+        int chunkCount = (newSize + CHUNK_SIZE - 1) >>> CHUNK_BITS;
+        Task[][] newChunks = Arrays.copyOf(chunks, chunkCount);
+        for (int c = firstChanged; c < chunkCount; c++) {
+            newChunks[c] = new Task[CHUNK_SIZE];
+        }
+
+        int next = firstChanged << CHUNK_BITS;
+        for (int i = next; i < size; i++) {
+            if (!positions.get(i)) {
+                newChunks[next >>> CHUNK_BITS][next & CHUNK_MASK] = chunks[i >>> CHUNK_BITS][i & CHUNK_MASK];
+                next++;
+            }
+        }
+        return new TaskVector(newChunks, newSize);
+    }
+
+    /**
+     * Copies a run of consecutive tasks of this version, which may span chunks, into an array.
+     *
+     * @param from   The position of the first task to copy.
+     * @param dest   The array to copy into.
+     * @param offset The position in the array to copy to.
+     * @param length The number of tasks to copy.
+     */
+    private void copyRange(int from, Task[] dest, int offset, int length) {
+        while (length > 0) {
+            int inChunk = from & CHUNK_MASK;
+            int count = Math.min(length, CHUNK_SIZE - inChunk);
+            System.arraycopy(chunks[from >>> CHUNK_BITS], inChunk, dest, offset, count);
+            from += count;
+            offset += count;
+            length -= count;
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package minion.task;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Represents a named, ordered view of the task list, such as the pending tasks or every dated
+ * task by due time. A task list keeps each view it has been asked for sorted as tasks are added,
+ * deleted, marked and unmarked, so showing a page of a view never sorts the list again.
+ */
+public enum TaskView {
+    /** The deadlines and events, by due or start time; those without a date come last. */
+    BY_DUE("by-due"),
+    /** The tasks not yet done, in the order they were added. */
+    PENDING("pending"),
+    /** The tasks that are done, in the order they were added. */
+    DONE("done"),
+    /** The todos, in the order they were added. */
+    TODOS("todos"),
+    /** The deadlines, by due time; those without a date come last. */
+    DEADLINES("deadlines"),
+    /** The events, by start time; those without a date come last. */
+    EVENTS("events");
+
+    /** The sort key of a task that has no date, placing it after every dated task. */
+    private static final long UNDATED = Long.MAX_VALUE;
+    /** The sort key of every task in a view ordered only by when tasks were added. */
+    private static final long UNSORTED = 0;
+
+    /** The name the view is asked for by. */
+    private final String name;
+
+    /**
+     * Initializes a view.
+     *
+     * @param name The name the view is asked for by.
+     */
+    TaskView(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Returns the name the view is asked for by, e.g. "by-due".
+     *
+     * @return The name.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Finds a view by its name, without regard to case.
+     *
+     * @param name The name of the view.
+     * @return The view, or null if no view has the name.
+     */
+    public static TaskView find(String name) {
+        for (TaskView view : values()) {
+            if (view.name.equalsIgnoreCase(name)) {
+                return view;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Checks whether a task belongs in the view.
+     *
+     * @param task The task.
+     * @return True if the view shows the task.
+     */
+    boolean includes(Task task) {
+        switch (this) {
+        case BY_DUE:
+            return task instanceof Deadline || task instanceof Event;
+        case PENDING:
+            return !task.isDone();
+        case DONE:
+            return task.isDone();
+        case TODOS:
+            return task instanceof Todo;
+        case DEADLINES:
+            return task instanceof Deadline;
+        default:
+            return task instanceof Event;
+        }
+    }
+
+    /**
+     * Checks whether marking or unmarking a task can move it into or out of the view.
+     *
+     * @return True if the view depends on whether tasks are done.
+     */
+    boolean dependsOnStatus() {
+        return this == PENDING || this == DONE;
+    }
+
+    /**
+     * Returns the key a task is sorted by in the view. Tasks with equal keys are ordered by ID,
+     * which is the order they were added in.
+     *
+     * @param task A task the view includes.
+     * @return The key, which never changes while the task is in the list.
+     */
+    long sortKeyOf(Task task) {
+        if (this != BY_DUE && this != DEADLINES && this != EVENTS) {
+            return UNSORTED;
+        }
+        LocalDateTime time = null;
+        if (task instanceof Deadline) {
+            time = ((Deadline) task).getDueDateTime();
+        } else if (task instanceof Event) {
+            time = ((Event) task).getStartDateTime();
+        }
+        return (time == null) ? UNDATED : time.toEpochSecond(ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,275 @@
+package minion.task;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.TreeMap;
+
+/**
+ * Represents the time-ordered indexes over dated tasks.
+ * Deadlines are kept in a sorted map keyed by their due time, and events in an interval
+ * tree over their start and end times, so window queries only visit the tasks they return.
+ * Tasks without a date (e.g. a deadline given only as a time) are not indexed.
+ *
+ * <p>Recurring deadlines and events are kept apart, once per series, and only expanded into the
+ * occurrences that fall within a window when it is asked for. A series that is done has stopped,
+ * so none of its occurrences are found.
+ */
+class TimeIndex {
+
+    /** Orders tasks by due or start time, then by ID. */
+    private static final Comparator<Task> BY_TIME =
+            Comparator.comparing(TimeIndex::timeOf).thenComparingLong(Task::getId);
+
+    /** The dated deadlines, ordered by due time and then by ID. */
+    private final TreeMap<Key, Deadline> deadlines;
+    /** The dated events, ordered by start time. */
+    private final IntervalTree<Event> events;
+    /** The recurring deadlines and events, by ID. */
+    private final LinkedHashMap<Long, Task> series;
+    /** The occurrences of recurring tasks most recently found. */
+    private final OccurrenceCache occurrences;
+
+    /** Initializes an empty index. */
+    TimeIndex() {
+        this.deadlines = new TreeMap<>();
+        this.events = new IntervalTree<>();
+        this.series = new LinkedHashMap<>();
+        this.occurrences = new OccurrenceCache();
+    }
+
+    /**
+     * Adds a task to the index if it is a dated deadline or event.
+     *
+     * @param task The task to be indexed.
+     */
+    void add(Task task) {
+        if (isRecurring(task)) {
+            series.put(task.getId(), task);
+        } else if (task instanceof Deadline) {
+            LocalDateTime due = ((Deadline) task).getDueDateTime();
+            if (due != null) {
+                deadlines.put(new Key(toSeconds(due), task.getId()), (Deadline) task);
+            }
+        } else if (task instanceof Event) {
+            Event event = (Event) task;
+            LocalDateTime start = event.getStartDateTime();
+            if (start != null) {
+                long startSeconds = toSeconds(start);
+                long endSeconds = Math.max(startSeconds, toSeconds(event.getEndDateTime()));
+                events.insert(startSeconds, endSeconds, task.getId(), event);
+            }
+        }
+    }
+
+    /**
+     * Removes a task from the index.
+     *
+     * @param task The task to be removed.
+     */
+    void remove(Task task) {
+        if (isRecurring(task)) {
+            series.remove(task.getId());
+        } else if (task instanceof Deadline) {
+            LocalDateTime due = ((Deadline) task).getDueDateTime();
+            if (due != null) {
+                deadlines.remove(new Key(toSeconds(due), task.getId()));
+            }
+        } else if (task instanceof Event) {
+            LocalDateTime start = ((Event) task).getStartDateTime();
+            if (start != null) {
+                events.remove(toSeconds(start), task.getId());
+            }
+        }
+    }
+
+    /**
+     * Finds the deadlines due within the window.
+     *
+     * @param from The start of the window.
+     * @param to   The end of the window.
+     * @return The matching deadlines in order of due time.
+     */
+    ArrayList<Task> findDeadlines(LocalDateTime from, LocalDateTime to) {
+        Key low = new Key(toSeconds(from), Long.MIN_VALUE);
+        Key high = new Key(toSeconds(to), Long.MAX_VALUE);
+        ArrayList<Task> dueTasks = new ArrayList<>(deadlines.subMap(low, true, high, true).values());
+        return merge(dueTasks, expand(from, to, Deadline.class), Integer.MAX_VALUE);
+    }
+
+    /**
+     * Finds the deadlines due and events taking place within the window.
+     *
+     * @param from The start of the window.
+     * @param to   The end of the window.
+     * @return The matching tasks in order of due or start time.
+     */
+    ArrayList<Task> findBetween(LocalDateTime from, LocalDateTime to) {
+        ArrayList<Event> overlapping = new ArrayList<>();
+        events.findOverlapping(toSeconds(from), toSeconds(to), overlapping);
+        ArrayList<Task> oneOff = merge(findDeadlines(from, to), overlapping, Integer.MAX_VALUE);
+        return merge(oneOff, expand(from, to, Event.class), Integer.MAX_VALUE);
+    }
+
+    /**
+     * Finds the first deadlines and events that are due or start at or after the given time.
+     *
+     * @param from  The earliest due or start time to include.
+     * @param count The maximum number of tasks to return.
+     * @return The matching tasks in order of due or start time.
+     */
+    ArrayList<Task> findUpcoming(LocalDateTime from, int count) {
+        ArrayList<Task> dueSoon = new ArrayList<>();
+        for (Deadline deadline : deadlines.tailMap(new Key(toSeconds(from), Long.MIN_VALUE)).values()) {
+            if (dueSoon.size() >= count) {
+                break;
+            }
+            dueSoon.add(deadline);
+        }
+        ArrayList<Event> startingSoon = new ArrayList<>();
+        events.findStartingFrom(toSeconds(from), count, startingSoon);
+
+        // No series can have more than count occurrences among the first count tasks
+        ArrayList<Task> recurring = new ArrayList<>();
+        for (Task task : series.values()) {
+            if (task.isDone()) {
+                continue;
+            }
+            LocalDateTime first = timeOf(task);
+            Recurrence recurrence = recurrenceOf(task);
+            long index = recurrence.indexFrom(first, from);
+            for (int i = 0; i < count && index >= 0 && recurrence.includes(first, index); i++, index++) {
+                recurring.add(occurrences.get(task, index));
+            }
+        }
+        recurring.sort(BY_TIME);
+        return merge(merge(dueSoon, startingSoon, count), recurring, count);
+    }
+
+    /**
+     * Expands the recurring deadlines or events into their occurrences within the window.
+     * An event's occurrence is within the window if any part of it is.
+     *
+     * @param from The start of the window.
+     * @param to   The end of the window.
+     * @param type Deadline.class or Event.class, the type of task to expand.
+     * @return The occurrences in order of due or start time.
+     */
+    private ArrayList<Task> expand(LocalDateTime from, LocalDateTime to, Class<? extends Task> type) {
+        ArrayList<Task> expanded = new ArrayList<>();
+        for (Task task : series.values()) {
+            if (task.isDone() || !type.isInstance(task)) {
+                continue;
+            }
+            LocalDateTime first = timeOf(task);
+            LocalDateTime firstEnd = (task instanceof Event) ? ((Event) task).getEndDateTime() : first;
+            Recurrence recurrence = recurrenceOf(task);
+            // The first occurrence that has not ended by the start of the window
+            long index = recurrence.indexFrom(firstEnd, from);
+            while (index >= 0 && recurrence.includes(first, index)
+                    && !recurrence.shift(first, index).isAfter(to)) {
+                expanded.add(occurrences.get(task, index));
+                index++;
+            }
+        }
+        expanded.sort(BY_TIME);
+        return expanded;
+    }
+
+    /**
+     * Merges two time-ordered lists of tasks into one time-ordered list.
+     * Of tasks at the same time, those of the first list come first.
+     *
+     * @param first  The first tasks in order of due or start time.
+     * @param second The second tasks in order of due or start time.
+     * @param limit  The maximum number of tasks to return.
+     * @return The merged list.
+     */
+    private static ArrayList<Task> merge(ArrayList<? extends Task> first, ArrayList<? extends Task> second,
+            int limit) {
+        ArrayList<Task> merged = new ArrayList<>();
+        int f = 0;
+        int s = 0;
+        while (merged.size() < limit && (f < first.size() || s < second.size())) {
+            boolean takeFirst = s == second.size() || (f < first.size()
+                    && !timeOf(first.get(f)).isAfter(timeOf(second.get(s))));
+            merged.add(takeFirst ? first.get(f++) : second.get(s++));
+        }
+        return merged;
+    }
+
+    /**
+     * Returns the time a dated deadline is due or a dated event starts.
+     *
+     * @param task The deadline or event.
+     * @return The due or start time, of the first occurrence if the task recurs.
+     */
+    private static LocalDateTime timeOf(Task task) {
+        return (task instanceof Deadline) ? ((Deadline) task).getDueDateTime() : ((Event) task).getStartDateTime();
+    }
+
+    /**
+     * Checks whether a task is a recurring deadline or event with a date, which is indexed as a series.
+     *
+     * @param task The task.
+     * @return True if the task recurs.
+     */
+    private static boolean isRecurring(Task task) {
+        return recurrenceOf(task) != null && timeOf(task) != null;
+    }
+
+    /**
+     * Returns the rule by which a task repeats.
+     *
+     * @param task The task.
+     * @return The rule, or null if the task is not a recurring deadline or event.
+     */
+    private static Recurrence recurrenceOf(Task task) {
+        if (task instanceof Deadline) {
+            return ((Deadline) task).getRecurrence();
+        } else if (task instanceof Event) {
+            return ((Event) task).getRecurrence();
+        }
+        return null;
+    }
+
+    /**
+     * Converts a date and time into a sortable number of seconds.
+     *
+     * @param dateTime The date and time to convert.
+     * @return The number of seconds since the epoch, treating the time as UTC.
+     */
+    private static long toSeconds(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    /**
+     * Represents the position of a deadline in the sorted map.
+     */
+    private static class Key implements Comparable<Key> {
+
+        /** The due time in seconds. */
+        private final long seconds;
+        /** The ID of the deadline, breaking ties between equal due times. */
+        private final long id;
+
+        /**
+         * Initializes a key.
+         *
+         * @param seconds The due time in seconds.
+         * @param id      The ID of the deadline.
+         */
+        private Key(long seconds, long id) {
+            this.seconds = seconds;
+            this.id = id;
+        }
+
+        @Override
+        public int compareTo(Key other) {
+            int comparison = Long.compare(seconds, other.seconds);
+            return (comparison != 0) ? comparison : Long.compare(id, other.id);
+        }
+    }
+}
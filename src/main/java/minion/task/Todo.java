@@ -1,5 +1,8 @@
 package minion.task;
 
+import java.io.DataOutput;
+import java.io.IOException;
+
 /**
  * Represents a task without any specified time constraints.
  */
@@ -15,12 +18,12 @@ public class Todo extends Task {
     }
 
     /**
-     * Returns a string representation of the todo task.
+     * Renders the todo task for display.
      *
      * @return Formatted string for console display.
      */
     @Override
-    public String toString() {
+    protected String render() {
         return "[T][" + getStatusIcon() + "] " + description;
     }
 
@@ -33,4 +36,15 @@ public class Todo extends Task {
     public String toFileFormat() {
         return "T | " + (isDone ? "1" : "0") + " | " + description;
     }
-}
\ No newline at end of file
+
+    /**
+     * Writes the todo task as a binary record.
+     *
+     * @param out The output to write the record to.
+     * @throws IOException If the output cannot be written.
+     */
+    @Override
+    public void writeBinary(DataOutput out) throws IOException {
+        writeBinaryHeader(out, 'T');
+    }
+}
@@ -1,10 +1,14 @@
 package minion.ui;
 
+import java.io.PrintStream;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Scanner;
 import minion.responses.MinionResponses;
+import minion.stats.Stats;
 import minion.task.TaskList;
 import minion.task.Task;
+import minion.task.TaskView;
 
 /**
  * Represents the user interface of the Minion chatbot.
@@ -13,37 +17,69 @@ import minion.task.Task;
  */
 public class Ui {
 
-    /** The scanner used to read user input from the console. */
-    private final Scanner scanner;
+    /** The number of characters of a long listing collected before they are printed. */
+    private static final int CHUNK_LENGTH = 8192;
+
+    /** The scanner used to read user input from the console, created on the first read. */
+    private Scanner scanner;
+    /** Where every message is printed. */
+    private final PrintStream out;
+    /** Held while a message is printed, so a reminder from another thread never lands inside one. */
+    private final Object printLock = new Object();
+    /** The tasks of the paged listing in progress, or null if there is none or it is of a view. */
+    private List<Task> pagedTasks;
+    /** The task list whose view is being paged through, or null if the paged listing is not of a view. */
+    private TaskList pagedList;
+    /** The view being paged through, or null if the paged listing is not of a view. */
+    private TaskView pagedView;
+    /** The one-based number of the next page to show. */
+    private int nextPage;
+    /** The number of tasks on each page of the paged listing. */
+    private int pageSize;
+    /** The version of the task list whose numbering the user last saw, or null if it is the current one. */
+    private List<Task> shownTasks;
 
     /**
-     * Initializes the Ui object and its input scanner.
+     * Initializes the Ui object to talk to the console.
      */
     public Ui() {
-        this.scanner = new Scanner(System.in);
+        this(System.out);
+    }
+
+    /**
+     * Initializes a Ui object that prints its messages to the given stream,
+     * for example the connection of a remote session.
+     *
+     * @param out Where messages are printed.
+     */
+    public Ui(PrintStream out) {
+        this.out = out;
     }
 
     /**
      * Reads a full line of command input from the user.
      *
-     * @return The raw string entered by the user.
+     * @return The raw string entered by the user, or null if the input has ended.
      */
     public String readCommand() {
-        return scanner.nextLine();
+        if (scanner == null) {
+            scanner = new Scanner(System.in);
+        }
+        return scanner.hasNextLine() ? scanner.nextLine() : null;
     }
 
     /**
      * Prints the standard welcome message when the bot starts.
      */
     public void showWelcome() {
-        MinionResponses.printWithLines(MinionResponses.WELCOME_MESSAGE);
+        printWithLines(MinionResponses.WELCOME_MESSAGE);
     }
 
     /**
      * Prints the standard goodbye message.
      */
     public void showBye() {
-        MinionResponses.printWithLines(MinionResponses.BYE_MESSAGE);
+        printWithLines(MinionResponses.BYE_MESSAGE);
     }
 
     /**
@@ -52,7 +88,7 @@ public class Ui {
      * @param message The error message to be displayed.
      */
     public void showError(String message) {
-        MinionResponses.printWithLines(message);
+        printWithLines(message);
     }
 
     /**
@@ -63,19 +99,155 @@ public class Ui {
      */
     public void showTaskList(TaskList tasks) {
         if (tasks.isEmpty()) {
-            MinionResponses.printWithLines(MinionResponses.MESSAGE_EMPTY_LIST);
+            printWithLines(MinionResponses.MESSAGE_EMPTY_LIST);
             return;
         }
 
-        StringBuilder listOutput = new StringBuilder(MinionResponses.MESSAGE_LIST_HEADER);
-        for (int i = 0; i < tasks.getSize(); i++) {
-            Task currentTask = tasks.getTask(i);
-            listOutput.append("\t  ").append(i + 1).append(". ").append(currentTask.toString());
-            if (i < tasks.getSize() - 1) {
-                listOutput.append("\n");
-            }
+        // Work from one version of the list, so changes made by other sessions cannot tear the listing
+        List<Task> snapshot = tasks.getAllTasks();
+        shownTasks = snapshot;
+        printTasks(MinionResponses.MESSAGE_LIST_HEADER, snapshot, 0, snapshot.size(), 0, null);
+    }
+
+    /**
+     * Returns the version of the task list that task numbers typed by the user refer to: the one
+     * last listed, or the current one if the user has changed the list since.
+     * Other sessions may have changed the list after that version was listed, so the tasks found
+     * in it must be looked up again by ID.
+     *
+     * @param tasks The task list.
+     * @return The version of the list the user last saw numbered.
+     */
+    public List<Task> getShownTasks(TaskList tasks) {
+        return (shownTasks != null) ? shownTasks : tasks.getAllTasks();
+    }
+
+    /**
+     * Makes task numbers typed by the user refer to the current version of the task list again,
+     * after the user has changed it.
+     */
+    public void forgetShownTasks() {
+        shownTasks = null;
+    }
+
+    /**
+     * Displays one page of the task list and remembers where it ended, so that
+     * {@link #showNextPage()} can carry on from there.
+     *
+     * @param tasks    The TaskList object containing the tasks to display.
+     * @param page     The one-based number of the page to show.
+     * @param pageSize The number of tasks on each page.
+     */
+    public void showTaskPage(TaskList tasks, int page, int pageSize) {
+        endPaging();
+        if (tasks.isEmpty()) {
+            printWithLines(MinionResponses.MESSAGE_EMPTY_LIST);
+            return;
+        }
+
+        List<Task> snapshot = tasks.getAllTasks();
+        int pageCount = (int) ((snapshot.size() + (long) pageSize - 1) / pageSize);
+        if (page > pageCount) {
+            printWithLines(MinionResponses.getPageOutOfRangeMessage(pageCount));
+            return;
+        }
+        pagedTasks = snapshot;
+        shownTasks = snapshot;
+        this.pageSize = pageSize;
+        nextPage = page;
+        showNextPage();
+    }
+
+    /**
+     * Displays every task of a view of the task list, in view order.
+     *
+     * @param tasks The TaskList object containing the tasks to display.
+     * @param view  The view to show.
+     */
+    public void showView(TaskList tasks, TaskView view) {
+        int size = tasks.getViewSize(view);
+        if (size == 0) {
+            printWithLines(MinionResponses.getEmptyViewMessage(view.getName()));
+            return;
         }
-        MinionResponses.printWithLines(listOutput.toString());
+        ArrayList<Task> viewTasks = tasks.getViewTasks(view, 0, size);
+        printTasks(MinionResponses.getViewHeaderMessage(view.getName()), viewTasks, 0, viewTasks.size(), 0, null);
+    }
+
+    /**
+     * Displays one page of a view of the task list and remembers where it ended, so that
+     * {@link #showNextPage()} can carry on from there. Only the tasks on the page are read from the view.
+     *
+     * @param tasks    The TaskList object containing the tasks to display.
+     * @param view     The view to show.
+     * @param page     The one-based number of the page to show.
+     * @param pageSize The number of tasks on each page.
+     */
+    public void showViewPage(TaskList tasks, TaskView view, int page, int pageSize) {
+        endPaging();
+        int size = tasks.getViewSize(view);
+        if (size == 0) {
+            printWithLines(MinionResponses.getEmptyViewMessage(view.getName()));
+            return;
+        }
+
+        int pageCount = (int) ((size + (long) pageSize - 1) / pageSize);
+        if (page > pageCount) {
+            printWithLines(MinionResponses.getPageOutOfRangeMessage(pageCount));
+            return;
+        }
+        pagedList = tasks;
+        pagedView = view;
+        this.pageSize = pageSize;
+        nextPage = page;
+        showNextPage();
+    }
+
+    /**
+     * Checks whether a paged listing has pages left to show.
+     *
+     * @return True if {@link #showNextPage()} has a page to show.
+     */
+    public boolean hasNextPage() {
+        long shown = (long) (nextPage - 1) * pageSize;
+        if (pagedView != null) {
+            return shown < pagedList.getViewSize(pagedView);
+        }
+        return pagedTasks != null && shown < pagedTasks.size();
+    }
+
+    /**
+     * Displays the next page of the current paged listing.
+     * Must only be called when {@link #hasNextPage()} is true.
+     */
+    public void showNextPage() {
+        int from = (nextPage - 1) * pageSize;
+        if (pagedView != null) {
+            int size = pagedList.getViewSize(pagedView);
+            ArrayList<Task> page = pagedList.getViewTasks(pagedView, from, pageSize);
+            int pageCount = (int) ((size + (long) pageSize - 1) / pageSize);
+            String footer = MinionResponses.getPageFooterMessage(nextPage, pageCount);
+            printTasks(MinionResponses.getViewHeaderMessage(pagedView.getName()), page, 0, page.size(), from, footer);
+        } else {
+            int to = (int) Math.min((long) from + pageSize, pagedTasks.size());
+            int pageCount = (int) ((pagedTasks.size() + (long) pageSize - 1) / pageSize);
+            String footer = MinionResponses.getPageFooterMessage(nextPage, pageCount);
+            printTasks(MinionResponses.MESSAGE_LIST_HEADER, pagedTasks, from, to, 0, footer);
+        }
+
+        nextPage++;
+        if (!hasNextPage()) {
+            endPaging();
+        }
+    }
+
+    /**
+     * Forgets the paged listing in progress, if any.
+     */
+    private void endPaging() {
+        pagedTasks = null;
+        pagedList = null;
+        pagedView = null;
     }
 
     /**
@@ -89,14 +261,77 @@ public class Ui {
             return;
         }
 
-        StringBuilder resultsBuilder = new StringBuilder("\t  Ba-na-na! Here are the matching tasks in your list:\n");
-        for (int i = 0; i < results.size(); i++) {
-            resultsBuilder.append("\t  ").append(i + 1).append(". ").append(results.get(i).toString());
-            if (i < results.size() - 1) {
-                resultsBuilder.append("\n");
+        printTasks("\t  Ba-na-na! Here are the matching tasks in your list:\n", results, 0, results.size(), 0, null);
+    }
+
+    /**
+     * Prints a range of tasks, numbered by position and followed by their IDs, wrapped in horizontal line breaks.
+     * The text is printed in chunks of about CHUNK_LENGTH characters as it is built,
+     * so the first lines appear at once and memory use does not grow with the number of tasks;
+     * the print lock is held throughout, so no reminder is printed between the chunks.
+     *
+     * @param header The text printed before the first task, ending with a newline.
+     * @param tasks  The tasks to number and print from.
+     * @param from   The zero-based position of the first task to print.
+     * @param to     The position after the last task to print.
+     * @param offset The number added to the position of each task when numbering it.
+     * @param footer The line printed after the last task, or null for none.
+     */
+    private void printTasks(String header, List<Task> tasks, int from, int to, int offset, String footer) {
+        long start = System.nanoTime();
+        synchronized (printLock) {
+            out.println(MinionResponses.LINE_BREAK);
+            StringBuilder chunk = new StringBuilder(CHUNK_LENGTH + 256).append(header);
+            for (int i = from; i < to; i++) {
+                Task task = tasks.get(i);
+                chunk.append("\t  ").append(offset + i + 1).append(". ").append(task.toString())
+                        .append(" (#").append(task.getId()).append(')');
+                if (i < to - 1) {
+                    chunk.append("\n");
+                }
+                if (chunk.length() >= CHUNK_LENGTH) {
+                    out.print(chunk);
+                    chunk.setLength(0);
+                }
+            }
+            if (footer != null) {
+                chunk.append("\n").append(footer);
             }
+            out.print(chunk);
+            out.println();
+            out.println(MinionResponses.LINE_BREAK);
+        }
+        Stats.recordPhase(Stats.Phase.RENDER, start);
+    }
+
+    /**
+     * Prints a message wrapped in horizontal line breaks.
+     *
+     * @param message The text to be printed.
+     */
+    private void printWithLines(String message) {
+        long start = System.nanoTime();
+        synchronized (printLock) {
+            MinionResponses.printWithLines(out, message);
+        }
+        Stats.recordPhase(Stats.Phase.RENDER, start);
+    }
+
+    /**
+     * Displays a reminder that a task is due or starts soon. It may be called from another thread
+     * while a command is running, so it takes the print lock and waits for a message or listing
+     * being printed to finish, rather than splitting it.
+     *
+     * @param task        The task.
+     * @param minutesLeft The number of minutes, rounded up, until the task is due or starts.
+     * @param isStart     Whether the task starts, rather than falls due, then.
+     */
+    public void showReminder(Task task, long minutesLeft, boolean isStart) {
+        String message = MinionResponses.getReminderMessage(task + " (#" + task.getId() + ")", minutesLeft, isStart);
+        synchronized (printLock) {
+            out.print(MinionResponses.LINE_BREAK + "\n" + message + "\n" + MinionResponses.LINE_BREAK + "\n");
+            out.flush();
         }
-        showMessage(resultsBuilder.toString());
     }
 
     /**
@@ -105,6 +340,6 @@ public class Ui {
      * @param message The text to be printed.
      */
     public void showMessage(String message) {
-        MinionResponses.printWithLines(message);
+        printWithLines(message);
     }
 }
\ No newline at end of file
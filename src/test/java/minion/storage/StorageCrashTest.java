@@ -0,0 +1,294 @@
+package minion.storage;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import minion.exception.MinionException;
+import minion.task.Task;
+import minion.task.TaskList;
+import minion.task.Todo;
+
+/**
+ * Checks that a journaled data file survives a crash at any step of a full save.
+ * A crash is simulated by putting a folder where the save is about to write a file, which makes
+ * that step fail and leaves the files exactly as a crash at that moment would. After the folder
+ * is taken away again, loading must give either the list from before the save or the one being
+ * saved, and never the old journal replayed on top of the new snapshot.
+ *
+ * <p>Compile and run from the project root with, for example:
+ * <pre>
+ * javac -d bin $(find src/main/java src/test/java -name "*.java")
+ * java -ea -cp bin minion.storage.StorageCrashTest
+ * </pre>
+ */
+public class StorageCrashTest {
+
+    /** The name of the data file inside each test folder. */
+    private static final String DATA_FILE = "minion.txt";
+
+    /** The folder the data files are written in. */
+    private final Path workDir;
+    /** The format used to compare loaded tasks with the expected ones. */
+    private final TextCodec codec;
+
+    /**
+     * Initializes the test.
+     *
+     * @param workDir The folder for temporary data files.
+     */
+    private StorageCrashTest(Path workDir) {
+        this.workDir = workDir;
+        this.codec = new TextCodec();
+    }
+
+    /**
+     * Runs every check, stopping at the first that fails.
+     *
+     * @param args Not used.
+     * @throws Exception If a check fails or a file cannot be written.
+     */
+    public static void main(String[] args) throws Exception {
+        Path workDir = Files.createTempDirectory("minion-crash");
+        try {
+            StorageCrashTest test = new StorageCrashTest(workDir);
+            test.crashBeforeSnapshotIsComplete();
+            test.crashBeforeSealedJournalIsDeleted();
+            test.crashBeforeSnapshotIsMovedIntoPlace();
+            test.saveAfterFailedCompaction();
+            System.out.println("StorageCrashTest: all checks passed");
+        } finally {
+            deleteTree(workDir);
+        }
+    }
+
+    /**
+     * A crash while the new snapshot is still being written must keep the old list and its journal.
+     *
+     * @throws Exception If the check fails.
+     */
+    private void crashBeforeSnapshotIsComplete() throws Exception {
+        Path dataFile = prepare("incomplete");
+        List<String> before = journaledState(dataFile);
+        crashSave(dataFile, dataFile.resolveSibling(DATA_FILE + ".compact"));
+        check("crash before the snapshot is complete", before, loadState(dataFile));
+    }
+
+    /**
+     * A crash before the journal is given up must keep the old list and its journal.
+     *
+     * @throws Exception If the check fails.
+     */
+    private void crashBeforeSealedJournalIsDeleted() throws Exception {
+        Path dataFile = prepare("sealed");
+        List<String> before = journaledState(dataFile);
+        crashSave(dataFile, dataFile.resolveSibling(DATA_FILE + ".log.sealed"));
+        check("crash before the journal is deleted", before, loadState(dataFile));
+    }
+
+    /**
+     * A crash after the journal is given up but before the new snapshot is moved into place must
+     * give the new list, with none of the old journal replayed on top of it.
+     *
+     * @throws Exception If the check fails.
+     */
+    private void crashBeforeSnapshotIsMovedIntoPlace() throws Exception {
+        Path dataFile = prepare("move");
+        journaledState(dataFile);
+        byte[] oldSnapshot = Files.readAllBytes(dataFile);
+        Files.delete(dataFile);
+        crashSave(dataFile, dataFile);
+        Files.write(dataFile, oldSnapshot);
+        check("crash before the snapshot is moved into place", format(savedTasks()), loadState(dataFile));
+    }
+
+    /**
+     * A full save while a sealed journal and an active journal are both waiting must fold both in.
+     *
+     * @throws Exception If the check fails.
+     */
+    private void saveAfterFailedCompaction() throws Exception {
+        Path dataFile = prepare("failed");
+        List<String> journaled = journaledState(dataFile);
+        // Seal the journal by hand, as a compaction that failed would leave it, and start a new one
+        Path active = dataFile.resolveSibling(DATA_FILE + ".log");
+        Files.move(active, dataFile.resolveSibling(DATA_FILE + ".log.sealed"));
+        Todo extra = new Todo("extra");
+        extra.setId(9);
+        Files.writeString(active, Journal.format(Journal.ADD, codec.formatTask(extra)) + System.lineSeparator());
+        Storage storage = journaledStorage(dataFile);
+        List<Task> tasks = storage.load();
+        check("load with a sealed and an active journal", withExtra(journaled, extra), format(tasks));
+
+        List<Task> saved = savedTasks();
+        storage.save(saved);
+        storage.close();
+        check("save with a sealed and an active journal", format(saved), loadState(dataFile));
+    }
+
+    /**
+     * Returns a list in the text format with one more task at the end.
+     *
+     * @param tasks The tasks, in the text format.
+     * @param extra The task to add.
+     * @return The longer list.
+     */
+    private List<String> withExtra(List<String> tasks, Task extra) {
+        List<String> longer = new ArrayList<>(tasks);
+        longer.add(codec.formatTask(extra));
+        return longer;
+    }
+
+    /**
+     * Writes a snapshot of three tasks into a fresh folder.
+     *
+     * @param name The name of the folder.
+     * @return The path of the data file.
+     * @throws IOException If the folder or file cannot be written.
+     */
+    private Path prepare(String name) throws IOException {
+        Path dataFile = Files.createDirectories(workDir.resolve(name)).resolve(DATA_FILE);
+        Storage storage = journaledStorage(dataFile);
+        storage.save(initialTasks());
+        storage.close();
+        return dataFile;
+    }
+
+    /**
+     * Journals an add and a mark on top of the snapshot written by {@link #prepare(String)}.
+     *
+     * @param dataFile The path of the data file.
+     * @return The list as it stands after the journaled changes, in the text format.
+     * @throws Exception If the changes cannot be saved.
+     */
+    private List<String> journaledState(Path dataFile) throws Exception {
+        Storage storage = journaledStorage(dataFile);
+        List<Task> tasks = storage.load();
+        Todo added = new Todo("read book");
+        added.setId(4);
+        tasks.add(added);
+        storage.saveAdded(tasks, added);
+        tasks.get(1).setDone(true);
+        storage.saveMarked(tasks, tasks.get(1), true);
+        storage.close();
+        return format(tasks);
+    }
+
+    /**
+     * Saves the list of {@link #savedTasks()} in full while a folder blocks one of the files it writes.
+     *
+     * @param dataFile The path of the data file.
+     * @param blocked  The file the save must fail to write.
+     * @throws Exception If the save does not fail.
+     */
+    private void crashSave(Path dataFile, Path blocked) throws Exception {
+        Storage storage = journaledStorage(dataFile);
+        storage.load();
+        Files.createDirectories(blocked.resolve("blocker"));
+        try {
+            storage.save(savedTasks());
+            throw new AssertionError("The save did not reach " + blocked.getFileName());
+        } catch (IOException e) {
+            // The simulated crash
+        }
+        deleteTree(blocked);
+    }
+
+    /**
+     * Loads the data file with a new Storage, as the chatbot does after a restart.
+     *
+     * @param dataFile The path of the data file.
+     * @return The loaded tasks, in the text format.
+     * @throws MinionException If the data file cannot be loaded.
+     * @throws IOException     If the journal cannot be closed.
+     */
+    private List<String> loadState(Path dataFile) throws MinionException, IOException {
+        Storage storage = journaledStorage(dataFile);
+        List<String> state = format(storage.load());
+        storage.close();
+        return state;
+    }
+
+    /**
+     * Returns a Storage for a data file that journals every change.
+     *
+     * @param dataFile The path of the data file.
+     * @return The Storage.
+     */
+    private static Storage journaledStorage(Path dataFile) {
+        Storage storage = new Storage(dataFile.toString());
+        storage.setJournaled(true);
+        return storage;
+    }
+
+    /**
+     * Returns the three tasks every check starts from.
+     *
+     * @return The tasks, with IDs 1 to 3.
+     */
+    private static List<Task> initialTasks() {
+        List<Task> tasks = new ArrayList<>(List.of(new Todo("buy milk"), new Todo("call mum"), new Todo("pay rent")));
+        TaskList.assignMissingIds(tasks);
+        return tasks;
+    }
+
+    /**
+     * Returns the list the crashing saves write: the first task deleted, the journaled mark undone
+     * and the journaled add kept. Replaying the old journal on top of it would change it.
+     *
+     * @return The tasks.
+     */
+    private static List<Task> savedTasks() {
+        List<Task> tasks = initialTasks();
+        tasks.remove(0);
+        Todo added = new Todo("read book");
+        added.setId(4);
+        tasks.add(added);
+        return tasks;
+    }
+
+    /**
+     * Writes tasks in the text format so that lists can be compared.
+     *
+     * @param tasks The tasks.
+     * @return One line per task.
+     */
+    private List<String> format(List<Task> tasks) {
+        return tasks.stream().map(codec::formatTask).collect(Collectors.toList());
+    }
+
+    /**
+     * Fails unless the loaded tasks are the expected ones.
+     *
+     * @param name     What was checked.
+     * @param expected The expected tasks, in the text format.
+     * @param actual   The loaded tasks, in the text format.
+     */
+    private static void check(String name, List<String> expected, List<String> actual) {
+        if (!expected.equals(actual)) {
+            throw new AssertionError(name + ": expected " + expected + " but loaded " + actual);
+        }
+    }
+
+    /**
+     * Deletes a file or a folder and everything in it.
+     *
+     * @param path The file or folder.
+     * @throws IOException If anything cannot be deleted.
+     */
+    private static void deleteTree(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(path)) {
+            for (Path each : paths.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                Files.delete(each);
+            }
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package minion.task;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Checks that the keyword index keeps to its heap budget while still finding the right tasks.
+ * The budget is checked both against the index's own estimate after every add and against the
+ * heap it actually holds once built.
+ *
+ * <p>Compile and run from the project root with, for example:
+ * <pre>
+ * javac -d bin $(find src/main/java src/test/java -name "*.java")
+ * java -ea -Xmx1g -cp bin minion.task.KeywordIndexTest
+ * </pre>
+ */
+public class KeywordIndexTest {
+
+    /** The heap budget given to the index under test, in bytes. */
+    private static final long MAX_BYTES = 8L << 20;
+    /** The seed used for every generated description. */
+    private static final long SEED = 42;
+
+    /** The source of generated descriptions. */
+    private final Random random;
+
+    /** Initializes the test. */
+    private KeywordIndexTest() {
+        this.random = new Random(SEED);
+    }
+
+    /**
+     * Runs every check, stopping at the first that fails.
+     *
+     * @param args Not used.
+     */
+    public static void main(String[] args) {
+        KeywordIndexTest test = new KeywordIndexTest();
+        test.staysUnderBudgetWithManyTasks();
+        test.givesUpWhenTrigramsAreAllDistinct();
+        test.keepsSmallListsFullyIndexed();
+        System.out.println("KeywordIndexTest: all checks passed");
+    }
+
+    /**
+     * Half a million tasks of random words would take several times the budget if fully indexed.
+     * The index must stay under the budget, on its estimate and on the heap, keep narrowing searches
+     * for words with rare trigrams, and still find exactly the tasks a scan finds.
+     */
+    private void staysUnderBudgetWithManyTasks() {
+        String[] vocabulary = generateWords(20_000);
+        List<Task> tasks = generate(500_000, vocabulary);
+        long before = usedHeap();
+        KeywordIndex index = new KeywordIndex(MAX_BYTES);
+        for (Task task : tasks) {
+            index.add(task);
+            check("estimate after add", index.estimateBytes() <= MAX_BYTES);
+        }
+        long held = usedHeap() - before;
+        check("heap held by the index (" + held + " bytes)", held <= MAX_BYTES);
+
+        // Removing from the back keeps the positions of the tasks still to be removed
+        for (int i = 999; i >= 0; i--) {
+            index.remove(tasks.remove(i * 7));
+        }
+        int narrowed = 0;
+        for (int i = 0; i < 100; i++) {
+            String keyword = vocabulary[i];
+            ArrayList<Task> found = index.find(keyword);
+            if (found != null) {
+                check("matches for " + keyword, found.equals(scan(tasks, keyword)));
+                narrowed++;
+            }
+        }
+        check("searches narrowed by the index (" + narrowed + " of 100)", narrowed >= 10);
+    }
+
+    /**
+     * Descriptions that share no trigrams leave nothing worth indexing, so the index must give up
+     * and leave every search to a scan rather than grow past its budget.
+     */
+    private void givesUpWhenTrigramsAreAllDistinct() {
+        List<Task> tasks = generate(200_000, generateWords(200_000, '一', 20_000, 16));
+        KeywordIndex index = new KeywordIndex(MAX_BYTES);
+        for (Task task : tasks) {
+            index.add(task);
+            check("estimate after add", index.estimateBytes() <= MAX_BYTES);
+        }
+        check("search falls back to a scan", index.find(tasks.get(0).getDescription().substring(0, 3)) == null);
+    }
+
+    /**
+     * A list far under the budget must stay fully indexed, so searches never fall back to a scan.
+     */
+    private void keepsSmallListsFullyIndexed() {
+        String[] vocabulary = generateWords(20_000);
+        List<Task> tasks = generate(10_000, vocabulary);
+        KeywordIndex index = new KeywordIndex(MAX_BYTES);
+        for (Task task : tasks) {
+            index.add(task);
+        }
+        String keyword = vocabulary[0];
+        ArrayList<Task> found = index.find(keyword);
+        check("search uses the index", found != null);
+        check("matches for " + keyword, found.equals(scan(tasks, keyword)));
+    }
+
+    /**
+     * Generates tasks whose descriptions are four words from a vocabulary.
+     *
+     * @param count      The number of tasks.
+     * @param vocabulary The words descriptions are made of.
+     * @return The tasks, with IDs in list order.
+     */
+    private List<Task> generate(int count, String[] vocabulary) {
+        ArrayList<Task> tasks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            StringBuilder description = new StringBuilder(vocabulary[random.nextInt(vocabulary.length)]);
+            for (int j = 1; j < 4 && vocabulary.length > 1; j++) {
+                description.append(' ').append(vocabulary[random.nextInt(vocabulary.length)]);
+            }
+            Todo task = new Todo(description.toString());
+            task.setId(i + 1);
+            tasks.add(task);
+        }
+        return tasks;
+    }
+
+    /**
+     * Generates lower-case words of four to eight letters.
+     *
+     * @param count The number of words.
+     * @return The words.
+     */
+    private String[] generateWords(int count) {
+        String[] words = new String[count];
+        for (int i = 0; i < count; i++) {
+            words[i] = generateWords(1, 'a', 26, 4 + random.nextInt(5))[0];
+        }
+        return words;
+    }
+
+    /**
+     * Generates words of random characters.
+     *
+     * @param count    The number of words.
+     * @param first    The first character words are drawn from.
+     * @param alphabet The number of characters words are drawn from.
+     * @param length   The length of each word.
+     * @return The words.
+     */
+    private String[] generateWords(int count, char first, int alphabet, int length) {
+        String[] words = new String[count];
+        char[] text = new char[length];
+        for (int i = 0; i < count; i++) {
+            for (int j = 0; j < length; j++) {
+                text[j] = (char) (first + random.nextInt(alphabet));
+            }
+            words[i] = new String(text);
+        }
+        return words;
+    }
+
+    /**
+     * Finds the tasks containing a keyword by reading every one.
+     *
+     * @param tasks   The tasks still in the index.
+     * @param keyword The lower-cased keyword.
+     * @return The matching tasks in list order.
+     */
+    private static ArrayList<Task> scan(List<Task> tasks, String keyword) {
+        ArrayList<Task> matches = new ArrayList<>();
+        for (Task task : tasks) {
+            if (task.getDescription().contains(keyword)) {
+                matches.add(task);
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Returns the heap in use after collecting garbage.
+     *
+     * @return The used heap in bytes.
+     */
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * Fails unless a condition holds.
+     *
+     * @param name      What was checked.
+     * @param condition The condition.
+     */
+    private static void check(String name, boolean condition) {
+        if (!condition) {
+            throw new AssertionError(name);
+        }
+    }
+}